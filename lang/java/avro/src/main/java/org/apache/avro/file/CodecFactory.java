@@ -106,6 +106,14 @@ public abstract class CodecFactory {
   /** Creates internal Codec. */
   protected abstract Codec createInstance();
 
+  /**
+   * Creates a new instance of the codec, for compressing data outside of data
+   * files. Instances are not thread-safe.
+   */
+  public Codec newCodec() {
+    return createInstance();
+  }
+
   /**
    * Mapping of string names (stored as metas) and codecs. Note that currently
    * options (like compression level) are not recoverable.
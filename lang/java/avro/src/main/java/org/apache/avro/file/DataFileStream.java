@@ -210,7 +210,11 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
         }
         if (hasNextBlock()) {
           block = nextRawBlock(block);
+          FileMetrics.BLOCKS_READ.inc();
+          FileMetrics.RECORDS_READ.add(blockCount);
+          FileMetrics.BYTES_READ.add(block.getBlockSize());
           block.decompressUsing(codec);
+          FileMetrics.BYTES_DECODED.add(block.getBlockSize());
           blockBuffer = block.getAsByteBuffer();
           datumIn = DecoderFactory.get().binaryDecoder(blockBuffer.array(),
               blockBuffer.arrayOffset() + blockBuffer.position(), blockBuffer.remaining(), datumIn);
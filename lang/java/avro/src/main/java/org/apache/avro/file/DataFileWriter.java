@@ -73,6 +73,18 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   private byte[] sync; // 16 random bytes
   private int syncInterval = DataFileConstants.DEFAULT_SYNC_INTERVAL;
 
+  private int targetBlockSize; // compressed bytes per block, or 0 if fixed
+  private long maxBlockRecords; // 0 if unlimited
+  private long maxBlockDelay; // milliseconds, or 0 if unlimited
+  private int blockLimit = syncInterval; // uncompressed bytes that end a block
+  private double compressionRatio; // estimated compressed/uncompressed bytes
+  private long blockStart; // when the first entry of the block was appended
+
+  private long blocksWritten;
+  private long recordsWritten;
+  private long bytesEncoded;
+  private long bytesWritten;
+
   private boolean isOpen;
   private Codec codec;
 
@@ -126,9 +138,87 @@ public class DataFileWriter<D> implements Closeable, Flushable {
       throw new IllegalArgumentException("Invalid syncInterval value: " + syncInterval);
     }
     this.syncInterval = syncInterval;
+    if (targetBlockSize == 0)
+      this.blockLimit = syncInterval;
+    return this;
+  }
+
+  /**
+   * Size blocks adaptively, so that each holds about the given number of bytes
+   * after compression. The uncompressed size at which blocks end starts at the
+   * target and follows the compression ratio observed in the blocks that reached
+   * it, within 64 times the target; blocks ended early by a sync, flush, record
+   * limit or delay are not counted. This overrides the
+   * {@linkplain #setSyncInterval(int) sync interval}, which applies again if the
+   * target is set to zero.
+   *
+   * @param targetBlockSize the approximate number of compressed bytes to write
+   *                        in each block, from 32 to 2^30, or 0 to use the sync
+   *                        interval
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setTargetBlockSize(int targetBlockSize) {
+    if (targetBlockSize != 0 && (targetBlockSize < 32 || targetBlockSize > (1 << 30))) {
+      throw new IllegalArgumentException("Invalid targetBlockSize value: " + targetBlockSize);
+    }
+    this.targetBlockSize = targetBlockSize;
+    this.compressionRatio = 0;
+    this.blockLimit = targetBlockSize == 0 ? syncInterval : targetBlockSize;
+    return this;
+  }
+
+  /**
+   * End blocks once they hold the given number of entries, however small, to
+   * bound the entries a reader holds at once.
+   *
+   * @param maxBlockRecords the most entries in a block, or 0 for no limit
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setMaxBlockRecords(long maxBlockRecords) {
+    if (maxBlockRecords < 0) {
+      throw new IllegalArgumentException("Invalid maxBlockRecords value: " + maxBlockRecords);
+    }
+    this.maxBlockRecords = maxBlockRecords;
+    return this;
+  }
+
+  /**
+   * End blocks once their first entry is older than the given delay, so that
+   * slow streams of entries reach the file in time. Blocks are ended when an
+   * entry is appended, so an idle writer still needs {@linkplain #flush()}.
+   *
+   * @param maxBlockDelay the most milliseconds between appending the first entry
+   *                      of a block and writing the block, or 0 for no limit
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setMaxBlockDelay(long maxBlockDelay) {
+    if (maxBlockDelay < 0) {
+      throw new IllegalArgumentException("Invalid maxBlockDelay value: " + maxBlockDelay);
+    }
+    this.maxBlockDelay = maxBlockDelay;
     return this;
   }
 
+  /** Returns the number of blocks this writer has encoded. */
+  public long getBlocksWritten() {
+    return blocksWritten;
+  }
+
+  /** Returns the number of entries in the blocks this writer has encoded. */
+  public long getRecordsWritten() {
+    return recordsWritten;
+  }
+
+  /** Returns the uncompressed bytes of the blocks this writer has encoded. */
+  public long getBytesEncoded() {
+    return bytesEncoded;
+  }
+
+  /** Returns the compressed bytes of the blocks this writer has encoded. */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
   /** Open a new file for data matching a schema with a random sync. */
   public DataFileWriter<D> create(Schema schema, File file) throws IOException {
     SyncableFileOutputStream sfos = new SyncableFileOutputStream(file);
@@ -347,8 +437,17 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   }
 
   private void writeIfBlockFull() throws IOException {
-    if (bufferInUse() >= syncInterval)
-      writeBlock();
+    if (bufferInUse() >= blockLimit)
+      writeBlock(true);
+    else if (maxBlockRecords > 0 && blockCount >= maxBlockRecords)
+      writeBlock(false);
+    else if (maxBlockDelay > 0) {
+      long now = System.currentTimeMillis();
+      if (blockCount == 1)
+        blockStart = now;
+      else if (now - blockStart >= maxBlockDelay)
+        writeBlock(false);
+    }
   }
 
   /**
@@ -378,7 +477,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
       throw new IOException("Schema from file " + otherFile + " does not match");
     }
     // flush anything written so far
-    writeBlock();
+    writeBlock(false);
     Codec otherCodec = otherFile.resolveCodec();
     DataBlock nextBlockRaw = null;
     if (codec.equals(otherCodec) && !recompress) {
@@ -397,15 +496,27 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
   }
 
-  private void writeBlock() throws IOException {
+  // full is whether the block reached the limit, so its ratio is representative
+  private void writeBlock(boolean full) throws IOException {
     if (blockCount > 0) {
       try {
         bufOut.flush();
         ByteBuffer uncompressed = buffer.getByteArrayAsByteBuffer();
+        int uncompressedSize = uncompressed.remaining();
         DataBlock block = new DataBlock(uncompressed, blockCount);
         block.setFlushOnWrite(flushOnEveryBlock);
         block.compressUsing(codec);
         block.writeBlockTo(vout, sync);
+        FileMetrics.BLOCKS_WRITTEN.inc();
+        FileMetrics.RECORDS_WRITTEN.add(blockCount);
+        FileMetrics.BYTES_ENCODED.add(uncompressedSize);
+        FileMetrics.BYTES_WRITTEN.add(block.getBlockSize());
+        blocksWritten++;
+        recordsWritten += blockCount;
+        bytesEncoded += uncompressedSize;
+        bytesWritten += block.getBlockSize();
+        if (full && targetBlockSize > 0)
+          adaptBlockLimit((double) block.getBlockSize() / uncompressedSize);
       } finally {
         buffer.reset();
         blockCount = 0;
@@ -413,6 +524,13 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
   }
 
+  // average the ratio with that of earlier blocks, and size blocks to match
+  private void adaptBlockLimit(double ratio) {
+    compressionRatio = compressionRatio == 0 ? ratio : (compressionRatio + ratio) / 2;
+    double limit = targetBlockSize / Math.max(compressionRatio, 1e-9);
+    blockLimit = (int) Math.max(32, Math.min(limit, Math.min(1 << 30, 64L * targetBlockSize)));
+  }
+
   /**
    * Return the current position as a value that may be passed to
    * {@link DataFileReader#seek(long)}. Forces the end of the current block,
@@ -425,7 +543,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    */
   public long sync() throws IOException {
     assertOpen();
-    writeBlock();
+    writeBlock(false);
     return out.tell();
   }
 
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import org.apache.avro.metrics.Counter;
+import org.apache.avro.metrics.MetricRegistry;
+
+/**
+ * Data file metrics, registered with {@link MetricRegistry#get()}. They are
+ * updated once per block, not per datum, to keep the cost off the append and
+ * read paths.
+ */
+final class FileMetrics {
+  static final Counter BLOCKS_WRITTEN = MetricRegistry.get().counter("avro_file_blocks_written_total",
+      "Data file blocks written.");
+  static final Counter RECORDS_WRITTEN = MetricRegistry.get().counter("avro_file_records_written_total",
+      "Data file records written.");
+  static final Counter BYTES_ENCODED = MetricRegistry.get().counter("avro_file_bytes_encoded_total",
+      "Uncompressed bytes of data file blocks written.");
+  static final Counter BYTES_WRITTEN = MetricRegistry.get().counter("avro_file_bytes_written_total",
+      "Compressed bytes of data file blocks written.");
+
+  static final Counter BLOCKS_READ = MetricRegistry.get().counter("avro_file_blocks_read_total",
+      "Data file blocks read.");
+  static final Counter RECORDS_READ = MetricRegistry.get().counter("avro_file_records_read_total",
+      "Data file records in blocks read.");
+  static final Counter BYTES_READ = MetricRegistry.get().counter("avro_file_bytes_read_total",
+      "Compressed bytes of data file blocks read.");
+  static final Counter BYTES_DECODED = MetricRegistry.get().counter("avro_file_bytes_decoded_total",
+      "Uncompressed bytes of data file blocks read.");
+
+  private FileMetrics() {
+  }
+}
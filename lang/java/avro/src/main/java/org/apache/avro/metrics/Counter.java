@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count. Increments are striped across cells so
+ * that concurrent updates do not contend.
+ */
+public class Counter {
+  private final LongAdder value = new LongAdder();
+
+  /** Adds one to this counter. */
+  public void inc() {
+    value.increment();
+  }
+
+  /** Adds a non-negative amount to this counter. */
+  public void add(long amount) {
+    value.add(amount);
+  }
+
+  /** Returns the current count. */
+  public long get() {
+    return value.sum();
+  }
+}
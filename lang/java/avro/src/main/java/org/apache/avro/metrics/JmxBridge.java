@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes the metrics of a {@link MetricRegistry} as read-only attributes of a
+ * JMX MBean. Counters and gauges appear as one attribute named
+ * <code>name{labels}</code>; histograms appear as <code>.count</code>,
+ * <code>.mean</code>, <code>.p50</code>, <code>.p99</code> and
+ * <code>.p999</code> attributes. The attribute set is computed on each access,
+ * so metrics registered after the bridge are visible too.
+ */
+public class JmxBridge implements DynamicMBean {
+  /** The object name used by {@link #register(MetricRegistry)}. */
+  public static final String DEFAULT_NAME = "org.apache.avro:type=Metrics";
+
+  private final MetricRegistry registry;
+
+  public JmxBridge(MetricRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Registers a bridge for a registry with the platform MBean server under
+   * {@link #DEFAULT_NAME}.
+   */
+  public static ObjectName register(MetricRegistry registry) throws JMException {
+    return register(registry, new ObjectName(DEFAULT_NAME));
+  }
+
+  /** Registers a bridge for a registry with the platform MBean server. */
+  public static ObjectName register(MetricRegistry registry, ObjectName name) throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    return server.registerMBean(new JmxBridge(registry), name).getObjectName();
+  }
+
+  private Map<String, Supplier<Object>> attributes() {
+    Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+    for (MetricRegistry.Family family : registry.getFamilies()) {
+      for (Map.Entry<String, Object> e : family.getMetrics().entrySet()) {
+        String name = e.getKey().isEmpty() ? family.getName() : family.getName() + "{" + e.getKey() + "}";
+        Object metric = e.getValue();
+        switch (family.getType()) {
+        case COUNTER:
+          attributes.put(name, () -> ((Counter) metric).get());
+          break;
+        case GAUGE:
+          attributes.put(name, () -> ((Gauge) metric).getValue());
+          break;
+        case HISTOGRAM:
+          LogLinearHistogram h = (LogLinearHistogram) metric;
+          attributes.put(name + ".count", () -> h.getCount());
+          attributes.put(name + ".mean", () -> h.snapshot().getMean());
+          attributes.put(name + ".p50", () -> h.snapshot().getValueAtPercentile(50));
+          attributes.put(name + ".p99", () -> h.snapshot().getValueAtPercentile(99));
+          attributes.put(name + ".p999", () -> h.snapshot().getValueAtPercentile(99.9));
+          break;
+        default:
+          throw new IllegalStateException("Unknown type: " + family.getType());
+        }
+      }
+    }
+    return attributes;
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    Supplier<Object> value = attributes().get(attribute);
+    if (value == null) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return value.get();
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] names) {
+    Map<String, Supplier<Object>> attributes = attributes();
+    AttributeList result = new AttributeList();
+    for (String name : names) {
+      Supplier<Object> value = attributes.get(name);
+      if (value != null) {
+        result.add(new Attribute(name, value.get()));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    Map<String, Supplier<Object>> attributes = attributes();
+    MBeanAttributeInfo[] infos = new MBeanAttributeInfo[attributes.size()];
+    int i = 0;
+    for (String name : attributes.keySet()) {
+      String type = name.endsWith(".mean") ? Double.class.getName() : Long.class.getName();
+      infos[i++] = new MBeanAttributeInfo(name, type, name, true, false, false);
+    }
+    return new MBeanInfo(getClass().getName(), "Avro metrics", infos, null, null, null);
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values using log-linear buckets,
+ * in the style of HdrHistogram. Values below {@code 2 * SUB_BUCKETS} are
+ * counted exactly; above that each power of two is split into
+ * {@link #SUB_BUCKETS} equal-width buckets, which bounds the relative error of
+ * reported percentiles to {@code 1 / SUB_BUCKETS} (about 3%).
+ *
+ * Recording never blocks: bucket counts are kept in an
+ * {@link AtomicLongArray} and totals in striped {@link LongAdder}s, so many
+ * threads may call {@link #record(long)} concurrently. Readers obtain an
+ * immutable {@link Snapshot}. Snapshots taken while values are being recorded
+ * are not atomic across buckets, but every recorded value is eventually
+ * reflected in exactly one snapshot taken by {@link #snapshotAndReset()}.
+ */
+public class LogLinearHistogram {
+  /** Number of bits used to index the linear sub-buckets. */
+  static final int SUB_BUCKET_BITS = 5;
+  /** Number of linear sub-buckets per power of two. */
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** Total number of buckets needed to cover all non-negative longs. */
+  static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  /** How many recent values we keep for display. */
+  public static final int MAX_HISTORY_SIZE = 20;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final DoubleAdder sumOfSquares = new DoubleAdder();
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+  private final AtomicLongArray recent = new AtomicLongArray(MAX_HISTORY_SIZE);
+  private final AtomicLong recentCursor = new AtomicLong();
+
+  /** Returns the bucket index for a non-negative value. */
+  static int bucketIndex(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /** Returns the smallest value counted by the bucket at an index. */
+  public static long lowestValueAt(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+    return subBucket << shift;
+  }
+
+  /** Returns the largest value counted by the bucket at an index. */
+  public static long highestValueAt(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    return lowestValueAt(index) + (1L << shift) - 1;
+  }
+
+  /**
+   * Records a value. Negative values, which can only be caused by a misbehaving
+   * clock, are recorded as zero.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.getAndIncrement(bucketIndex(value));
+    count.increment();
+    sum.add(value);
+    sumOfSquares.add((double) value * value);
+    min.accumulate(value);
+    max.accumulate(value);
+    recent.lazySet((int) (recentCursor.getAndIncrement() % MAX_HISTORY_SIZE), value);
+  }
+
+  /** Returns the number of values recorded since creation or the last reset. */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /** Returns an immutable copy of the current state of this histogram. */
+  public Snapshot snapshot() {
+    long[] c = new long[BUCKET_COUNT];
+    for (int i = 0; i < c.length; i++) {
+      c[i] = counts.get(i);
+    }
+    return new Snapshot(c, count.sum(), sum.sum(), sumOfSquares.sum(), min.get(), max.get(),
+        recentValues(recentCursor.get()));
+  }
+
+  /**
+   * Returns an immutable copy of the current state of this histogram and resets
+   * it, so that the next snapshot only covers values recorded after this call,
+   * recent values included.
+   */
+  public Snapshot snapshotAndReset() {
+    long[] recentValues = recentValues(recentCursor.getAndSet(0));
+    long[] c = new long[BUCKET_COUNT];
+    for (int i = 0; i < c.length; i++) {
+      c[i] = counts.getAndSet(i, 0);
+    }
+    return new Snapshot(c, count.sumThenReset(), sum.sumThenReset(), sumOfSquares.sumThenReset(),
+        min.getThenReset(), max.getThenReset(), recentValues);
+  }
+
+  /** Returns the values recorded before a ring cursor, most recent first. */
+  private long[] recentValues(long cursor) {
+    int n = (int) Math.min(cursor, MAX_HISTORY_SIZE);
+    long[] values = new long[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = recent.get((int) ((cursor - 1 - i) % MAX_HISTORY_SIZE));
+    }
+    return values;
+  }
+
+  /** An immutable point-in-time view of a {@link LogLinearHistogram}. */
+  public static class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final double sumOfSquares;
+    private final long min;
+    private final long max;
+    private final long[] recentValues;
+
+    Snapshot(long[] counts, long count, long sum, double sumOfSquares, long min, long max, long[] recentValues) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.sumOfSquares = sumOfSquares;
+      this.min = min;
+      this.max = max;
+      this.recentValues = recentValues;
+    }
+
+    /** Returns the number of recorded values. */
+    public long getCount() {
+      return count;
+    }
+
+    /** Returns the sum of all recorded values. */
+    public long getSum() {
+      return sum;
+    }
+
+    /** Returns the smallest recorded value, or zero if nothing was recorded. */
+    public long getMin() {
+      return count == 0 ? 0 : min;
+    }
+
+    /** Returns the largest recorded value, or zero if nothing was recorded. */
+    public long getMax() {
+      return count == 0 ? 0 : max;
+    }
+
+    /** Returns the mean of the recorded values, or NaN if there are none. */
+    public double getMean() {
+      if (count == 0) {
+        return Double.NaN;
+      }
+      return (double) sum / count;
+    }
+
+    /**
+     * Returns the unbiased standard deviation of the recorded values, or NaN if
+     * fewer than two values were recorded.
+     */
+    public double getUnbiasedStdDev() {
+      if (count <= 1) {
+        return Double.NaN;
+      }
+      double mean = getMean();
+      return Math.sqrt(Math.max(0, (sumOfSquares - count * mean * mean) / (count - 1)));
+    }
+
+    /**
+     * Returns the value below which the given percentage of recorded values fall.
+     * The result is the upper bound of the bucket holding that value, clamped to
+     * the recorded minimum and maximum.
+     *
+     * @param percentile a percentage between 0 and 100, e.g. 99.9
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException("Percentile must be in [0,100]: " + percentile);
+      }
+      if (count == 0) {
+        return 0;
+      }
+      if (percentile == 0) {
+        return min;
+      }
+      long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= target) {
+          return Math.max(getMin(), Math.min(highestValueAt(i), getMax()));
+        }
+      }
+      return getMax();
+    }
+
+    /**
+     * Returns the per-bucket counts. Bucket boundaries are given by
+     * {@link LogLinearHistogram#lowestValueAt(int)} and
+     * {@link LogLinearHistogram#highestValueAt(int)}.
+     */
+    public long[] getCounts() {
+      return counts.clone();
+    }
+
+    /** Returns recently recorded values, most recent first. */
+    public long[] getRecentValues() {
+      return recentValues.clone();
+    }
+  }
+}
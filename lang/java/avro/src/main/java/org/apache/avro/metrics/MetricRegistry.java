@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * A registry of named metrics. Metrics are grouped into families sharing a
+ * name, help text and type; the members of a family are distinguished by their
+ * labels, given as alternating label names and values.
+ *
+ * Looking up a metric allocates, so callers on hot paths should look metrics up
+ * once and keep a reference, e.g. in a static field. Updating a metric never
+ * locks.
+ *
+ * <p>
+ * Registered metrics can be exported with {@link PrometheusTextFormat} or
+ * {@link JmxBridge}.
+ */
+public class MetricRegistry {
+  /** The kind of metrics in a family. */
+  public enum Type {
+    COUNTER, GAUGE, HISTOGRAM
+  }
+
+  private static final MetricRegistry INSTANCE = new MetricRegistry();
+
+  /** Returns the registry that Avro's own metrics are registered with. */
+  public static MetricRegistry get() {
+    return INSTANCE;
+  }
+
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+  private static final Pattern LABEL_NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+  private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+  /** Returns the counter with the given name and labels, creating it if needed. */
+  public Counter counter(String name, String help, String... labels) {
+    return (Counter) family(name, help, Type.COUNTER).metrics.computeIfAbsent(labels(labels), l -> new Counter());
+  }
+
+  /**
+   * Returns the histogram with the given name and labels, creating it if needed.
+   */
+  public LogLinearHistogram histogram(String name, String help, String... labels) {
+    return (LogLinearHistogram) family(name, help, Type.HISTOGRAM).metrics.computeIfAbsent(labels(labels),
+        l -> new LogLinearHistogram());
+  }
+
+  /**
+   * Registers a gauge under the given name and labels, replacing any gauge
+   * previously registered there.
+   */
+  public void gauge(String name, String help, Gauge gauge, String... labels) {
+    family(name, help, Type.GAUGE).metrics.put(labels(labels), gauge);
+  }
+
+  /**
+   * Removes the metric with the given name and labels, e.g. a gauge sampling an
+   * object that was closed.
+   */
+  public void remove(String name, String... labels) {
+    Family family = families.get(name);
+    if (family != null) {
+      family.metrics.remove(labels(labels));
+    }
+  }
+
+  /** Returns the registered metric families, sorted by name. */
+  public List<Family> getFamilies() {
+    List<Family> result = new ArrayList<>(families.values());
+    result.sort(Comparator.comparing(Family::getName));
+    return result;
+  }
+
+  private Family family(String name, String help, Type type) {
+    Family family = families.get(name);
+    if (family == null) {
+      if (!NAME.matcher(name).matches()) {
+        throw new IllegalArgumentException("Invalid metric name: " + name);
+      }
+      family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+    }
+    if (family.type != type) {
+      throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+    }
+    return family;
+  }
+
+  /** Renders label pairs in the canonical form used as the key of a metric. */
+  static String labels(String... labels) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be name/value pairs");
+    }
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < labels.length; i += 2) {
+      if (!LABEL_NAME.matcher(labels[i]).matches()) {
+        throw new IllegalArgumentException("Invalid label name: " + labels[i]);
+      }
+      if (b.length() > 0) {
+        b.append(',');
+      }
+      b.append(labels[i]).append("=\"");
+      String value = labels[i + 1];
+      for (int j = 0; j < value.length(); j++) {
+        char c = value.charAt(j);
+        switch (c) {
+        case '\\':
+          b.append("\\\\");
+          break;
+        case '"':
+          b.append("\\\"");
+          break;
+        case '\n':
+          b.append("\\n");
+          break;
+        default:
+          b.append(c);
+        }
+      }
+      b.append('"');
+    }
+    return b.toString();
+  }
+
+  /** A group of metrics sharing a name, help text and type. */
+  public static class Family {
+    private final String name;
+    private final String help;
+    private final Type type;
+    private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+    Family(String name, String help, Type type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getHelp() {
+      return help;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * Returns the members of this family keyed by their rendered labels, e.g.
+     * <code>message="echo",role="server"</code>, sorted by label. Values are
+     * {@link Counter}s, {@link Gauge}s or {@link LogLinearHistogram}s according to
+     * {@link #getType()}.
+     */
+    public SortedMap<String, Object> getMetrics() {
+      return Collections.unmodifiableSortedMap(new TreeMap<>(metrics));
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import org.apache.avro.metrics.LogLinearHistogram.Snapshot;
+
+/**
+ * Writes the metrics of a {@link MetricRegistry} in the Prometheus text
+ * exposition format, version 0.0.4. Histograms are exported as summaries with
+ * the 0.5, 0.99 and 0.999 quantiles.
+ */
+public class PrometheusTextFormat {
+  /** The content type of the format, for use in HTTP responses. */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+  private PrometheusTextFormat() {
+  }
+
+  /** Writes all metrics of a registry. */
+  public static void write(MetricRegistry registry, Writer out) throws IOException {
+    for (MetricRegistry.Family family : registry.getFamilies()) {
+      String name = family.getName();
+      out.write("# HELP ");
+      out.write(name);
+      out.write(' ');
+      out.write(family.getHelp().replace("\\", "\\\\").replace("\n", "\\n"));
+      out.write("\n# TYPE ");
+      out.write(name);
+      out.write(' ');
+      out.write(typeName(family.getType()));
+      out.write('\n');
+      for (Map.Entry<String, Object> e : family.getMetrics().entrySet()) {
+        String labels = e.getKey();
+        switch (family.getType()) {
+        case COUNTER:
+          writeSample(out, name, labels, ((Counter) e.getValue()).get());
+          break;
+        case GAUGE:
+          writeSample(out, name, labels, ((Gauge) e.getValue()).getValue());
+          break;
+        case HISTOGRAM:
+          Snapshot s = ((LogLinearHistogram) e.getValue()).snapshot();
+          String separator = labels.isEmpty() ? "" : ",";
+          for (double q : QUANTILES) {
+            writeSample(out, name, labels + separator + "quantile=\"" + q + "\"", s.getValueAtPercentile(q * 100));
+          }
+          writeSample(out, name + "_sum", labels, s.getSum());
+          writeSample(out, name + "_count", labels, s.getCount());
+          break;
+        default:
+          throw new IllegalStateException("Unknown type: " + family.getType());
+        }
+      }
+    }
+    out.flush();
+  }
+
+  private static String typeName(MetricRegistry.Type type) {
+    switch (type) {
+    case COUNTER:
+      return "counter";
+    case GAUGE:
+      return "gauge";
+    default:
+      return "summary";
+    }
+  }
+
+  private static void writeSample(Writer out, String name, String labels, long value) throws IOException {
+    out.write(name);
+    if (!labels.isEmpty()) {
+      out.write('{');
+      out.write(labels);
+      out.write('}');
+    }
+    out.write(' ');
+    out.write(Long.toString(value));
+    out.write('\n');
+  }
+}
@@ -26,6 +26,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 
@@ -293,6 +294,62 @@ public class TestDataFile {
     assertTrue(out.flushCount < currentCount && out.flushCount >= flushCounter);
   }
 
+  @Test
+  public void testTargetBlockSize() throws IOException {
+    int target = 4096;
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>())) {
+      if (codec != null)
+        writer.setCodec(codec);
+      writer.setTargetBlockSize(target);
+      writer.create(SCHEMA, new ByteArrayOutputStream());
+      for (Object datum : new RandomData(SCHEMA, 20 * COUNT, SEED + 2))
+        writer.append(datum);
+      long blocks = writer.getBlocksWritten();
+      long bytes = writer.getBytesWritten();
+      // once the ratio is known, blocks hold about the target after compression
+      for (Object datum : new RandomData(SCHEMA, 100 * COUNT, SEED + 3))
+        writer.append(datum);
+      long average = (writer.getBytesWritten() - bytes) / (writer.getBlocksWritten() - blocks);
+      assertTrue("average block size " + average, average > target / 2 && average < target * 2);
+      assertTrue(writer.getBytesEncoded() >= writer.getBytesWritten() / 2);
+    }
+  }
+
+  @Test
+  public void testMaxBlockRecords() throws IOException {
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>())) {
+      if (codec != null)
+        writer.setCodec(codec);
+      writer.setSyncInterval(1 << 20).setMaxBlockRecords(7);
+      writer.create(SCHEMA, new ByteArrayOutputStream());
+      for (Object datum : new RandomData(SCHEMA, 100, SEED + 4))
+        writer.append(datum);
+      assertEquals(14, writer.getBlocksWritten());
+      assertEquals(98, writer.getRecordsWritten());
+      writer.flush();
+      assertEquals(15, writer.getBlocksWritten());
+      assertEquals(100, writer.getRecordsWritten());
+    }
+  }
+
+  @Test
+  public void testMaxBlockDelay() throws Exception {
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>())) {
+      if (codec != null)
+        writer.setCodec(codec);
+      writer.setMaxBlockDelay(1);
+      writer.create(SCHEMA, new ByteArrayOutputStream());
+      RandomData data = new RandomData(SCHEMA, 2, SEED + 5);
+      Iterator<Object> i = data.iterator();
+      writer.append(i.next());
+      assertEquals(0, writer.getBlocksWritten());
+      Thread.sleep(10);
+      writer.append(i.next());
+      assertEquals(1, writer.getBlocksWritten());
+      assertEquals(2, writer.getRecordsWritten());
+    }
+  }
+
   private void testFSync(boolean useFile) throws IOException {
     try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>())) {
       writer.setFlushOnEveryBlock(false);
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.metrics.LogLinearHistogram.Snapshot;
+import org.junit.Test;
+
+public class TestLogLinearHistogram {
+
+  @Test
+  public void testBucketBoundaries() {
+    long previousHighest = -1;
+    for (int i = 0; i < LogLinearHistogram.BUCKET_COUNT; i++) {
+      long lowest = LogLinearHistogram.lowestValueAt(i);
+      long highest = LogLinearHistogram.highestValueAt(i);
+      assertEquals(previousHighest + 1, lowest);
+      assertTrue(highest >= lowest);
+      assertEquals(i, LogLinearHistogram.bucketIndex(lowest));
+      assertEquals(i, LogLinearHistogram.bucketIndex(highest));
+      previousHighest = highest;
+    }
+    assertEquals(Long.MAX_VALUE, previousHighest);
+  }
+
+  @Test
+  public void testStatistics() {
+    LogLinearHistogram h = new LogLinearHistogram();
+    h.record(12);
+    h.record(10);
+    h.record(20);
+    Snapshot s = h.snapshot();
+    assertEquals(3, s.getCount());
+    assertEquals(42, s.getSum());
+    assertEquals(10, s.getMin());
+    assertEquals(20, s.getMax());
+    assertEquals(14.0, s.getMean(), 0.0001);
+    assertEquals(5.291, s.getUnbiasedStdDev(), 0.001);
+    assertArrayEquals(new long[] { 20, 10, 12 }, s.getRecentValues());
+  }
+
+  @Test
+  public void testPercentiles() {
+    LogLinearHistogram h = new LogLinearHistogram();
+    for (long i = 1; i <= 100000; i++) {
+      h.record(i * 1000);
+    }
+    Snapshot s = h.snapshot();
+    assertWithinBucketError(50000000, s.getValueAtPercentile(50));
+    assertWithinBucketError(99000000, s.getValueAtPercentile(99));
+    assertWithinBucketError(99900000, s.getValueAtPercentile(99.9));
+    assertEquals(100000000, s.getValueAtPercentile(100));
+    assertEquals(1000, s.getValueAtPercentile(0));
+  }
+
+  private static void assertWithinBucketError(long expected, long actual) {
+    double error = Math.abs(actual - expected) / (double) expected;
+    assertTrue(actual + " not within error of " + expected, error <= 1.0 / LogLinearHistogram.SUB_BUCKETS);
+  }
+
+  @Test
+  public void testSnapshotAndReset() {
+    LogLinearHistogram h = new LogLinearHistogram();
+    h.record(5);
+    h.record(500);
+    Snapshot s = h.snapshotAndReset();
+    assertEquals(2, s.getCount());
+    assertEquals(505, s.getSum());
+    assertArrayEquals(new long[] { 500, 5 }, s.getRecentValues());
+
+    s = h.snapshot();
+    assertEquals(0, s.getCount());
+    assertEquals(0, s.getMin());
+    assertEquals(0, s.getMax());
+    assertTrue(Double.isNaN(s.getMean()));
+    assertEquals(0, s.getValueAtPercentile(99));
+    assertEquals(0, s.getRecentValues().length);
+
+    h.record(7);
+    s = h.snapshot();
+    assertEquals(1, s.getCount());
+    assertEquals(7, s.getMin());
+    assertEquals(7, s.getMax());
+    assertArrayEquals(new long[] { 7 }, s.getRecentValues());
+  }
+
+  @Test
+  public void testConcurrentRecording() throws Exception {
+    final LogLinearHistogram h = new LogLinearHistogram();
+    final int threads = 4;
+    final int perThread = 100000;
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          h.record(i);
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    Snapshot s = h.snapshot();
+    assertEquals(threads * perThread, s.getCount());
+    long total = 0;
+    for (long c : s.getCounts()) {
+      total += c;
+    }
+    assertEquals(threads * perThread, total);
+    assertEquals(perThread - 1, s.getMax());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class TestMetricRegistry {
+
+  @Test
+  public void testCountersAreShared() {
+    MetricRegistry registry = new MetricRegistry();
+    Counter a = registry.counter("requests_total", "Requests.", "role", "client");
+    Counter b = registry.counter("requests_total", "Requests.", "role", "client");
+    Counter c = registry.counter("requests_total", "Requests.", "role", "server");
+    assertSame(a, b);
+    a.inc();
+    b.add(2);
+    c.inc();
+    assertEquals(3, a.get());
+    assertEquals(1, c.get());
+    assertEquals(2, registry.getFamilies().get(0).getMetrics().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTypeMismatch() {
+    MetricRegistry registry = new MetricRegistry();
+    registry.counter("x", "X.");
+    registry.histogram("x", "X.");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidName() {
+    new MetricRegistry().counter("not-valid", "X.");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOddLabels() {
+    new MetricRegistry().counter("x", "X.", "role");
+  }
+
+  @Test
+  public void testLabelEscaping() {
+    assertEquals("a=\"x\\\"y\\\\z\\n\",b=\"\"", MetricRegistry.labels("a", "x\"y\\z\n", "b", ""));
+  }
+
+  @Test
+  public void testPrometheusText() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.counter("b_total", "B.", "message", "m").add(3);
+    registry.gauge("a_open", "A.", () -> 7);
+    LogLinearHistogram h = registry.histogram("c_bytes", "C.");
+    h.record(10);
+    h.record(20);
+
+    StringWriter w = new StringWriter();
+    PrometheusTextFormat.write(registry, w);
+    assertEquals("# HELP a_open A.\n" + "# TYPE a_open gauge\n" + "a_open 7\n" //
+        + "# HELP b_total B.\n" + "# TYPE b_total counter\n" + "b_total{message=\"m\"} 3\n" //
+        + "# HELP c_bytes C.\n" + "# TYPE c_bytes summary\n" //
+        + "c_bytes{quantile=\"0.5\"} 10\n" + "c_bytes{quantile=\"0.99\"} 20\n" + "c_bytes{quantile=\"0.999\"} 20\n"
+        + "c_bytes_sum 30\n" + "c_bytes_count 2\n", w.toString());
+  }
+
+  @Test
+  public void testRemove() {
+    MetricRegistry registry = new MetricRegistry();
+    registry.gauge("open", "Open.", () -> 1, "path", "a");
+    registry.gauge("open", "Open.", () -> 2, "path", "b");
+    registry.remove("open", "path", "a");
+    assertEquals(1, registry.getFamilies().get(0).getMetrics().size());
+  }
+
+  @Test
+  public void testJmxBridge() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    ObjectName name = JmxBridge.register(registry, new ObjectName("org.apache.avro:type=TestMetrics"));
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      registry.counter("calls_total", "Calls.", "role", "server").add(5);
+      registry.histogram("latency", "Latency.").record(42);
+      assertEquals(5L, server.getAttribute(name, "calls_total{role=\"server\"}"));
+      assertEquals(1L, server.getAttribute(name, "latency.count"));
+      assertEquals(42L, server.getAttribute(name, "latency.p99"));
+      assertEquals(6, server.getMBeanInfo(name).getAttributes().length);
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+}
@@ -29,11 +29,15 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.Iterator;
 
 import io.grpc.CallOptions;
 import io.grpc.Channel;
+import io.grpc.ClientCall;
 import io.grpc.MethodDescriptor;
+import io.grpc.stub.ClientCallStreamObserver;
 import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 
 /** Component that sets up a gRPC client for Avro's IDL and Serialization. */
@@ -88,7 +92,18 @@ public abstract class AvroGrpcClient {
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
       try {
-        return invokeUnaryMethod(method, args);
+        Protocol.Message message = protocol.getMessages().get(method.getName());
+        MethodDescriptor.MethodType type = message == null ? MethodDescriptor.MethodType.UNARY
+            : AvroGrpcUtils.getMethodType(message);
+        switch (type) {
+        case SERVER_STREAMING:
+          return serverStreamingRequest(method.getName(), args);
+        case CLIENT_STREAMING:
+        case BIDI_STREAMING:
+          return streamingRequest(method.getName(), type, (StreamObserver<Object>) args[0]);
+        default:
+          return invokeUnaryMethod(method, args);
+        }
       } catch (RuntimeException re) {
         // rethrow any runtime exception
         throw re;
@@ -138,6 +153,150 @@ public abstract class AvroGrpcClient {
           args, observerAdpater);
     }
 
+    /**
+     * Returns the responses of a server streaming call. Each response is only
+     * requested from the server when the previous one has been taken, so a slow
+     * consumer holds the server back rather than buffering responses.
+     */
+    private Iterator<Object> serverStreamingRequest(String methodName, Object[] args) {
+      final Iterator<Object> responses = ClientCalls.blockingServerStreamingCall(channel,
+          serviceDescriptor.getMethod(methodName, MethodDescriptor.MethodType.SERVER_STREAMING), callOptions, args);
+      return new Iterator<Object>() {
+        @Override
+        public boolean hasNext() {
+          return responses.hasNext();
+        }
+
+        @Override
+        public Object next() {
+          Object response = responses.next();
+          if (response instanceof RuntimeException)
+            throw (RuntimeException) response;
+          if (response instanceof Throwable)
+            throw new AvroRuntimeException((Throwable) response);
+          return response;
+        }
+      };
+    }
+
+    /**
+     * Starts a client or bidi streaming call and returns the observer for its
+     * requests. If the response observer is a {@link ClientResponseObserver} it is
+     * passed that same observer before the call starts, so that it can set an
+     * on-ready handler or take over inbound flow control.
+     */
+    private StreamObserver<Object> streamingRequest(String methodName, MethodDescriptor.MethodType type,
+        StreamObserver<Object> responseObserver) {
+      ErrorToResponseStreamObserverAdapter responses = new ErrorToResponseStreamObserverAdapter(responseObserver);
+      ClientCall<Object[], Object> call = channel.newCall(serviceDescriptor.getMethod(methodName, type), callOptions);
+      if (type == MethodDescriptor.MethodType.CLIENT_STREAMING) {
+        ClientCalls.asyncClientStreamingCall(call, responses);
+      } else {
+        ClientCalls.asyncBidiStreamingCall(call, responses);
+      }
+      return responses.requests;
+    }
+
+    /** Passes responses to an observer, and errors sent as responses as errors. */
+    private static class ErrorToResponseStreamObserverAdapter implements ClientResponseObserver<Object[], Object> {
+      private final StreamObserver<Object> target;
+      private ArgumentStreamObserverAdapter requests;
+      private boolean failed;
+
+      ErrorToResponseStreamObserverAdapter(StreamObserver<Object> target) {
+        this.target = target;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public void beforeStart(ClientCallStreamObserver<Object[]> requestStream) {
+        requests = new ArgumentStreamObserverAdapter(requestStream);
+        if (target instanceof ClientResponseObserver)
+          ((ClientResponseObserver<Object, Object>) target).beforeStart(requests);
+      }
+
+      @Override
+      public void onNext(Object value) {
+        if (failed)
+          return;
+        if (value instanceof Throwable) {
+          failed = true;
+          target.onError((Throwable) value);
+        } else {
+          target.onNext(value);
+        }
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        if (!failed)
+          target.onError(new AvroRuntimeException(t));
+      }
+
+      @Override
+      public void onCompleted() {
+        if (!failed)
+          target.onCompleted();
+      }
+    }
+
+    /**
+     * Sends each request as the single argument of the message, and exposes the
+     * flow control of the call.
+     */
+    private static class ArgumentStreamObserverAdapter extends ClientCallStreamObserver<Object> {
+      private final ClientCallStreamObserver<Object[]> call;
+
+      ArgumentStreamObserverAdapter(ClientCallStreamObserver<Object[]> call) {
+        this.call = call;
+      }
+
+      @Override
+      public void onNext(Object value) {
+        call.onNext(new Object[] { value });
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        call.onError(t);
+      }
+
+      @Override
+      public void onCompleted() {
+        call.onCompleted();
+      }
+
+      @Override
+      public void cancel(String message, Throwable cause) {
+        call.cancel(message, cause);
+      }
+
+      @Override
+      public boolean isReady() {
+        return call.isReady();
+      }
+
+      @Override
+      public void setOnReadyHandler(Runnable onReadyHandler) {
+        call.setOnReadyHandler(onReadyHandler);
+      }
+
+      @Override
+      public void disableAutoInboundFlowControl() {
+        call.disableAutoInboundFlowControl();
+      }
+
+      @Override
+      public void request(int count) {
+        call.request(count);
+      }
+
+      @Override
+      public void setMessageCompression(boolean enable) {
+        call.setMessageCompression(enable);
+      }
+    }
+
     private static class CallbackToResponseStreamObserverAdpater<T> implements StreamObserver<Object> {
       private final Callback<T> callback;
 
@@ -22,14 +22,18 @@ import org.apache.avro.Protocol;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import io.grpc.MethodDescriptor;
 import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.CallStreamObserver;
 import io.grpc.stub.ServerCalls;
 import io.grpc.stub.StreamObserver;
+import io.grpc.stub.StreamObservers;
 
 /**
  * Provides components to set up a gRPC Server for Avro's IDL and serialization.
@@ -58,12 +62,27 @@ public abstract class AvroGrpcServer {
     for (Method method : iface.getMethods()) {
       Protocol.Message msg = messages.get(method.getName());
       // setup a method handler only if corresponding message exists in avro protocol.
-      if (msg != null) {
+      if (msg == null)
+        continue;
+      MethodDescriptor.MethodType type = AvroGrpcUtils.getMethodType(msg);
+      MethodDescriptor<Object[], Object> descriptor = serviceDescriptor.getMethod(method.getName(), type);
+      switch (type) {
+      case SERVER_STREAMING:
+        serviceDefinitionBuilder.addMethod(descriptor,
+            ServerCalls.asyncServerStreamingCall(new ServerStreamingMethodHandler(impl, method)));
+        break;
+      case CLIENT_STREAMING:
+        serviceDefinitionBuilder.addMethod(descriptor,
+            ServerCalls.asyncClientStreamingCall(new StreamingMethodHandler(impl, method)));
+        break;
+      case BIDI_STREAMING:
+        serviceDefinitionBuilder.addMethod(descriptor,
+            ServerCalls.asyncBidiStreamingCall(new StreamingMethodHandler(impl, method)));
+        break;
+      default:
         UnaryMethodHandler methodHandler = msg.isOneWay() ? new OneWayUnaryMethodHandler(impl, method)
             : new UnaryMethodHandler(impl, method);
-        serviceDefinitionBuilder.addMethod(
-            serviceDescriptor.getMethod(method.getName(), MethodDescriptor.MethodType.UNARY),
-            ServerCalls.asyncUnaryCall(methodHandler));
+        serviceDefinitionBuilder.addMethod(descriptor, ServerCalls.asyncUnaryCall(methodHandler));
       }
     }
     return serviceDefinitionBuilder.build();
@@ -101,6 +120,149 @@ public abstract class AvroGrpcServer {
     }
   }
 
+  /**
+   * Streams the responses of a method returning an {@link Iterator}. The next
+   * response is only taken from the iterator when the call is ready for it.
+   */
+  private static class ServerStreamingMethodHandler implements ServerCalls.ServerStreamingMethod<Object[], Object> {
+    private final Object serviceImpl;
+    private final Method method;
+
+    ServerStreamingMethodHandler(Object serviceImpl, Method method) {
+      this.serviceImpl = serviceImpl;
+      this.method = method;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void invoke(Object[] request, StreamObserver<Object> responseObserver) {
+      Iterator<Object> responses;
+      try {
+        responses = (Iterator<Object>) method.invoke(serviceImpl, request);
+      } catch (InvocationTargetException e) {
+        responseObserver.onNext(e.getTargetException());
+        responseObserver.onCompleted();
+        return;
+      } catch (Exception e) {
+        responseObserver.onNext(e);
+        responseObserver.onCompleted();
+        return;
+      }
+      StreamObservers.copyWithFlowControl(new ErrorResponseIterator(responses),
+          (CallStreamObserver<Object>) responseObserver);
+    }
+  }
+
+  /**
+   * Passes on the responses of an iterator until it throws, and then the thrown
+   * exception as the last response, so that a failure mid-stream reaches the
+   * client the same way as a failure to start the stream.
+   */
+  private static class ErrorResponseIterator implements Iterator<Object> {
+    private final Iterator<Object> responses;
+    private Exception error;
+    private boolean failed;
+
+    ErrorResponseIterator(Iterator<Object> responses) {
+      this.responses = responses;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (failed)
+        return error != null;
+      try {
+        return responses.hasNext();
+      } catch (Exception e) {
+        fail(e);
+        return true;
+      }
+    }
+
+    @Override
+    public Object next() {
+      if (!failed) {
+        try {
+          return responses.next();
+        } catch (Exception e) {
+          fail(e);
+        }
+      }
+      if (error == null)
+        throw new NoSuchElementException();
+      Exception e = error;
+      error = null;
+      return e;
+    }
+
+    private void fail(Exception e) {
+      failed = true;
+      error = e;
+    }
+  }
+
+  /**
+   * Invokes a client or bidi streaming method with the observer for responses,
+   * and passes it the single argument of each request. The observer is a
+   * {@link io.grpc.stub.ServerCallStreamObserver}, so the method can follow
+   * {@link CallStreamObserver#isReady()} and control inbound flow.
+   */
+  private static class StreamingMethodHandler implements ServerCalls.ClientStreamingMethod<Object[], Object>,
+      ServerCalls.BidiStreamingMethod<Object[], Object> {
+    private final Object serviceImpl;
+    private final Method method;
+
+    StreamingMethodHandler(Object serviceImpl, Method method) {
+      this.serviceImpl = serviceImpl;
+      this.method = method;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public StreamObserver<Object[]> invoke(StreamObserver<Object> responseObserver) {
+      StreamObserver<Object> requests;
+      try {
+        requests = (StreamObserver<Object>) method.invoke(serviceImpl, responseObserver);
+      } catch (InvocationTargetException e) {
+        responseObserver.onNext(e.getTargetException());
+        responseObserver.onCompleted();
+        return new ArgumentObserver(null);
+      } catch (Exception e) {
+        responseObserver.onNext(e);
+        responseObserver.onCompleted();
+        return new ArgumentObserver(null);
+      }
+      return new ArgumentObserver(requests);
+    }
+  }
+
+  /** Passes the single argument of each request to an observer, if any. */
+  private static class ArgumentObserver implements StreamObserver<Object[]> {
+    private final StreamObserver<Object> target;
+
+    ArgumentObserver(StreamObserver<Object> target) {
+      this.target = target;
+    }
+
+    @Override
+    public void onNext(Object[] args) {
+      if (target != null)
+        target.onNext(args[0]);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      if (target != null)
+        target.onError(t);
+    }
+
+    @Override
+    public void onCompleted() {
+      if (target != null)
+        target.onCompleted();
+    }
+  }
+
   private static class OneWayUnaryMethodHandler extends UnaryMethodHandler {
     private static final Logger LOG = Logger.getLogger(OneWayUnaryMethodHandler.class.getName());
 
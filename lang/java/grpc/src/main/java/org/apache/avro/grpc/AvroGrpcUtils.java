@@ -21,16 +21,51 @@ package org.apache.avro.grpc;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Protocol;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.google.common.io.ByteStreams;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
 import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
 
 /** Utility methods for using Avro IDL and serialization with gRPC. */
 public final class AvroGrpcUtils {
   private static final Logger LOG = Logger.getLogger(AvroGrpcUtils.class.getName());
 
+  /**
+   * Message property that makes a message a streaming gRPC method. Its value is
+   * one of:
+   * <ul>
+   * <li>{@code server}: a single request and a stream of responses. The Java
+   * method returns an {@link java.util.Iterator} of the response type.</li>
+   * <li>{@code client}: a stream of requests and a single response.</li>
+   * <li>{@code bidi}: a stream of requests and a stream of responses.</li>
+   * </ul>
+   * Client and bidi streaming messages take a single parameter, whose values are
+   * the stream elements, and their Java methods take and return a
+   * {@link io.grpc.stub.StreamObserver}: the method is passed an observer for
+   * responses and returns one for requests.
+   */
+  public static final String STREAMING_PROP = "grpc.streaming";
+
+  private static final EncoderFactory ENCODER_FACTORY = new EncoderFactory();
+  private static final DecoderFactory DECODER_FACTORY = new DecoderFactory();
+
+  /** The largest message buffer that is kept for reuse by a thread. */
+  private static final int MAX_REUSED_BUFFER_SIZE = 1024 * 1024;
+
+  private static final ThreadLocal<BinaryEncoder> ENCODERS = new ThreadLocal<>();
+  private static final ThreadLocal<BinaryDecoder> DECODERS = new ThreadLocal<>();
+  private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[0]);
+
   private AvroGrpcUtils() {
   }
 
@@ -46,6 +81,34 @@ public final class AvroGrpcUtils {
     return protocol.getNamespace() + "." + protocol.getName();
   }
 
+  /**
+   * Returns the gRPC method type of a message, as set by {@link #STREAMING_PROP}.
+   */
+  static MethodDescriptor.MethodType getMethodType(Protocol.Message message) {
+    String streaming = message.getProp(STREAMING_PROP);
+    if (streaming == null)
+      return MethodDescriptor.MethodType.UNARY;
+    MethodDescriptor.MethodType type;
+    switch (streaming) {
+    case "server":
+      type = MethodDescriptor.MethodType.SERVER_STREAMING;
+      break;
+    case "client":
+      type = MethodDescriptor.MethodType.CLIENT_STREAMING;
+      break;
+    case "bidi":
+      type = MethodDescriptor.MethodType.BIDI_STREAMING;
+      break;
+    default:
+      throw new AvroRuntimeException("Unknown " + STREAMING_PROP + " for " + message.getName() + ": " + streaming);
+    }
+    if (message.isOneWay())
+      throw new AvroRuntimeException("One-way message can't be streaming: " + message.getName());
+    if (!type.clientSendsOneMessage() && message.getRequest().getFields().size() != 1)
+      throw new AvroRuntimeException("Streaming requests must have a single parameter: " + message.getName());
+    return type;
+  }
+
   /**
    * Gets the {@link Protocol} from the Avro Interface.
    */
@@ -60,6 +123,37 @@ public final class AvroGrpcUtils {
     }
   }
 
+  /** Returns an encoder writing to a stream, reusing this thread's encoder. */
+  static BinaryEncoder encoder(OutputStream out) {
+    BinaryEncoder encoder = ENCODER_FACTORY.binaryEncoder(out, ENCODERS.get());
+    ENCODERS.set(encoder);
+    return encoder;
+  }
+
+  /**
+   * Returns a decoder reading a message, reusing this thread's decoder. A message
+   * whose length gRPC knows is read whole into a buffer that the decoder reads
+   * directly, rather than through a buffer of the decoder's own.
+   */
+  static BinaryDecoder decoder(InputStream stream) throws IOException {
+    BinaryDecoder decoder;
+    if (stream instanceof KnownLength) {
+      int length = stream.available();
+      byte[] buffer = BUFFERS.get();
+      if (buffer.length < length) {
+        buffer = new byte[length];
+        if (length <= MAX_REUSED_BUFFER_SIZE)
+          BUFFERS.set(buffer);
+      }
+      ByteStreams.readFully(stream, buffer, 0, length);
+      decoder = DECODER_FACTORY.binaryDecoder(buffer, 0, length, DECODERS.get());
+    } else {
+      decoder = DECODER_FACTORY.binaryDecoder(stream, DECODERS.get());
+    }
+    DECODERS.set(decoder);
+    return decoder;
+  }
+
   /**
    * Skips any unread bytes from InputStream and closes it.
    */
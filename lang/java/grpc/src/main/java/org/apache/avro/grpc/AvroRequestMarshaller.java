@@ -21,46 +21,53 @@ package org.apache.avro.grpc;
 import com.google.common.io.ByteStreams;
 import org.apache.avro.Protocol;
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Decoder;
 import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.avro.specific.SpecificDatumWriter;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 
 import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 
-/** Marshaller for Avro RPC request. */
+/**
+ * Marshaller for Avro RPC request. A reader and a writer are created once per
+ * request parameter, and arguments are decoded straight into the argument
+ * array.
+ */
 public class AvroRequestMarshaller implements MethodDescriptor.Marshaller<Object[]> {
-  private static final EncoderFactory ENCODER_FACTORY = new EncoderFactory();
-  private static final DecoderFactory DECODER_FACTORY = new DecoderFactory();
-  private final Protocol.Message message;
+  private final DatumReader<Object>[] readers;
+  private final DatumWriter<Object>[] writers;
 
+  @SuppressWarnings("unchecked")
   public AvroRequestMarshaller(Protocol.Message message) {
-    this.message = message;
+    List<Schema.Field> params = message.getRequest().getFields();
+    this.readers = new DatumReader[params.size()];
+    this.writers = new DatumWriter[params.size()];
+    for (int i = 0; i < params.size(); i++) {
+      readers[i] = new SpecificDatumReader<>(params.get(i).schema());
+      writers[i] = new SpecificDatumWriter<>(params.get(i).schema());
+    }
   }
 
   @Override
   public InputStream stream(Object[] value) {
-    return new AvroRequestInputStream(value, message);
+    return new AvroRequestInputStream(value, writers);
   }
 
   @Override
   public Object[] parse(InputStream stream) {
     try {
-      BinaryDecoder in = DECODER_FACTORY.binaryDecoder(stream, null);
-      Schema reqSchema = message.getRequest();
-      GenericRecord request = (GenericRecord) new SpecificDatumReader<>(reqSchema).read(null, in);
-      Object[] args = new Object[reqSchema.getFields().size()];
-      int i = 0;
-      for (Schema.Field field : reqSchema.getFields()) {
-        args[i++] = request.get(field.name());
+      Decoder in = AvroGrpcUtils.decoder(stream);
+      Object[] args = new Object[readers.length];
+      for (int i = 0; i < readers.length; i++) {
+        args[i] = readers[i].read(null, in);
       }
       return args;
     } catch (IOException e) {
@@ -72,12 +79,12 @@ public class AvroRequestMarshaller implements MethodDescriptor.Marshaller<Object
   }
 
   private static class AvroRequestInputStream extends AvroInputStream {
-    private final Protocol.Message message;
+    private final DatumWriter<Object>[] writers;
     private Object[] args;
 
-    AvroRequestInputStream(Object[] args, Protocol.Message message) {
+    AvroRequestInputStream(Object[] args, DatumWriter<Object>[] writers) {
       this.args = args;
-      this.message = message;
+      this.writers = writers;
     }
 
     @Override
@@ -86,12 +93,10 @@ public class AvroRequestMarshaller implements MethodDescriptor.Marshaller<Object
       if (getPartial() != null) {
         written = (int) ByteStreams.copy(getPartial(), target);
       } else {
-        Schema reqSchema = message.getRequest();
         CountingOutputStream outputStream = new CountingOutputStream(target);
-        BinaryEncoder out = ENCODER_FACTORY.binaryEncoder(outputStream, null);
-        int i = 0;
-        for (Schema.Field param : reqSchema.getFields()) {
-          new SpecificDatumWriter<>(param.schema()).write(args[i++], out);
+        BinaryEncoder out = AvroGrpcUtils.encoder(outputStream);
+        for (int i = 0; i < writers.length; i++) {
+          writers[i].write(args[i], out);
         }
         out.flush();
         args = null;
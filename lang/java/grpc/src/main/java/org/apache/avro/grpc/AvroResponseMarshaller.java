@@ -21,9 +21,10 @@ package org.apache.avro.grpc;
 import com.google.common.io.ByteStreams;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Protocol;
-import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Decoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.avro.specific.SpecificDatumWriter;
@@ -37,19 +38,30 @@ import java.io.OutputStream;
 import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 
-/** Marshaller for Avro RPC response. */
+/**
+ * Marshaller for Avro RPC response. Readers and writers for the response and
+ * its errors are created once per message.
+ */
 public class AvroResponseMarshaller implements MethodDescriptor.Marshaller<Object> {
   private static final EncoderFactory ENCODER_FACTORY = new EncoderFactory();
-  private static final DecoderFactory DECODER_FACTORY = new DecoderFactory();
+  private static final DatumWriter<Object> SYSTEM_ERROR_WRITER = new SpecificDatumWriter<>(Protocol.SYSTEM_ERRORS);
   private final Protocol.Message message;
+  private final DatumReader<Object> responseReader;
+  private final DatumReader<Object> errorReader;
+  private final DatumWriter<Object> responseWriter;
+  private final DatumWriter<Object> errorWriter;
 
   public AvroResponseMarshaller(Protocol.Message message) {
     this.message = message;
+    this.responseReader = new SpecificDatumReader<>(message.getResponse());
+    this.errorReader = new SpecificDatumReader<>(message.getErrors());
+    this.responseWriter = new SpecificDatumWriter<>(message.getResponse());
+    this.errorWriter = new SpecificDatumWriter<>(message.getErrors());
   }
 
   @Override
   public InputStream stream(Object value) {
-    return new AvroResponseInputStream(value, message);
+    return new AvroResponseInputStream(value, this);
   }
 
   @Override
@@ -57,12 +69,11 @@ public class AvroResponseMarshaller implements MethodDescriptor.Marshaller<Objec
     try {
       if (message.isOneWay())
         return null;
-      BinaryDecoder in = DECODER_FACTORY.binaryDecoder(stream, null);
+      Decoder in = AvroGrpcUtils.decoder(stream);
       if (!in.readBoolean()) {
-        Object response = new SpecificDatumReader(message.getResponse()).read(null, in);
-        return response;
+        return responseReader.read(null, in);
       } else {
-        Object value = new SpecificDatumReader(message.getErrors()).read(null, in);
+        Object value = errorReader.read(null, in);
         if (value instanceof Exception) {
           return value;
         }
@@ -76,12 +87,12 @@ public class AvroResponseMarshaller implements MethodDescriptor.Marshaller<Objec
   }
 
   private static class AvroResponseInputStream extends AvroInputStream {
-    private final Protocol.Message message;
+    private final AvroResponseMarshaller marshaller;
     private Object response;
 
-    AvroResponseInputStream(Object response, Protocol.Message message) {
+    AvroResponseInputStream(Object response, AvroResponseMarshaller marshaller) {
       this.response = response;
-      this.message = message;
+      this.marshaller = marshaller;
     }
 
     @Override
@@ -97,19 +108,19 @@ public class AvroResponseMarshaller implements MethodDescriptor.Marshaller<Objec
 
     private int writeResponse(OutputStream target) throws IOException {
       int written;
-      if (message.isOneWay()) {
+      if (marshaller.message.isOneWay()) {
         written = 0;
       } else if (response instanceof Exception) {
         ByteArrayOutputStream bao = new ByteArrayOutputStream();
         BinaryEncoder out = ENCODER_FACTORY.binaryEncoder(bao, null);
         try {
           out.writeBoolean(true);
-          new SpecificDatumWriter(message.getErrors()).write(response, out);
+          marshaller.errorWriter.write(response, out);
         } catch (Exception e) {
           bao = new ByteArrayOutputStream();
           out = ENCODER_FACTORY.binaryEncoder(bao, null);
           out.writeBoolean(true);
-          new SpecificDatumWriter(Protocol.SYSTEM_ERRORS).write(new Utf8(e.toString()), out);
+          SYSTEM_ERROR_WRITER.write(new Utf8(e.toString()), out);
         }
         out.flush();
         byte[] serializedError = bao.toByteArray();
@@ -117,9 +128,9 @@ public class AvroResponseMarshaller implements MethodDescriptor.Marshaller<Objec
         written = serializedError.length;
       } else {
         CountingOutputStream outputStream = new CountingOutputStream(target);
-        BinaryEncoder out = ENCODER_FACTORY.binaryEncoder(outputStream, null);
+        BinaryEncoder out = AvroGrpcUtils.encoder(outputStream);
         out.writeBoolean(false);
-        new SpecificDatumWriter(message.getResponse()).write(response, out);
+        marshaller.responseWriter.write(response, out);
         out.flush();
         written = outputStream.getWrittenCount();
       }
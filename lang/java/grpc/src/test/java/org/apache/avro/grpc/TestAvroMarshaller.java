@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.Random;
 
 import io.grpc.Drainable;
+import io.grpc.KnownLength;
 
 import static org.junit.Assert.assertEquals;
 
@@ -44,6 +45,13 @@ public class TestAvroMarshaller {
   private final Protocol.Message message = TestService.PROTOCOL.getMessages().get("echo");
   private Random random = new Random();
 
+  /** Like the streams gRPC passes to marshallers, which know their length. */
+  private static class KnownLengthInputStream extends ByteArrayInputStream implements KnownLength {
+    KnownLengthInputStream(byte[] buf) {
+      super(buf);
+    }
+  }
+
   private void readPratialAndDrain(int partialToRead, InputStream inputStream, OutputStream target) throws IOException {
     // read specified partial bytes from request InputStream to target and then
     // drain the rest.
@@ -81,4 +89,21 @@ public class TestAvroMarshaller {
     Object parsedResponse = responseMarshaller.parse(serialized);
     assertEquals(record, parsedResponse);
   }
+
+  @Test
+  public void testParseKnownLength() throws IOException {
+    AvroRequestMarshaller requestMarshaller = new AvroRequestMarshaller(message);
+    AvroResponseMarshaller responseMarshaller = new AvroResponseMarshaller(message);
+    for (int i = 0; i < 3; i++) { // readers, decoders and buffers are reused
+      ByteArrayOutputStream request = new ByteArrayOutputStream();
+      ((Drainable) requestMarshaller.stream(new Object[] { record })).drainTo(request);
+      Object[] parsedArgs = requestMarshaller.parse(new KnownLengthInputStream(request.toByteArray()));
+      assertEquals(1, parsedArgs.length);
+      assertEquals(record, parsedArgs[0]);
+
+      ByteArrayOutputStream response = new ByteArrayOutputStream();
+      ((Drainable) responseMarshaller.stream(record)).drainTo(response);
+      assertEquals(record, responseMarshaller.parse(new KnownLengthInputStream(response.toByteArray())));
+    }
+  }
 }
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.avro.grpc;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Protocol;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.CallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestAvroStreamingGrpc {
+
+  public interface StreamingService {
+    Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"StreamingService\", "
+        + "\"namespace\": \"org.apache.avro.grpc.test\", \"messages\": {"
+        + "\"range\": {\"request\": [{\"name\": \"count\", \"type\": \"int\"}], \"response\": \"int\","
+        + " \"grpc.streaming\": \"server\"},"
+        + "\"failAfter\": {\"request\": [{\"name\": \"count\", \"type\": \"int\"}], \"response\": \"int\","
+        + " \"grpc.streaming\": \"server\"},"
+        + "\"sum\": {\"request\": [{\"name\": \"value\", \"type\": \"int\"}], \"response\": \"long\","
+        + " \"grpc.streaming\": \"client\"},"
+        + "\"echo\": {\"request\": [{\"name\": \"text\", \"type\": \"string\"}], \"response\": \"string\","
+        + " \"grpc.streaming\": \"bidi\"} } }");
+
+    Iterator<Integer> range(int count);
+
+    Iterator<Integer> failAfter(int count);
+
+    StreamObserver<Integer> sum(StreamObserver<Long> responses);
+
+    StreamObserver<CharSequence> echo(StreamObserver<CharSequence> responses);
+  }
+
+  private static class StreamingServiceImpl implements StreamingService {
+    private final AtomicInteger produced = new AtomicInteger();
+
+    @Override
+    public Iterator<Integer> range(int count) {
+      if (count < 0)
+        throw new IllegalArgumentException("Negative count");
+      return new Iterator<Integer>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < count;
+        }
+
+        @Override
+        public Integer next() {
+          produced.incrementAndGet();
+          return next++;
+        }
+      };
+    }
+
+    @Override
+    public Iterator<Integer> failAfter(int count) {
+      Iterator<Integer> values = range(count);
+      return new Iterator<Integer>() {
+        @Override
+        public boolean hasNext() {
+          return true;
+        }
+
+        @Override
+        public Integer next() {
+          if (!values.hasNext())
+            throw new IllegalStateException("Failed after " + count);
+          return values.next();
+        }
+      };
+    }
+
+    @Override
+    public StreamObserver<Integer> sum(StreamObserver<Long> responses) {
+      return new StreamObserver<Integer>() {
+        private long sum;
+
+        @Override
+        public void onNext(Integer value) {
+          sum += value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+          responses.onNext(sum);
+          responses.onCompleted();
+        }
+      };
+    }
+
+    @Override
+    public StreamObserver<CharSequence> echo(StreamObserver<CharSequence> responses) {
+      return new StreamObserver<CharSequence>() {
+        @Override
+        public void onNext(CharSequence value) {
+          responses.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+          responses.onCompleted();
+        }
+      };
+    }
+  }
+
+  /** Collects responses until the stream ends. */
+  private static class Collector<T> implements StreamObserver<T> {
+    private final List<T> values = new ArrayList<>();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Throwable error;
+
+    @Override
+    public void onNext(T value) {
+      values.add(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      error = t;
+      done.countDown();
+    }
+
+    @Override
+    public void onCompleted() {
+      done.countDown();
+    }
+
+    List<T> await() throws InterruptedException {
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertNull(error);
+      return values;
+    }
+  }
+
+  private StreamingServiceImpl serviceImpl;
+  private StreamingService stub;
+  private Server server;
+  private ManagedChannel channel;
+
+  @Before
+  public void setUp() throws IOException {
+    serviceImpl = new StreamingServiceImpl();
+    server = ServerBuilder.forPort(0)
+        .addService(AvroGrpcServer.createServiceDefinition(StreamingService.class, serviceImpl)).build();
+    server.start();
+    channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+    stub = AvroGrpcClient.create(channel, StreamingService.class);
+  }
+
+  @After
+  public void cleanUp() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  public void testServerStreaming() {
+    Iterator<Integer> responses = stub.range(5);
+    for (int i = 0; i < 5; i++)
+      assertEquals(i, (int) responses.next());
+    assertFalse(responses.hasNext());
+  }
+
+  @Test
+  public void testServerStreamingFlowControl() throws Exception {
+    int count = 1000000;
+    Iterator<Integer> responses = stub.range(count);
+    assertEquals(0, (int) responses.next());
+    Thread.sleep(200);
+    // the server stops producing once the transport's flow control window is full
+    assertTrue(serviceImpl.produced.get() < count);
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testServerStreamingError() {
+    stub.range(-1).next();
+  }
+
+  @Test
+  public void testServerStreamingErrorMidStream() {
+    Iterator<Integer> responses = stub.failAfter(3);
+    for (int i = 0; i < 3; i++)
+      assertEquals(i, (int) responses.next());
+    try {
+      responses.next();
+      fail("Expected the error of the stream");
+    } catch (AvroRuntimeException e) {
+      assertTrue(e.getMessage().contains("Failed after 3"));
+    }
+    assertFalse(responses.hasNext());
+  }
+
+  @Test
+  public void testClientStreaming() throws Exception {
+    Collector<Long> sum = new Collector<>();
+    StreamObserver<Integer> values = stub.sum(sum);
+    assertTrue(values instanceof CallStreamObserver);
+    for (int i = 1; i <= 100; i++)
+      values.onNext(i);
+    values.onCompleted();
+    List<Long> result = sum.await();
+    assertEquals(1, result.size());
+    assertEquals(5050L, (long) result.get(0));
+  }
+
+  @Test
+  public void testBidiStreaming() throws Exception {
+    Collector<CharSequence> echoed = new Collector<>();
+    StreamObserver<CharSequence> texts = stub.echo(echoed);
+    texts.onNext("foo");
+    texts.onNext("bar");
+    texts.onCompleted();
+    List<CharSequence> result = echoed.await();
+    assertEquals(2, result.size());
+    assertEquals("foo", result.get(0).toString());
+    assertEquals("bar", result.get(1).toString());
+  }
+}
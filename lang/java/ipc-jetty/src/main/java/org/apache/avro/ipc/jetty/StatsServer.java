@@ -1,7 +1,9 @@
 package org.apache.avro.ipc.jetty;
 
+import org.apache.avro.ipc.stats.MetricsServlet;
 import org.apache.avro.ipc.stats.StatsPlugin;
 import org.apache.avro.ipc.stats.StatsServlet;
+import org.apache.avro.metrics.MetricRegistry;
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
  * or more contributor license agreements.  See the NOTICE file
@@ -39,6 +41,14 @@ public class StatsServer {
    * Start a stats server on the given port, responsible for the given plugin.
    */
   public StatsServer(StatsPlugin plugin, int port) throws Exception {
+    this(plugin, port, MetricRegistry.get());
+  }
+
+  /*
+   * Start a stats server on the given port, responsible for the given plugin and
+   * serving the given metrics at /metrics.
+   */
+  public StatsServer(StatsPlugin plugin, int port, MetricRegistry registry) throws Exception {
     this.httpServer = new Server(port);
     this.plugin = plugin;
 
@@ -48,6 +58,8 @@ public class StatsServer {
 
     handler.addServletWithMapping(new ServletHolder(new StatsServlet(plugin)), "/");
 
+    handler.addServletWithMapping(new ServletHolder(new MetricsServlet(registry)), "/metrics");
+
     httpServer.start();
   }
 
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc.jetty;
+
+import org.apache.avro.TestProtocolSpecific;
+import org.apache.avro.ipc.HttpTransceiver;
+import org.apache.avro.ipc.Responder;
+import org.apache.avro.ipc.ResponderServlet;
+import org.apache.avro.ipc.Server;
+import org.apache.avro.ipc.Transceiver;
+
+import java.net.URL;
+
+/** Sends requests chunked and has the server decode every request as it arrives. */
+public class TestProtocolHttpChunked extends TestProtocolSpecific {
+
+  @Override
+  public Server createServer(Responder testResponder) throws Exception {
+    ResponderServlet servlet = new ResponderServlet(testResponder);
+    servlet.setMaxBufferSize(0);
+    return new HttpServer(servlet, 0);
+  }
+
+  @Override
+  public Transceiver createTransceiver() throws Exception {
+    HttpTransceiver transceiver = new HttpTransceiver(new URL("http://127.0.0.1:" + server.getPort() + "/"));
+    transceiver.setChunkLength(16);
+    return transceiver;
+  }
+
+  protected int getExpectedHandshakeCount() {
+    return REPEATING;
+  }
+
+}
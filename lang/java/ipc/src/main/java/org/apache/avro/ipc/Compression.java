@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.avro.ipc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.file.Codec;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.ByteBufferInputStream;
+import org.apache.avro.util.ByteBufferOutputStream;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Compression of call payloads with a {@link CodecFactory} codec.
+ * <p>
+ * A client offers the names of the codecs it supports, in order of preference,
+ * as {@link #CODECS} in its handshake meta. The server answers with the first
+ * that it supports too as {@link #CODEC}. From then on, the client names that
+ * codec as {@link #CODEC} in the meta of each call. The payload of such a call,
+ * and of its response, is preceded by a boolean that is true if it is
+ * compressed, in which case it is sent as the bytes that the codec produced.
+ * Payloads smaller than a threshold are not compressed. Peers that ignore the
+ * meta keys never see a compressed payload, and a payload naming a codec that
+ * the receiver was not set to support is rejected.
+ */
+final class Compression {
+  /** Handshake meta key for the codecs a client offers. */
+  static final String CODECS = "avro.codecs";
+  /** Handshake and call meta key for the codec in use. */
+  static final String CODEC = "avro.codec";
+
+  /** The default size, in bytes, of the smallest payload that is compressed. */
+  static final int DEFAULT_THRESHOLD = 1024;
+
+  private static final Utf8 CODEC_KEY = new Utf8(CODEC);
+
+  private final String name;
+  private final ThreadLocal<Codec> codec;
+
+  Compression(CodecFactory factory) {
+    this.codec = ThreadLocal.withInitial(factory::newCodec);
+    this.name = codec.get().getName();
+  }
+
+  /**
+   * Returns the compression named in call meta, or null if there is none.
+   *
+   * @throws AvroRuntimeException if the codec named is not supported
+   */
+  static Compression forMeta(Map<String, ByteBuffer> meta, List<Compression> supported) {
+    if (meta == null)
+      return null;
+    ByteBuffer name = meta.get(CODEC);
+    if (name == null) // call meta read from the wire has Utf8 keys
+      name = meta.get(CODEC_KEY);
+    if (name == null)
+      return null;
+    String codec = decode(name);
+    for (Compression c : supported) {
+      if (c.name.equals(codec))
+        return c;
+    }
+    throw new AvroRuntimeException("Unsupported codec: " + codec);
+  }
+
+  String getName() {
+    return name;
+  }
+
+  /** Returns the names of codecs as sent in handshake meta. */
+  static ByteBuffer encode(List<Compression> codecs) {
+    StringBuilder names = new StringBuilder();
+    for (Compression c : codecs) {
+      if (names.length() > 0)
+        names.append(',');
+      names.append(c.name);
+    }
+    return encode(names.toString());
+  }
+
+  static ByteBuffer encode(String name) {
+    return ByteBuffer.wrap(name.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String decode(ByteBuffer name) {
+    ByteBuffer b = name.duplicate();
+    byte[] bytes = new byte[b.remaining()];
+    b.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the first codec offered in handshake meta that is also supported, or
+   * null if there is none.
+   */
+  static Compression choose(ByteBuffer offered, List<Compression> supported) {
+    for (String name : decode(offered).split(",")) {
+      for (Compression c : supported) {
+        if (c.name.equals(name))
+          return c;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a payload preceded by whether it is compressed, compressing it if it
+   * is at least threshold bytes and compression makes it smaller.
+   */
+  List<ByteBuffer> write(List<ByteBuffer> payload, int threshold) throws IOException {
+    ByteBufferOutputStream bbo = new ByteBufferOutputStream();
+    Encoder out = EncoderFactory.get().directBinaryEncoder(bbo, null);
+    long size = IpcMetrics.size(payload);
+    if (size >= threshold) {
+      ByteBuffer raw = ByteBuffer.allocate((int) size);
+      for (ByteBuffer buffer : payload)
+        raw.put(buffer.duplicate());
+      raw.flip();
+      ByteBuffer compressed = codec.get().compress(raw);
+      if (compressed.remaining() < size) { // else incompressible, so send raw
+        IpcMetrics.COMPRESSION_RAW_BYTES.add(size);
+        IpcMetrics.COMPRESSION_COMPRESSED_BYTES.add(compressed.remaining());
+        out.writeBoolean(true);
+        out.writeBytes(compressed);
+        return bbo.getBufferList();
+      }
+    }
+    out.writeBoolean(false);
+    bbo.append(payload);
+    return bbo.getBufferList();
+  }
+
+  /**
+   * Reads whether a payload is compressed and returns a decoder for the
+   * uncompressed payload.
+   */
+  Decoder read(Decoder in) throws IOException {
+    if (!in.readBoolean())
+      return in;
+    ByteBuffer raw = codec.get().decompress(in.readBytes(null));
+    return DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(Collections.singletonList(raw)), null);
+  }
+}
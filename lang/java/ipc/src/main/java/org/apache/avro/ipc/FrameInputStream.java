@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.avro.ipc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the frames written by {@link HttpTransceiver#writeBuffers(java.util.List,
+ * java.io.OutputStream)} as a single stream. Each frame is a four-byte
+ * big-endian length followed by that many bytes, and a frame of length zero
+ * ends the stream. Frame contents are passed through as they arrive rather than
+ * being buffered.
+ */
+class FrameInputStream extends InputStream {
+  private final InputStream in;
+  private int remaining; // bytes left in the current frame
+  private boolean done;
+
+  FrameInputStream(InputStream in) {
+    this.in = in;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0)
+      return 0;
+    while (remaining == 0) {
+      if (done)
+        return -1;
+      remaining = readLength();
+      done = remaining == 0;
+    }
+    int n = in.read(b, off, Math.min(len, remaining));
+    if (n < 0)
+      throw new EOFException("Unexpected EOF");
+    remaining -= n;
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return Math.min(remaining, in.available());
+  }
+
+  private int readLength() throws IOException {
+    int length = 0;
+    for (int i = 0; i < 4; i++) {
+      int b = in.read();
+      if (b < 0)
+        throw new EOFException("Unexpected EOF");
+      length = (length << 8) | b;
+    }
+    if (length < 0)
+      throw new IOException("Invalid frame length: " + length);
+    return length;
+  }
+}
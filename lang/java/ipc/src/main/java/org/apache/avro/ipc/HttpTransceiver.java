@@ -37,6 +37,7 @@ public class HttpTransceiver extends Transceiver {
   private Proxy proxy;
   private HttpURLConnection connection;
   private int timeout;
+  private int chunkLength;
 
   public HttpTransceiver(URL url) {
     this.url = url;
@@ -52,6 +53,16 @@ public class HttpTransceiver extends Transceiver {
     this.timeout = timeout;
   }
 
+  /**
+   * Send requests with chunked transfer encoding, in chunks of the given number
+   * of bytes, rather than with a Content-Length. Requests are then streamed to
+   * the server as they are written instead of first being copied into a buffer
+   * of their full size. Zero, the default, disables chunking.
+   */
+  public void setChunkLength(int chunkLength) {
+    this.chunkLength = chunkLength;
+  }
+
   @Override
   public String getRemoteName() {
     return this.url.toString();
@@ -73,7 +84,10 @@ public class HttpTransceiver extends Transceiver {
 
     connection.setRequestMethod("POST");
     connection.setRequestProperty("Content-Type", CONTENT_TYPE);
-    connection.setRequestProperty("Content-Length", Integer.toString(getLength(buffers)));
+    if (chunkLength > 0)
+      connection.setChunkedStreamingMode(chunkLength);
+    else
+      connection.setRequestProperty("Content-Length", Integer.toString(getLength(buffers)));
     connection.setDoOutput(true);
     connection.setReadTimeout(timeout);
     connection.setConnectTimeout(timeout);
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.avro.metrics.Counter;
+import org.apache.avro.metrics.MetricRegistry;
+
+/**
+ * RPC metrics, registered with {@link MetricRegistry#get()}. Per-message call
+ * counts, errors and latencies are recorded by
+ * {@link org.apache.avro.ipc.stats.MetricsPlugin}.
+ */
+final class IpcMetrics {
+  static final Counter[] CLIENT_HANDSHAKES = handshakes("avro_ipc_client_handshakes_total",
+      "Handshake responses received by clients, by match.");
+  static final Counter CLIENT_PROTOCOL_CACHE_HITS = MetricRegistry.get().counter("avro_ipc_client_protocol_cache_total",
+      "Client lookups of remote protocols by hash.", "result", "hit");
+  static final Counter CLIENT_PROTOCOL_CACHE_MISSES = MetricRegistry.get()
+      .counter("avro_ipc_client_protocol_cache_total", "Client lookups of remote protocols by hash.", "result", "miss");
+  static final Counter CLIENT_REQUEST_BYTES = MetricRegistry.get().counter("avro_ipc_client_request_bytes_total",
+      "Bytes of requests sent by clients, including handshakes.");
+  static final Counter CLIENT_RESPONSE_BYTES = MetricRegistry.get().counter("avro_ipc_client_response_bytes_total",
+      "Bytes of responses received by clients, including handshakes.");
+  static final Counter CLIENT_SESSIONS_RESUMED = MetricRegistry.get().counter("avro_ipc_client_sessions_total",
+      "Responses to requests that resumed a session, by whether the server knew it.", "result", "resumed");
+  static final Counter CLIENT_SESSIONS_EXPIRED = MetricRegistry.get().counter("avro_ipc_client_sessions_total",
+      "Responses to requests that resumed a session, by whether the server knew it.", "result", "expired");
+
+  static final Counter[] SERVER_HANDSHAKES = handshakes("avro_ipc_server_handshakes_total",
+      "Handshakes answered by servers, by match.");
+  static final Counter SERVER_PROTOCOL_CACHE_HITS = MetricRegistry.get().counter("avro_ipc_server_protocol_cache_total",
+      "Server lookups of client protocols by hash.", "result", "hit");
+  static final Counter SERVER_PROTOCOL_CACHE_MISSES = MetricRegistry.get()
+      .counter("avro_ipc_server_protocol_cache_total", "Server lookups of client protocols by hash.", "result", "miss");
+  static final Counter SERVER_REQUEST_BYTES = MetricRegistry.get().counter("avro_ipc_server_request_bytes_total",
+      "Bytes of requests received by servers, including handshakes.");
+  static final Counter SERVER_RESPONSE_BYTES = MetricRegistry.get().counter("avro_ipc_server_response_bytes_total",
+      "Bytes of responses sent by servers, including handshakes.");
+  static final Counter SERVER_SESSIONS_RESUMED = MetricRegistry.get().counter("avro_ipc_server_sessions_total",
+      "Requests that resumed a session, by whether the server knew it.", "result", "resumed");
+  static final Counter SERVER_SESSIONS_UNKNOWN = MetricRegistry.get().counter("avro_ipc_server_sessions_total",
+      "Requests that resumed a session, by whether the server knew it.", "result", "unknown");
+  static final Counter COMPRESSION_RAW_BYTES = MetricRegistry.get().counter("avro_ipc_compression_bytes_total",
+      "Bytes of call payloads compressed by clients and servers, before and after compression.", "stage", "raw");
+  static final Counter COMPRESSION_COMPRESSED_BYTES = MetricRegistry.get().counter("avro_ipc_compression_bytes_total",
+      "Bytes of call payloads compressed by clients and servers, before and after compression.", "stage",
+      "compressed");
+  static final Counter SERVER_SYSTEM_ERRORS = MetricRegistry.get().counter("avro_ipc_server_system_errors_total",
+      "Requests that failed with a system error rather than a declared error.");
+
+  private IpcMetrics() {
+  }
+
+  /** Returns the number of bytes remaining in a list of buffers. */
+  static long size(List<ByteBuffer> buffers) {
+    long size = 0;
+    if (buffers != null) {
+      for (ByteBuffer buffer : buffers) {
+        size += buffer.remaining();
+      }
+    }
+    return size;
+  }
+
+  /** Returns one counter per {@link HandshakeMatch}, indexed by ordinal. */
+  private static Counter[] handshakes(String name, String help) {
+    HandshakeMatch[] matches = HandshakeMatch.values();
+    Counter[] counters = new Counter[matches.length];
+    for (HandshakeMatch match : matches) {
+      counters[match.ordinal()] = MetricRegistry.get().counter(name, help, "match", match.name());
+    }
+    return counters;
+  }
+}
@@ -20,6 +20,8 @@ package org.apache.avro.ipc;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -33,6 +35,7 @@ import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Protocol;
 import org.apache.avro.Schema;
 import org.apache.avro.Protocol.Message;
+import org.apache.avro.file.CodecFactory;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.DecoderFactory;
@@ -59,6 +62,10 @@ public abstract class Requestor {
   private final Protocol local;
   private volatile Protocol remote;
   private volatile boolean sendLocalText;
+  private volatile Session session;
+  private volatile List<Compression> codecs = Collections.emptyList();
+  private volatile int compressionThreshold = Compression.DEFAULT_THRESHOLD;
+  private volatile Compression compression;
   private final Transceiver transceiver;
   private final ReentrantLock handshakeLock = new ReentrantLock();
 
@@ -88,6 +95,26 @@ public abstract class Requestor {
     rpcMetaPlugins.add(plugin);
   }
 
+  /**
+   * Sets the codecs to offer the server for compressing call payloads, in order
+   * of preference. The first that the server supports too is used for both
+   * requests and responses. None are offered by default.
+   */
+  public void setCodecs(CodecFactory... codecs) {
+    List<Compression> list = new ArrayList<>();
+    for (CodecFactory codec : codecs)
+      list.add(new Compression(codec));
+    this.codecs = list;
+  }
+
+  /**
+   * Sets the size, in bytes, of the smallest request payload that is compressed.
+   * Defaults to 1024.
+   */
+  public void setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
   private static final EncoderFactory ENCODER_FACTORY = new EncoderFactory();
 
   /** Writes a request message and reads a response or error message. */
@@ -217,6 +244,7 @@ public abstract class Requestor {
       remote = local;
     } else {
       remote = REMOTE_PROTOCOLS.get(remoteHash);
+      (remote != null ? IpcMetrics.CLIENT_PROTOCOL_CACHE_HITS : IpcMetrics.CLIENT_PROTOCOL_CACHE_MISSES).inc();
     }
     HandshakeRequest handshake = new HandshakeRequest();
     handshake.setClientHash(localHash);
@@ -229,16 +257,54 @@ public abstract class Requestor {
     for (RPCPlugin plugin : rpcMetaPlugins) {
       plugin.clientStartConnect(context);
     }
+    context.requestHandshakeMeta().put(Session.META, ByteBuffer.allocate(0));
+    if (!codecs.isEmpty())
+      context.requestHandshakeMeta().put(Compression.CODECS, Compression.encode(codecs));
     handshake.setMeta(context.requestHandshakeMeta());
 
     HANDSHAKE_WRITER.write(handshake, out);
   }
 
+  /**
+   * Writes the prefix of a request: the token of the current session if there is
+   * one, otherwise a handshake if needed. Returns the session written, if any.
+   */
+  private Session writeSessionOrHandshake(Encoder out) throws IOException {
+    Session current = session;
+    if (current == null || getTransceiver().isConnected()) {
+      writeHandshake(out);
+      return null;
+    }
+    remote = current.getRemote();
+    current.write(out);
+    return current;
+  }
+
+  /**
+   * Reads the prefix of the response to a request that resumed a session. Returns
+   * false and forgets the session if the server did not know it, e.g. because it
+   * was restarted.
+   */
+  private boolean readSession(Session resumed, Decoder in) throws IOException {
+    if (in.readBoolean()) {
+      IpcMetrics.CLIENT_SESSIONS_RESUMED.inc();
+      return true;
+    }
+    LOG.debug("Session expired");
+    IpcMetrics.CLIENT_SESSIONS_EXPIRED.inc();
+    if (session == resumed) {
+      session = null;
+      compression = null; // agreed with the old server, so renegotiated by the handshake
+    }
+    return false;
+  }
+
   private boolean readHandshake(Decoder in) throws IOException {
     if (getTransceiver().isConnected())
       return true;
     boolean established = false;
     HandshakeResponse handshake = HANDSHAKE_READER.read(null, in);
+    IpcMetrics.CLIENT_HANDSHAKES[handshake.getMatch().ordinal()].inc();
     switch (handshake.getMatch()) {
     case BOTH:
       established = true;
@@ -264,8 +330,15 @@ public abstract class Requestor {
     for (RPCPlugin plugin : rpcMetaPlugins) {
       plugin.clientFinishConnect(context);
     }
-    if (established)
+    if (established) {
       getTransceiver().setRemote(remote);
+      Map<String, ByteBuffer> meta = handshake.getMeta();
+      ByteBuffer codec = meta != null ? meta.get(Compression.CODEC) : null;
+      compression = codec != null ? Compression.choose(codec, codecs) : null;
+      ByteBuffer token = meta != null ? meta.get(Session.META) : null;
+      if (token != null && token.remaining() == Long.BYTES && !getTransceiver().isConnected())
+        session = new Session(token, remote);
+    }
     return established;
   }
 
@@ -283,6 +356,7 @@ public abstract class Requestor {
     MD5 remoteHash = REMOTE_HASHES.get(transceiver.getRemoteName());
     if (remoteHash != null) {
       remote = REMOTE_PROTOCOLS.get(remoteHash);
+      (remote != null ? IpcMetrics.CLIENT_PROTOCOL_CACHE_HITS : IpcMetrics.CLIENT_PROTOCOL_CACHE_MISSES).inc();
       if (remote != null)
         return remote; // already cached
     }
@@ -295,7 +369,10 @@ public abstract class Requestor {
       writeHandshake(out);
       out.writeInt(0); // empty metadata
       out.writeString(""); // bogus message name
-      List<ByteBuffer> response = getTransceiver().transceive(bbo.getBufferList());
+      List<ByteBuffer> request = bbo.getBufferList();
+      IpcMetrics.CLIENT_REQUEST_BYTES.add(IpcMetrics.size(request));
+      List<ByteBuffer> response = getTransceiver().transceive(request);
+      IpcMetrics.CLIENT_RESPONSE_BYTES.add(IpcMetrics.size(response));
       ByteBufferInputStream bbi = new ByteBufferInputStream(response);
       BinaryDecoder in = DecoderFactory.get().binaryDecoder(bbi, null);
       readHandshake(in);
@@ -345,10 +422,11 @@ public abstract class Requestor {
     @Override
     @SuppressWarnings("unchecked")
     public void handleResult(List<ByteBuffer> responseBytes) {
+      IpcMetrics.CLIENT_RESPONSE_BYTES.add(IpcMetrics.size(responseBytes));
       ByteBufferInputStream bbi = new ByteBufferInputStream(responseBytes);
       BinaryDecoder in = DecoderFactory.get().binaryDecoder(bbi, null);
       try {
-        if (!readHandshake(in)) {
+        if (request.session != null ? !readSession(request.session, in) : !readHandshake(in)) {
           // Resend the handshake and return
           Request handshake = new Request(request);
           getTransceiver().transceive(handshake.getBytes(), new TransceiverCallback<>(handshake, callback));
@@ -394,6 +472,7 @@ public abstract class Requestor {
     private final BinaryEncoder encoder;
     private Message message;
     private List<ByteBuffer> requestBytes;
+    private Session session;
 
     /**
      * Creates a Request.
@@ -486,20 +565,26 @@ public abstract class Requestor {
         out.flush();
         List<ByteBuffer> payload = bbo.getBufferList();
 
-        writeHandshake(out); // prepend handshake if needed
+        session = writeSessionOrHandshake(out); // prepend handshake if needed
 
         context.setRequestPayload(payload);
         for (RPCPlugin plugin : rpcMetaPlugins) {
           plugin.clientSendRequest(context); // get meta-data from plugins
         }
+        Compression c = compression;
+        if (c != null)
+          context.requestCallMeta().put(Compression.CODEC, Compression.encode(c.getName()));
+        else // a resent request reuses the context
+          context.requestCallMeta().remove(Compression.CODEC);
         META_WRITER.write(context.requestCallMeta(), out);
 
         out.writeString(m.getName()); // write message name
 
         out.flush();
-        bbo.append(payload);
+        bbo.append(c != null ? c.write(payload, compressionThreshold) : payload);
 
         requestBytes = bbo.getBufferList();
+        IpcMetrics.CLIENT_REQUEST_BYTES.add(IpcMetrics.size(requestBytes));
       }
       return requestBytes;
     }
@@ -552,7 +637,11 @@ public abstract class Requestor {
         return null; // one-way w/ handshake
 
       RPCContext context = request.getContext();
-      context.setResponseCallMeta(META_READER.read(null, in));
+      context.setResponseCallMeta(META_READER.read(null, this.in));
+      Decoder in = this.in;
+      Compression c = Compression.forMeta(context.responseCallMeta(), codecs);
+      if (c != null)
+        in = c.read(in);
 
       if (!in.readBoolean()) { // no error
         Object response = readResponse(rm.getResponse(), lm.getResponse(), in);
@@ -18,11 +18,17 @@
 
 package org.apache.avro.ipc;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +40,7 @@ import org.apache.avro.UnresolvedUnionException;
 import org.apache.avro.Protocol;
 import org.apache.avro.Schema;
 import org.apache.avro.Protocol.Message;
+import org.apache.avro.file.CodecFactory;
 import org.apache.avro.util.ByteBufferInputStream;
 import org.apache.avro.util.ByteBufferOutputStream;
 import org.apache.avro.util.Utf8;
@@ -58,10 +65,14 @@ public abstract class Responder {
   private static final ThreadLocal<Protocol> REMOTE = new ThreadLocal<>();
 
   private final Map<MD5, Protocol> protocols = new ConcurrentHashMap<>();
+  private final Map<MD5, Long> sessionTokens = new ConcurrentHashMap<>();
+  private final Map<Long, Protocol> sessions = new ConcurrentHashMap<>();
 
   private final Protocol local;
   private final MD5 localHash;
   protected final List<RPCPlugin> rpcMetaPlugins;
+  private volatile List<Compression> codecs = Collections.emptyList();
+  private volatile int compressionThreshold = Compression.DEFAULT_THRESHOLD;
 
   protected Responder(Protocol local) {
     this.local = local;
@@ -94,6 +105,26 @@ public abstract class Responder {
     rpcMetaPlugins.add(plugin);
   }
 
+  /**
+   * Sets the codecs that clients may use to compress call payloads, in order of
+   * preference. A client is given the first codec that it offers. None are
+   * supported by default.
+   */
+  public void setCodecs(CodecFactory... codecs) {
+    List<Compression> list = new ArrayList<>();
+    for (CodecFactory codec : codecs)
+      list.add(new Compression(codec));
+    this.codecs = list;
+  }
+
+  /**
+   * Sets the size, in bytes, of the smallest response payload that is
+   * compressed. Defaults to 1024.
+   */
+  public void setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
   /**
    * Called by a server to deserialize a request, compute and serialize a response
    * or error.
@@ -108,26 +139,55 @@ public abstract class Responder {
    * status of connection.
    */
   public List<ByteBuffer> respond(List<ByteBuffer> buffers, Transceiver connection) throws IOException {
-    Decoder in = DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(buffers), null);
+    IpcMetrics.SERVER_REQUEST_BYTES.add(IpcMetrics.size(buffers));
+    boolean resumed = Session.isResumed(buffers);
+    return respond(DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(buffers), null), resumed, connection);
+  }
+
+  /**
+   * Like {@link #respond(List, Transceiver)}, but decodes the request as it is
+   * read from a stream, so that it is never held in memory as a whole. Reads
+   * block until the request data arrives, which holds back senders that are
+   * faster than the server.
+   */
+  public List<ByteBuffer> respond(InputStream request, Transceiver connection) throws IOException {
+    CountingInputStream counted = new CountingInputStream(request);
+    // a buffer only as large as the session marker, so that larger reads go
+    // straight to the decoder's buffer
+    InputStream in = new BufferedInputStream(counted, Session.MAGIC.length);
+    boolean resumed = Session.isResumed(in);
+    try {
+      return respond(DecoderFactory.get().binaryDecoder(in, null), resumed, connection);
+    } finally {
+      IpcMetrics.SERVER_REQUEST_BYTES.add(counted.count);
+    }
+  }
+
+  private List<ByteBuffer> respond(Decoder in, boolean resumed, Transceiver connection) throws IOException {
     ByteBufferOutputStream bbo = new ByteBufferOutputStream();
     BinaryEncoder out = EncoderFactory.get().binaryEncoder(bbo, null);
     Exception error = null;
     RPCContext context = new RPCContext();
     List<ByteBuffer> payload = null;
     List<ByteBuffer> handshake = null;
+    Compression compression = null;
     boolean wasConnected = connection != null && connection.isConnected();
     try {
-      Protocol remote = handshake(in, out, connection);
+      Protocol remote = !wasConnected && resumed ? resume(in, out)
+          : handshake(in, out, connection);
       out.flush();
       if (remote == null) // handshake failed
-        return bbo.getBufferList();
+        return countResponse(bbo.getBufferList());
       handshake = bbo.getBufferList();
 
       // read request using remote protocol specification
       context.setRequestCallMeta(META_READER.read(null, in));
       String messageName = in.readString(null).toString();
       if (messageName.equals("")) // a handshake ping
-        return handshake;
+        return countResponse(handshake);
+      compression = Compression.forMeta(context.requestCallMeta(), codecs);
+      if (compression != null)
+        in = compression.read(in);
       Message rm = remote.getMessages().get(messageName);
       if (rm == null)
         throw new AvroRuntimeException("No such remote message: " + messageName);
@@ -174,6 +234,7 @@ public abstract class Responder {
         }
     } catch (Exception e) { // system error
       LOG.warn("system error", e);
+      IpcMetrics.SERVER_SYSTEM_ERRORS.inc();
       context.setError(e);
       bbo = new ByteBufferOutputStream();
       out = EncoderFactory.get().binaryEncoder(bbo, null);
@@ -191,13 +252,46 @@ public abstract class Responder {
     for (RPCPlugin plugin : rpcMetaPlugins) {
       plugin.serverSendResponse(context);
     }
+    if (compression != null) {
+      context.responseCallMeta().put(Compression.CODEC, Compression.encode(compression.getName()));
+      payload = compression.write(payload, compressionThreshold);
+    }
     META_WRITER.write(context.responseCallMeta(), out);
     out.flush();
     // Prepend handshake and append payload
     bbo.prepend(handshake);
     bbo.append(payload);
 
-    return bbo.getBufferList();
+    return countResponse(bbo.getBufferList());
+  }
+
+  private static List<ByteBuffer> countResponse(List<ByteBuffer> response) {
+    IpcMetrics.SERVER_RESPONSE_BYTES.add(IpcMetrics.size(response));
+    return response;
+  }
+
+  private static class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0)
+        count++;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0)
+        count += n;
+      return n;
+    }
   }
 
   private SpecificDatumWriter<HandshakeResponse> handshakeWriter = new SpecificDatumWriter<>(HandshakeResponse.class);
@@ -208,6 +302,7 @@ public abstract class Responder {
       return connection.getRemote();
     HandshakeRequest request = handshakeReader.read(null, in);
     Protocol remote = protocols.get(request.getClientHash());
+    (remote != null ? IpcMetrics.SERVER_PROTOCOL_CACHE_HITS : IpcMetrics.SERVER_PROTOCOL_CACHE_MISSES).inc();
     if (remote == null && request.getClientProtocol() != null) {
       remote = Protocol.parse(request.getClientProtocol().toString());
       protocols.put(request.getClientHash(), remote);
@@ -218,6 +313,7 @@ public abstract class Responder {
     } else {
       response.setMatch(remote == null ? HandshakeMatch.NONE : HandshakeMatch.CLIENT);
     }
+    IpcMetrics.SERVER_HANDSHAKES[response.getMatch().ordinal()].inc();
     if (response.getMatch() != HandshakeMatch.BOTH) {
       response.setServerProtocol(local.toString());
       response.setServerHash(localHash);
@@ -226,6 +322,14 @@ public abstract class Responder {
     RPCContext context = new RPCContext();
     context.setHandshakeRequest(request);
     context.setHandshakeResponse(response);
+    if (connection == null && remote != null && request.getMeta() != null
+        && request.getMeta().containsKey(Session.META)) {
+      context.responseHandshakeMeta().put(Session.META, Session.encode(sessionToken(request.getClientHash(), remote)));
+    }
+    ByteBuffer offered = request.getMeta() != null ? request.getMeta().get(Compression.CODECS) : null;
+    Compression codec = remote != null && offered != null ? Compression.choose(offered, codecs) : null;
+    if (codec != null)
+      context.responseHandshakeMeta().put(Compression.CODEC, Compression.encode(codec.getName()));
     for (RPCPlugin plugin : rpcMetaPlugins) {
       plugin.serverConnecting(context);
     }
@@ -237,6 +341,31 @@ public abstract class Responder {
     return remote;
   }
 
+  /**
+   * Returns the session token for a client protocol, creating it on first use.
+   * Tokens are random so that those of an earlier run of a server are unknown.
+   */
+  private long sessionToken(MD5 clientHash, Protocol remote) {
+    return sessionTokens.computeIfAbsent(clientHash, hash -> {
+      long token;
+      do {
+        token = ThreadLocalRandom.current().nextLong();
+      } while (sessions.putIfAbsent(token, remote) != null);
+      return token;
+    });
+  }
+
+  /**
+   * Reads the token of a request that resumes a session in place of a handshake
+   * and writes whether it is known. Returns null if it is not.
+   */
+  private Protocol resume(Decoder in, Encoder out) throws IOException {
+    Protocol remote = sessions.get(Session.readToken(in));
+    (remote != null ? IpcMetrics.SERVER_SESSIONS_RESUMED : IpcMetrics.SERVER_SESSIONS_UNKNOWN).inc();
+    out.writeBoolean(remote != null);
+    return remote;
+  }
+
   /** Computes the response for a message. */
   public abstract Object respond(Message message, Object request) throws Exception;
 
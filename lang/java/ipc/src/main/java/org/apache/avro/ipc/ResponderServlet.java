@@ -31,18 +31,36 @@ import org.apache.avro.AvroRuntimeException;
 
 /** An {@link HttpServlet} that responds to Avro RPC requests. */
 public class ResponderServlet extends HttpServlet {
+  /** The default for {@link #setMaxBufferSize(int)}. */
+  public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+
   private Responder responder;
+  private int maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
 
   public ResponderServlet(Responder responder) throws IOException {
     this.responder = responder;
   }
 
+  /**
+   * Set the size, in bytes, of the largest request that is read into memory
+   * before it is decoded. Larger requests, and those whose length is not known in
+   * advance because they are sent with chunked transfer encoding, are decoded as
+   * they arrive instead.
+   */
+  public void setMaxBufferSize(int maxBufferSize) {
+    this.maxBufferSize = maxBufferSize;
+  }
+
   @Override
   protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
     response.setContentType(HttpTransceiver.CONTENT_TYPE);
-    List<ByteBuffer> requestBufs = HttpTransceiver.readBuffers(request.getInputStream());
+    int length = request.getContentLength();
     try {
-      List<ByteBuffer> responseBufs = responder.respond(requestBufs);
+      List<ByteBuffer> responseBufs;
+      if (length >= 0 && length <= maxBufferSize)
+        responseBufs = responder.respond(HttpTransceiver.readBuffers(request.getInputStream()));
+      else
+        responseBufs = responder.respond(new FrameInputStream(request.getInputStream()), null);
       response.setContentLength(HttpTransceiver.getLength(responseBufs));
       HttpTransceiver.writeBuffers(responseBufs, response.getOutputStream());
     } catch (AvroRuntimeException e) {
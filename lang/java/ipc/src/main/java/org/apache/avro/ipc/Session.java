@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.avro.ipc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.Encoder;
+
+/**
+ * A session lets a client of a stateless transport skip the handshake once one
+ * has succeeded.
+ * <p>
+ * A client asks for a session by adding {@link #META} to its handshake meta. A
+ * server that supports sessions answers an established handshake with an
+ * eight-byte token under the same key, which stands for the pair of protocols
+ * just agreed on. Later requests start with {@link #MAGIC} and the token in
+ * place of a handshake, and their responses start with a boolean in place of a
+ * handshake response. That boolean is false when the server does not know the
+ * token, e.g. because it was restarted, and the client then forgets the session
+ * and handshakes again. Peers that ignore the meta key never see a session
+ * request.
+ */
+final class Session {
+  /** Handshake meta key used to request and to grant a session. */
+  static final String META = "avro.session";
+
+  /**
+   * Marks a request that resumes a session. Handshake requests start with an MD5
+   * hash, so these bytes are unlikely to start one.
+   */
+  static final byte[] MAGIC = { 'A', 'v', 'r', 'o', 'S', 'e', 's', 's' };
+
+  private final long token;
+  private final Protocol remote;
+
+  Session(ByteBuffer token, Protocol remote) {
+    this.token = token.duplicate().getLong();
+    this.remote = remote;
+  }
+
+  /** The remote protocol agreed on when the session was granted. */
+  Protocol getRemote() {
+    return remote;
+  }
+
+  /** Writes the prefix of a request that resumes this session. */
+  void write(Encoder out) throws IOException {
+    out.writeFixed(MAGIC);
+    out.writeFixed(ByteBuffer.allocate(Long.BYTES).putLong(0, token).array());
+  }
+
+  /** Returns a token in the form sent as handshake meta. */
+  static ByteBuffer encode(long token) {
+    return ByteBuffer.allocate(Long.BYTES).putLong(0, token);
+  }
+
+  /** Reads the token of a request for which {@link #isResumed(List)} is true. */
+  static long readToken(Decoder in) throws IOException {
+    byte[] bytes = new byte[MAGIC.length + Long.BYTES];
+    in.readFixed(bytes);
+    return ByteBuffer.wrap(bytes, MAGIC.length, Long.BYTES).getLong();
+  }
+
+  /** True if a request starts with {@link #MAGIC}. Does not consume any input. */
+  static boolean isResumed(List<ByteBuffer> request) {
+    int i = 0;
+    for (ByteBuffer buffer : request) {
+      for (int p = buffer.position(); p < buffer.limit(); p++) {
+        if (buffer.get(p) != MAGIC[i++])
+          return false;
+        if (i == MAGIC.length)
+          return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * True if a request starts with {@link #MAGIC}. The stream must support
+   * {@link InputStream#mark(int)}; it is reset to where it was.
+   */
+  static boolean isResumed(InputStream request) throws IOException {
+    request.mark(MAGIC.length);
+    try {
+      for (byte b : MAGIC) {
+        if (request.read() != (b & 0xff))
+          return false;
+      }
+      return true;
+    } finally {
+      request.reset();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc.stats;
+
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.metrics.LogLinearHistogram;
+
+/**
+ * The statistics recorded by a {@link StatsPlugin} for a single message. An
+ * instance is created the first time a message is seen and then shared by all
+ * calls of that message, so recording never needs to lock.
+ */
+public class MessageStats {
+  private final Message message;
+  private final LogLinearHistogram latencyNanos = new LogLinearHistogram();
+  private final LogLinearHistogram sendPayloads = new LogLinearHistogram();
+  private final LogLinearHistogram receivePayloads = new LogLinearHistogram();
+
+  MessageStats(Message message) {
+    this.message = message;
+  }
+
+  /** The message these statistics are about. */
+  public Message getMessage() {
+    return message;
+  }
+
+  /** Call latencies, in nanoseconds. */
+  public LogLinearHistogram getLatencyNanos() {
+    return latencyNanos;
+  }
+
+  /** Sizes of sent payloads, in bytes. */
+  public LogLinearHistogram getSendPayloads() {
+    return sendPayloads;
+  }
+
+  /** Sizes of received payloads, in bytes. */
+  public LogLinearHistogram getReceivePayloads() {
+    return receivePayloads;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc.stats;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.ipc.RPCContext;
+import org.apache.avro.ipc.RPCPlugin;
+import org.apache.avro.metrics.Counter;
+import org.apache.avro.metrics.LogLinearHistogram;
+import org.apache.avro.metrics.MetricRegistry;
+
+/**
+ * Records per-message call counts, error counts and latencies into a
+ * {@link MetricRegistry}, labelled with the message name and whether the plugin
+ * observed the call as a client or a server. Can be added to a Requestor
+ * (client) or Responder (server).
+ *
+ * Unlike {@link StatsPlugin}, which feeds the {@link StatsServlet} HTML page,
+ * this is meant for machine-readable export, e.g. through
+ * {@link MetricsServlet}.
+ */
+public class MetricsPlugin extends RPCPlugin {
+  private final MetricRegistry registry;
+  private final ConcurrentMap<Message, Recorder> client = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Message, Recorder> server = new ConcurrentHashMap<>();
+
+  /** Start times of RPCs in flight, from {@link System#nanoTime()}. */
+  private final ConcurrentMap<RPCContext, Long> activeRpcs = new ConcurrentHashMap<>();
+
+  /** Construct a plugin that registers with {@link MetricRegistry#get()}. */
+  public MetricsPlugin() {
+    this(MetricRegistry.get());
+  }
+
+  /** Construct a plugin that registers with the given registry. */
+  public MetricsPlugin(MetricRegistry registry) {
+    this.registry = registry;
+  }
+
+  /** The metrics recorded for one message and role. */
+  private static class Recorder {
+    final Counter calls;
+    final Counter errors;
+    final LogLinearHistogram latency;
+
+    Recorder(MetricRegistry registry, Message message, String role) {
+      String name = message.getName();
+      calls = registry.counter("avro_ipc_calls_total", "Completed RPC calls.", "message", name, "role", role);
+      errors = registry.counter("avro_ipc_errors_total", "Completed RPC calls that returned an error.", "message",
+          name, "role", role);
+      latency = registry.histogram("avro_ipc_latency_nanoseconds", "RPC call latency.", "message", name, "role",
+          role);
+    }
+
+    void record(RPCContext context, Long start) {
+      calls.inc();
+      if (context.isError()) {
+        errors.inc();
+      }
+      if (start != null) {
+        latency.record(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private Recorder recorder(ConcurrentMap<Message, Recorder> recorders, Message message, String role) {
+    Recorder recorder = recorders.get(message);
+    if (recorder == null) {
+      recorder = recorders.computeIfAbsent(message, m -> new Recorder(registry, m, role));
+    }
+    return recorder;
+  }
+
+  @Override
+  public void serverReceiveRequest(RPCContext context) {
+    if (context.getMessage().isOneWay()) { // there may be no response to time
+      recorder(server, context.getMessage(), "server").calls.inc();
+    } else {
+      activeRpcs.put(context, System.nanoTime());
+    }
+  }
+
+  @Override
+  public void serverSendResponse(RPCContext context) {
+    Message message = context.getMessage();
+    if (message == null) { // the request could not be read
+      return;
+    }
+    Long start = activeRpcs.remove(context);
+    if (start != null || !message.isOneWay()) {
+      recorder(server, message, "server").record(context, start);
+    }
+  }
+
+  @Override
+  public void clientSendRequest(RPCContext context) {
+    if (context.getMessage().isOneWay()) { // no response will be received
+      recorder(client, context.getMessage(), "client").calls.inc();
+    } else {
+      activeRpcs.put(context, System.nanoTime());
+    }
+  }
+
+  @Override
+  public void clientReceiveResponse(RPCContext context) {
+    Long start = activeRpcs.remove(context);
+    if (start != null) {
+      recorder(client, context.getMessage(), "client").record(context, start);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc.stats;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.avro.metrics.MetricRegistry;
+import org.apache.avro.metrics.PrometheusTextFormat;
+
+/**
+ * An {@link HttpServlet} that serves the metrics of a {@link MetricRegistry} in
+ * the Prometheus text format.
+ */
+public class MetricsServlet extends HttpServlet {
+  private final MetricRegistry registry;
+
+  /** Serves the metrics of {@link MetricRegistry#get()}. */
+  public MetricsServlet() {
+    this(MetricRegistry.get());
+  }
+
+  public MetricsServlet(MetricRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    resp.setContentType(PrometheusTextFormat.CONTENT_TYPE);
+    PrometheusTextFormat.write(registry, resp.getWriter());
+  }
+}
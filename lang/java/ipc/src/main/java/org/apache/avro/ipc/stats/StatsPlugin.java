@@ -19,8 +19,8 @@ package org.apache.avro.ipc.stats;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
@@ -37,8 +37,9 @@ import org.apache.avro.ipc.stats.Stopwatch.Ticks;
  * Collects count and latency statistics about RPC calls. Keeps data for every
  * method. Can be added to a Requestor (client) or Responder (server).
  *
- * This uses milliseconds as the standard unit of measure throughout the class,
- * stored in floats.
+ * Latencies are recorded in nanoseconds and payload sizes in bytes into
+ * lock-free {@link LogLinearHistogram}s, one set per message, so that recording
+ * does not contend between concurrent calls.
  */
 public class StatsPlugin extends RPCPlugin {
   /** Static declaration of histogram buckets. */
@@ -52,13 +53,10 @@ public class StatsPlugin extends RPCPlugin {
           2000, 5000, 10000, 50000, 100000)));
 
   /**
-   * Per-method histograms. Must be accessed while holding a lock.
+   * Per-message statistics. Entries are created the first time a message is
+   * seen and never removed, so recording only needs a lock-free lookup.
    */
-  Map<Message, FloatHistogram<?>> methodTimings = new HashMap<>();
-
-  Map<Message, IntegerHistogram<?>> sendPayloads = new HashMap<>();
-
-  Map<Message, IntegerHistogram<?>> receivePayloads = new HashMap<>();
+  final ConcurrentMap<Message, MessageStats> messageStats = new ConcurrentHashMap<>();
 
   /** RPCs in flight. */
   ConcurrentMap<RPCContext, Stopwatch> activeRpcs = new ConcurrentHashMap<>();
@@ -67,10 +65,14 @@ public class StatsPlugin extends RPCPlugin {
   /** How long I've been alive */
   public Date startupTime = new Date();
 
-  private Segmenter<?, Float> floatSegmenter;
-  private Segmenter<?, Integer> integerSegmenter;
+  final Segmenter<?, Float> floatSegmenter;
+  final Segmenter<?, Integer> integerSegmenter;
 
-  /** Construct a plugin with custom Ticks and Segmenter implementations. */
+  /**
+   * Construct a plugin with custom Ticks and Segmenter implementations. The
+   * segmenters determine how the recorded histograms are bucketed by
+   * {@link StatsServlet}.
+   */
   public StatsPlugin(Ticks ticks, Segmenter<?, Float> floatSegmenter, Segmenter<?, Integer> integerSegmenter) {
     this.floatSegmenter = floatSegmenter;
     this.integerSegmenter = integerSegmenter;
@@ -85,6 +87,37 @@ public class StatsPlugin extends RPCPlugin {
     this(Stopwatch.SYSTEM_TICKS, LATENCY_SEGMENTER, PAYLOAD_SEGMENTER);
   }
 
+  /**
+   * Returns a read-only view of the statistics recorded for each message seen so
+   * far.
+   */
+  public Map<Message, MessageStats> getMessageStats() {
+    return Collections.unmodifiableMap(messageStats);
+  }
+
+  /**
+   * Discards all recorded latencies and payload sizes. RPCs in flight are still
+   * recorded when they complete.
+   */
+  public void reset() {
+    for (MessageStats stats : messageStats.values()) {
+      stats.getLatencyNanos().snapshotAndReset();
+      stats.getSendPayloads().snapshotAndReset();
+      stats.getReceivePayloads().snapshotAndReset();
+    }
+  }
+
+  /** Returns the statistics for a message, creating them on first use. */
+  MessageStats getStats(Message message) {
+    if (message == null)
+      throw new IllegalArgumentException();
+    MessageStats stats = messageStats.get(message);
+    if (stats == null) {
+      stats = messageStats.computeIfAbsent(message, MessageStats::new);
+    }
+    return stats;
+  }
+
   /**
    * Helper to get the size of an RPC payload.
    */
@@ -107,30 +140,16 @@ public class StatsPlugin extends RPCPlugin {
     t.start();
     this.activeRpcs.put(context, t);
 
-    synchronized (receivePayloads) {
-      IntegerHistogram<?> h = receivePayloads.get(context.getMessage());
-      if (h == null) {
-        h = createNewIntegerHistogram();
-        receivePayloads.put(context.getMessage(), h);
-      }
-      h.add(getPayloadSize(context.getRequestPayload()));
-    }
+    getStats(context.getMessage()).getReceivePayloads().record(getPayloadSize(context.getRequestPayload()));
   }
 
   @Override
   public void serverSendResponse(RPCContext context) {
     Stopwatch t = this.activeRpcs.remove(context);
     t.stop();
-    publish(context, t);
-
-    synchronized (sendPayloads) {
-      IntegerHistogram<?> h = sendPayloads.get(context.getMessage());
-      if (h == null) {
-        h = createNewIntegerHistogram();
-        sendPayloads.put(context.getMessage(), h);
-      }
-      h.add(getPayloadSize(context.getResponsePayload()));
-    }
+    MessageStats stats = getStats(context.getMessage());
+    stats.getLatencyNanos().record(t.elapsedNanos());
+    stats.getSendPayloads().record(getPayloadSize(context.getResponsePayload()));
   }
 
   @Override
@@ -139,53 +158,16 @@ public class StatsPlugin extends RPCPlugin {
     t.start();
     this.activeRpcs.put(context, t);
 
-    synchronized (sendPayloads) {
-      IntegerHistogram<?> h = sendPayloads.get(context.getMessage());
-      if (h == null) {
-        h = createNewIntegerHistogram();
-        sendPayloads.put(context.getMessage(), h);
-      }
-      h.add(getPayloadSize(context.getRequestPayload()));
-    }
+    getStats(context.getMessage()).getSendPayloads().record(getPayloadSize(context.getRequestPayload()));
   }
 
   @Override
   public void clientReceiveResponse(RPCContext context) {
     Stopwatch t = this.activeRpcs.remove(context);
     t.stop();
-    publish(context, t);
-
-    synchronized (receivePayloads) {
-      IntegerHistogram<?> h = receivePayloads.get(context.getMessage());
-      if (h == null) {
-        h = createNewIntegerHistogram();
-        receivePayloads.put(context.getMessage(), h);
-      }
-      h.add(getPayloadSize(context.getRequestPayload()));
-    }
-  }
-
-  /** Adds timing to the histograms. */
-  private void publish(RPCContext context, Stopwatch t) {
-    Message message = context.getMessage();
-    if (message == null)
-      throw new IllegalArgumentException();
-    synchronized (methodTimings) {
-      FloatHistogram<?> h = methodTimings.get(context.getMessage());
-      if (h == null) {
-        h = createNewFloatHistogram();
-        methodTimings.put(context.getMessage(), h);
-      }
-      h.add(nanosToMillis(t.elapsedNanos()));
-    }
-  }
-
-  private FloatHistogram<?> createNewFloatHistogram() {
-    return new FloatHistogram<>(floatSegmenter);
-  }
-
-  private IntegerHistogram<?> createNewIntegerHistogram() {
-    return new IntegerHistogram<>(integerSegmenter);
+    MessageStats stats = getStats(context.getMessage());
+    stats.getLatencyNanos().record(t.elapsedNanos());
+    stats.getReceivePayloads().record(getPayloadSize(context.getResponsePayload()));
   }
 
   /** Converts nanoseconds to milliseconds. */
@@ -25,8 +25,8 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
 import java.util.Map.Entry;
+import java.util.function.LongFunction;
 
 import javax.servlet.ServletException;
 import javax.servlet.UnavailableException;
@@ -39,6 +39,9 @@ import org.apache.velocity.app.VelocityEngine;
 
 import org.apache.avro.Protocol.Message;
 import org.apache.avro.ipc.RPCContext;
+import org.apache.avro.ipc.stats.Histogram.Segmenter;
+import org.apache.avro.metrics.LogLinearHistogram;
+import org.apache.avro.metrics.LogLinearHistogram.Snapshot;
 
 /**
  * Exposes information provided by a StatsPlugin as a web page.
@@ -49,6 +52,7 @@ import org.apache.avro.ipc.RPCContext;
 public class StatsServlet extends HttpServlet {
   private final StatsPlugin statsPlugin;
   private VelocityEngine velocityEngine;
+  private static final double NANOS_PER_MILLI = 1000000.0;
   private static final SimpleDateFormat FORMATTER = new SimpleDateFormat("dd-MMM-yyyy HH:mm:ss");
 
   public StatsServlet(StatsPlugin statsPlugin) throws UnavailableException {
@@ -133,13 +137,10 @@ public class StatsServlet extends HttpServlet {
       rpcs.add(renderActiveRpc(rpc.getKey(), rpc.getValue()));
     }
 
-    // Get set of all seen messages
-    Set<Message> keys = null;
-    synchronized (this.statsPlugin.methodTimings) {
-      keys = this.statsPlugin.methodTimings.keySet();
-
-      for (Message m : keys) {
-        messages.add(renderMethod(m));
+    for (MessageStats stats : this.statsPlugin.messageStats.values()) {
+      Snapshot latency = stats.getLatencyNanos().snapshot();
+      if (latency.getCount() > 0) { // only show messages with completed calls
+        messages.add(renderMethod(stats.getMessage(), latency, stats));
       }
     }
 
@@ -164,83 +165,70 @@ public class StatsServlet extends HttpServlet {
     return out;
   }
 
-  private RenderableMessage renderMethod(Message message) {
+  private RenderableMessage renderMethod(Message message, Snapshot latency, MessageStats stats) {
     RenderableMessage out = new RenderableMessage(message.getName());
+    out.numCalls = (int) latency.getCount();
 
-    synchronized (this.statsPlugin.methodTimings) {
-      FloatHistogram<?> hist = this.statsPlugin.methodTimings.get(message);
-      out.numCalls = hist.getCount();
-
-      HashMap<String, String> latencyBar = new HashMap<>();
-      // Fill in chart attributes for velocity
-      latencyBar.put("type", "bar");
-      latencyBar.put("title", "All-Time Latency");
-      latencyBar.put("units", "ms");
-      latencyBar.put("numCalls", Integer.toString(hist.getCount()));
-      latencyBar.put("avg", Float.toString(hist.getMean()));
-      latencyBar.put("stdDev", Float.toString(hist.getUnbiasedStdDev()));
-      latencyBar.put("labelStr", Arrays.toString(hist.getSegmenter().getBoundaryLabels().toArray()));
-      latencyBar.put("boundaryStr",
-          Arrays.toString(escapeStringArray(hist.getSegmenter().getBucketLabels()).toArray()));
-      latencyBar.put("dataStr", Arrays.toString(hist.getHistogram()));
-      out.charts.add(latencyBar);
-
-      HashMap<String, String> latencyDot = new HashMap<>();
-      latencyDot.put("title", "Latency");
-      latencyDot.put("type", "dot");
-      latencyDot.put("dataStr", Arrays.toString(hist.getRecentAdditions().toArray()));
-      out.charts.add(latencyDot);
-    }
+    out.charts.add(renderBarChart("All-Time Latency", "ms", latency, NANOS_PER_MILLI, statsPlugin.floatSegmenter,
+        v -> StatsPlugin.nanosToMillis(v)));
+    out.charts.add(renderDotChart("Latency", latency, NANOS_PER_MILLI));
 
-    synchronized (this.statsPlugin.sendPayloads) {
-      IntegerHistogram<?> hist = this.statsPlugin.sendPayloads.get(message);
-      HashMap<String, String> latencyBar = new HashMap<>();
-      // Fill in chart attributes for velocity
-      latencyBar.put("type", "bar");
-      latencyBar.put("title", "All-Time Send Payload");
-      latencyBar.put("units", "ms");
-      latencyBar.put("numCalls", Integer.toString(hist.getCount()));
-      latencyBar.put("avg", Float.toString(hist.getMean()));
-      latencyBar.put("stdDev", Float.toString(hist.getUnbiasedStdDev()));
-      latencyBar.put("labelStr", Arrays.toString(hist.getSegmenter().getBoundaryLabels().toArray()));
-      latencyBar.put("boundaryStr",
-          Arrays.toString(escapeStringArray(hist.getSegmenter().getBucketLabels()).toArray()));
-      latencyBar.put("dataStr", Arrays.toString(hist.getHistogram()));
-      out.charts.add(latencyBar);
-
-      HashMap<String, String> latencyDot = new HashMap<>();
-      latencyDot.put("title", "Send Payload");
-      latencyDot.put("type", "dot");
-      latencyDot.put("dataStr", Arrays.toString(hist.getRecentAdditions().toArray()));
-      out.charts.add(latencyDot);
-    }
+    Snapshot send = stats.getSendPayloads().snapshot();
+    out.charts.add(renderBarChart("All-Time Send Payload", "B", send, 1, statsPlugin.integerSegmenter, v -> (int) v));
+    out.charts.add(renderDotChart("Send Payload", send, 1));
 
-    synchronized (this.statsPlugin.receivePayloads) {
-      IntegerHistogram<?> hist = this.statsPlugin.receivePayloads.get(message);
-      HashMap<String, String> latencyBar = new HashMap<>();
-      // Fill in chart attributes for velocity
-      latencyBar.put("type", "bar");
-      latencyBar.put("title", "All-Time Receive Payload");
-      latencyBar.put("units", "ms");
-      latencyBar.put("numCalls", Integer.toString(hist.getCount()));
-      latencyBar.put("avg", Float.toString(hist.getMean()));
-      latencyBar.put("stdDev", Float.toString(hist.getUnbiasedStdDev()));
-      latencyBar.put("labelStr", Arrays.toString(hist.getSegmenter().getBoundaryLabels().toArray()));
-      latencyBar.put("boundaryStr",
-          Arrays.toString(escapeStringArray(hist.getSegmenter().getBucketLabels()).toArray()));
-      latencyBar.put("dataStr", Arrays.toString(hist.getHistogram()));
-      out.charts.add(latencyBar);
-
-      HashMap<String, String> latencyDot = new HashMap<>();
-      latencyDot.put("title", "Recv Payload");
-      latencyDot.put("type", "dot");
-      latencyDot.put("dataStr", Arrays.toString(hist.getRecentAdditions().toArray()));
-      out.charts.add(latencyDot);
-    }
+    Snapshot receive = stats.getReceivePayloads().snapshot();
+    out.charts.add(
+        renderBarChart("All-Time Receive Payload", "B", receive, 1, statsPlugin.integerSegmenter, v -> (int) v));
+    out.charts.add(renderDotChart("Recv Payload", receive, 1));
 
     return out;
   }
 
+  /**
+   * Fills in bar chart attributes for velocity. The log-linear buckets of the
+   * snapshot are regrouped into the (coarser) buckets of the segmenter.
+   */
+  private <T> HashMap<String, String> renderBarChart(String title, String units, Snapshot snapshot, double unit,
+      Segmenter<?, T> segmenter, LongFunction<T> toSegmentValue) {
+    int[] data = new int[segmenter.size()];
+    long[] counts = snapshot.getCounts();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != 0) {
+        data[segmenter.segment(toSegmentValue.apply(LogLinearHistogram.lowestValueAt(i)))] += (int) counts[i];
+      }
+    }
+
+    HashMap<String, String> bar = new HashMap<>();
+    bar.put("type", "bar");
+    bar.put("title", title);
+    bar.put("units", units);
+    bar.put("numCalls", Long.toString(snapshot.getCount()));
+    bar.put("avg", Float.toString((float) (snapshot.getMean() / unit)));
+    bar.put("stdDev", Float.toString((float) (snapshot.getUnbiasedStdDev() / unit)));
+    bar.put("p50", Float.toString((float) (snapshot.getValueAtPercentile(50) / unit)));
+    bar.put("p99", Float.toString((float) (snapshot.getValueAtPercentile(99) / unit)));
+    bar.put("p999", Float.toString((float) (snapshot.getValueAtPercentile(99.9) / unit)));
+    bar.put("labelStr", Arrays.toString(segmenter.getBoundaryLabels().toArray()));
+    bar.put("boundaryStr", Arrays.toString(escapeStringArray(segmenter.getBucketLabels()).toArray()));
+    bar.put("dataStr", Arrays.toString(data));
+    return bar;
+  }
+
+  /** Fills in dot chart attributes for velocity. */
+  private HashMap<String, String> renderDotChart(String title, Snapshot snapshot, double unit) {
+    long[] recent = snapshot.getRecentValues();
+    float[] data = new float[recent.length];
+    for (int i = 0; i < recent.length; i++) {
+      data[i] = (float) (recent[i] / unit);
+    }
+    HashMap<String, String> dot = new HashMap<>();
+    dot.put("title", title);
+    dot.put("type", "dot");
+    dot.put("dataStr", Arrays.toString(data));
+    return dot;
+  }
+
   private CharSequence formatMillis(float millis) {
     return String.format("%.0fms", millis);
   }
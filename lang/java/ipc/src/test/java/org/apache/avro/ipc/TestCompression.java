@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Protocol;
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.ipc.generic.GenericRequestor;
+import org.apache.avro.ipc.generic.GenericResponder;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestCompression {
+  private static final Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"Minimal\", "
+      + "\"messages\": { \"m\": {\"request\": [{\"name\": \"x\", \"type\": \"string\"}], \"response\": \"string\"} } }");
+
+  private static final String LARGE = String.join("", Collections.nCopies(1000, "compressible "));
+
+  private static class EchoResponder extends GenericResponder {
+    EchoResponder() {
+      super(PROTOCOL);
+    }
+
+    @Override
+    public Object respond(Message message, Object request) {
+      return ((GenericRecord) request).get("x");
+    }
+  }
+
+  /** A stateless transceiver that records the sizes of requests and responses. */
+  private static class RecordingTransceiver extends LocalTransceiver {
+    private final Responder responder;
+    private final List<Long> requestSizes = new ArrayList<>();
+    private final List<Long> responseSizes = new ArrayList<>();
+
+    RecordingTransceiver(Responder responder) {
+      super(responder);
+      this.responder = responder;
+    }
+
+    @Override
+    public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+      requestSizes.add(IpcMetrics.size(request));
+      List<ByteBuffer> response = responder.respond(request);
+      responseSizes.add(IpcMetrics.size(response));
+      return response;
+    }
+  }
+
+  private static Object call(GenericRequestor requestor, String x) throws Exception {
+    GenericRecord params = new GenericData.Record(PROTOCOL.getMessages().get("m").getRequest());
+    params.put("x", new Utf8(x));
+    return requestor.request("m", params);
+  }
+
+  @Test
+  public void testNegotiated() throws Exception {
+    EchoResponder responder = new EchoResponder();
+    responder.setCodecs(CodecFactory.deflateCodec(6));
+    RecordingTransceiver t = new RecordingTransceiver(responder);
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, t);
+    requestor.setCodecs(CodecFactory.xzCodec(6), CodecFactory.deflateCodec(1));
+
+    assertEquals(new Utf8("small"), call(requestor, "small")); // handshake
+    assertEquals(new Utf8(LARGE), call(requestor, LARGE));
+    assertTrue(t.requestSizes.get(1) < LARGE.length() / 10);
+    assertTrue(t.responseSizes.get(1) < LARGE.length() / 10);
+
+    // below the threshold, so sent raw
+    assertEquals(new Utf8("small"), call(requestor, "small"));
+  }
+
+  @Test
+  public void testNotSupportedByServer() throws Exception {
+    RecordingTransceiver t = new RecordingTransceiver(new EchoResponder());
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, t);
+    requestor.setCodecs(CodecFactory.deflateCodec(6));
+
+    assertEquals(new Utf8("small"), call(requestor, "small"));
+    assertEquals(new Utf8(LARGE), call(requestor, LARGE));
+    assertTrue(t.requestSizes.get(1) > LARGE.length());
+    assertTrue(t.responseSizes.get(1) > LARGE.length());
+  }
+
+  @Test
+  public void testCodecNotSetOnServer() throws Exception {
+    EchoResponder responder = new EchoResponder();
+    responder.setCodecs(CodecFactory.deflateCodec(6));
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, new RecordingTransceiver(responder));
+    requestor.setCodecs(CodecFactory.deflateCodec(6));
+    assertEquals(new Utf8("small"), call(requestor, "small")); // handshake
+
+    // a codec named in a call must be one that the server was set to support
+    responder.setCodecs();
+    try {
+      call(requestor, LARGE);
+      fail("Expected the call to be rejected");
+    } catch (AvroRuntimeException e) { // a system error
+      assertTrue(e.getMessage(), e.getMessage().contains("Unsupported codec: deflate"));
+    }
+  }
+
+  @Test
+  public void testSocket() throws Exception {
+    EchoResponder responder = new EchoResponder();
+    responder.setCodecs(CodecFactory.deflateCodec(6));
+    responder.setCompressionThreshold(0);
+    SocketServer server = new SocketServer(responder, new InetSocketAddress(0));
+    server.start();
+    try (SocketTransceiver t = new SocketTransceiver(new InetSocketAddress(server.getPort()))) {
+      GenericRequestor requestor = new GenericRequestor(PROTOCOL, t);
+      requestor.setCodecs(CodecFactory.deflateCodec(6));
+      requestor.setCompressionThreshold(0);
+      for (int i = 0; i < 3; i++) {
+        assertEquals(new Utf8("x" + i), call(requestor, "x" + i));
+        assertEquals(new Utf8(LARGE), call(requestor, LARGE));
+      }
+    } finally {
+      server.close();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.ipc.generic.GenericRequestor;
+import org.apache.avro.ipc.generic.GenericResponder;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestFrameInputStream {
+
+  private static byte[] frame(byte[]... frames) throws IOException {
+    List<ByteBuffer> buffers = new ArrayList<>();
+    for (byte[] f : frames)
+      buffers.add(ByteBuffer.wrap(f));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HttpTransceiver.writeBuffers(buffers, out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testReadAcrossFrames() throws IOException {
+    InputStream in = new FrameInputStream(new ByteArrayInputStream(frame(new byte[] { 1, 2, 3 }, new byte[] { 4, 5 })));
+    byte[] b = new byte[10];
+    int n = 0;
+    for (int i; (i = in.read(b, n, b.length - n)) > 0;)
+      n += i;
+    assertEquals(5, n);
+    assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, Arrays.copyOf(b, n));
+    assertEquals(-1, in.read());
+  }
+
+  @Test(expected = EOFException.class)
+  public void testTruncated() throws IOException {
+    byte[] framed = frame(new byte[] { 1, 2, 3 });
+    InputStream in = new FrameInputStream(new ByteArrayInputStream(Arrays.copyOf(framed, framed.length - 5)));
+    while (in.read() >= 0) {
+    }
+  }
+
+  /** Decodes every request from the stream of frames a client would send. */
+  @Test
+  public void testStreamingResponder() throws Exception {
+    Protocol protocol = Protocol.parse("{\"protocol\": \"Minimal\", "
+        + "\"messages\": { \"m\": {\"request\": [{\"name\": \"x\", \"type\": \"string\"}], \"response\": \"string\"} } }");
+    Responder responder = new GenericResponder(protocol) {
+      @Override
+      public Object respond(Message message, Object request) {
+        return ((GenericRecord) request).get("x");
+      }
+    };
+    Transceiver t = new LocalTransceiver(responder) {
+      @Override
+      public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpTransceiver.writeBuffers(request, out);
+        return responder.respond(new FrameInputStream(new ByteArrayInputStream(out.toByteArray())), null);
+      }
+    };
+    GenericRequestor requestor = new GenericRequestor(protocol, t);
+    GenericRecord params = new GenericData.Record(protocol.getMessages().get("m").getRequest());
+    for (int i = 0; i < 3; i++) { // the first handshakes, the rest resume the session
+      params.put("x", new Utf8("x" + i));
+      assertEquals(new Utf8("x" + i), requestor.request("m", params));
+    }
+  }
+}
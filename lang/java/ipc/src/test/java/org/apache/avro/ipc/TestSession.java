@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.ipc.generic.GenericRequestor;
+import org.apache.avro.ipc.generic.GenericResponder;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestSession {
+  private static final Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"Minimal\", "
+      + "\"messages\": { \"m\": {\"request\": [{\"name\": \"x\", \"type\": \"string\"}], \"response\": \"string\"} } }");
+
+  private static class EchoResponder extends GenericResponder {
+    private int handshakes;
+
+    EchoResponder() {
+      super(PROTOCOL);
+      addRPCPlugin(new RPCPlugin() {
+        @Override
+        public void serverConnecting(RPCContext context) {
+          handshakes++;
+        }
+      });
+    }
+
+    @Override
+    public Object respond(Message message, Object request) {
+      return ((GenericRecord) request).get("x");
+    }
+  }
+
+  /** A stateless transceiver whose server can be replaced and whose requests are recorded. */
+  private static class RecordingTransceiver extends LocalTransceiver {
+    private final List<Integer> requestSizes = new ArrayList<>();
+    private Responder responder;
+
+    RecordingTransceiver(Responder responder) {
+      super(responder);
+      this.responder = responder;
+    }
+
+    @Override
+    public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+      requestSizes.add((int) IpcMetrics.size(request));
+      return responder.respond(request);
+    }
+  }
+
+  private static Object call(GenericRequestor requestor, String x) throws Exception {
+    GenericRecord params = new GenericData.Record(PROTOCOL.getMessages().get("m").getRequest());
+    params.put("x", new Utf8(x));
+    return requestor.request("m", params);
+  }
+
+  @Test
+  public void testHandshakeOnlyOnce() throws Exception {
+    EchoResponder responder = new EchoResponder();
+    RecordingTransceiver t = new RecordingTransceiver(responder);
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, t);
+
+    for (int i = 0; i < 5; i++)
+      assertEquals(new Utf8("hello"), call(requestor, "hello"));
+
+    assertEquals(1, responder.handshakes);
+    assertEquals(5, t.requestSizes.size());
+    assertTrue(t.requestSizes.get(1) < t.requestSizes.get(0));
+    for (int i = 2; i < 5; i++)
+      assertEquals(t.requestSizes.get(1), t.requestSizes.get(i));
+  }
+
+  @Test
+  public void testServerRestart() throws Exception {
+    RecordingTransceiver t = new RecordingTransceiver(new EchoResponder());
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, t);
+    assertEquals(new Utf8("a"), call(requestor, "a"));
+    assertEquals(new Utf8("b"), call(requestor, "b"));
+
+    EchoResponder restarted = new EchoResponder();
+    t.responder = restarted;
+    assertEquals(new Utf8("c"), call(requestor, "c"));
+    assertEquals(new Utf8("d"), call(requestor, "d"));
+    assertEquals(1, restarted.handshakes);
+  }
+
+  @Test
+  public void testServerRestartWithOtherCodecs() throws Exception {
+    String large = String.join("", Collections.nCopies(1000, "compressible "));
+    EchoResponder responder = new EchoResponder();
+    responder.setCodecs(CodecFactory.deflateCodec(6));
+    RecordingTransceiver t = new RecordingTransceiver(responder);
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, t);
+    requestor.setCodecs(CodecFactory.deflateCodec(6));
+    assertEquals(new Utf8("a"), call(requestor, "a"));
+    assertEquals(new Utf8(large), call(requestor, large));
+
+    // the restarted server no longer supports the codec agreed before
+    EchoResponder restarted = new EchoResponder();
+    t.responder = restarted;
+    assertEquals(new Utf8(large), call(requestor, large));
+    assertEquals(new Utf8(large), call(requestor, large));
+    assertEquals(1, restarted.handshakes);
+  }
+
+  @Test
+  public void testIsResumed() {
+    List<ByteBuffer> request = new ArrayList<>();
+    request.add(ByteBuffer.wrap(new byte[] { 'A', 'v', 'r' }));
+    request.add(ByteBuffer.wrap(new byte[] { 'o', 'S', 'e', 's', 's', 0 }));
+    assertTrue(Session.isResumed(request));
+    assertEquals(3, request.get(0).remaining());
+
+    request.set(0, ByteBuffer.wrap(new byte[] { 'A', 'v', 'x' }));
+    assertFalse(Session.isResumed(request));
+    assertFalse(Session.isResumed(new ArrayList<>()));
+  }
+}
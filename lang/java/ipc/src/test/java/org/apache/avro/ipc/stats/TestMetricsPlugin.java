@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+
+import org.apache.avro.AvroRemoteException;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Protocol;
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.ipc.LocalTransceiver;
+import org.apache.avro.ipc.Responder;
+import org.apache.avro.ipc.Transceiver;
+import org.apache.avro.ipc.generic.GenericRequestor;
+import org.apache.avro.ipc.generic.GenericResponder;
+import org.apache.avro.metrics.MetricRegistry;
+import org.apache.avro.metrics.PrometheusTextFormat;
+import org.junit.Test;
+
+public class TestMetricsPlugin {
+  private static final Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"Minimal\", \"messages\": { \"m\": {"
+      + " \"request\": [{\"name\": \"x\", \"type\": \"int\"}], \"response\": \"int\"} } }");
+
+  /** Fails for negative requests, otherwise echoes. */
+  private static class TestResponder extends GenericResponder {
+    TestResponder() {
+      super(PROTOCOL);
+    }
+
+    @Override
+    public Object respond(Message message, Object request) throws AvroRemoteException {
+      int x = (Integer) ((GenericRecord) request).get("x");
+      if (x < 0) {
+        throw new AvroRemoteException("negative");
+      }
+      return x;
+    }
+  }
+
+  private static Object call(GenericRequestor requestor, int x) throws Exception {
+    GenericRecord params = new GenericData.Record(PROTOCOL.getMessages().get("m").getRequest());
+    params.put("x", x);
+    return requestor.request("m", params);
+  }
+
+  @Test
+  public void testCallsAndErrors() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    Responder responder = new TestResponder();
+    responder.addRPCPlugin(new MetricsPlugin(registry));
+    Transceiver t = new LocalTransceiver(responder);
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, t);
+    requestor.addRPCPlugin(new MetricsPlugin(registry));
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, call(requestor, i));
+    }
+    try {
+      call(requestor, -1);
+      fail("Expected an error");
+    } catch (AvroRuntimeException e) {
+      // expected
+    }
+
+    assertEquals(4, registry.counter("avro_ipc_calls_total", "", "message", "m", "role", "server").get());
+    assertEquals(1, registry.counter("avro_ipc_errors_total", "", "message", "m", "role", "server").get());
+    assertEquals(4, registry.counter("avro_ipc_calls_total", "", "message", "m", "role", "client").get());
+    assertEquals(1, registry.counter("avro_ipc_errors_total", "", "message", "m", "role", "client").get());
+    assertEquals(4, registry.histogram("avro_ipc_latency_nanoseconds", "", "message", "m", "role", "client").getCount());
+
+    StringWriter w = new StringWriter();
+    PrometheusTextFormat.write(registry, w);
+    assertTrue(w.toString().contains("avro_ipc_calls_total{message=\"m\",role=\"server\"} 4\n"));
+  }
+}
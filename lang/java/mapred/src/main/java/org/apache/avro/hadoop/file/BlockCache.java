@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.file;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A least-recently-used cache of decompressed data file blocks, shared by
+ * SortedKeyValueFile readers. Block data is held outside the Java heap, along
+ * with the offset of each record in the block, so that a lookup in a cached
+ * block is a binary search rather than a decompression and a scan. Files are
+ * assumed not to change while cached.
+ *
+ * @see SortedKeyValueFile.Reader.Options#withBlockCache(BlockCache)
+ */
+public class BlockCache {
+  private final long capacity;
+  private final LinkedHashMap<Key, Block> blocks = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+  private long hits;
+  private long misses;
+
+  /** Construct a cache holding up to a number of bytes of block data. */
+  public BlockCache(long capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    this.capacity = capacity;
+  }
+
+  /** Return the most bytes of block data held. */
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /** Return the bytes of block data held. */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /** Return the number of lookups that found a block. */
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  /** Return the number of lookups that did not find a block. */
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  synchronized Block get(String file, long position) {
+    Block block = blocks.get(new Key(file, position));
+    if (block != null)
+      hits++;
+    else
+      misses++;
+    return block;
+  }
+
+  synchronized void put(String file, long position, Block block) {
+    if (block.size() > capacity)
+      return; // would evict everything else
+    Block previous = blocks.put(new Key(file, position), block);
+    if (previous != null)
+      size -= previous.size();
+    size += block.size();
+    for (Iterator<Block> i = blocks.values().iterator(); size > capacity && i.hasNext();) {
+      size -= i.next().size();
+      i.remove();
+    }
+  }
+
+  private static class Key {
+    private final String file;
+    private final long position;
+
+    Key(String file, long position) {
+      this.file = file;
+      this.position = position;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key))
+        return false;
+      Key that = (Key) o;
+      return position == that.position && file.equals(that.file);
+    }
+
+    @Override
+    public int hashCode() {
+      return file.hashCode() * 31 + Long.hashCode(position);
+    }
+  }
+
+  /** The decompressed records of a block and the position of the next block. */
+  static class Block {
+    private final ByteBuffer data;
+    private final int[] offsets;
+    private final long next;
+
+    Block(ByteBuffer data, int[] offsets, long next) {
+      this.data = ByteBuffer.allocateDirect(data.remaining());
+      this.data.put(data.duplicate()).flip();
+      this.offsets = offsets;
+      this.next = next;
+    }
+
+    /** Return the number of records in this block. */
+    int count() {
+      return offsets.length;
+    }
+
+    /** Return the position in the file of the block that follows this. */
+    long next() {
+      return next;
+    }
+
+    long size() {
+      return data.capacity() + 4L * offsets.length;
+    }
+
+    /** Position an input at a record of this block. */
+    void seek(Input in, int record) {
+      in.data = data.duplicate();
+      in.data.position(offsets[record]);
+    }
+  }
+
+  /** An input stream over cached block data, reused between records. */
+  static class Input extends InputStream {
+    private ByteBuffer data;
+
+    @Override
+    public int read() {
+      return data.hasRemaining() ? data.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (!data.hasRemaining())
+        return -1;
+      len = Math.min(len, data.remaining());
+      data.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public int available() {
+      return data.remaining();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.file;
+
+import org.apache.avro.file.DataFileWriter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+/**
+ * Counts the blocks of the Avro container files written by a task's output
+ * format, and their sizes.
+ *
+ * <p>
+ * Counting is enabled per job with {@link #setEnabled(Configuration, boolean)}.
+ * The average compressed block size of a job is {@link #BYTES_WRITTEN} divided
+ * by {@link #BLOCKS}, and its compression ratio {@link #BYTES_WRITTEN} divided
+ * by {@link #BYTES_ENCODED}, which show whether the sync interval or target
+ * block size of the output suits its records.
+ * </p>
+ */
+public final class BlockCounters {
+  /** The configuration key enabling counts. */
+  public static final String CONF_ENABLED = "avro.output.block.counters";
+
+  /** The group of the counters reported. */
+  public static final String GROUP = "Avro Output Blocks";
+
+  /** The counter of blocks written. */
+  public static final String BLOCKS = "BLOCKS";
+
+  /** The counter of records in the blocks written. */
+  public static final String RECORDS = "RECORDS";
+
+  /** The counter of uncompressed bytes in the blocks written. */
+  public static final String BYTES_ENCODED = "BYTES_ENCODED";
+
+  /** The counter of compressed bytes in the blocks written. */
+  public static final String BYTES_WRITTEN = "BYTES_WRITTEN";
+
+  private BlockCounters() {
+  }
+
+  /**
+   * Sets whether a job counts the blocks of its output files.
+   *
+   * @param conf    The job configuration.
+   * @param enabled Whether to count blocks.
+   */
+  public static void setEnabled(Configuration conf, boolean enabled) {
+    conf.setBoolean(CONF_ENABLED, enabled);
+  }
+
+  /**
+   * Gets whether a job counts the blocks of its output files.
+   *
+   * @param conf The job configuration.
+   * @return Whether blocks are counted, false by default.
+   */
+  public static boolean isEnabled(Configuration conf) {
+    return conf.getBoolean(CONF_ENABLED, false);
+  }
+
+  /**
+   * Adds the blocks of a closed writer to a task's counters.
+   *
+   * @param writer   The writer.
+   * @param reporter The reporter of the task.
+   */
+  public static void report(DataFileWriter<?> writer, Reporter reporter) {
+    if (writer.getBlocksWritten() != 0) {
+      reporter.incrCounter(GROUP, BLOCKS, writer.getBlocksWritten());
+      reporter.incrCounter(GROUP, RECORDS, writer.getRecordsWritten());
+      reporter.incrCounter(GROUP, BYTES_ENCODED, writer.getBytesEncoded());
+      reporter.incrCounter(GROUP, BYTES_WRITTEN, writer.getBytesWritten());
+    }
+  }
+
+  /**
+   * Adds the blocks of a closed writer to a task's counters.
+   *
+   * @param writer  The writer.
+   * @param context The context of the task.
+   */
+  public static void report(DataFileWriter<?> writer, TaskAttemptContext context) {
+    if (writer.getBlocksWritten() != 0) {
+      context.getCounter(GROUP, BLOCKS).increment(writer.getBlocksWritten());
+      context.getCounter(GROUP, RECORDS).increment(writer.getRecordsWritten());
+      context.getCounter(GROUP, BYTES_ENCODED).increment(writer.getBytesEncoded());
+      context.getCounter(GROUP, BYTES_WRITTEN).increment(writer.getBytesWritten());
+    }
+  }
+}
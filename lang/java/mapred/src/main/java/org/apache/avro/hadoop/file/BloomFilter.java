@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+
+/**
+ * A bloom filter over the keys of a SortedKeyValueFile. Keys are hashed by their
+ * binary encoding, so a filter only answers for keys of the schema it was
+ * written with.
+ */
+class BloomFilter {
+  /** The schema of the single record in a bloom filter file. */
+  static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"BloomFilter\","
+      + " \"namespace\": \"org.apache.avro.hadoop.file\", \"fields\": ["
+      + "{\"name\": \"hashCount\", \"type\": \"int\"}, {\"name\": \"bits\", \"type\": \"bytes\"}]}");
+
+  private final int hashCount;
+  private final byte[] bits;
+  private final long bitCount;
+
+  /** Construct an empty filter for a number of keys. */
+  BloomFilter(long keyCount, int bitsPerKey) {
+    long bytes = Math.max(8, (keyCount * bitsPerKey + 7) / 8);
+    this.bits = new byte[(int) Math.min(bytes, Integer.MAX_VALUE - 8)];
+    this.bitCount = bits.length * 8L;
+    this.hashCount = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+  }
+
+  /** Construct from a record of {@link #SCHEMA}. */
+  BloomFilter(GenericRecord record) {
+    this.hashCount = (Integer) record.get("hashCount");
+    ByteBuffer buffer = (ByteBuffer) record.get("bits");
+    this.bits = new byte[buffer.remaining()];
+    buffer.duplicate().get(bits);
+    this.bitCount = bits.length * 8L;
+  }
+
+  /** Return this as a record of {@link #SCHEMA}. */
+  GenericRecord toRecord() {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("hashCount", hashCount);
+    record.put("bits", ByteBuffer.wrap(bits));
+    return record;
+  }
+
+  void add(long hash) {
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+      bits[(int) (bit >>> 3)] |= 1 << (bit & 7);
+    }
+  }
+
+  boolean mightContain(long hash) {
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+      if ((bits[(int) (bit >>> 3)] & (1 << (bit & 7))) == 0)
+        return false;
+    }
+    return true;
+  }
+
+  /** Hashes keys by their binary encoding with a key schema. */
+  static class KeyHasher<K> {
+    private final DatumWriter<K> writer;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private BinaryEncoder encoder;
+
+    KeyHasher(GenericData model, Schema keySchema) {
+      this.writer = model.createDatumWriter(keySchema);
+    }
+
+    long hash(K key) throws IOException {
+      bytes.reset();
+      encoder = EncoderFactory.get().directBinaryEncoder(bytes, encoder);
+      writer.write(key, encoder);
+      return SchemaNormalization.fingerprint64(bytes.toByteArray());
+    }
+  }
+}
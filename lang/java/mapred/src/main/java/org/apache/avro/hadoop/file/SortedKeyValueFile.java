@@ -18,21 +18,37 @@
 
 package org.apache.avro.hadoop.file;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.specific.SpecificData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.hadoop.util.AvroCharSequenceComparator;
@@ -59,6 +75,12 @@ import org.slf4j.LoggerFactory;
  * </p>
  *
  * <p>
+ * Optionally, a third file named 'bloom' holds a bloom filter of the keys, so
+ * that readers can answer most lookups of missing keys without reading the
+ * 'data' file.
+ * </p>
+ *
+ * <p>
  * SortedKeyValueFile is to Avro container file as MapFile is to SequenceFile.
  * </p>
  */
@@ -71,6 +93,9 @@ public class SortedKeyValueFile {
   /** The name of the index file within the SortedKeyValueFile directory. */
   public static final String INDEX_FILENAME = "index";
 
+  /** The name of the bloom filter file within the SortedKeyValueFile directory. */
+  public static final String BLOOM_FILENAME = "bloom";
+
   /**
    * Reads a SortedKeyValueFile by loading the key index into memory.
    *
@@ -81,6 +106,22 @@ public class SortedKeyValueFile {
    * is determined not to exist.
    * </p>
    *
+   * <p>
+   * If the file has a bloom filter, keys that it excludes are not looked up in
+   * the data file. If a {@link BlockCache} is set, blocks are kept decompressed
+   * in it with the offset of each record, so that repeated lookups in a block
+   * are binary searches.
+   * </p>
+   *
+   * <p>
+   * Without a block cache, {@link #get(Object)} and {@link #iterator()} share a
+   * position in the file; with one, blocks missing from the cache are read
+   * without moving it. {@link #getAll(Iterable)} and
+   * {@link #scan(Object, Object)} each read with their own position, so that
+   * they may be called concurrently by many threads sharing the index loaded by
+   * one reader.
+   * </p>
+   *
    * @param <K> The key type.
    * @param <V> The value type.
    */
@@ -97,6 +138,51 @@ public class SortedKeyValueFile {
     /** The model for the data. */
     private GenericData model;
 
+    /** The data file, or null if blocks are not cached. */
+    private final FsInput mDataInput;
+
+    /** The name of the data file in the block cache. */
+    private final String mDataFileName;
+
+    /** The cache of decompressed blocks, or null. */
+    private final BlockCache mBlockCache;
+
+    /** The bloom filter of keys, or null. */
+    private final BloomFilter mBloomFilter;
+
+    /** Hashes keys for the bloom filter. */
+    private final BloomFilter.KeyHasher<K> mKeyHasher;
+
+    /** Reads keys of cached blocks. */
+    private DatumReader<K> mKeyReader;
+
+    /** Reads records of cached blocks. */
+    private DatumReader<GenericRecord> mRecordReader;
+
+    /** Input over cached block data. */
+    private final BlockCache.Input mBlockInput = new BlockCache.Input();
+
+    /** Decoder over cached block data. */
+    private BinaryDecoder mBlockDecoder;
+
+    /** The path to the data file. */
+    private final Path mDataFilePath;
+
+    /** The configuration. */
+    private final Configuration mConf;
+
+    /** The reader schema for the data file records. */
+    private final Schema mRecordSchema;
+
+    /** Readers of the data file that are not in use by a multi-get or scan. */
+    private final Queue<DataFileReader<GenericRecord>> mIdleReaders = new ConcurrentLinkedQueue<>();
+
+    /** The scans that have not been closed. */
+    private final Set<Scan<K, V>> mOpenScans = ConcurrentHashMap.newKeySet();
+
+    /** Whether this reader has been closed. */
+    private volatile boolean mClosed;
+
     /** A class to encapsulate the options of a Reader. */
     public static class Options {
       /** The configuration. */
@@ -114,6 +200,9 @@ public class SortedKeyValueFile {
       /** The model for the data. */
       private GenericData model = SpecificData.get();
 
+      /** The cache of decompressed blocks. */
+      private BlockCache mBlockCache;
+
       /**
        * Sets the configuration.
        *
@@ -134,6 +223,27 @@ public class SortedKeyValueFile {
         return mConf;
       }
 
+      /**
+       * Sets a cache of decompressed blocks, which may be shared by readers of
+       * many files.
+       *
+       * @param blockCache The block cache.
+       * @return This options instance.
+       */
+      public Options withBlockCache(BlockCache blockCache) {
+        mBlockCache = blockCache;
+        return this;
+      }
+
+      /**
+       * Gets the cache of decompressed blocks.
+       *
+       * @return The block cache, or null.
+       */
+      public BlockCache getBlockCache() {
+        return mBlockCache;
+      }
+
       /**
        * Sets the input path.
        *
@@ -227,23 +337,53 @@ public class SortedKeyValueFile {
       LOG.debug("Loading the data file " + dataFilePath);
       Schema recordSchema = AvroKeyValue.getSchema(mKeySchema, options.getValueSchema());
       DatumReader<GenericRecord> datumReader = model.createDatumReader(recordSchema);
-      mDataFileReader = new DataFileReader<>(new FsInput(dataFilePath, options.getConfiguration()), datumReader);
+      mDataInput = new FsInput(dataFilePath, options.getConfiguration());
+      mDataFileReader = new DataFileReader<>(mDataInput, datumReader);
+      mDataFileName = dataFilePath.toString();
+      mDataFilePath = dataFilePath;
+      mConf = options.getConfiguration();
+      mRecordSchema = recordSchema;
+
+      Schema writerRecordSchema = mDataFileReader.getSchema();
+      Schema writerKeySchema = writerRecordSchema.getField(AvroKeyValue.KEY_FIELD).schema();
+      mBlockCache = options.getBlockCache();
+      if (null != mBlockCache) {
+        mKeyReader = model.createDatumReader(writerKeySchema, mKeySchema);
+        mRecordReader = model.createDatumReader(writerRecordSchema, recordSchema);
+      }
 
+      // Keys are hashed by their encoding, so the filter needs the writer's key schema.
+      Path bloomFilePath = new Path(options.getPath(), BLOOM_FILENAME);
+      if (writerKeySchema.equals(mKeySchema)
+          && bloomFilePath.getFileSystem(options.getConfiguration()).exists(bloomFilePath)) {
+        LOG.debug("Loading the bloom filter " + bloomFilePath);
+        mBloomFilter = loadBloomFilter(options.getConfiguration(), bloomFilePath);
+        mKeyHasher = new BloomFilter.KeyHasher<>(model, mKeySchema);
+      } else {
+        mBloomFilter = null;
+        mKeyHasher = null;
+      }
     }
 
     /**
      * Gets the first value associated with a given key, or null if it is not found.
      *
      * <p>
-     * This method will move the current position in the file to the record
-     * immediately following the requested key.
+     * Without a block cache, this method will move the current position in the
+     * file to the record immediately following the requested key, if the key was
+     * looked up in the data file. With a block cache, the position is not moved.
      * </p>
      *
      * @param key The key to look up.
      * @return The value associated with the key, or null if not found.
      * @throws IOException If there is an error.
      */
-    public V get(K key) throws IOException {
+    public synchronized V get(K key) throws IOException {
+      if (null != mBloomFilter && !mBloomFilter.mightContain(mKeyHasher.hash(key))) {
+        LOG.debug("Key " + key + " was excluded by the bloom filter");
+        return null;
+      }
+
       // Look up the entry in the index.
       LOG.debug("Looking up key " + key + " in the index.");
       Map.Entry<K, Long> indexEntry = mIndex.floorEntry(key);
@@ -251,6 +391,9 @@ public class SortedKeyValueFile {
         LOG.debug("Key " + key + " was not found in the index (it is before the first entry)");
         return null;
       }
+      if (null != mBlockCache) {
+        return getCached(key, indexEntry);
+      }
       LOG.debug("Key was found in the index, seeking to syncpoint " + indexEntry.getValue());
 
       // Seek to the data block that would contain the entry.
@@ -276,6 +419,265 @@ public class SortedKeyValueFile {
       return null;
     }
 
+    /**
+     * Gets the first value associated with each of a sequence of keys, in one
+     * pass over the file. Blocks are read in order, and skipped only when the
+     * index shows that no requested key is in them. Safe to call concurrently.
+     *
+     * @param keys The keys to look up, in sorted order.
+     * @return The value associated with each key, or null where not found.
+     * @throws IOException If there is an error.
+     */
+    public List<V> getAll(Iterable<K> keys) throws IOException {
+      BloomFilter.KeyHasher<K> keyHasher = null == mBloomFilter ? null : new BloomFilter.KeyHasher<>(model, mKeySchema);
+      List<V> values = new ArrayList<>();
+      DataFileReader<GenericRecord> reader = takeReader();
+      try {
+        long position = -1; // of the last seek
+        AvroKeyValue<K, V> record = null; // the first not before the previous key
+        K previousKey = null;
+        for (K key : keys) {
+          if (null != previousKey && model.compare(key, previousKey, mKeySchema) < 0) {
+            throw new IllegalArgumentException("Keys must be in sorted order. Key " + key + " follows " + previousKey);
+          }
+          previousKey = key;
+
+          Map.Entry<K, Long> indexEntry = mIndex.floorEntry(key);
+          if (null == indexEntry || (null != keyHasher && !mBloomFilter.mightContain(keyHasher.hash(key)))) {
+            values.add(null);
+            continue;
+          }
+          if (indexEntry.getValue() > position
+              && (null == record || model.compare(record.getKey(), indexEntry.getKey(), mKeySchema) < 0)) {
+            reader.seek(indexEntry.getValue()); // skip blocks without requested keys
+            position = indexEntry.getValue();
+            record = reader.hasNext() ? new AvroKeyValue<>(reader.next()) : null;
+          }
+          while (null != record && model.compare(record.getKey(), key, mKeySchema) < 0) {
+            record = reader.hasNext() ? new AvroKeyValue<>(reader.next()) : null;
+          }
+          boolean found = null != record && 0 == model.compare(record.getKey(), key, mKeySchema);
+          values.add(found ? record.getValue() : null);
+        }
+      } finally {
+        returnReader(reader);
+      }
+      return values;
+    }
+
+    /**
+     * Returns an iterator over the records with keys in a range, with its own
+     * position in the file. Safe to call concurrently. The scan should be closed
+     * when no longer used, and is closed with this reader if it is still open.
+     *
+     * @param startKey The first key of the range, inclusive, or null to start
+     *                 with the first record.
+     * @param endKey   The last key of the range, exclusive, or null to end with
+     *                 the last record.
+     * @return A scan over the range.
+     * @throws IOException If there is an error.
+     */
+    public Scan<K, V> scan(K startKey, K endKey) throws IOException {
+      Map.Entry<K, Long> indexEntry = null == startKey ? null : mIndex.floorEntry(startKey);
+      if (null == indexEntry) {
+        indexEntry = mIndex.firstEntry();
+      }
+      DataFileReader<GenericRecord> reader = null; // none for an empty file
+      if (null != indexEntry) {
+        reader = takeReader();
+        try {
+          reader.seek(indexEntry.getValue());
+        } catch (IOException | RuntimeException e) {
+          returnReader(reader);
+          throw e;
+        }
+      }
+      return new Scan<>(this, reader, startKey, endKey);
+    }
+
+    /**
+     * An iterator over the records of a SortedKeyValueFile with keys in a range.
+     *
+     * @param <K> The key type.
+     * @param <V> The value type.
+     */
+    public static class Scan<K, V> implements Iterator<AvroKeyValue<K, V>>, Closeable {
+      private final Reader<K, V> mFileReader;
+      private final K mEndKey;
+      private DataFileReader<GenericRecord> mReader;
+      private AvroKeyValue<K, V> mNext;
+
+      Scan(Reader<K, V> fileReader, DataFileReader<GenericRecord> reader, K startKey, K endKey) throws IOException {
+        mFileReader = fileReader;
+        mReader = reader;
+        mEndKey = endKey;
+        if (null != reader) {
+          fileReader.mOpenScans.add(this);
+        }
+        try {
+          advance();
+          while (null != mNext && null != startKey
+              && fileReader.model.compare(mNext.getKey(), startKey, fileReader.mKeySchema) < 0) {
+            advance();
+          }
+        } catch (IOException | RuntimeException e) {
+          close();
+          throw e;
+        }
+      }
+
+      private void advance() throws IOException {
+        mNext = null;
+        if (null != mReader && mReader.hasNext()) {
+          mNext = new AvroKeyValue<>(mReader.next());
+          if (null != mEndKey && mFileReader.model.compare(mNext.getKey(), mEndKey, mFileReader.mKeySchema) >= 0) {
+            mNext = null;
+          }
+        }
+        if (null == mNext) {
+          close();
+        }
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public boolean hasNext() {
+        return null != mNext;
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public AvroKeyValue<K, V> next() {
+        if (null == mNext) {
+          throw new NoSuchElementException();
+        }
+        AvroKeyValue<K, V> result = mNext;
+        try {
+          advance();
+        } catch (IOException e) {
+          throw new AvroRuntimeException(e);
+        }
+        return result;
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public synchronized void close() {
+        if (null != mReader) {
+          mFileReader.mOpenScans.remove(this);
+          mFileReader.returnReader(mReader);
+          mReader = null;
+        }
+      }
+    }
+
+    /** Returns an idle reader of the data file, opening one if there are none. */
+    private DataFileReader<GenericRecord> takeReader() throws IOException {
+      if (mClosed) {
+        throw new IOException("Reader is closed");
+      }
+      DataFileReader<GenericRecord> reader = mIdleReaders.poll();
+      if (null == reader) {
+        DatumReader<GenericRecord> datumReader = model.createDatumReader(mRecordSchema);
+        reader = DataFileReader.openReader(new FsInput(mDataFilePath, mConf), datumReader,
+            mDataFileReader.getHeader(), false);
+      }
+      return reader;
+    }
+
+    /**
+     * Makes a reader taken by {@link #takeReader()} idle again, or closes it if
+     * this reader has been closed.
+     */
+    private void returnReader(DataFileReader<GenericRecord> reader) {
+      mIdleReaders.add(reader);
+      if (mClosed) {
+        closeIdleReaders();
+      }
+    }
+
+    /** Closes the readers that are idle. */
+    private void closeIdleReaders() {
+      for (DataFileReader<GenericRecord> reader; null != (reader = mIdleReaders.poll());) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          LOG.warn("Could not close a reader of " + mDataFilePath, e);
+        }
+      }
+    }
+
+    /**
+     * Looks up a key by binary search of the cached blocks between an index
+     * entry and the next.
+     */
+    private V getCached(K key, Map.Entry<K, Long> indexEntry) throws IOException {
+      Map.Entry<K, Long> nextEntry = mIndex.higherEntry(indexEntry.getKey());
+      long end = null == nextEntry ? mDataInput.length() : nextEntry.getValue();
+      for (long position = indexEntry.getValue(); position < end;) {
+        BlockCache.Block block = getBlock(position);
+        int low = 0;
+        int high = block.count();
+        while (low < high) { // find the first record not before the key
+          int middle = (low + high) >>> 1;
+          block.seek(mBlockInput, middle);
+          mBlockDecoder = DecoderFactory.get().directBinaryDecoder(mBlockInput, mBlockDecoder);
+          if (model.compare(mKeyReader.read(null, mBlockDecoder), key, mKeySchema) < 0) {
+            low = middle + 1;
+          } else {
+            high = middle;
+          }
+        }
+        if (low < block.count()) {
+          block.seek(mBlockInput, low);
+          mBlockDecoder = DecoderFactory.get().directBinaryDecoder(mBlockInput, mBlockDecoder);
+          AvroKeyValue<K, V> record = new AvroKeyValue<>(mRecordReader.read(null, mBlockDecoder));
+          return 0 == model.compare(record.getKey(), key, mKeySchema) ? record.getValue() : null;
+        }
+        position = block.next();
+      }
+      return null;
+    }
+
+    /** Returns the block at a position from the cache, reading it if absent. */
+    private BlockCache.Block getBlock(long position) throws IOException {
+      BlockCache.Block block = mBlockCache.get(mDataFileName, position);
+      if (null != block) {
+        return block;
+      }
+
+      // Read with a reader of its own, so as not to move the position of iterator().
+      // The data is in the reader's buffer until the block copies it.
+      DataFileReader<GenericRecord> reader = takeReader();
+      try {
+        reader.seek(position);
+        ByteBuffer data = reader.nextBlock();
+        int count = (int) reader.getBlockCount();
+
+        // Find the offset of each record by skipping through the block.
+        int[] offsets = new int[count];
+        ByteArrayInputStream in = new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(),
+            data.remaining());
+        BinaryDecoder decoder = DecoderFactory.get().directBinaryDecoder(in, null);
+        for (int i = 0; i < count; i++) {
+          offsets[i] = data.remaining() - in.available();
+          GenericDatumReader.skip(reader.getSchema(), decoder);
+        }
+
+        // The next block follows this block's count, size, data and sync marker.
+        byte[] buffer = new byte[10];
+        long next = position + BinaryData.encodeLong(count, buffer, 0)
+            + BinaryData.encodeLong(reader.getBlockSize(), buffer, 0) + reader.getBlockSize()
+            + DataFileConstants.SYNC_SIZE;
+
+        block = new BlockCache.Block(data, offsets, next);
+      } finally {
+        returnReader(reader);
+      }
+      mBlockCache.put(mDataFileName, position, block);
+      return block;
+    }
+
     /**
      * Returns an iterator starting at the current position in the file.
      *
@@ -298,6 +700,11 @@ public class SortedKeyValueFile {
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
+      mClosed = true;
+      for (Scan<K, V> scan : mOpenScans) {
+        scan.close();
+      }
+      closeIdleReaders();
       mDataFileReader.close();
     }
 
@@ -335,6 +742,20 @@ public class SortedKeyValueFile {
       }
       return index;
     }
+
+    /**
+     * Loads a bloom filter file.
+     *
+     * @param conf The configuration.
+     * @param path The path to the bloom filter file.
+     * @throws IOException If there is an error.
+     */
+    private BloomFilter loadBloomFilter(Configuration conf, Path path) throws IOException {
+      DatumReader<GenericRecord> datumReader = GenericData.get().createDatumReader(BloomFilter.SCHEMA);
+      try (DataFileReader<GenericRecord> fileReader = new DataFileReader<>(new FsInput(path, conf), datumReader)) {
+        return new BloomFilter(fileReader.next());
+      }
+    }
   }
 
   /**
@@ -377,6 +798,27 @@ public class SortedKeyValueFile {
     /** The most recent key that was appended to the file, or null. */
     private K mPreviousKey;
 
+    /** The file system holding the file. */
+    private final FileSystem mFileSystem;
+
+    /** The path to the bloom filter file, or null if none is written. */
+    private final Path mBloomFilePath;
+
+    /** The bits of bloom filter per key. */
+    private final int mBloomFilterBitsPerKey;
+
+    /** Hashes keys for the bloom filter. */
+    private final BloomFilter.KeyHasher<K> mKeyHasher;
+
+    /** The most key hashes that an array can hold. */
+    private static final int MAX_KEY_HASHES = Integer.MAX_VALUE - 8;
+
+    /** The hashes of the keys appended, if the bloom filter is sized on close. */
+    private long[] mKeyHashes = new long[0];
+
+    /** The bloom filter keys are added to as appended, if sized up front. */
+    private final BloomFilter mBloomFilter;
+
     /**
      * A class to encapsulate the various options of a SortedKeyValueFile.Writer.
      */
@@ -402,6 +844,15 @@ public class SortedKeyValueFile {
       /** The compression codec for the data. */
       private CodecFactory codec = CodecFactory.nullCodec();
 
+      /** Whether to write a bloom filter of the keys. */
+      private boolean mBloomFilter;
+
+      /** The bits of bloom filter per key. */
+      private int mBloomFilterBitsPerKey = 10;
+
+      /** The number of keys to size the bloom filter for, or 0 if not known. */
+      private long mBloomFilterExpectedKeys;
+
       /**
        * Sets the key schema.
        *
@@ -534,6 +985,80 @@ public class SortedKeyValueFile {
       public CodecFactory getCodec() {
         return this.codec;
       }
+
+      /**
+       * Sets whether to write a bloom filter of the keys, so that readers can
+       * answer most lookups of missing keys without reading the data file. Unless
+       * the number of keys is given with {@link #withBloomFilterExpectedKeys(long)},
+       * the hash of each key is held in memory until the writer is closed, which
+       * limits the file to fewer than 2^31 keys.
+       *
+       * @param bloomFilter Whether to write a bloom filter.
+       * @return This options instance.
+       */
+      public Options withBloomFilter(boolean bloomFilter) {
+        mBloomFilter = bloomFilter;
+        return this;
+      }
+
+      /**
+       * Gets whether to write a bloom filter of the keys.
+       *
+       * @return Whether to write a bloom filter.
+       */
+      public boolean getBloomFilter() {
+        return mBloomFilter;
+      }
+
+      /**
+       * Sets the bits of bloom filter per key. The default of 10 wrongly includes
+       * about 1% of missing keys.
+       *
+       * @param bitsPerKey The bits per key.
+       * @return This options instance.
+       */
+      public Options withBloomFilterBitsPerKey(int bitsPerKey) {
+        if (bitsPerKey <= 0) {
+          throw new IllegalArgumentException("Bits per key must be positive: " + bitsPerKey);
+        }
+        mBloomFilterBitsPerKey = bitsPerKey;
+        return this;
+      }
+
+      /**
+       * Gets the bits of bloom filter per key.
+       *
+       * @return The bits per key.
+       */
+      public int getBloomFilterBitsPerKey() {
+        return mBloomFilterBitsPerKey;
+      }
+
+      /**
+       * Sets the number of keys to size the bloom filter for, so that keys are
+       * added to it as they are appended rather than held in memory until the
+       * writer is closed. More keys than this may be appended, but then more
+       * missing keys are wrongly included.
+       *
+       * @param expectedKeys The number of keys, or 0 if not known.
+       * @return This options instance.
+       */
+      public Options withBloomFilterExpectedKeys(long expectedKeys) {
+        if (expectedKeys < 0) {
+          throw new IllegalArgumentException("Expected keys may not be negative: " + expectedKeys);
+        }
+        mBloomFilterExpectedKeys = expectedKeys;
+        return this;
+      }
+
+      /**
+       * Gets the number of keys to size the bloom filter for.
+       *
+       * @return The number of keys, or 0 if not known.
+       */
+      public long getBloomFilterExpectedKeys() {
+        return mBloomFilterExpectedKeys;
+      }
     }
 
     /**
@@ -589,6 +1114,21 @@ public class SortedKeyValueFile {
       DatumWriter<GenericRecord> indexWriter = model.createDatumWriter(mIndexSchema);
       OutputStream indexOutputStream = fileSystem.create(indexFilePath);
       mIndexFileWriter = new DataFileWriter<>(indexWriter).create(mIndexSchema, indexOutputStream);
+
+      // The bloom filter is sized up front if the number of keys is given, or else
+      // once all keys are known. It is written on close.
+      mFileSystem = fileSystem;
+      mBloomFilterBitsPerKey = options.getBloomFilterBitsPerKey();
+      if (options.getBloomFilter()) {
+        mBloomFilePath = new Path(options.getPath(), BLOOM_FILENAME);
+        mKeyHasher = new BloomFilter.KeyHasher<>(model, mKeySchema);
+        mBloomFilter = 0 == options.getBloomFilterExpectedKeys() ? null
+            : new BloomFilter(options.getBloomFilterExpectedKeys(), mBloomFilterBitsPerKey);
+      } else {
+        mBloomFilePath = null;
+        mKeyHasher = null;
+        mBloomFilter = null;
+      }
     }
 
     /**
@@ -606,6 +1146,20 @@ public class SortedKeyValueFile {
       }
       mPreviousKey = model.deepCopy(mKeySchema, key);
 
+      if (null != mBloomFilter) {
+        mBloomFilter.add(mKeyHasher.hash(key));
+      } else if (null != mKeyHasher) {
+        if (mRecordsWritten == MAX_KEY_HASHES) {
+          throw new IllegalStateException("Too many keys to hold for the bloom filter: " + mRecordsWritten
+              + ". Size it up front with Options.withBloomFilterExpectedKeys().");
+        }
+        int count = (int) mRecordsWritten;
+        if (count == mKeyHashes.length) {
+          mKeyHashes = Arrays.copyOf(mKeyHashes, (int) Math.min(MAX_KEY_HASHES, Math.max(1024, count * 2L)));
+        }
+        mKeyHashes[count] = mKeyHasher.hash(key);
+      }
+
       // Construct the data record.
       AvroKeyValue<K, V> dataRecord = new AvroKeyValue<>(new GenericData.Record(mRecordSchema));
       dataRecord.setKey(key);
@@ -633,6 +1187,28 @@ public class SortedKeyValueFile {
     public void close() throws IOException {
       mIndexFileWriter.close();
       mDataFileWriter.close();
+      if (null != mBloomFilePath) {
+        writeBloomFilter();
+      }
+    }
+
+    /** Writes a bloom filter of the keys appended. */
+    private void writeBloomFilter() throws IOException {
+      BloomFilter bloomFilter = mBloomFilter;
+      if (null == bloomFilter) {
+        int count = (int) mRecordsWritten;
+        bloomFilter = new BloomFilter(count, mBloomFilterBitsPerKey);
+        for (int i = 0; i < count; i++) {
+          bloomFilter.add(mKeyHashes[i]);
+        }
+        mKeyHashes = null;
+      }
+      LOG.debug("Creating writer for avro bloom filter file: " + mBloomFilePath);
+      DatumWriter<GenericRecord> bloomWriter = GenericData.get().createDatumWriter(BloomFilter.SCHEMA);
+      try (DataFileWriter<GenericRecord> fileWriter = new DataFileWriter<>(bloomWriter)) {
+        fileWriter.create(BloomFilter.SCHEMA, mFileSystem.create(mBloomFilePath));
+        fileWriter.append(bloomFilter.toRecord());
+      }
     }
   }
 }
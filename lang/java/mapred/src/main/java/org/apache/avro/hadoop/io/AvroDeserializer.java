@@ -132,6 +132,15 @@ public abstract class AvroDeserializer<T extends AvroWrapper<D>, D> implements D
     mAvroDecoder.inputStream().close();
   }
 
+  /**
+   * Gets the decoder of the input stream being deserialized.
+   *
+   * @return The decoder, or null if not open.
+   */
+  BinaryDecoder getDecoder() {
+    return mAvroDecoder;
+  }
+
   /**
    * Creates a new empty <code>T</code> (extends AvroWrapper) instance.
    *
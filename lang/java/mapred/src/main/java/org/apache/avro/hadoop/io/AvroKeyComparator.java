@@ -20,7 +20,6 @@ package org.apache.avro.hadoop.io;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
-import org.apache.avro.io.BinaryData;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.avro.mapreduce.AvroJob;
 import org.apache.hadoop.conf.Configuration;
@@ -40,6 +39,12 @@ public class AvroKeyComparator<T> extends Configured implements RawComparator<Av
   private Schema mSchema;
   private GenericData mDataModel;
 
+  /** The raw comparison program compiled from the schema. */
+  private BinaryComparator mComparator;
+
+  /** Whether raw comparisons are counted. */
+  private boolean mCounted;
+
   /** {@inheritDoc} */
   @Override
   public void setConf(Configuration conf) {
@@ -50,13 +55,21 @@ public class AvroKeyComparator<T> extends Configured implements RawComparator<Av
       // and the data model non-raw compare() implementation.
       mSchema = AvroJob.getMapOutputKeySchema(conf);
       mDataModel = AvroSerialization.createDataModel(conf);
+      mComparator = new BinaryComparator(mSchema);
+      mCounted = ComparatorCounters.isEnabled(conf);
     }
   }
 
   /** {@inheritDoc} */
   @Override
   public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-    return BinaryData.compare(b1, s1, b2, s2, mSchema);
+    if (!mCounted) {
+      return mComparator.compare(b1, s1, l1, b2, s2, l2);
+    }
+    long start = System.nanoTime();
+    int result = mComparator.compare(b1, s1, l1, b2, s2, l2);
+    ComparatorCounters.record(start);
+    return result;
   }
 
   /** {@inheritDoc} */
@@ -70,6 +70,11 @@ public class AvroSerialization<T> extends Configured implements Serialization<Av
   /** Conf key for the data model implementation class. */
   private static final String CONF_DATA_MODEL = "avro.serialization.data.model";
 
+  /**
+   * Conf key for whether AvroValue data are length-prefixed and decoded lazily.
+   */
+  private static final String CONF_VALUE_LAZY = "avro.serialization.value.lazy";
+
   /** {@inheritDoc} */
   @Override
   public boolean accept(Class<?> c) {
@@ -97,7 +102,7 @@ public class AvroSerialization<T> extends Configured implements Serialization<Av
       Schema readerSchema = getValueReaderSchema(conf);
       DatumReader<T> datumReader = (readerSchema != null) ? dataModel.createDatumReader(writerSchema, readerSchema)
           : dataModel.createDatumReader(writerSchema);
-      return new AvroValueDeserializer<>(writerSchema, readerSchema, datumReader);
+      return new AvroValueDeserializer<>(writerSchema, readerSchema, datumReader, getLazyValueDecoding(conf));
     } else {
       throw new IllegalStateException("Only AvroKey and AvroValue are supported.");
     }
@@ -113,16 +118,18 @@ public class AvroSerialization<T> extends Configured implements Serialization<Av
   public Serializer<AvroWrapper<T>> getSerializer(Class<AvroWrapper<T>> c) {
     Configuration conf = getConf();
     Schema schema;
+    boolean lengthPrefixed = false;
     if (AvroKey.class.isAssignableFrom(c)) {
       schema = getKeyWriterSchema(conf);
     } else if (AvroValue.class.isAssignableFrom(c)) {
       schema = getValueWriterSchema(conf);
+      lengthPrefixed = getLazyValueDecoding(conf);
     } else {
       throw new IllegalStateException("Only AvroKey and AvroValue are supported.");
     }
     GenericData dataModel = createDataModel(conf);
     DatumWriter<T> datumWriter = dataModel.createDatumWriter(schema);
-    return new AvroSerializer<>(schema, datumWriter);
+    return new AvroSerializer<>(schema, datumWriter, lengthPrefixed);
   }
 
   /**
@@ -200,6 +207,19 @@ public class AvroSerialization<T> extends Configured implements Serialization<Av
     conf.setClass(CONF_DATA_MODEL, modelClass, GenericData.class);
   }
 
+  /**
+   * Sets whether AvroValue data are serialized with their lengths, so that they
+   * are deserialized into {@link LazyAvroValue} instances that decode them only
+   * when read. Keys are not affected, since they are compared in their binary
+   * form. Map and reduce tasks of a job must agree on this setting.
+   *
+   * @param conf The configuration.
+   * @param lazy Whether to decode values lazily.
+   */
+  public static void setLazyValueDecoding(Configuration conf, boolean lazy) {
+    conf.setBoolean(CONF_VALUE_LAZY, lazy);
+  }
+
   /**
    * Gets the writer schema of the AvroKey datum that is being
    * serialized/deserialized.
@@ -248,6 +268,17 @@ public class AvroSerialization<T> extends Configured implements Serialization<Av
     return null == json ? null : new Schema.Parser().parse(json);
   }
 
+  /**
+   * Gets whether AvroValue data are serialized with their lengths and decoded
+   * lazily.
+   *
+   * @param conf The configuration.
+   * @return Whether values are decoded lazily, false by default.
+   */
+  public static boolean getLazyValueDecoding(Configuration conf) {
+    return conf.getBoolean(CONF_VALUE_LAZY, false);
+  }
+
   /**
    * Gets the data model class for de/serialization.
    *
@@ -18,8 +18,10 @@
 
 package org.apache.avro.hadoop.io;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.avro.Schema;
 import org.apache.avro.io.EncoderFactory;
@@ -45,6 +47,13 @@ import org.apache.hadoop.io.serializer.Serializer;
  * {@link org.apache.avro.mapreduce.AvroJob} to help with Job configuration.
  * </p>
  *
+ * <p>
+ * A length-prefixing serializer writes each datum as Avro bytes, so that
+ * {@link AvroValueDeserializer} can defer decoding it. A {@link LazyAvroValue}
+ * whose datum is still encoded with the writer schema is copied without being
+ * decoded.
+ * </p>
+ *
  * @param <T> The Java type of the Avro data.
  */
 public class AvroSerializer<T> implements Serializer<AvroWrapper<T>> {
@@ -64,6 +73,18 @@ public class AvroSerializer<T> implements Serializer<AvroWrapper<T>> {
   /** The output stream for serializing. */
   private OutputStream mOutputStream;
 
+  /** Whether each datum is written with its length. */
+  private final boolean mLengthPrefixed;
+
+  /** A buffer for encoding a datum before its length is known. */
+  private final EncodingBuffer mBuffer;
+
+  /** An encoder writing to the buffer. */
+  private BinaryEncoder mBufferEncoder;
+
+  /** The last schema of encoded values found to equal the writer schema. */
+  private Schema mMatchedSchema;
+
   /**
    * Constructor.
    *
@@ -75,6 +96,8 @@ public class AvroSerializer<T> implements Serializer<AvroWrapper<T>> {
     }
     mWriterSchema = writerSchema;
     mAvroDatumWriter = new ReflectDatumWriter<>(writerSchema);
+    mLengthPrefixed = false;
+    mBuffer = null;
   }
 
   /**
@@ -84,11 +107,24 @@ public class AvroSerializer<T> implements Serializer<AvroWrapper<T>> {
    * @param datumWriter  The datum writer to use for serialization.
    */
   public AvroSerializer(Schema writerSchema, DatumWriter<T> datumWriter) {
+    this(writerSchema, datumWriter, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param writerSchema   The writer schema for the Avro data being serialized.
+   * @param datumWriter    The datum writer to use for serialization.
+   * @param lengthPrefixed Whether to write each datum with its length.
+   */
+  public AvroSerializer(Schema writerSchema, DatumWriter<T> datumWriter, boolean lengthPrefixed) {
     if (null == writerSchema) {
       throw new IllegalArgumentException("Writer schema may not be null");
     }
     mWriterSchema = writerSchema;
     mAvroDatumWriter = datumWriter;
+    mLengthPrefixed = lengthPrefixed;
+    mBuffer = lengthPrefixed ? new EncodingBuffer() : null;
   }
 
   /**
@@ -110,7 +146,12 @@ public class AvroSerializer<T> implements Serializer<AvroWrapper<T>> {
   /** {@inheritDoc} */
   @Override
   public void serialize(AvroWrapper<T> avroWrapper) throws IOException {
-    mAvroDatumWriter.write(avroWrapper.datum(), mAvroEncoder);
+    if (mLengthPrefixed) {
+      ByteBuffer encoded = encode(avroWrapper);
+      mAvroEncoder.writeBytes(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+    } else {
+      mAvroDatumWriter.write(avroWrapper.datum(), mAvroEncoder);
+    }
     // This would be a lot faster if the Serializer interface had a flush() method
     // and the
     // Hadoop framework called it when needed. For now, we'll have to flush on every
@@ -123,4 +164,37 @@ public class AvroSerializer<T> implements Serializer<AvroWrapper<T>> {
   public void close() throws IOException {
     mOutputStream.close();
   }
+
+  /**
+   * Gets whether each datum is written with its length.
+   *
+   * @return Whether data are length-prefixed.
+   */
+  public boolean isLengthPrefixed() {
+    return mLengthPrefixed;
+  }
+
+  /** Gets the binary encoding of a datum, reusing one still encoded. */
+  private ByteBuffer encode(AvroWrapper<T> avroWrapper) throws IOException {
+    if (avroWrapper instanceof LazyAvroValue) {
+      LazyAvroValue<T> value = (LazyAvroValue<T>) avroWrapper;
+      Schema schema = value.getEncodedSchema();
+      if (null != schema && (schema == mMatchedSchema || schema.equals(mWriterSchema))) {
+        mMatchedSchema = schema;
+        return value.getEncoded();
+      }
+    }
+    mBuffer.reset();
+    mBufferEncoder = ENCODER_FACTORY.binaryEncoder(mBuffer, mBufferEncoder);
+    mAvroDatumWriter.write(avroWrapper.datum(), mBufferEncoder);
+    mBufferEncoder.flush();
+    return mBuffer.toByteBuffer();
+  }
+
+  /** A byte array output stream whose contents can be read without a copy. */
+  private static final class EncodingBuffer extends ByteArrayOutputStream {
+    ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+  }
 }
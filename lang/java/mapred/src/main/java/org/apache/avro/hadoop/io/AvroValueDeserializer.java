@@ -18,19 +18,33 @@
 
 package org.apache.avro.hadoop.io;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.mapred.AvroValue;
 import org.apache.avro.mapred.AvroWrapper;
 
 /**
  * Deserializes AvroValue objects within Hadoop.
  *
+ * <p>
+ * With lazy decoding, each value is read as the length-prefixed bytes written by
+ * {@link AvroSerializer} and deserialized into a {@link LazyAvroValue} that
+ * decodes them only when its datum is read.
+ * </p>
+ *
  * @param <D> The java type of the avro data to deserialize.
  *
  * @see AvroDeserializer
  */
 public class AvroValueDeserializer<D> extends AvroDeserializer<AvroWrapper<D>, D> {
+  /** Whether values are length-prefixed and decoded lazily. */
+  private final boolean mLazy;
+
   /**
    * Constructor.
    *
@@ -39,6 +53,7 @@ public class AvroValueDeserializer<D> extends AvroDeserializer<AvroWrapper<D>, D
    */
   public AvroValueDeserializer(Schema writerSchema, Schema readerSchema, ClassLoader classLoader) {
     super(writerSchema, readerSchema, classLoader);
+    mLazy = false;
   }
 
   /**
@@ -49,16 +64,61 @@ public class AvroValueDeserializer<D> extends AvroDeserializer<AvroWrapper<D>, D
    * @param datumReader  The Avro datum reader to use for deserialization.
    */
   public AvroValueDeserializer(Schema writerSchema, Schema readerSchema, DatumReader<D> datumReader) {
+    this(writerSchema, readerSchema, datumReader, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param writerSchema The Avro writer schema for the data to deserialize.
+   * @param readerSchema The Avro reader schema for the data to deserialize.
+   * @param datumReader  The Avro datum reader to use for deserialization.
+   * @param lazy         Whether values are length-prefixed and decoded lazily.
+   */
+  public AvroValueDeserializer(Schema writerSchema, Schema readerSchema, DatumReader<D> datumReader, boolean lazy) {
     super(writerSchema, readerSchema, datumReader);
+    mLazy = lazy;
+  }
+
+  /**
+   * Gets whether values are length-prefixed and decoded lazily.
+   *
+   * @return Whether values are decoded lazily.
+   */
+  public boolean isLazy() {
+    return mLazy;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public AvroWrapper<D> deserialize(AvroWrapper<D> avroWrapperToReuse) throws IOException {
+    if (!mLazy) {
+      return super.deserialize(avroWrapperToReuse);
+    }
+    if (null == avroWrapperToReuse) {
+      avroWrapperToReuse = createAvroWrapper();
+    }
+    if (!(avroWrapperToReuse instanceof LazyAvroValue)) {
+      // Decode now into a wrapper supplied by the caller.
+      ByteBuffer encoded = getDecoder().readBytes(null);
+      BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(encoded.array(),
+          encoded.arrayOffset() + encoded.position(), encoded.remaining(), null);
+      avroWrapperToReuse.datum(mAvroDatumReader.read(avroWrapperToReuse.datum(), decoder));
+      return avroWrapperToReuse;
+    }
+    LazyAvroValue<D> value = (LazyAvroValue<D>) avroWrapperToReuse;
+    value.setEncoded(getWriterSchema(), mAvroDatumReader, getDecoder().readBytes(value.getBuffer()));
+    return value;
   }
 
   /**
-   * Creates a new empty <code>AvroValue</code> instance.
+   * Creates a new empty <code>AvroValue</code> instance, a
+   * <code>LazyAvroValue</code> if values are decoded lazily.
    *
    * @return a new empty AvroValue.
    */
   @Override
   protected AvroWrapper<D> createAvroWrapper() {
-    return new AvroValue<>(null);
+    return mLazy ? new LazyAvroValue<>(null) : new AvroValue<>(null);
   }
 }
@@ -0,0 +1,635 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.io;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.io.BinaryData;
+
+/**
+ * Compares binary encoded data of a schema, with the order of
+ * {@link BinaryData#compare(byte[], int, int, byte[], int, int, Schema)}, and
+ * hashes it consistently with that order.
+ *
+ * <p>
+ * The schema is compiled once into a flat program of comparisons, one per
+ * field, with the fields of nested records inlined and those that are ignored
+ * skipped. Comparisons read values directly from the byte arrays, without a
+ * decoder, and stop at the first field that differs. Instances are thread-safe.
+ * </p>
+ *
+ * <p>
+ * {@link #hashCode(byte[], int, int)} runs the same program over one array,
+ * mixing each value that is compared into a MurmurHash3 state. Data that
+ * compare equal hash equally, whatever their array block sizes.
+ * </p>
+ */
+public final class BinaryComparator {
+  private final Op[] program;
+
+  /** Compile a comparator for a schema. */
+  public BinaryComparator(Schema schema) {
+    this.program = new Compiler().compile(schema, false);
+  }
+
+  /**
+   * Compare binary encoded data. If equal, return zero. If greater-than, return
+   * a positive value, if less than return a negative value.
+   */
+  public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+    Cursor c = new Cursor(b1, s1, b2, s2);
+    try {
+      return run(program, c);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new AvroRuntimeException("Data ends before the end of its schema", e);
+    }
+  }
+
+  /**
+   * Hash binary encoded data. Fields whose order is ignored are not hashed.
+   *
+   * @return A hash code of the data, equal for data that compare equal.
+   */
+  public int hashCode(byte[] b, int s, int l) {
+    Hasher h = new Hasher(b, s);
+    try {
+      hash(program, h);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new AvroRuntimeException("Data ends before the end of its schema", e);
+    }
+    return h.finish();
+  }
+
+  private static int run(Op[] program, Cursor c) {
+    for (Op op : program) {
+      int r = op.compare(c);
+      if (r != 0)
+        return op.descending ? -r : r;
+    }
+    return 0;
+  }
+
+  private static void hash(Op[] program, Hasher h) {
+    for (Op op : program)
+      op.hash(h);
+  }
+
+  private static int skip(Op[] program, byte[] b, int pos) {
+    for (Op op : program)
+      pos = op.skip(b, pos);
+    return pos;
+  }
+
+  /** Positions in the two byte arrays compared. */
+  private static final class Cursor {
+    private final byte[] b1;
+    private final byte[] b2;
+    private int p1;
+    private int p2;
+
+    Cursor(byte[] b1, int p1, byte[] b2, int p2) {
+      this.b1 = b1;
+      this.p1 = p1;
+      this.b2 = b2;
+      this.p2 = p2;
+    }
+
+    long long1() {
+      long n = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = b1[p1++] & 0xff;
+        n |= (long) (b & 0x7f) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (n >>> 1) ^ -(n & 1);
+    }
+
+    long long2() {
+      long n = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = b2[p2++] & 0xff;
+        n |= (long) (b & 0x7f) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (n >>> 1) ^ -(n & 1);
+    }
+  }
+
+  /** A position in one byte array, and a MurmurHash3 state. */
+  private static final class Hasher {
+    private final byte[] b;
+    private int p;
+    private int h = 0x9747b28c;
+    private int length;
+
+    Hasher(byte[] b, int p) {
+      this.b = b;
+      this.p = p;
+    }
+
+    long readLong() {
+      long n = BinaryComparator.readLong(b, p);
+      p = skipLong(b, p);
+      return n;
+    }
+
+    void mix(int k) {
+      k *= 0xcc9e2d51;
+      k = Integer.rotateLeft(k, 15);
+      k *= 0x1b873593;
+      h ^= k;
+      h = Integer.rotateLeft(h, 13);
+      h = h * 5 + 0xe6546b64;
+      length += 4;
+    }
+
+    void mix(long k) {
+      mix((int) k);
+      mix((int) (k >>> 32));
+    }
+
+    void mixBytes(int len) {
+      mix(len);
+      int end = p + len;
+      for (; p + 4 <= end; p += 4)
+        mix(readFixed32(b, p));
+      int k = 0;
+      for (int shift = 0; p < end; shift += 8)
+        k |= (b[p++] & 0xff) << shift;
+      mix(k);
+    }
+
+    int finish() {
+      int f = h ^ length;
+      f ^= f >>> 16;
+      f *= 0x85ebca6b;
+      f ^= f >>> 13;
+      f *= 0xc2b2ae35;
+      f ^= f >>> 16;
+      return f;
+    }
+  }
+
+  private static int skipLong(byte[] b, int pos) {
+    while ((b[pos++] & 0x80) != 0) {
+    }
+    return pos;
+  }
+
+  private static long readLong(byte[] b, int pos) {
+    long n = 0;
+    int shift = 0;
+    int x;
+    do {
+      x = b[pos++] & 0xff;
+      n |= (long) (x & 0x7f) << shift;
+      shift += 7;
+    } while ((x & 0x80) != 0);
+    return (n >>> 1) ^ -(n & 1);
+  }
+
+  private static int readFixed32(byte[] b, int pos) {
+    return (b[pos] & 0xff) | ((b[pos + 1] & 0xff) << 8) | ((b[pos + 2] & 0xff) << 16) | ((b[pos + 3] & 0xff) << 24);
+  }
+
+  private static long readFixed64(byte[] b, int pos) {
+    return (readFixed32(b, pos) & 0xffffffffL) | ((long) readFixed32(b, pos + 4) << 32);
+  }
+
+  /** A comparison of one value in each array. */
+  private abstract static class Op {
+    boolean descending;
+
+    /** Compare values, advancing past them unless they differ. */
+    abstract int compare(Cursor c);
+
+    /** Return the position after the value at a position. */
+    abstract int skip(byte[] b, int pos);
+
+    /** Mix the value at the hasher's position into it, advancing past it. */
+    abstract void hash(Hasher h);
+  }
+
+  /** An int, long or enum. */
+  private static final class VarLongOp extends Op {
+    @Override
+    int compare(Cursor c) {
+      return Long.compare(c.long1(), c.long2());
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return skipLong(b, pos);
+    }
+
+    @Override
+    void hash(Hasher h) {
+      h.mix(h.readLong());
+    }
+  }
+
+  private static final class FloatOp extends Op {
+    @Override
+    int compare(Cursor c) {
+      int r = Float.compare(Float.intBitsToFloat(readFixed32(c.b1, c.p1)), Float.intBitsToFloat(readFixed32(c.b2, c.p2)));
+      c.p1 += 4;
+      c.p2 += 4;
+      return r;
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return pos + 4;
+    }
+
+    @Override
+    void hash(Hasher h) {
+      h.mix(Float.floatToIntBits(Float.intBitsToFloat(readFixed32(h.b, h.p))));
+      h.p += 4;
+    }
+  }
+
+  private static final class DoubleOp extends Op {
+    @Override
+    int compare(Cursor c) {
+      int r = Double.compare(Double.longBitsToDouble(readFixed64(c.b1, c.p1)),
+          Double.longBitsToDouble(readFixed64(c.b2, c.p2)));
+      c.p1 += 8;
+      c.p2 += 8;
+      return r;
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return pos + 8;
+    }
+
+    @Override
+    void hash(Hasher h) {
+      h.mix(Double.doubleToLongBits(Double.longBitsToDouble(readFixed64(h.b, h.p))));
+      h.p += 8;
+    }
+  }
+
+  private static final class BooleanOp extends Op {
+    @Override
+    int compare(Cursor c) {
+      return Integer.compare(c.b1[c.p1++], c.b2[c.p2++]);
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return pos + 1;
+    }
+
+    @Override
+    void hash(Hasher h) {
+      h.mix(h.b[h.p++]);
+    }
+  }
+
+  private static final class NullOp extends Op {
+    @Override
+    int compare(Cursor c) {
+      return 0;
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return pos;
+    }
+
+    @Override
+    void hash(Hasher h) {
+    }
+  }
+
+  /** A string or bytes, compared as unsigned bytes. */
+  private static final class BytesOp extends Op {
+    @Override
+    int compare(Cursor c) {
+      int l1 = (int) c.long1();
+      int l2 = (int) c.long2();
+      int r = BinaryData.compareBytes(c.b1, c.p1, l1, c.b2, c.p2, l2);
+      c.p1 += l1;
+      c.p2 += l2;
+      return r;
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      long length = readLong(b, pos);
+      return skipLong(b, pos) + (int) length;
+    }
+
+    @Override
+    void hash(Hasher h) {
+      h.mixBytes((int) h.readLong());
+    }
+  }
+
+  private static final class FixedOp extends Op {
+    private final int size;
+
+    FixedOp(int size) {
+      this.size = size;
+    }
+
+    @Override
+    int compare(Cursor c) {
+      int r = BinaryData.compareBytes(c.b1, c.p1, size, c.b2, c.p2, size);
+      c.p1 += size;
+      c.p2 += size;
+      return r;
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return pos + size;
+    }
+
+    @Override
+    void hash(Hasher h) {
+      h.mixBytes(size);
+    }
+  }
+
+  /** Compares branch indexes, then values of the same branch. */
+  private static final class UnionOp extends Op {
+    private final Op[][] branches;
+
+    UnionOp(Op[][] branches) {
+      this.branches = branches;
+    }
+
+    @Override
+    int compare(Cursor c) {
+      int i1 = (int) c.long1();
+      int i2 = (int) c.long2();
+      return i1 != i2 ? Integer.compare(i1, i2) : run(branches[i1], c);
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      int branch = (int) readLong(b, pos);
+      return BinaryComparator.skip(branches[branch], b, skipLong(b, pos));
+    }
+
+    @Override
+    void hash(Hasher h) {
+      int branch = (int) h.readLong();
+      h.mix(branch);
+      BinaryComparator.hash(branches[branch], h);
+    }
+  }
+
+  /** Compares elements in order, then lengths. */
+  private static final class ArrayOp extends Op {
+    private final Op[] element;
+
+    ArrayOp(Op[] element) {
+      this.element = element;
+    }
+
+    @Override
+    int compare(Cursor c) {
+      long r1 = 0;
+      long r2 = 0;
+      while (true) {
+        if (r1 == 0) { // next block
+          r1 = c.long1();
+          if (r1 < 0) {
+            r1 = -r1;
+            c.long1(); // block size
+          }
+        }
+        if (r2 == 0) {
+          r2 = c.long2();
+          if (r2 < 0) {
+            r2 = -r2;
+            c.long2();
+          }
+        }
+        if (r1 == 0 || r2 == 0) // an array ended
+          return Long.compare(r1, r2);
+        int r = run(element, c);
+        if (r != 0)
+          return r;
+        r1--;
+        r2--;
+      }
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      while (true) {
+        long count = readLong(b, pos);
+        pos = skipLong(b, pos);
+        if (count == 0)
+          return pos;
+        if (count < 0) { // skip block by its size
+          long size = readLong(b, pos);
+          pos = skipLong(b, pos) + (int) size;
+          continue;
+        }
+        for (long i = 0; i < count; i++)
+          pos = BinaryComparator.skip(element, b, pos);
+      }
+    }
+
+    @Override
+    void hash(Hasher h) {
+      long length = 0;
+      for (long count = h.readLong(); count != 0; count = h.readLong()) {
+        if (count < 0) {
+          count = -count;
+          h.readLong(); // block size
+        }
+        for (long i = 0; i < count; i++)
+          BinaryComparator.hash(element, h);
+        length += count;
+      }
+      h.mix(length);
+    }
+  }
+
+  /** Maps are skipped, but cannot be compared. */
+  private static final class MapOp extends Op {
+    private final Op[] entry; // key and value
+
+    MapOp(Op[] entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    int compare(Cursor c) {
+      throw new AvroRuntimeException("Can't compare maps!");
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return new ArrayOp(entry).skip(b, pos);
+    }
+
+    @Override
+    void hash(Hasher h) {
+      throw new AvroRuntimeException("Can't hashCode maps!");
+    }
+  }
+
+  /** A field whose order is ignored, skipped in both arrays. */
+  private static final class IgnoreOp extends Op {
+    private final Op[] program;
+
+    IgnoreOp(Op[] program) {
+      this.program = program;
+    }
+
+    @Override
+    int compare(Cursor c) {
+      c.p1 = BinaryComparator.skip(program, c.b1, c.p1);
+      c.p2 = BinaryComparator.skip(program, c.b2, c.p2);
+      return 0;
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return BinaryComparator.skip(program, b, pos);
+    }
+
+    @Override
+    void hash(Hasher h) {
+      h.p = BinaryComparator.skip(program, h.b, h.p);
+    }
+  }
+
+  /** A recursive reference to a record, whose program is compiled later. */
+  private static final class RecordOp extends Op {
+    private final Op[][] program; // holder
+
+    RecordOp(Op[][] program) {
+      this.program = program;
+    }
+
+    @Override
+    int compare(Cursor c) {
+      return run(program[0], c);
+    }
+
+    @Override
+    int skip(byte[] b, int pos) {
+      return BinaryComparator.skip(program[0], b, pos);
+    }
+
+    @Override
+    void hash(Hasher h) {
+      BinaryComparator.hash(program[0], h);
+    }
+  }
+
+  private static final class Compiler {
+    private final Map<Schema, Op[][]> records = new IdentityHashMap<>(); // in progress or done
+
+    Op[] compile(Schema schema, boolean descending) {
+      List<Op> ops = new ArrayList<>();
+      compile(schema, descending, ops);
+      return ops.toArray(new Op[0]);
+    }
+
+    private void compile(Schema schema, boolean descending, List<Op> ops) {
+      if (schema.getType() == Schema.Type.RECORD) {
+        Op[][] holder = records.get(schema);
+        if (holder != null) { // recursive, or compiled before
+          add(new RecordOp(holder), descending, ops);
+          return;
+        }
+        holder = new Op[1][];
+        records.put(schema, holder);
+        List<Op> fields = new ArrayList<>();
+        for (Field field : schema.getFields()) {
+          if (field.order() == Field.Order.IGNORE)
+            fields.add(new IgnoreOp(compile(field.schema(), false)));
+          else
+            compile(field.schema(), field.order() == Field.Order.DESCENDING, fields);
+        }
+        holder[0] = fields.toArray(new Op[0]);
+        if (descending) // shared ops keep their own order
+          add(new RecordOp(holder), true, ops);
+        else
+          ops.addAll(fields); // inline
+        return;
+      }
+      add(op(schema), descending, ops);
+    }
+
+    private void add(Op op, boolean descending, List<Op> ops) {
+      op.descending = descending;
+      ops.add(op);
+    }
+
+    private Op op(Schema schema) {
+      switch (schema.getType()) {
+      case ENUM:
+      case INT:
+      case LONG:
+        return new VarLongOp();
+      case FLOAT:
+        return new FloatOp();
+      case DOUBLE:
+        return new DoubleOp();
+      case BOOLEAN:
+        return new BooleanOp();
+      case NULL:
+        return new NullOp();
+      case STRING:
+      case BYTES:
+        return new BytesOp();
+      case FIXED:
+        return new FixedOp(schema.getFixedSize());
+      case ARRAY:
+        return new ArrayOp(compile(schema.getElementType(), false));
+      case MAP: {
+        List<Op> entry = new ArrayList<>();
+        entry.add(new BytesOp());
+        compile(schema.getValueType(), false, entry);
+        return new MapOp(entry.toArray(new Op[0]));
+      }
+      case UNION: {
+        List<Schema> types = schema.getTypes();
+        Op[][] branches = new Op[types.size()][];
+        for (int i = 0; i < branches.length; i++)
+          branches[i] = compile(types.get(i), false);
+        return new UnionOp(branches);
+      }
+      default:
+        throw new AvroRuntimeException("Unexpected schema to compare: " + schema);
+      }
+    }
+  }
+}
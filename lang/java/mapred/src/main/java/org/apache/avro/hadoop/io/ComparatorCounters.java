@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.io;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+/**
+ * Counts the raw key comparisons made by Avro key comparators in a task, and
+ * the time spent in them.
+ *
+ * <p>
+ * Counting is enabled per job with {@link #setEnabled(Configuration, boolean)},
+ * since timing each comparison has a cost of its own. Hadoop creates comparators
+ * itself, so counts are kept per task JVM and added to the task's counters by
+ * {@link #report(Reporter)} or {@link #report(TaskAttemptContext)}.
+ * </p>
+ *
+ * <p>
+ * A map task sorts its last spill and merges its spills after the mapper is
+ * closed, so reporting on close misses most of the map-side sort. The mapred API
+ * therefore {@linkplain #bind(Reporter) binds} the task's reporter, and counts
+ * are added to it every {@value #BATCH} comparisons as well as when a mapper,
+ * combiner or reducer is closed; up to that many comparisons at the end of a
+ * map task go uncounted. The mapreduce API gives comparators no way to reach
+ * the task's counters: jobs may call {@link #report(TaskAttemptContext)} from
+ * their cleanup methods, which counts the reduce-side merge but not the
+ * map-side sort.
+ * </p>
+ */
+public final class ComparatorCounters {
+  /** The configuration key enabling counts. */
+  public static final String CONF_ENABLED = "avro.key.comparator.counters";
+
+  /** The group of the counters reported. */
+  public static final String GROUP = "Avro Key Comparator";
+
+  /** The counter of raw comparisons. */
+  public static final String COMPARISONS = "COMPARISONS";
+
+  /** The counter of nanoseconds spent in raw comparisons. */
+  public static final String NANOS = "NANOS";
+
+  /** The comparisons between reports to a bound reporter. */
+  static final int BATCH = 4096;
+
+  private static final LongAdder comparisons = new LongAdder();
+  private static final LongAdder nanos = new LongAdder();
+
+  /** The reporter counts are added to as they are recorded, if any. */
+  private static volatile Reporter bound;
+
+  /** Paces reports to the bound reporter; updated without synchronization. */
+  private static int ticks;
+
+  private ComparatorCounters() {
+  }
+
+  /**
+   * Sets whether a job counts raw key comparisons.
+   *
+   * @param conf    The job configuration.
+   * @param enabled Whether to count comparisons.
+   */
+  public static void setEnabled(Configuration conf, boolean enabled) {
+    conf.setBoolean(CONF_ENABLED, enabled);
+  }
+
+  /**
+   * Gets whether a job counts raw key comparisons.
+   *
+   * @param conf The job configuration.
+   * @return Whether comparisons are counted, false by default.
+   */
+  public static boolean isEnabled(Configuration conf) {
+    return conf.getBoolean(CONF_ENABLED, false);
+  }
+
+  /**
+   * Records a comparison.
+   *
+   * @param start The value of {@link System#nanoTime()} when it started.
+   */
+  public static void record(long start) {
+    nanos.add(System.nanoTime() - start);
+    comparisons.increment();
+    if ((++ticks & (BATCH - 1)) == 0) {
+      Reporter reporter = bound;
+      if (null != reporter) {
+        report(reporter);
+      }
+    }
+  }
+
+  /**
+   * Adds counts to a task's reporter every {@value #BATCH} comparisons, so that
+   * comparisons made after the task's code has run, such as the sort of the
+   * last map output spill, are counted.
+   *
+   * @param reporter The reporter of the task, or null to stop.
+   */
+  public static void bind(Reporter reporter) {
+    bound = reporter;
+  }
+
+  /**
+   * Adds the comparisons recorded since the last report to a task's counters.
+   *
+   * @param reporter The reporter of the task.
+   */
+  public static void report(Reporter reporter) {
+    long count = comparisons.sumThenReset();
+    long time = nanos.sumThenReset();
+    if (count != 0) {
+      reporter.incrCounter(GROUP, COMPARISONS, count);
+      reporter.incrCounter(GROUP, NANOS, time);
+    }
+  }
+
+  /**
+   * Adds the comparisons recorded since the last report to a task's counters.
+   *
+   * @param context The context of the task.
+   */
+  public static void report(TaskAttemptContext context) {
+    long count = comparisons.sumThenReset();
+    long time = nanos.sumThenReset();
+    if (count != 0) {
+      context.getCounter(GROUP, COMPARISONS).increment(count);
+      context.getCounter(GROUP, NANOS).increment(time);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.mapred.AvroValue;
+
+/**
+ * An AvroValue that holds the binary encoding of its datum and decodes it only
+ * when {@link #datum()} is first called.
+ *
+ * <p>
+ * Values are deserialized into instances of this class when lazy value decoding
+ * is enabled with {@link AvroSerialization#setLazyValueDecoding}. A reducer that
+ * reads only its keys never pays for decoding values, and a value passed on
+ * unread to {@link org.apache.avro.mapreduce.AvroKeyValueRecordWriter} or to the
+ * map output of a combiner is copied as bytes rather than decoded and encoded
+ * again.
+ * </p>
+ *
+ * @param <T> The type of the wrapped datum.
+ */
+public class LazyAvroValue<T> extends AvroValue<T> {
+  /** The schema the encoded bytes were written with, or null if decoded. */
+  private Schema mEncodedSchema;
+
+  /** The datum reader that decodes the bytes. */
+  private DatumReader<T> mDatumReader;
+
+  /** The encoded datum, reused between values. */
+  private ByteBuffer mEncoded;
+
+  /** A decoder reused between values. */
+  private BinaryDecoder mDecoder;
+
+  /** Wrap null. Construct {@link LazyAvroValue} wrapping no value. */
+  public LazyAvroValue() {
+    this(null);
+  }
+
+  /** Wrap a value. */
+  public LazyAvroValue(T datum) {
+    super(datum);
+  }
+
+  /**
+   * Returns the wrapped datum, decoding it first if it is still encoded.
+   *
+   * @return The wrapped datum.
+   */
+  @Override
+  public T datum() {
+    if (null != mEncodedSchema) {
+      try {
+        mDecoder = DecoderFactory.get().binaryDecoder(mEncoded.array(), mEncoded.arrayOffset() + mEncoded.position(),
+            mEncoded.remaining(), mDecoder);
+        super.datum(mDatumReader.read(super.datum(), mDecoder));
+      } catch (IOException e) {
+        throw new AvroRuntimeException("Could not decode value", e);
+      } finally {
+        mEncodedSchema = null;
+      }
+    }
+    return super.datum();
+  }
+
+  /**
+   * Sets the wrapped datum, discarding any encoded datum.
+   *
+   * @param datum The datum to wrap.
+   */
+  @Override
+  public void datum(T datum) {
+    mEncodedSchema = null;
+    super.datum(datum);
+  }
+
+  /**
+   * Gets whether the datum is still encoded, so that {@link #getEncoded()} may be
+   * used in place of {@link #datum()}.
+   *
+   * @return Whether the datum has not been decoded or replaced.
+   */
+  public boolean isEncoded() {
+    return null != mEncodedSchema;
+  }
+
+  /**
+   * Gets the schema the encoded datum was written with.
+   *
+   * @return The writer schema of the encoded datum, or null if it is not
+   *         encoded.
+   */
+  public Schema getEncodedSchema() {
+    return mEncodedSchema;
+  }
+
+  /**
+   * Gets the binary encoding of the datum. The buffer is reused for the next
+   * value, and must not be modified.
+   *
+   * @return The encoded datum, or null if it is not encoded.
+   */
+  public ByteBuffer getEncoded() {
+    return null == mEncodedSchema ? null : mEncoded.duplicate();
+  }
+
+  /**
+   * Sets the encoded datum. The datum is decoded the next time {@link #datum()}
+   * is called.
+   *
+   * @param schema      The schema the datum was written with.
+   * @param datumReader The datum reader to decode the datum with.
+   * @param encoded     The encoded datum, which is kept.
+   */
+  void setEncoded(Schema schema, DatumReader<T> datumReader, ByteBuffer encoded) {
+    mEncodedSchema = schema;
+    mDatumReader = datumReader;
+    mEncoded = encoded;
+  }
+
+  /**
+   * Gets the buffer holding the last encoded datum, so that it may be reused.
+   *
+   * @return The buffer, or null if none was set.
+   */
+  ByteBuffer getBuffer() {
+    return mEncoded;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Split points that divide Avro keys into ranges, one per reducer, so that the
+ * outputs of the reducers are in total order.
+ *
+ * <p>
+ * Split points are chosen from a sample of the keys with
+ * {@link #writePartitionFile}, which writes them to an Avro container file of
+ * the key schema. Partitioners read the file named by
+ * {@link #setPartitionFile(Configuration, Path)}. A key less than the first
+ * split point goes to the first partition, and a key equal to a split point to
+ * the partition that the split point starts.
+ * </p>
+ */
+public final class TotalOrderPartitions {
+  /** The configuration key of the partition file. */
+  public static final String CONF_PARTITION_FILE = "avro.partition.file";
+
+  private TotalOrderPartitions() {
+  }
+
+  /**
+   * Sets the partition file of a job, enabling total-order partitioning.
+   *
+   * @param conf The job configuration.
+   * @param path The partition file.
+   */
+  public static void setPartitionFile(Configuration conf, Path path) {
+    conf.set(CONF_PARTITION_FILE, path.toString());
+  }
+
+  /**
+   * Gets the partition file of a job.
+   *
+   * @param conf The job configuration.
+   * @return The partition file, or null if keys are partitioned by hash.
+   */
+  public static Path getPartitionFile(Configuration conf) {
+    String path = conf.get(CONF_PARTITION_FILE);
+    return null == path ? null : new Path(path);
+  }
+
+  /**
+   * Chooses split points from a sample of keys and writes them to a partition
+   * file. Split points are spaced evenly through the sorted sample, skipping
+   * duplicates, so a sample with few distinct keys yields fewer split points and
+   * leaves some partitions empty.
+   *
+   * @param conf          The job configuration.
+   * @param path          The partition file to write.
+   * @param schema        The key schema.
+   * @param model         The data model of the keys.
+   * @param sample        The sampled keys.
+   * @param numPartitions The number of partitions, one more than the most split
+   *                      points.
+   * @return The number of split points written.
+   * @throws IOException If the file could not be written.
+   */
+  public static <T> int writePartitionFile(Configuration conf, Path path, Schema schema, GenericData model,
+      Collection<? extends T> sample, int numPartitions) throws IOException {
+    if (numPartitions < 1) {
+      throw new IllegalArgumentException("Number of partitions must be positive: " + numPartitions);
+    }
+    List<T> keys = new ArrayList<>(sample);
+    Comparator<T> comparator = (k1, k2) -> model.compare(k1, k2, schema);
+    keys.sort(comparator);
+    List<T> splitPoints = new ArrayList<>();
+    int next = 0;
+    for (int i = 1; i < numPartitions && !keys.isEmpty(); i++) {
+      int index = Math.max(next, (int) ((long) i * keys.size() / numPartitions));
+      if (!splitPoints.isEmpty()) {
+        T last = splitPoints.get(splitPoints.size() - 1);
+        while (index < keys.size() && comparator.compare(keys.get(index), last) == 0) {
+          index++;
+        }
+      }
+      if (index >= keys.size()) {
+        break;
+      }
+      splitPoints.add(keys.get(index));
+      next = index + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    DatumWriter<T> datumWriter = model.createDatumWriter(schema);
+    FileSystem fs = path.getFileSystem(conf);
+    try (OutputStream out = fs.create(path, true);
+        DataFileWriter<T> writer = new DataFileWriter<>(datumWriter).create(schema, out)) {
+      for (T splitPoint : splitPoints) {
+        writer.append(splitPoint);
+      }
+    }
+    return splitPoints.size();
+  }
+
+  /**
+   * Reads the split points of a job's partition file.
+   *
+   * @param conf   The job configuration.
+   * @param schema The key schema.
+   * @param model  The data model to read keys with.
+   * @return The split points, in order.
+   * @throws IOException If the file is not set or could not be read.
+   */
+  public static <T> List<T> readSplitPoints(Configuration conf, Schema schema, GenericData model) throws IOException {
+    Path path = getPartitionFile(conf);
+    if (null == path) {
+      throw new IOException("No partition file set in " + CONF_PARTITION_FILE);
+    }
+    @SuppressWarnings("unchecked")
+    DatumReader<T> datumReader = model.createDatumReader(schema);
+    List<T> splitPoints = new ArrayList<>();
+    FileSystem fs = path.getFileSystem(conf);
+    try (InputStream in = fs.open(path); DataFileStream<T> reader = new DataFileStream<>(in, datumReader)) {
+      for (T splitPoint : reader) {
+        splitPoints.add(splitPoint);
+      }
+    }
+    return splitPoints;
+  }
+
+  /**
+   * Finds the partition of a key.
+   *
+   * @param splitPoints   The sorted split points.
+   * @param key           The key.
+   * @param comparator    Orders keys and split points.
+   * @param numPartitions The number of partitions.
+   * @return The partition of the key.
+   */
+  public static <T> int findPartition(List<? extends T> splitPoints, T key, Comparator<? super T> comparator,
+      int numPartitions) {
+    if (splitPoints.size() >= numPartitions) {
+      throw new IllegalStateException(
+          "Partition file has " + splitPoints.size() + " split points for " + numPartitions + " partitions");
+    }
+    int pos = Collections.binarySearch(splitPoints, key, comparator) + 1;
+    return pos < 0 ? -pos : pos;
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -37,6 +38,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.file.CodecFactory;
 import org.apache.avro.generic.GenericData;
+import org.apache.avro.hadoop.file.BlockCounters;
 import org.apache.avro.hadoop.file.HadoopCodecFactory;
 
 import static org.apache.avro.file.DataFileConstants.DEFAULT_SYNC_INTERVAL;
@@ -66,6 +68,15 @@ public class AvroOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>, NullWr
   /** The configuration key for Avro sync interval. */
   public static final String SYNC_INTERVAL_KEY = "avro.mapred.sync.interval";
 
+  /** The configuration key for the target compressed size of Avro blocks. */
+  public static final String BLOCK_SIZE_KEY = "avro.mapred.block.size";
+
+  /** The configuration key for the most records in an Avro block. */
+  public static final String BLOCK_RECORDS_KEY = "avro.mapred.block.records";
+
+  /** The configuration key for the most milliseconds an Avro block is held. */
+  public static final String BLOCK_DELAY_KEY = "avro.mapred.block.delay";
+
   /** Enable output compression using the deflate codec and specify its level. */
   public static void setDeflateLevel(JobConf job, int level) {
     FileOutputFormat.setCompressOutput(job, true);
@@ -79,6 +90,39 @@ public class AvroOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>, NullWr
     job.setInt(SYNC_INTERVAL_KEY, syncIntervalInBytes);
   }
 
+  /**
+   * Size the blocks of the underlying {@link DataFileWriter} adaptively, to hold
+   * about the given number of bytes after compression, in place of the sync
+   * interval.
+   */
+  public static void setBlockSize(JobConf job, int compressedBytes) {
+    job.setInt(BLOCK_SIZE_KEY, compressedBytes);
+  }
+
+  /** Limit the records in each block of the underlying {@link DataFileWriter}. */
+  public static void setMaxBlockRecords(JobConf job, long records) {
+    job.setLong(BLOCK_RECORDS_KEY, records);
+  }
+
+  /**
+   * Write the blocks of the underlying {@link DataFileWriter} once their first
+   * record is older than the given delay, for streaming output.
+   */
+  public static void setMaxBlockDelay(JobConf job, long millis) {
+    job.setLong(BLOCK_DELAY_KEY, millis);
+  }
+
+  /**
+   * Applies the block settings of a job to a writer: the sync interval, and the
+   * target block size, record limit and delay if set.
+   */
+  public static void configureBlocks(DataFileWriter<?> writer, Configuration conf) {
+    writer.setSyncInterval(conf.getInt(SYNC_INTERVAL_KEY, DEFAULT_SYNC_INTERVAL));
+    writer.setTargetBlockSize(conf.getInt(BLOCK_SIZE_KEY, 0));
+    writer.setMaxBlockRecords(conf.getLong(BLOCK_RECORDS_KEY, 0));
+    writer.setMaxBlockDelay(conf.getLong(BLOCK_DELAY_KEY, 0));
+  }
+
   static <T> void configureDataFileWriter(DataFileWriter<T> writer, JobConf job) throws UnsupportedEncodingException {
 
     CodecFactory factory = getCodecFactory(job);
@@ -87,7 +131,7 @@ public class AvroOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>, NullWr
       writer.setCodec(factory);
     }
 
-    writer.setSyncInterval(job.getInt(SYNC_INTERVAL_KEY, DEFAULT_SYNC_INTERVAL));
+    configureBlocks(writer, job);
 
     // copy metadata from job
     for (Map.Entry<String, String> e : job) {
@@ -153,6 +197,7 @@ public class AvroOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>, NullWr
     final DataFileWriter<T> writer = new DataFileWriter<T>(dataModel.createDatumWriter(null));
 
     configureDataFileWriter(writer, job);
+    final boolean countBlocks = BlockCounters.isEnabled(job);
 
     Path path = FileOutputFormat.getTaskOutputPath(job, name + EXT);
     writer.create(schema, path.getFileSystem(job).create(path));
@@ -166,6 +211,8 @@ public class AvroOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>, NullWr
       @Override
       public void close(Reporter reporter) throws IOException {
         writer.close();
+        if (countBlocks)
+          BlockCounters.report(writer, reporter);
       }
     };
   }
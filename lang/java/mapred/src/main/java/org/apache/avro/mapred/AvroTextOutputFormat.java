@@ -26,6 +26,7 @@ import java.nio.charset.StandardCharsets;
 
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.hadoop.file.BlockCounters;
 import org.apache.avro.reflect.ReflectDatumWriter;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -59,16 +60,22 @@ public class AvroTextOutputFormat<K, V> extends FileOutputFormat<K, V> {
     Path path = FileOutputFormat.getTaskOutputPath(job, name + EXT);
     writer.create(schema, path.getFileSystem(job).create(path));
 
-    return new AvroTextRecordWriter(writer, keyValueSeparator);
+    return new AvroTextRecordWriter(writer, keyValueSeparator, BlockCounters.isEnabled(job));
   }
 
   class AvroTextRecordWriter implements RecordWriter<K, V> {
     private final DataFileWriter<ByteBuffer> writer;
     private final byte[] keyValueSeparator;
+    private final boolean countBlocks;
 
     public AvroTextRecordWriter(DataFileWriter<ByteBuffer> writer, byte[] keyValueSeparator) {
+      this(writer, keyValueSeparator, false);
+    }
+
+    public AvroTextRecordWriter(DataFileWriter<ByteBuffer> writer, byte[] keyValueSeparator, boolean countBlocks) {
       this.writer = writer;
       this.keyValueSeparator = keyValueSeparator;
+      this.countBlocks = countBlocks;
     }
 
     @Override
@@ -89,6 +96,8 @@ public class AvroTextOutputFormat<K, V> extends FileOutputFormat<K, V> {
     @Override
     public void close(Reporter reporter) throws IOException {
       writer.close();
+      if (countBlocks)
+        BlockCounters.report(writer, reporter);
     }
 
     private ByteBuffer toByteBuffer(Object o) throws IOException {
@@ -44,6 +44,7 @@ public class AvroWrapper<T> {
 
   @Override
   public int hashCode() {
+    T datum = datum();
     return (datum == null) ? 0 : datum.hashCode();
   }
 
@@ -56,15 +57,16 @@ public class AvroWrapper<T> {
     if (getClass() != obj.getClass())
       return false;
     AvroWrapper that = (AvroWrapper) obj;
-    if (this.datum == null) {
-      return that.datum == null;
+    T datum = datum();
+    if (datum == null) {
+      return that.datum() == null;
     } else
-      return datum.equals(that.datum);
+      return datum.equals(that.datum());
   }
 
   /** Get the wrapped datum as JSON. */
   @Override
   public String toString() {
-    return datum.toString();
+    return datum().toString();
   }
 }
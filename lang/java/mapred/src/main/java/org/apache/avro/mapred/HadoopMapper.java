@@ -20,6 +20,7 @@ package org.apache.avro.mapred;
 
 import java.io.IOException;
 
+import org.apache.avro.hadoop.io.ComparatorCounters;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
@@ -39,6 +40,7 @@ class HadoopMapper<IN, OUT, K, V, KO, VO> extends MapReduceBase
   private AvroMapper<IN, OUT> mapper;
   private MapCollector<OUT, K, V, KO, VO> out;
   private boolean isMapOnly;
+  private Reporter reporter;
 
   @Override
   @SuppressWarnings("unchecked")
@@ -52,12 +54,17 @@ class HadoopMapper<IN, OUT, K, V, KO, VO> extends MapReduceBase
       throws IOException {
     if (this.out == null)
       this.out = new MapCollector<>(collector, isMapOnly);
+    if (this.reporter != reporter)
+      ComparatorCounters.bind(reporter);
+    this.reporter = reporter;
     mapper.map(wrapper.datum(), out, reporter);
   }
 
   @Override
   public void close() throws IOException {
     this.mapper.close();
+    if (reporter != null)
+      ComparatorCounters.report(reporter);
   }
 
 }
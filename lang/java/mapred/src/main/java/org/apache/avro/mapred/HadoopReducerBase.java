@@ -21,6 +21,7 @@ package org.apache.avro.mapred;
 import java.io.IOException;
 import java.util.Iterator;
 
+import org.apache.avro.hadoop.io.ComparatorCounters;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.OutputCollector;
@@ -32,6 +33,7 @@ abstract class HadoopReducerBase<K, V, OUT, KO, VO> extends MapReduceBase
 
   private AvroReducer<K, V, OUT> reducer;
   private AvroCollector<OUT> collector;
+  private Reporter reporter;
 
   protected abstract AvroReducer<K, V, OUT> getReducer(JobConf conf);
 
@@ -74,11 +76,16 @@ abstract class HadoopReducerBase<K, V, OUT, KO, VO> extends MapReduceBase
     if (this.collector == null)
       this.collector = getCollector(out);
     reduceIterable.values = values;
+    if (this.reporter != reporter)
+      ComparatorCounters.bind(reporter);
+    this.reporter = reporter;
     reducer.reduce(key.datum(), reduceIterable, collector, reporter);
   }
 
   @Override
   public void close() throws IOException {
     this.reducer.close();
+    if (reporter != null)
+      ComparatorCounters.report(reporter);
   }
 }
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapred.tether;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import sun.misc.Unsafe;
+
+/**
+ * A single-producer, single-consumer ring of messages in a region of a
+ * memory-mapped file, written by one process and read by another.
+ *
+ * <p>
+ * The region starts with a header of two counters, each on its own cache line:
+ * the number of bytes the writer has published, and the number of bytes the
+ * reader has consumed. The data follows, as frames of a little-endian int
+ * header and payload. The low 31 bits of the header are the payload length; the
+ * high bit is set on all but the last frame of a message, so messages larger
+ * than the ring are sent in parts. A header of -1, or fewer than four bytes left
+ * before the end of the ring, means the next frame starts at the beginning.
+ * </p>
+ *
+ * <p>
+ * The writer publishes frames in batches: when a batch is full, when the ring
+ * has no room for the next frame, or when {@link #flush()} is called. The
+ * reader consumes every published frame each time it wakes, so a single
+ * publication carries many records. Neither side blocks in the kernel: both
+ * poll the other's counter, backing off from spinning to parking.
+ * </p>
+ *
+ * <p>
+ * The counters are read and written with {@link Unsafe} volatile and ordered
+ * accesses at the address of the mapped header, so that a published count is
+ * seen only after the frames it covers, and a consumed count only after the
+ * frames were read, on any processor.
+ * </p>
+ */
+@SuppressWarnings("restriction")
+class ShmRing {
+  /** The bytes of the ring header. */
+  static final int HEADER_SIZE = 256;
+
+  private static final int PUBLISHED = 0;
+  private static final int CLOSED = 64;
+  private static final int CONSUMED = 128;
+
+  private static final int WRAP = -1;
+  private static final int MORE = 0x80000000;
+
+  /** The longest park while waiting, in nanoseconds. */
+  private static final long MAX_PARK_NANOS = 1000 * 1000;
+
+  private static final Unsafe UNSAFE;
+  private static final long ADDRESS_OFFSET;
+  private static final boolean NATIVE_LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+  static {
+    try {
+      Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      UNSAFE = (Unsafe) theUnsafe.get(null);
+      ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private final ByteBuffer header; // keeps the mapping of the address alive
+  private final long address;
+  private final ByteBuffer data;
+  private final int capacity;
+  private final int batchSize;
+  private final BooleanSupplier peerAlive;
+
+  /** Bytes written, of which those after the published count are pending. */
+  private long written;
+  /** The last consumed count read, to avoid reading it for every frame. */
+  private long consumedSeen;
+  /** Bytes read, published as consumed after each frame. */
+  private long read;
+
+  /**
+   * Wraps a region of a mapped file.
+   *
+   * @param region    The region of a direct buffer: a header followed by the
+   *                  data, whose size is a power of two.
+   * @param batchSize The bytes of frames written before they are published.
+   * @param peerAlive Whether the other process is still running.
+   */
+  ShmRing(ByteBuffer region, int batchSize, BooleanSupplier peerAlive) {
+    if (!region.isDirect())
+      throw new IllegalArgumentException("Ring region is not a direct buffer");
+    region = region.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    region.limit(HEADER_SIZE);
+    this.header = region.slice().order(ByteOrder.LITTLE_ENDIAN);
+    this.address = UNSAFE.getLong(header, ADDRESS_OFFSET);
+    region.limit(region.capacity()).position(HEADER_SIZE);
+    this.data = region.slice().order(ByteOrder.LITTLE_ENDIAN);
+    this.capacity = data.capacity();
+    if (Integer.bitCount(capacity) != 1)
+      throw new IllegalArgumentException("Ring capacity is not a power of two: " + capacity);
+    this.batchSize = Math.min(batchSize, capacity / 2);
+    this.peerAlive = peerAlive;
+    this.written = getCounter(PUBLISHED);
+    this.read = getCounter(CONSUMED);
+    this.consumedSeen = read;
+  }
+
+  /** Appends a message, publishing it once the current batch is full. */
+  synchronized void write(List<ByteBuffer> buffers) throws IOException {
+    int length = 0;
+    for (ByteBuffer buffer : buffers)
+      length += buffer.remaining();
+    int maxFrame = capacity / 4 - 4;
+    int index = 0;
+    int offset = 0;
+    do {
+      int frame = Math.min(length, maxFrame);
+      length -= frame;
+      int pos = reserve(4 + frame);
+      data.putInt(pos, length > 0 ? frame | MORE : frame);
+      pos += 4;
+      for (int copied = 0; copied < frame;) {
+        ByteBuffer buffer = buffers.get(index);
+        int n = Math.min(frame - copied, buffer.remaining() - offset);
+        ByteBuffer source = buffer.duplicate();
+        source.position(buffer.position() + offset).limit(buffer.position() + offset + n);
+        ByteBuffer target = data.duplicate();
+        target.position(pos + copied);
+        target.put(source);
+        copied += n;
+        offset += n;
+        if (offset == buffer.remaining()) {
+          index++;
+          offset = 0;
+        }
+      }
+      written += frame;
+    } while (length > 0);
+    if (written - getCounter(PUBLISHED) >= batchSize)
+      publish();
+  }
+
+  /** Publishes the frames written. */
+  synchronized void flush() {
+    if (written != getCounter(PUBLISHED))
+      publish();
+  }
+
+  /** Publishes the frames written and marks the ring closed. */
+  synchronized void close() {
+    flush();
+    UNSAFE.putIntVolatile(null, address + CLOSED, NATIVE_LITTLE_ENDIAN ? 1 : Integer.reverseBytes(1));
+  }
+
+  /**
+   * Reads the next message, waiting for it to be published.
+   *
+   * @return The message.
+   * @throws EOFException If the ring was closed, or the writer is no longer
+   *                      running.
+   */
+  ByteBuffer read() throws IOException {
+    ByteBuffer message = null;
+    boolean more = true;
+    while (more) {
+      long published = awaitPublished();
+      int pos = (int) (read & (capacity - 1));
+      if (capacity - pos < 4 || data.getInt(pos) == WRAP) {
+        read += capacity - pos;
+        putCounter(CONSUMED, read);
+        continue;
+      }
+      if (published - read < 4)
+        throw new IOException("Truncated frame in shared memory ring");
+      int frame = data.getInt(pos);
+      more = (frame & MORE) != 0;
+      frame &= ~MORE;
+      ByteBuffer source = data.duplicate();
+      source.position(pos + 4).limit(pos + 4 + frame);
+      if (message == null) {
+        message = ByteBuffer.allocate(more ? frame * 2 : frame);
+      } else if (message.remaining() < frame) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(message.capacity() * 2, message.position() + frame));
+        message.flip();
+        grown.put(message);
+        message = grown;
+      }
+      message.put(source);
+      read += 4 + frame;
+      putCounter(CONSUMED, read);
+    }
+    message.flip();
+    return message;
+  }
+
+  /** Waits for published frames to read, and returns the published count. */
+  private long awaitPublished() throws IOException {
+    int idle = 0;
+    while (true) {
+      long published = getCounter(PUBLISHED);
+      if (published != read)
+        return published;
+      if (UNSAFE.getIntVolatile(null, address + CLOSED) != 0)
+        throw new EOFException("Shared memory ring closed");
+      idle = backoff(idle);
+    }
+  }
+
+  /** Waits for contiguous room for a frame, and returns its position. */
+  private int reserve(int size) throws IOException {
+    int pos = (int) (written & (capacity - 1));
+    int skip = capacity - pos < size ? capacity - pos : 0;
+    await(skip + size);
+    if (skip > 0) {
+      if (skip >= 4)
+        data.putInt(pos, WRAP);
+      written += skip;
+      pos = 0;
+    }
+    written += 4;
+    return pos;
+  }
+
+  /** Waits until the reader leaves room for more bytes. */
+  private void await(int size) throws IOException {
+    if (written + size - consumedSeen <= capacity)
+      return;
+    publish(); // let the reader catch up
+    int idle = 0;
+    while (true) {
+      consumedSeen = getCounter(CONSUMED);
+      if (written + size - consumedSeen <= capacity)
+        return;
+      idle = backoff(idle);
+    }
+  }
+
+  /** Publishes the frames written, after their bytes. */
+  private void publish() {
+    long value = NATIVE_LITTLE_ENDIAN ? written : Long.reverseBytes(written);
+    UNSAFE.putOrderedLong(null, address + PUBLISHED, value);
+  }
+
+  /** Reads a counter, before any access to the data it covers. */
+  private long getCounter(int offset) {
+    long value = UNSAFE.getLongVolatile(null, address + offset);
+    return NATIVE_LITTLE_ENDIAN ? value : Long.reverseBytes(value);
+  }
+
+  /** Writes a counter, after all accesses to the data it covers. */
+  private void putCounter(int offset, long count) {
+    UNSAFE.putLongVolatile(null, address + offset, NATIVE_LITTLE_ENDIAN ? count : Long.reverseBytes(count));
+  }
+
+  /** Spins, then yields, then parks for longer each time. */
+  private int backoff(int idle) throws IOException {
+    if (idle < 100) {
+      // spin
+    } else if (idle < 200) {
+      Thread.yield();
+    } else {
+      if ((idle & 63) == 0 && !peerAlive.getAsBoolean())
+        throw new EOFException("Peer process exited");
+      LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(10, (idle - 200) / 8)));
+      if (Thread.interrupted())
+        throw new InterruptedIOException();
+    }
+    return idle + 1;
+  }
+}
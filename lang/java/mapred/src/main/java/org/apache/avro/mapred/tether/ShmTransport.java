@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapred.tether;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.ipc.Responder;
+import org.apache.avro.ipc.Server;
+import org.apache.avro.ipc.Transceiver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Carries the tether input and output protocols between a task and its
+ * sub-process through rings in a shared memory-mapped file, in place of
+ * sockets.
+ *
+ * <p>
+ * The file starts with a header of little-endian ints: a magic number, the
+ * version, the batch size and the data sizes of the request and response rings.
+ * Four {@link ShmRing}s follow from offset {@value #HEADER_SIZE}: input
+ * requests, input responses, output requests and output responses. The task
+ * sends input protocol requests and the sub-process output protocol requests;
+ * responses carry only handshakes and replies to two-way messages. The
+ * sub-process finds the file in the {@value #ENV_FILE} environment variable,
+ * and stops waiting on the rings when the task named by
+ * {@value #ENV_PARENT_PID} is no longer running.
+ * </p>
+ *
+ * <p>
+ * Messages are written as they would be to a socket, so both protocols keep
+ * their semantics. A background thread publishes written messages that have
+ * not filled a batch after {@value #LINGER_MILLIS} ms.
+ * </p>
+ */
+class ShmTransport implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(ShmTransport.class);
+
+  /** The environment variable naming the file to the sub-process. */
+  static final String ENV_FILE = "AVRO_TETHER_SHM_FILE";
+
+  /** The environment variable holding the process id of the task. */
+  static final String ENV_PARENT_PID = "AVRO_TETHER_PARENT_PID";
+
+  /** The channel of the input protocol, from task to sub-process. */
+  static final int INPUT = 0;
+
+  /** The channel of the output protocol, from sub-process to task. */
+  static final int OUTPUT = 1;
+
+  static final int HEADER_SIZE = 4096;
+
+  private static final int MAGIC = 0x53545641; // "AVTS"
+  private static final int VERSION = 1;
+  private static final int RESPONSE_RING_SIZE = 64 * 1024;
+  private static final long LINGER_MILLIS = 1;
+
+  private static ShmTransport child;
+
+  private final File file;
+  private final boolean owner;
+  private final ShmRing[] rings = new ShmRing[4];
+  private final List<ShmRing> written = Collections.synchronizedList(new ArrayList<>());
+  private final Thread flusher;
+  private volatile boolean closed;
+
+  private ShmTransport(File file, boolean owner, MappedByteBuffer map, BooleanSupplier peerAlive) throws IOException {
+    this.file = file;
+    this.owner = owner;
+    map.order(ByteOrder.LITTLE_ENDIAN);
+    if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION)
+      throw new IOException("Not a tether shared memory file: " + file);
+    int batchSize = map.getInt(8);
+    int[] sizes = { map.getInt(12), map.getInt(16), map.getInt(12), map.getInt(16) };
+    int offset = HEADER_SIZE;
+    for (int i = 0; i < rings.length; i++) {
+      ByteBuffer region = map.duplicate();
+      region.position(offset).limit(offset + ShmRing.HEADER_SIZE + sizes[i]);
+      rings[i] = new ShmRing(region.slice(), batchSize, peerAlive);
+      offset += ShmRing.HEADER_SIZE + sizes[i];
+    }
+    this.flusher = new Thread(this::flushPeriodically, "avro-tether-shm-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Creates a file for a task to share with its sub-process.
+   *
+   * @param dir       The directory to create the file in.
+   * @param ringSize  The data bytes of each request ring, rounded up to a power
+   *                  of two.
+   * @param batchSize The bytes of messages published together.
+   * @param peerAlive Whether the sub-process is still running.
+   */
+  static ShmTransport create(File dir, int ringSize, int batchSize, BooleanSupplier peerAlive) throws IOException {
+    int requestSize = Integer.highestOneBit(Math.max(ringSize, RESPONSE_RING_SIZE) - 1) << 1;
+    long length = HEADER_SIZE + 2L * (2 * ShmRing.HEADER_SIZE + requestSize + RESPONSE_RING_SIZE);
+    File file = File.createTempFile("avro-tether-", ".shm", dir);
+    file.deleteOnExit();
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(length);
+      MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+      map.order(ByteOrder.LITTLE_ENDIAN);
+      map.putInt(4, VERSION);
+      map.putInt(8, batchSize);
+      map.putInt(12, requestSize);
+      map.putInt(16, RESPONSE_RING_SIZE);
+      map.putInt(0, MAGIC);
+      return new ShmTransport(file, true, map, peerAlive);
+    } catch (IOException | RuntimeException e) {
+      file.delete();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the file created by a task, in its sub-process.
+   *
+   * @param file      The file.
+   * @param peerAlive Whether the task is still running.
+   */
+  static ShmTransport open(File file, BooleanSupplier peerAlive) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+      return new ShmTransport(file, false, map, peerAlive);
+    }
+  }
+
+  /** Returns the transport of this sub-process, opening the file named by its environment. */
+  static synchronized ShmTransport forChild() throws IOException {
+    if (child == null) {
+      String path = System.getenv(ENV_FILE);
+      if (path == null)
+        throw new RuntimeException(ENV_FILE + " env var is null");
+      String pid = System.getenv(ENV_PARENT_PID);
+      if (pid == null)
+        throw new RuntimeException(ENV_PARENT_PID + " env var is null");
+      child = open(new File(path), processAlive(pid));
+    }
+    return child;
+  }
+
+  /** The process id of this JVM, to pass to the sub-process. */
+  static String currentPid() {
+    String name = ManagementFactory.getRuntimeMXBean().getName(); // pid@host
+    return name.substring(0, name.indexOf('@'));
+  }
+
+  /**
+   * Whether a process is running, by its entry in /proc. Where there is no
+   * /proc, the process is taken to run until it closes the rings.
+   */
+  static BooleanSupplier processAlive(String pid) {
+    File proc = new File("/proc");
+    if (!proc.isDirectory())
+      return () -> true;
+    File entry = new File(proc, pid);
+    return entry::exists;
+  }
+
+  /** The shared file. */
+  File getFile() {
+    return file;
+  }
+
+  /** Returns a transceiver that sends requests on a channel. */
+  Transceiver client(int channel) {
+    return new ShmTransceiver(rings[2 * channel], rings[2 * channel + 1], channel);
+  }
+
+  /** Returns a server that responds to requests on a channel. */
+  Server server(int channel, Responder responder) {
+    return new ShmServer(new ShmTransceiver(rings[2 * channel + 1], rings[2 * channel], channel), responder);
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    flusher.interrupt();
+    synchronized (written) {
+      for (ShmRing ring : written)
+        ring.close();
+    }
+    if (owner && !file.delete())
+      LOG.warn("Could not delete " + file);
+  }
+
+  private void flushPeriodically() {
+    try {
+      while (!closed) {
+        Thread.sleep(LINGER_MILLIS);
+        synchronized (written) {
+          for (ShmRing ring : written)
+            ring.flush();
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed
+    }
+  }
+
+  /** Sends messages on one ring and receives them on another. */
+  private class ShmTransceiver extends Transceiver {
+    private final ShmRing out;
+    private final ShmRing in;
+    private final String name;
+    private Protocol remote;
+
+    ShmTransceiver(ShmRing out, ShmRing in, int channel) {
+      this.out = out;
+      this.in = in;
+      this.name = file + (channel == INPUT ? "#input" : "#output");
+      written.add(out);
+    }
+
+    @Override
+    public String getRemoteName() {
+      return name;
+    }
+
+    @Override
+    public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+      lockChannel();
+      try {
+        writeBuffers(request);
+        out.flush();
+        return readBuffers();
+      } finally {
+        unlockChannel();
+      }
+    }
+
+    @Override
+    public List<ByteBuffer> readBuffers() throws IOException {
+      List<ByteBuffer> buffers = new ArrayList<>(1);
+      buffers.add(in.read());
+      return buffers;
+    }
+
+    @Override
+    public void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+      if (buffers == null)
+        return; // no data to write
+      out.write(buffers);
+    }
+
+    void flush() {
+      out.flush();
+    }
+
+    @Override
+    public boolean isConnected() {
+      return remote != null;
+    }
+
+    @Override
+    public void setRemote(Protocol remote) {
+      this.remote = remote;
+    }
+
+    @Override
+    public Protocol getRemote() {
+      return remote;
+    }
+
+    @Override
+    public void close() {
+      out.close();
+    }
+  }
+
+  /** Responds to the requests read from a transceiver on a thread. */
+  private static class ShmServer extends Thread implements Server {
+    private final ShmTransceiver connection;
+    private final Responder responder;
+
+    ShmServer(ShmTransceiver connection, Responder responder) {
+      super("Tether shared memory server on " + connection.getRemoteName());
+      setDaemon(true);
+      this.connection = connection;
+      this.responder = responder;
+    }
+
+    @Override
+    public int getPort() {
+      return 0;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          List<ByteBuffer> response = responder.respond(connection.readBuffers(), connection);
+          if (response != null && !response.isEmpty()) {
+            connection.writeBuffers(response);
+            connection.flush();
+          }
+        }
+      } catch (EOFException | InterruptedIOException e) {
+        // closed
+      } catch (IOException e) {
+        LOG.warn("unexpected error", e);
+      }
+    }
+
+    @Override
+    public void close() {
+      connection.close();
+      interrupt();
+    }
+  }
+}
@@ -45,6 +45,19 @@ public class TetherJob extends Configured {
   public static final String TETHER_EXEC_CACHED = "avro.tether.executable_cached";
   public static final String TETHER_PROTOCOL = "avro.tether.protocol";
 
+  /**
+   * Directory of the file shared with the subprocess by the "shm" protocol.
+   * Defaults to /dev/shm when writable, so that the file stays in memory.
+   */
+  public static final String TETHER_SHM_DIR = "avro.tether.shm.dir";
+  /** Bytes of each request ring of the "shm" protocol. Defaults to 4MB. */
+  public static final String TETHER_SHM_RING_SIZE = "avro.tether.shm.ring.size";
+  /**
+   * Bytes of messages the "shm" protocol publishes to the other process at once.
+   * Defaults to 64KB.
+   */
+  public static final String TETHER_SHM_BATCH_SIZE = "avro.tether.shm.batch.size";
+
   /** Get the URI of the application's executable. */
   public static URI getExecutable(JobConf job) {
     try {
@@ -99,6 +112,8 @@ public class TetherJob extends Configured {
       return TetheredProcess.Protocol.HTTP;
     } else if (job.get(TetherJob.TETHER_PROTOCOL).equals("sasl")) {
       return TetheredProcess.Protocol.SASL;
+    } else if (job.get(TetherJob.TETHER_PROTOCOL).equals("shm")) {
+      return TetheredProcess.Protocol.SHM;
     } else {
       throw new RuntimeException("Unknown value for protocol: " + job.get(TetherJob.TETHER_PROTOCOL));
     }
@@ -122,16 +137,18 @@ public class TetherJob extends Configured {
 
   /**
    * Determines which transport protocol (e.g http or sasl) used to communicate
-   * between the parent and subprocess
+   * between the parent and subprocess. The "shm" protocol passes messages
+   * through rings in a memory-mapped file instead of a socket, publishing many
+   * records at once.
    *
    * @param job   - job configuration
-   * @param proto - String identifying the protocol currently http or sasl
+   * @param proto - String identifying the protocol currently http, sasl or shm
    */
   public static void setProtocol(JobConf job, String proto) throws IOException {
     proto = proto.trim().toLowerCase();
 
-    if (!(proto.equals("http") || proto.equals("sasl"))) {
-      throw new IOException("protocol must be 'http' or 'sasl'");
+    if (!(proto.equals("http") || proto.equals("sasl") || proto.equals("shm"))) {
+      throw new IOException("protocol must be 'http', 'sasl' or 'shm'");
     }
 
     job.set(TETHER_PROTOCOL, proto);
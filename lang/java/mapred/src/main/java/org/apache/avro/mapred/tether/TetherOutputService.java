@@ -30,6 +30,7 @@ class TetherOutputService implements OutputProtocol {
   private Reporter reporter;
   private OutputCollector<TetherData, NullWritable> collector;
   private int inputPort;
+  private boolean configured;
   private boolean complete;
   private String error;
 
@@ -48,16 +49,17 @@ class TetherOutputService implements OutputProtocol {
   public synchronized void configure(int inputPort) {
     LOG.info("got input port from child: inputport=" + inputPort);
     this.inputPort = inputPort;
+    this.configured = true;
     notify();
   }
 
   public synchronized int inputPort() throws Exception {
-    if (inputPort == 0) {
+    if (!configured) {
       LOG.info("waiting for input port from child");
       wait(TIMEOUT);
     }
 
-    if (inputPort == 0) {
+    if (!configured) {
       LOG.error(
           "Parent process timed out waiting for subprocess to send input port. Check the job log files for more info.");
       throw new Exception("Parent process timed out waiting for subprocess to send input port");
@@ -18,25 +18,58 @@
 
 package org.apache.avro.mapred.tether;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.Partitioner;
 
+import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
-import org.apache.avro.io.BinaryData;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.hadoop.io.BinaryComparator;
+import org.apache.avro.hadoop.io.TotalOrderPartitions;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.mapred.AvroJob;
+import org.apache.avro.mapred.Pair;
 
+/**
+ * Partitions tether map output by the hash of its binary keys, or by range if
+ * a partition file is set with
+ * {@link TotalOrderPartitions#setPartitionFile(org.apache.hadoop.conf.Configuration, org.apache.hadoop.fs.Path)}.
+ * Keys are hashed with a {@link BinaryComparator} compiled from the map output
+ * schema. The partition file holds keys of the map output key schema, which
+ * are compared with the key that begins each encoded map output pair.
+ */
 class TetherPartitioner implements Partitioner<TetherData, NullWritable> {
 
   private static final ThreadLocal<Integer> CACHE = new ThreadLocal<>();
 
-  private Schema schema;
+  private BinaryComparator comparator;
+
+  private BinaryComparator keyComparator; // of split points and the key prefix of map output
+
+  private List<byte[]> splitPoints;
 
   @Override
   public void configure(JobConf job) {
-    schema = AvroJob.getMapOutputSchema(job);
+    Schema schema = AvroJob.getMapOutputSchema(job);
+    comparator = new BinaryComparator(schema);
+    if (TotalOrderPartitions.getPartitionFile(job) != null) {
+      Schema keySchema = Pair.getKeySchema(schema);
+      keyComparator = new BinaryComparator(keySchema);
+      try {
+        splitPoints = encode(TotalOrderPartitions.readSplitPoints(job, keySchema, GenericData.get()), keySchema);
+      } catch (IOException e) {
+        throw new AvroRuntimeException("Could not read partition file", e);
+      }
+    }
   }
 
   static void setNextPartition(int newValue) {
@@ -51,10 +84,42 @@ class TetherPartitioner implements Partitioner<TetherData, NullWritable> {
 
     ByteBuffer b = key.buffer();
     int p = b.position();
-    int hashCode = BinaryData.hashCode(b.array(), p, b.limit() - p, schema);
-    if (hashCode < 0)
-      hashCode = -hashCode;
-    return hashCode % numPartitions;
+    if (splitPoints != null)
+      return findPartition(b.array(), p, b.limit() - p, numPartitions);
+    int hashCode = comparator.hashCode(b.array(), p, b.limit() - p);
+    return (hashCode & Integer.MAX_VALUE) % numPartitions;
+  }
+
+  /** Count the split points not greater than a key. */
+  private int findPartition(byte[] key, int start, int length, int numPartitions) {
+    if (splitPoints.size() >= numPartitions)
+      throw new IllegalStateException(
+          "Partition file has " + splitPoints.size() + " split points for " + numPartitions + " partitions");
+    int low = 0;
+    int high = splitPoints.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      byte[] splitPoint = splitPoints.get(mid);
+      if (keyComparator.compare(splitPoint, 0, splitPoint.length, key, start, length) <= 0)
+        low = mid + 1;
+      else
+        high = mid - 1;
+    }
+    return low;
+  }
+
+  private static List<byte[]> encode(List<Object> keys, Schema schema) throws IOException {
+    GenericDatumWriter<Object> writer = new GenericDatumWriter<>(schema);
+    List<byte[]> encoded = new ArrayList<>(keys.size());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = null;
+    for (Object key : keys) {
+      out.reset();
+      encoder = EncoderFactory.get().directBinaryEncoder(out, encoder);
+      writer.write(key, encoder);
+      encoded.add(out.toByteArray());
+    }
+    return encoded;
   }
 
 }
@@ -61,13 +61,14 @@ class TetheredProcess {
   Process subprocess;
   Transceiver clientTransceiver;
   InputProtocol inputClient;
+  ShmTransport transport;
 
   /**
    * Enumeration defines which transport protocol to use to communicate between
    * the map/reduce java daemons and the tethered proce
    */
   public enum Protocol {
-    HTTP, SASL, NONE
+    HTTP, SASL, SHM, NONE
   };
 
   // which protocol we are using
@@ -93,6 +94,12 @@ class TetheredProcess {
         this.outputServer = new HttpServer(new SpecificResponder(OutputProtocol.class, outputService),
             iaddress.getPort());
         break;
+      case SHM:
+        this.transport = ShmTransport.create(shmDir(job), job.getInt(TetherJob.TETHER_SHM_RING_SIZE, 4 * 1024 * 1024),
+            job.getInt(TetherJob.TETHER_SHM_BATCH_SIZE, 64 * 1024), () -> subprocess == null || subprocess.isAlive());
+        this.outputServer = transport.server(ShmTransport.OUTPUT,
+            new SpecificResponder(OutputProtocol.class, outputService));
+        break;
       case NONE:
       default:
         throw new RuntimeException("No transport protocol was specified in the job configuration");
@@ -123,6 +130,10 @@ class TetheredProcess {
       case HTTP:
         this.clientTransceiver = new HttpTransceiver(new URL("http://127.0.0.1:" + outputService.inputPort()));
         break;
+      case SHM:
+        outputService.inputPort(); // wait for the sub-process to open the file
+        this.clientTransceiver = transport.client(ShmTransport.INPUT);
+        break;
       default:
         throw new RuntimeException("Error: code to handle this protocol is not implemented");
       }
@@ -145,6 +156,19 @@ class TetheredProcess {
       subprocess.destroy();
     if (outputServer != null)
       outputServer.close();
+    if (transport != null)
+      transport.close();
+  }
+
+  /** The directory of the shared file: /dev/shm if possible, to stay in memory. */
+  private static File shmDir(JobConf job) {
+    String dir = job.get(TetherJob.TETHER_SHM_DIR);
+    if (dir != null)
+      return new File(dir);
+    File shm = new File("/dev/shm");
+    if (shm.isDirectory() && shm.canWrite())
+      return shm;
+    return new File(System.getProperty("java.io.tmpdir"));
   }
 
   private Process startSubprocess(JobConf job) throws IOException, InterruptedException {
@@ -205,6 +229,12 @@ class TetheredProcess {
     // add an environment variable to specify what protocol to use for communication
     env.put("AVRO_TETHER_PROTOCOL", job.get(TetherJob.TETHER_PROTOCOL));
 
+    // add the file shared with the subprocess
+    if (transport != null) {
+      env.put(ShmTransport.ENV_FILE, transport.getFile().getPath());
+      env.put(ShmTransport.ENV_PARENT_PID, ShmTransport.currentPid());
+    }
+
     // print an info message about the command
     String imsg = "";
     for (String s : command) {
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapreduce;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.mapred.FsInput;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes input splits of Avro container files that start and end on block
+ * boundaries, from the headers of the blocks of each file.
+ *
+ * <p>
+ * Each file is divided into about as many splits as byte-range splitting would
+ * give it, but the splits are cut between blocks so that each holds a similar
+ * number of compressed bytes or records. A split starts at the sync marker
+ * before its first block and ends at the sync marker before the block that
+ * follows it, so the record readers of
+ * {@link AvroRecordReaderBase#initialize(InputSplit, org.apache.hadoop.mapreduce.TaskAttemptContext)}
+ * find their first block without scanning.
+ * </p>
+ */
+class AvroBlockSplitter {
+  private static final Logger LOG = LoggerFactory.getLogger(AvroBlockSplitter.class);
+
+  /** The most bytes of a block header: two longs. */
+  private static final int MAX_HEADER_SIZE = 20;
+
+  /** Whether splits are balanced by record count rather than by bytes. */
+  private final boolean mByRecords;
+
+  /** The least bytes of a split. */
+  private final long mMinSize;
+
+  /** The most bytes of a split. */
+  private final long mMaxSize;
+
+  /**
+   * Constructor.
+   *
+   * @param byRecords Whether to balance splits by record count.
+   * @param minSize   The least bytes of a split.
+   * @param maxSize   The most bytes of a split.
+   */
+  AvroBlockSplitter(boolean byRecords, long minSize, long maxSize) {
+    mByRecords = byRecords;
+    mMinSize = minSize;
+    mMaxSize = maxSize;
+  }
+
+  /**
+   * Computes the splits of files.
+   *
+   * @param files The files to split.
+   * @param conf  The job configuration.
+   * @return The splits, in file order.
+   * @throws IOException If a file could not be read.
+   */
+  List<InputSplit> getSplits(List<FileStatus> files, Configuration conf) throws IOException {
+    List<InputSplit> splits = new ArrayList<>();
+    for (FileStatus file : files) {
+      Path path = file.getPath();
+      FileSystem fs = path.getFileSystem(conf);
+      List<long[]> blocks = readBlocks(path, fs, file.getLen());
+      if (blocks.isEmpty()) {
+        continue;
+      }
+      long splitSize = Math.max(mMinSize, Math.min(mMaxSize, file.getBlockSize()));
+      int count = (int) Math.min(blocks.size(), Math.max(1, Math.round((double) file.getLen() / splitSize)));
+      BlockLocation[] locations = fs.getFileBlockLocations(file, 0, file.getLen());
+      addSplits(splits, path, locations, blocks, count, file.getLen());
+    }
+    LOG.debug("Total # of block aligned splits: " + splits.size());
+    return splits;
+  }
+
+  /**
+   * Reads the positions, sizes and record counts of the blocks of a file.
+   *
+   * @return For each block, its position just after the preceding sync marker,
+   *         its record count and its bytes including its header and sync.
+   */
+  private List<long[]> readBlocks(Path path, FileSystem fs, long length) throws IOException {
+    List<long[]> blocks = new ArrayList<>();
+    try (FsInput input = new FsInput(path, fs)) {
+      // The reader shares the input, which is closed below.
+      DataFileReader<Object> reader = new DataFileReader<>(input, new GenericDatumReader<>());
+      reader.sync(0);
+      long position = reader.previousSync();
+      byte[] sync = new byte[DataFileConstants.SYNC_SIZE];
+      byte[] buffer = new byte[DataFileConstants.SYNC_SIZE + MAX_HEADER_SIZE];
+      input.seek(position - DataFileConstants.SYNC_SIZE);
+      readFully(input, sync, sync.length);
+      while (position < length) {
+        // Read the sync marker ending the previous block and this block's header.
+        input.seek(position - DataFileConstants.SYNC_SIZE);
+        int read = readFully(input, buffer, (int) Math.min(buffer.length, length - position + sync.length));
+        if (!Arrays.equals(sync, Arrays.copyOf(buffer, sync.length))) {
+          throw new IOException("Invalid sync in " + path + " at " + position);
+        }
+        long[] header = new long[2];
+        int headerSize = readLong(buffer, sync.length, read, header, 0);
+        headerSize += readLong(buffer, sync.length + headerSize, read, header, 1);
+        long bytes = headerSize + header[1] + DataFileConstants.SYNC_SIZE;
+        blocks.add(new long[] { position, header[0], bytes });
+        position += bytes;
+      }
+    }
+    return blocks;
+  }
+
+  /** Divides the blocks of a file into a number of splits of similar weight. */
+  private void addSplits(List<InputSplit> splits, Path path, BlockLocation[] locations, List<long[]> blocks,
+      int count, long length) throws IOException {
+    double total = 0;
+    for (long[] block : blocks) {
+      total += weight(block);
+    }
+    int first = 0;
+    int made = 0;
+    double weight = 0;
+    for (int i = 0; i < blocks.size(); i++) {
+      weight += weight(blocks.get(i));
+      int remainingBlocks = blocks.size() - i - 1;
+      int remainingSplits = count - made - 1;
+      boolean last = i == blocks.size() - 1;
+      if (last || remainingBlocks == remainingSplits
+          || (remainingSplits > 0 && weight >= total * (made + 1) / count)) {
+        long start = blocks.get(first)[0] - DataFileConstants.SYNC_SIZE;
+        long end = last ? length : blocks.get(i + 1)[0] - DataFileConstants.SYNC_SIZE;
+        splits.add(new FileSplit(path, start, end - start, getHosts(locations, start)));
+        first = i + 1;
+        made++;
+      }
+    }
+  }
+
+  private double weight(long[] block) {
+    return mByRecords ? block[1] : block[2];
+  }
+
+  private static String[] getHosts(BlockLocation[] locations, long offset) throws IOException {
+    for (BlockLocation location : locations) {
+      if (location.getOffset() <= offset && offset < location.getOffset() + location.getLength()) {
+        return location.getHosts();
+      }
+    }
+    return new String[0];
+  }
+
+  private static int readFully(FsInput input, byte[] b, int length) throws IOException {
+    int n = 0;
+    while (n < length) {
+      int read = input.read(b, n, length - n);
+      if (read < 0) {
+        break;
+      }
+      n += read;
+    }
+    return n;
+  }
+
+  /** Reads a zig-zag varint into an array, returning the bytes read. */
+  private static int readLong(byte[] b, int start, int end, long[] values, int index) throws IOException {
+    long n = 0;
+    int shift = 0;
+    int pos = start;
+    int x;
+    do {
+      if (pos == end) {
+        throw new IOException("Truncated block header");
+      }
+      x = b[pos++] & 0xff;
+      n |= (long) (x & 0x7f) << shift;
+      shift += 7;
+    } while ((x & 0x80) != 0);
+    values[index] = (n >>> 1) ^ -(n & 1);
+    return pos - start;
+  }
+}
@@ -20,9 +20,11 @@ package org.apache.avro.mapreduce;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
+import org.apache.avro.hadoop.file.BlockCounters;
 import org.apache.avro.hadoop.io.AvroKeyComparator;
 import org.apache.avro.hadoop.io.AvroSerialization;
 import org.apache.avro.mapred.AvroKey;
+import org.apache.avro.mapred.AvroOutputFormat;
 import org.apache.avro.mapred.AvroValue;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.Job;
@@ -70,6 +72,34 @@ public final class AvroJob {
    */
   public static final String CONF_OUTPUT_CODEC = "avro.output.codec";
 
+  /**
+   * The configuration key for the number of threads that input record readers
+   * decode blocks with. Blocks are read ahead only when this is positive.
+   */
+  public static final String CONF_INPUT_PREFETCH_THREADS = "avro.mapreduce.input.prefetch.threads";
+
+  /**
+   * The configuration key for the bytes of blocks input record readers may read
+   * ahead, counting both compressed and decompressed data.
+   */
+  public static final String CONF_INPUT_PREFETCH_MEMORY = "avro.mapreduce.input.prefetch.memory";
+
+  /** The default bytes of blocks input record readers may read ahead. */
+  public static final long DEFAULT_INPUT_PREFETCH_MEMORY = 64L * 1024 * 1024;
+
+  /**
+   * The configuration key for how Avro input formats compute splits: one of
+   * {@link #BLOCK_SPLITS_BYTES} or {@link #BLOCK_SPLITS_RECORDS} to cut splits
+   * between blocks, or unset for byte-range splits.
+   */
+  public static final String CONF_INPUT_BLOCK_SPLITS = "avro.mapreduce.input.block.splits";
+
+  /** Cut splits between blocks, balancing their compressed bytes. */
+  public static final String BLOCK_SPLITS_BYTES = "bytes";
+
+  /** Cut splits between blocks, balancing their record counts. */
+  public static final String BLOCK_SPLITS_RECORDS = "records";
+
   /**
    * Sets the job input key schema.
    *
@@ -150,6 +180,109 @@ public final class AvroJob {
     AvroSerialization.setDataModelClass(job.getConfiguration(), modelClass);
   }
 
+  /**
+   * Sets whether map output values are decoded only when a reducer or combiner
+   * reads them. Values passed on unread are copied to the map output or to an
+   * {@link AvroKeyValueOutputFormat} file without being decoded and encoded
+   * again.
+   *
+   * @param job  The job to configure.
+   * @param lazy Whether to decode map output values lazily.
+   */
+  public static void setMapOutputValueLazy(Job job, boolean lazy) {
+    AvroSerialization.setLazyValueDecoding(job.getConfiguration(), lazy);
+  }
+
+  /**
+   * Sets the number of threads that input record readers decode blocks with.
+   * When positive, each record reader reads the blocks of its split ahead on a
+   * background thread and decompresses and decodes them on this many threads.
+   *
+   * @param job     The job to configure.
+   * @param threads The number of threads, or zero to decode records as they are
+   *                read.
+   */
+  public static void setInputPrefetchThreads(Job job, int threads) {
+    job.getConfiguration().setInt(CONF_INPUT_PREFETCH_THREADS, threads);
+  }
+
+  /**
+   * Sets the bytes of blocks input record readers may read ahead when
+   * prefetching.
+   *
+   * @param job   The job to configure.
+   * @param bytes The most bytes of compressed and decompressed blocks read ahead.
+   */
+  public static void setInputPrefetchMemory(Job job, long bytes) {
+    job.getConfiguration().setLong(CONF_INPUT_PREFETCH_MEMORY, bytes);
+  }
+
+  /**
+   * Sets whether Avro input formats cut splits between the blocks of each file
+   * rather than at byte offsets, and how splits are balanced. Block boundaries
+   * are read from the block headers of each file when splits are computed.
+   *
+   * @param job     The job to configure.
+   * @param balance {@link #BLOCK_SPLITS_BYTES}, {@link #BLOCK_SPLITS_RECORDS},
+   *                or null for byte-range splits.
+   */
+  public static void setInputBlockSplits(Job job, String balance) {
+    if (null == balance) {
+      job.getConfiguration().unset(CONF_INPUT_BLOCK_SPLITS);
+    } else if (BLOCK_SPLITS_BYTES.equals(balance) || BLOCK_SPLITS_RECORDS.equals(balance)) {
+      job.getConfiguration().set(CONF_INPUT_BLOCK_SPLITS, balance);
+    } else {
+      throw new IllegalArgumentException("Unknown split balance: " + balance);
+    }
+  }
+
+  /**
+   * Sizes the blocks of Avro output files adaptively, so that each holds about
+   * the given number of bytes after compression whatever the size and
+   * compressibility of the records, in place of the fixed sync interval.
+   *
+   * @param job             The job to configure.
+   * @param compressedBytes The target compressed size of blocks, or zero to use
+   *                        the sync interval.
+   */
+  public static void setOutputBlockSize(Job job, int compressedBytes) {
+    job.getConfiguration().setInt(AvroOutputFormat.BLOCK_SIZE_KEY, compressedBytes);
+  }
+
+  /**
+   * Limits the records in each block of Avro output files, bounding the records
+   * a reader of the files holds at once.
+   *
+   * @param job     The job to configure.
+   * @param records The most records in a block, or zero for no limit.
+   */
+  public static void setOutputMaxBlockRecords(Job job, long records) {
+    job.getConfiguration().setLong(AvroOutputFormat.BLOCK_RECORDS_KEY, records);
+  }
+
+  /**
+   * Writes the blocks of Avro output files once their first record is older than
+   * the given delay, so that streaming output reaches the files in time. Blocks
+   * are written when a record is appended.
+   *
+   * @param job    The job to configure.
+   * @param millis The most milliseconds a block is held, or zero for no limit.
+   */
+  public static void setOutputMaxBlockDelay(Job job, long millis) {
+    job.getConfiguration().setLong(AvroOutputFormat.BLOCK_DELAY_KEY, millis);
+  }
+
+  /**
+   * Sets whether Avro output formats add the number and sizes of the blocks they
+   * write to the task counters of {@link BlockCounters#GROUP}.
+   *
+   * @param job     The job to configure.
+   * @param enabled Whether to count output blocks.
+   */
+  public static void setOutputBlockCounters(Job job, boolean enabled) {
+    BlockCounters.setEnabled(job.getConfiguration(), enabled);
+  }
+
   /**
    * Gets the job input key schema.
    *
@@ -172,6 +305,37 @@ public final class AvroJob {
     return schemaString != null ? new Schema.Parser().parse(schemaString) : null;
   }
 
+  /**
+   * Gets the number of threads that input record readers decode blocks with.
+   *
+   * @param conf The job configuration.
+   * @return The number of threads, zero if blocks are not prefetched.
+   */
+  public static int getInputPrefetchThreads(Configuration conf) {
+    return conf.getInt(CONF_INPUT_PREFETCH_THREADS, 0);
+  }
+
+  /**
+   * Gets the bytes of blocks input record readers may read ahead.
+   *
+   * @param conf The job configuration.
+   * @return The most bytes of compressed and decompressed blocks read ahead.
+   */
+  public static long getInputPrefetchMemory(Configuration conf) {
+    return conf.getLong(CONF_INPUT_PREFETCH_MEMORY, DEFAULT_INPUT_PREFETCH_MEMORY);
+  }
+
+  /**
+   * Gets how Avro input formats balance splits cut between blocks.
+   *
+   * @param conf The job configuration.
+   * @return {@link #BLOCK_SPLITS_BYTES}, {@link #BLOCK_SPLITS_RECORDS}, or null
+   *         if splits are byte ranges.
+   */
+  public static String getInputBlockSplits(Configuration conf) {
+    return conf.get(CONF_INPUT_BLOCK_SPLITS);
+  }
+
   /**
    * Gets the map output key schema.
    *
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapreduce;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+
+/**
+ * Reads whole blocks of records from an input split representing a chunk of an
+ * Avro container file. Blocks are always prefetched, on at least one thread.
+ *
+ * @param <T> The (java) type of data in Avro container file.
+ */
+public class AvroKeyBlockRecordReader<T> extends AvroRecordReaderBase<AvroKey<List<T>>, NullWritable, T> {
+  /** A reusable object to hold the records of a block. */
+  private final AvroKey<List<T>> mCurrentBlock;
+
+  /**
+   * Constructor.
+   *
+   * @param readerSchema The reader schema to use for the records in the Avro
+   *                     container file.
+   */
+  public AvroKeyBlockRecordReader(Schema readerSchema) {
+    super(readerSchema);
+    mCurrentBlock = new AvroKey<>(null);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean nextKeyValue() throws IOException, InterruptedException {
+    List<T> records = nextBlock();
+    mCurrentBlock.datum(records);
+    return null != records;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public AvroKey<List<T>> getCurrentKey() throws IOException, InterruptedException {
+    return mCurrentBlock;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public NullWritable getCurrentValue() throws IOException, InterruptedException {
+    return NullWritable.get();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  protected int getPrefetchThreads(Configuration conf) {
+    return Math.max(1, super.getPrefetchThreads(conf));
+  }
+}
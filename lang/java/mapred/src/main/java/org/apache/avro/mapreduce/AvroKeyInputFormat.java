@@ -19,11 +19,13 @@
 package org.apache.avro.mapreduce;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.avro.Schema;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
@@ -38,6 +40,12 @@ import org.slf4j.LoggerFactory;
  * container files store only records (not key/value pairs), the value from this
  * InputFormat is a NullWritable.
  * </p>
+ *
+ * <p>
+ * Blocks of each split may be read ahead and decoded on background threads, as
+ * configured by
+ * {@link AvroJob#setInputPrefetchThreads(org.apache.hadoop.mapreduce.Job, int)}.
+ * </p>
  */
 public class AvroKeyInputFormat<T> extends FileInputFormat<AvroKey<T>, NullWritable> {
   private static final Logger LOG = LoggerFactory.getLogger(AvroKeyInputFormat.class);
@@ -53,4 +61,24 @@ public class AvroKeyInputFormat<T> extends FileInputFormat<AvroKey<T>, NullWrita
     }
     return new AvroKeyRecordReader<>(readerSchema);
   }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * If enabled with
+   * {@link AvroJob#setInputBlockSplits(org.apache.hadoop.mapreduce.Job, String)},
+   * splits are cut between the blocks of each file.
+   * </p>
+   */
+  @Override
+  public List<InputSplit> getSplits(JobContext job) throws IOException {
+    String balance = AvroJob.getInputBlockSplits(job.getConfiguration());
+    if (null == balance) {
+      return super.getSplits(job);
+    }
+    AvroBlockSplitter splitter = new AvroBlockSplitter(AvroJob.BLOCK_SPLITS_RECORDS.equals(balance),
+        Math.max(getFormatMinSplitSize(), getMinSplitSize(job)), getMaxSplitSize(job));
+    return splitter.getSplits(listStatus(job), job.getConfiguration());
+  }
 }
@@ -79,6 +79,36 @@ public class AvroKeyOutputFormat<T> extends AvroOutputFormatBase<AvroKey<T>, Nul
         CodecFactory compressionCodec, OutputStream outputStream, int syncInterval) throws IOException {
       return new AvroKeyRecordWriter<>(writerSchema, dataModel, compressionCodec, outputStream, syncInterval);
     }
+
+    /**
+     * Creates a new record writer instance, applying the block settings of a job.
+     *
+     * <p>
+     * By default, this calls
+     * {@link #create(Schema, GenericData, CodecFactory, OutputStream, int)} and
+     * configures the writer if it is an {@link AvroKeyRecordWriter}. Factories
+     * returning other writers should override this method to apply the settings
+     * with {@link org.apache.avro.mapred.AvroOutputFormat#configureBlocks} and, if
+     * {@link org.apache.avro.hadoop.file.BlockCounters} are enabled, report the
+     * blocks written on close.
+     * </p>
+     *
+     * @param writerSchema     The writer schema for the records to write.
+     * @param compressionCodec The compression type for the writer file.
+     * @param outputStream     The target output stream for the records.
+     * @param syncInterval     The sync interval for the writer file.
+     * @param conf             The job configuration.
+     */
+    protected RecordWriter<AvroKey<T>, NullWritable> create(Schema writerSchema, GenericData dataModel,
+        CodecFactory compressionCodec, OutputStream outputStream, int syncInterval, Configuration conf)
+        throws IOException {
+      RecordWriter<AvroKey<T>, NullWritable> writer = create(writerSchema, dataModel, compressionCodec, outputStream,
+          syncInterval);
+      if (writer instanceof AvroKeyRecordWriter) {
+        ((AvroKeyRecordWriter<?>) writer).configureBlocks(conf);
+      }
+      return writer;
+    }
   }
 
   /** {@inheritDoc} */
@@ -104,7 +134,7 @@ public class AvroKeyOutputFormat<T> extends AvroOutputFormatBase<AvroKey<T>, Nul
     OutputStream out = getAvroFileOutputStream(context);
     try {
       return mRecordWriterFactory.create(writerSchema, dataModel, getCompressionCodec(context), out,
-          getSyncInterval(context));
+          getSyncInterval(context), conf);
     } catch (IOException e) {
       out.close();
       throw e;
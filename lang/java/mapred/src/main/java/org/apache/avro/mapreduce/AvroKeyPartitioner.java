@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapreduce;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.hadoop.io.AvroSerialization;
+import org.apache.avro.hadoop.io.TotalOrderPartitions;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+/**
+ * Partitions map output by the fields of its Avro keys.
+ *
+ * <p>
+ * The default partitioner of Hadoop uses {@link Object#hashCode()} of keys,
+ * which for reflect data is the identity hash, and for other data includes
+ * fields whose order is ignored. This partitioner hashes keys with the data
+ * model and the map output key schema, so that keys grouped together by
+ * {@link org.apache.avro.hadoop.io.AvroKeyComparator} go to the same reducer,
+ * and spreads the hash over the partitions with a MurmurHash3 finalizer.
+ * </p>
+ *
+ * <p>
+ * If a partition file is set with
+ * {@link TotalOrderPartitions#setPartitionFile(Configuration, org.apache.hadoop.fs.Path)},
+ * keys are instead partitioned by range, so that the outputs of the reducers
+ * are in total order.
+ * </p>
+ *
+ * @param <T> The type of the Avro key data.
+ * @param <V> The type of the values.
+ */
+public class AvroKeyPartitioner<T, V> extends Partitioner<AvroKey<T>, V> implements Configurable {
+  /** The job configuration. */
+  private Configuration mConf;
+
+  /** The map output key schema. */
+  private Schema mKeySchema;
+
+  /** The data model of the keys. */
+  private GenericData mDataModel;
+
+  /** The split points of a total order, or null to partition by hash. */
+  private List<T> mSplitPoints;
+
+  /** Orders keys and split points. */
+  private Comparator<T> mComparator;
+
+  /** {@inheritDoc} */
+  @Override
+  public void setConf(Configuration conf) {
+    mConf = conf;
+    mKeySchema = AvroJob.getMapOutputKeySchema(conf);
+    mDataModel = AvroSerialization.createDataModel(conf);
+    mComparator = (k1, k2) -> mDataModel.compare(k1, k2, mKeySchema);
+    if (null != TotalOrderPartitions.getPartitionFile(conf)) {
+      try {
+        mSplitPoints = TotalOrderPartitions.readSplitPoints(conf, mKeySchema, mDataModel);
+      } catch (IOException e) {
+        throw new AvroRuntimeException("Could not read partition file", e);
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Configuration getConf() {
+    return mConf;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getPartition(AvroKey<T> key, V value, int numPartitions) {
+    if (null != mSplitPoints) {
+      return TotalOrderPartitions.findPartition(mSplitPoints, key.datum(), mComparator, numPartitions);
+    }
+    int hash = mDataModel.hashCode(key.datum(), mKeySchema);
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % numPartitions;
+  }
+}
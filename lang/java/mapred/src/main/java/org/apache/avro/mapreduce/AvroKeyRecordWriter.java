@@ -26,7 +26,10 @@ import org.apache.avro.file.CodecFactory;
 import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericData;
+import org.apache.avro.hadoop.file.BlockCounters;
 import org.apache.avro.mapred.AvroKey;
+import org.apache.avro.mapred.AvroOutputFormat;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -40,6 +43,9 @@ public class AvroKeyRecordWriter<T> extends RecordWriter<AvroKey<T>, NullWritabl
   /** A writer for the Avro container file. */
   private final DataFileWriter<T> mAvroFileWriter;
 
+  /** Whether to report the blocks written to the task's counters. */
+  private boolean mCountBlocks;
+
   /**
    * Constructor.
    *
@@ -77,6 +83,18 @@ public class AvroKeyRecordWriter<T> extends RecordWriter<AvroKey<T>, NullWritabl
     this(writerSchema, dataModel, compressionCodec, outputStream, DataFileConstants.DEFAULT_SYNC_INTERVAL);
   }
 
+  /**
+   * Applies the block settings of a job to the Avro container file, and reports
+   * its blocks to the task's counters on close if {@link BlockCounters} are
+   * enabled.
+   *
+   * @param conf The job configuration.
+   */
+  public void configureBlocks(Configuration conf) {
+    AvroOutputFormat.configureBlocks(mAvroFileWriter, conf);
+    mCountBlocks = BlockCounters.isEnabled(conf);
+  }
+
   /** {@inheritDoc} */
   @Override
   public void write(AvroKey<T> record, NullWritable ignore) throws IOException {
@@ -87,6 +105,9 @@ public class AvroKeyRecordWriter<T> extends RecordWriter<AvroKey<T>, NullWritabl
   @Override
   public void close(TaskAttemptContext context) throws IOException {
     mAvroFileWriter.close();
+    if (mCountBlocks) {
+      BlockCounters.report(mAvroFileWriter, context);
+    }
   }
 
   /** {@inheritDoc} */
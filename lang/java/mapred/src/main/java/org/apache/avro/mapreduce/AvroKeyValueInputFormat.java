@@ -19,11 +19,13 @@
 package org.apache.avro.mapreduce;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.avro.Schema;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.avro.mapred.AvroValue;
 import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
@@ -41,6 +43,12 @@ import org.slf4j.LoggerFactory;
  * output value.
  * </p>
  *
+ * <p>
+ * Blocks of each split may be read ahead and decoded on background threads, as
+ * configured by
+ * {@link AvroJob#setInputPrefetchThreads(org.apache.hadoop.mapreduce.Job, int)}.
+ * </p>
+ *
  * @param <K> The type of the Avro key to read.
  * @param <V> The type of the Avro value to read.
  */
@@ -63,4 +71,24 @@ public class AvroKeyValueInputFormat<K, V> extends FileInputFormat<AvroKey<K>, A
     }
     return new AvroKeyValueRecordReader<>(keyReaderSchema, valueReaderSchema);
   }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * If enabled with
+   * {@link AvroJob#setInputBlockSplits(org.apache.hadoop.mapreduce.Job, String)},
+   * splits are cut between the blocks of each file.
+   * </p>
+   */
+  @Override
+  public List<InputSplit> getSplits(JobContext job) throws IOException {
+    String balance = AvroJob.getInputBlockSplits(job.getConfiguration());
+    if (null == balance) {
+      return super.getSplits(job);
+    }
+    AvroBlockSplitter splitter = new AvroBlockSplitter(AvroJob.BLOCK_SPLITS_RECORDS.equals(balance),
+        Math.max(getFormatMinSplitSize(), getMinSplitSize(job)), getMaxSplitSize(job));
+    return splitter.getSplits(listStatus(job), job.getConfiguration());
+  }
 }
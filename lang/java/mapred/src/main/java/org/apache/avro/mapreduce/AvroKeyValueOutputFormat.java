@@ -66,8 +66,10 @@ public class AvroKeyValueOutputFormat<K, V> extends AvroOutputFormatBase<K, V> {
 
     OutputStream out = getAvroFileOutputStream(context);
     try {
-      return new AvroKeyValueRecordWriter<>(keyConverter, valueConverter, dataModel, getCompressionCodec(context), out,
-          getSyncInterval(context));
+      AvroKeyValueRecordWriter<K, V> writer = new AvroKeyValueRecordWriter<>(keyConverter, valueConverter, dataModel,
+          getCompressionCodec(context), out, getSyncInterval(context));
+      writer.configureBlocks(conf);
+      return writer;
     } catch (IOException e) {
       out.close();
       throw e;
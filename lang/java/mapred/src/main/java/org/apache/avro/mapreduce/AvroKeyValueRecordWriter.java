@@ -18,8 +18,10 @@
 
 package org.apache.avro.mapreduce;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.avro.Schema;
 import org.apache.avro.file.CodecFactory;
@@ -27,8 +29,15 @@ import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.hadoop.file.BlockCounters;
 import org.apache.avro.hadoop.io.AvroDatumConverter;
 import org.apache.avro.hadoop.io.AvroKeyValue;
+import org.apache.avro.hadoop.io.LazyAvroValue;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.mapred.AvroOutputFormat;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
@@ -43,6 +52,12 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
  * corresponding Avro types when written to the generic record key/value pair.
  * </p>
  *
+ * <p>
+ * A {@link LazyAvroValue} whose datum is still encoded with the value schema is
+ * written without being decoded: its bytes follow those of the key in the
+ * record.
+ * </p>
+ *
  * @param <K> The type of key to write.
  * @param <V> The type of value to write.
  */
@@ -50,6 +65,9 @@ public class AvroKeyValueRecordWriter<K, V> extends RecordWriter<K, V> implement
   /** A writer for the Avro container file. */
   private final DataFileWriter<GenericRecord> mAvroFileWriter;
 
+  /** Whether to report the blocks written to the task's counters. */
+  private boolean mCountBlocks;
+
   /**
    * The writer schema for the generic record entries of the Avro container file.
    */
@@ -64,6 +82,21 @@ public class AvroKeyValueRecordWriter<K, V> extends RecordWriter<K, V> implement
   /** A helper object that converts the input value to an Avro datum. */
   private final AvroDatumConverter<V, ?> mValueConverter;
 
+  /** The data model for key and value. */
+  private final GenericData mDataModel;
+
+  /** A writer of keys preceding encoded values, created when first needed. */
+  private DatumWriter<Object> mKeyDatumWriter;
+
+  /** A buffer for records of a key and an encoded value. */
+  private ByteArrayOutputStream mEncodedRecord;
+
+  /** An encoder writing to the record buffer. */
+  private BinaryEncoder mEncoder;
+
+  /** The last schema of encoded values found to equal the value schema. */
+  private Schema mMatchedSchema;
+
   /**
    * Constructor.
    *
@@ -92,6 +125,7 @@ public class AvroKeyValueRecordWriter<K, V> extends RecordWriter<K, V> implement
     // Keep a reference to the converters.
     mKeyConverter = keyConverter;
     mValueConverter = valueConverter;
+    mDataModel = dataModel;
 
     // Create a reusable output record.
     mOutputRecord = new AvroKeyValue<>(new GenericData.Record(mKeyValuePairSchema));
@@ -115,6 +149,18 @@ public class AvroKeyValueRecordWriter<K, V> extends RecordWriter<K, V> implement
         DataFileConstants.DEFAULT_SYNC_INTERVAL);
   }
 
+  /**
+   * Applies the block settings of a job to the Avro container file, and reports
+   * its blocks to the task's counters on close if {@link BlockCounters} are
+   * enabled.
+   *
+   * @param conf The job configuration.
+   */
+  public void configureBlocks(Configuration conf) {
+    AvroOutputFormat.configureBlocks(mAvroFileWriter, conf);
+    mCountBlocks = BlockCounters.isEnabled(conf);
+  }
+
   /**
    * Gets the writer schema for the key/value pair generic record.
    *
@@ -127,15 +173,51 @@ public class AvroKeyValueRecordWriter<K, V> extends RecordWriter<K, V> implement
   /** {@inheritDoc} */
   @Override
   public void write(K key, V value) throws IOException {
+    if (value instanceof LazyAvroValue && isEncodedValue((LazyAvroValue<?>) value)) {
+      writeEncoded(key, ((LazyAvroValue<?>) value).getEncoded());
+      return;
+    }
     mOutputRecord.setKey(mKeyConverter.convert(key));
     mOutputRecord.setValue(mValueConverter.convert(value));
     mAvroFileWriter.append(mOutputRecord.get());
   }
 
+  /** Whether a value holds a datum encoded with the value schema. */
+  private boolean isEncodedValue(LazyAvroValue<?> value) {
+    Schema schema = value.getEncodedSchema();
+    if (null == schema) {
+      return false;
+    }
+    if (schema != mMatchedSchema) {
+      if (!schema.equals(mValueConverter.getWriterSchema())) {
+        return false;
+      }
+      mMatchedSchema = schema;
+    }
+    return true;
+  }
+
+  /** Appends a record of a key and an encoded value. */
+  @SuppressWarnings("unchecked")
+  private void writeEncoded(K key, ByteBuffer value) throws IOException {
+    if (null == mKeyDatumWriter) {
+      mKeyDatumWriter = mDataModel.createDatumWriter(mKeyConverter.getWriterSchema());
+      mEncodedRecord = new ByteArrayOutputStream();
+    }
+    mEncodedRecord.reset();
+    mEncoder = EncoderFactory.get().directBinaryEncoder(mEncodedRecord, mEncoder);
+    mKeyDatumWriter.write(mKeyConverter.convert(key), mEncoder);
+    mEncoder.writeFixed(value.array(), value.arrayOffset() + value.position(), value.remaining());
+    mAvroFileWriter.appendEncoded(ByteBuffer.wrap(mEncodedRecord.toByteArray()));
+  }
+
   /** {@inheritDoc} */
   @Override
   public void close(TaskAttemptContext context) throws IOException {
     mAvroFileWriter.close();
+    if (mCountBlocks) {
+      BlockCounters.report(mAvroFileWriter, context);
+    }
   }
 
   /** {@inheritDoc} */
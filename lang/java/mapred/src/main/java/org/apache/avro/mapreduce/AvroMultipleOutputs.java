@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -61,6 +63,17 @@ import org.apache.hadoop.util.ReflectionUtils;
  * records written to each output name.
  * </p>
  *
+ * <p>
+ * By default a record writer is kept open for each distinct base output path
+ * until {@link #close()}. Tasks that write many paths may bound the number open
+ * with {@link #setMaxOpenWriters(Job, int)}: the least recently used writer is
+ * closed when another must be opened, and if its path is written again, the
+ * records go to a new file of the same base output path, with a roll number
+ * after the task's part of the name, as in <code>x-r-00000-r1.avro</code>.
+ * When counters are enabled, writers opened and evicted are counted in the
+ * {@link #WRITER_COUNTERS_GROUP} group.
+ * </p>
+ *
  * Usage pattern for job submission:
  * 
  * <pre>
@@ -131,12 +144,30 @@ public class AvroMultipleOutputs {
 
   private static final String FORMAT = ".format";
   private static final String COUNTERS_ENABLED = "avro.mapreduce.multipleoutputs.counters";
+  private static final String MAX_OPEN_WRITERS = "avro.mapreduce.multipleoutputs.max.open.writers";
+
+  // the roll number of the file that a record writer is opened for
+  static final String ROLL_CONFIG = "avro.mo.config.roll";
 
   /**
    * Counters group used by the counters of MultipleOutputs.
    */
   private static final String COUNTERS_GROUP = AvroMultipleOutputs.class.getName();
 
+  /**
+   * Counters group used for the record writers opened and evicted.
+   */
+  public static final String WRITER_COUNTERS_GROUP = COUNTERS_GROUP + ".Writers";
+
+  /** Counter of record writers opened. */
+  public static final String WRITERS_OPENED = "WRITERS_OPENED";
+
+  /** Counter of record writers closed to open others. */
+  public static final String WRITERS_EVICTED = "WRITERS_EVICTED";
+
+  /** Counter of the most record writers a task had open at once. */
+  public static final String MAX_WRITERS_OPEN = "MAX_WRITERS_OPEN";
+
   /**
    * Cache for the taskContexts
    */
@@ -283,6 +314,31 @@ public class AvroMultipleOutputs {
     return job.getConfiguration().getBoolean(COUNTERS_ENABLED, false);
   }
 
+  /**
+   * Bounds the number of record writers each task keeps open. When another must
+   * be opened, the least recently used is closed, and later records for its path
+   * are written to a new file. By default there is no bound.
+   *
+   * @param job     job to configure
+   * @param writers the most writers open at once, or zero for no bound
+   */
+  public static void setMaxOpenWriters(Job job, int writers) {
+    if (writers < 0) {
+      throw new IllegalArgumentException("Max open writers cannot be negative: " + writers);
+    }
+    job.getConfiguration().setInt(MAX_OPEN_WRITERS, writers);
+  }
+
+  /**
+   * Returns the most record writers each task keeps open.
+   *
+   * @param job the job
+   * @return the most writers open at once, or zero if there is no bound.
+   */
+  public static int getMaxOpenWriters(JobContext job) {
+    return job.getConfiguration().getInt(MAX_OPEN_WRITERS, 0);
+  }
+
   /**
    * Wraps RecordWriter to increment counters.
    */
@@ -316,6 +372,10 @@ public class AvroMultipleOutputs {
   private TaskInputOutputContext<?, ?, ?, ?> context;
   private Set<String> namedOutputs;
   private Map<String, RecordWriter<?, ?>> recordWriters;
+  private Map<String, Integer> rolls;
+  private int maxOpenWriters;
+  private int maxWritersOpen;
+  private long writersEvicted;
   private boolean countersEnabled;
 
   /**
@@ -327,7 +387,9 @@ public class AvroMultipleOutputs {
   public AvroMultipleOutputs(TaskInputOutputContext<?, ?, ?, ?> context) {
     this.context = context;
     namedOutputs = Collections.unmodifiableSet(new HashSet<>(AvroMultipleOutputs.getNamedOutputsList(context)));
-    recordWriters = new HashMap<>();
+    recordWriters = new LinkedHashMap<>(16, 0.75f, true); // in access order
+    rolls = new HashMap<>();
+    maxOpenWriters = getMaxOpenWriters(context);
     countersEnabled = getCountersEnabled(context);
   }
 
@@ -463,9 +525,16 @@ public class AvroMultipleOutputs {
 
     // If not in cache, create a new one
     if (writer == null) {
+      // make room by closing the least recently used writer
+      if (maxOpenWriters > 0 && recordWriters.size() >= maxOpenWriters) {
+        evictWriter();
+      }
+
       // get the record writer from context output format
       // FileOutputFormat.setOutputName(taskContext, baseFileName);
       taskContext.getConfiguration().set("avro.mo.config.namedOutput", baseFileName);
+      // a path whose writer was evicted continues in a new file
+      taskContext.getConfiguration().setInt(ROLL_CONFIG, rolls.getOrDefault(baseFileName, 0));
       try {
         writer = ReflectionUtils.newInstance(taskContext.getOutputFormatClass(), taskContext.getConfiguration())
             .getRecordWriter(taskContext);
@@ -481,10 +550,50 @@ public class AvroMultipleOutputs {
 
       // add the record-writer to the cache
       recordWriters.put(baseFileName, writer);
+      if (countersEnabled) {
+        context.getCounter(WRITER_COUNTERS_GROUP, WRITERS_OPENED).increment(1);
+        if (recordWriters.size() > maxWritersOpen) {
+          context.getCounter(WRITER_COUNTERS_GROUP, MAX_WRITERS_OPEN).increment(1);
+        }
+      }
+      maxWritersOpen = Math.max(maxWritersOpen, recordWriters.size());
     }
     return writer;
   }
 
+  // Closes the least recently used record writer.
+  @SuppressWarnings("unchecked")
+  private void evictWriter() throws IOException, InterruptedException {
+    Iterator<Map.Entry<String, RecordWriter<?, ?>>> i = recordWriters.entrySet().iterator();
+    Map.Entry<String, RecordWriter<?, ?>> eldest = i.next();
+    i.remove();
+    ((RecordWriter) eldest.getValue()).close(context);
+    rolls.merge(eldest.getKey(), 1, Integer::sum);
+    writersEvicted++;
+    if (countersEnabled) {
+      context.getCounter(WRITER_COUNTERS_GROUP, WRITERS_EVICTED).increment(1);
+    }
+  }
+
+  /**
+   * Returns the number of record writers open.
+   *
+   * @return the writers open
+   */
+  public synchronized int getOpenWriterCount() {
+    return recordWriters.size();
+  }
+
+  /**
+   * Returns the number of record writers closed to open others.
+   *
+   * @return the writers evicted
+   * @see #setMaxOpenWriters(Job, int)
+   */
+  public synchronized long getEvictedWriterCount() {
+    return writersEvicted;
+  }
+
   private void setSchema(Job job, Schema keySchema, Schema valSchema) {
 
     boolean isMaponly = job.getNumReduceTasks() == 0;
@@ -84,9 +84,11 @@ public abstract class AvroOutputFormatBase<K, V> extends FileOutputFormat<K, V>
    * @return The target output stream.
    */
   protected OutputStream getAvroFileOutputStream(TaskAttemptContext context) throws IOException {
+    // a file rolled by AvroMultipleOutputs is numbered after the task's part
+    int roll = context.getConfiguration().getInt(AvroMultipleOutputs.ROLL_CONFIG, 0);
     Path path = new Path(((FileOutputCommitter) getOutputCommitter(context)).getWorkPath(),
         getUniqueFile(context, context.getConfiguration().get("avro.mo.config.namedOutput", "part"),
-            org.apache.avro.mapred.AvroOutputFormat.EXT));
+            (roll == 0 ? "" : "-r" + roll) + org.apache.avro.mapred.AvroOutputFormat.EXT));
     return path.getFileSystem(context.getConfiguration()).create(path);
   }
 
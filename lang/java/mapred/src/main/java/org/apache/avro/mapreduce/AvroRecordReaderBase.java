@@ -19,8 +19,11 @@
 package org.apache.avro.mapreduce;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.SeekableInput;
 import org.apache.avro.generic.GenericData;
@@ -68,6 +71,15 @@ public abstract class AvroRecordReaderBase<K, V, T> extends RecordReader<K, V> {
    */
   private long mEndPosition;
 
+  /** Reads and decodes blocks on other threads, if enabled. */
+  private BlockPrefetcher<T> mPrefetcher;
+
+  /** The block of the current record, when prefetching. */
+  private BlockPrefetcher.Block<T> mCurrentBlock;
+
+  /** The index in its block of the next record, when prefetching. */
+  private int mNextIndex;
+
   /**
    * Constructor.
    *
@@ -115,6 +127,20 @@ public abstract class AvroRecordReaderBase<K, V, T> extends RecordReader<K, V> {
     // necessarily
     // on a block boundary so using this for reporting progress will be approximate.
     mEndPosition = fileSplit.getStart() + fileSplit.getLength();
+
+    int threads = getPrefetchThreads(conf);
+    if (threads > 0) {
+      // Blocks are read through a second input; the file reader is kept only for
+      // its header.
+      Schema writerSchema = mAvroFileReader.getSchema();
+      Schema readerSchema = null != mReaderSchema ? mReaderSchema : writerSchema;
+      String codec = mAvroFileReader.getMetaString(DataFileConstants.CODEC);
+      CodecFactory codecFactory = CodecFactory.fromString(null != codec ? codec : DataFileConstants.NULL_CODEC);
+      mPrefetcher = new BlockPrefetcher<>(createSeekableInput(conf, fileSplit.getPath()), mStartPosition,
+          mEndPosition, codecFactory::newCodec, () -> dataModel.createDatumReader(writerSchema, readerSchema), threads,
+          AvroJob.getInputPrefetchMemory(conf));
+      LOG.debug("Prefetching blocks with " + threads + " threads");
+    }
   }
 
   /** {@inheritDoc} */
@@ -122,6 +148,15 @@ public abstract class AvroRecordReaderBase<K, V, T> extends RecordReader<K, V> {
   public boolean nextKeyValue() throws IOException, InterruptedException {
     assert null != mAvroFileReader;
 
+    if (null != mPrefetcher) {
+      while (null == mCurrentBlock || mNextIndex == mCurrentBlock.getRecords().size()) {
+        if (null == nextBlock()) {
+          return false;
+        }
+      }
+      mCurrentRecord = mCurrentBlock.getRecords().get(mNextIndex++);
+      return true;
+    }
     if (mAvroFileReader.hasNext() && !mAvroFileReader.pastSync(mEndPosition)) {
       mCurrentRecord = mAvroFileReader.next(mCurrentRecord);
       return true;
@@ -138,7 +173,17 @@ public abstract class AvroRecordReaderBase<K, V, T> extends RecordReader<K, V> {
       // Trivial empty input split.
       return 0.0f;
     }
-    long bytesRead = mAvroFileReader.previousSync() - mStartPosition;
+    long position = mAvroFileReader.previousSync();
+    if (null != mPrefetcher) {
+      if (null == mCurrentBlock) {
+        position = mStartPosition;
+      } else if (mNextIndex < mCurrentBlock.getRecords().size()) {
+        position = mCurrentBlock.getPosition();
+      } else {
+        position = mCurrentBlock.getEndPosition();
+      }
+    }
+    long bytesRead = position - mStartPosition;
     long bytesTotal = mEndPosition - mStartPosition;
     LOG.debug("Progress: bytesRead=" + bytesRead + ", bytesTotal=" + bytesTotal);
     return Math.min(1.0f, (float) bytesRead / (float) bytesTotal);
@@ -147,15 +192,59 @@ public abstract class AvroRecordReaderBase<K, V, T> extends RecordReader<K, V> {
   /** {@inheritDoc} */
   @Override
   public void close() throws IOException {
-    if (null != mAvroFileReader) {
-      try {
-        mAvroFileReader.close();
-      } finally {
-        mAvroFileReader = null;
+    try {
+      if (null != mPrefetcher) {
+        mPrefetcher.close();
+      }
+    } finally {
+      mPrefetcher = null;
+      if (null != mAvroFileReader) {
+        try {
+          mAvroFileReader.close();
+        } finally {
+          mAvroFileReader = null;
+        }
       }
     }
   }
 
+  /**
+   * Moves to the next block of records, skipping any records of the current block
+   * not yet read. Only supported when blocks are prefetched.
+   *
+   * <p>
+   * The records returned are not reused by this reader, so they may be processed
+   * on other threads while the reader moves on.
+   * </p>
+   *
+   * @return The records of the block, or null if no blocks remain.
+   * @throws IOException If the block could not be read.
+   */
+  protected List<T> nextBlock() throws IOException, InterruptedException {
+    if (null == mPrefetcher) {
+      throw new IllegalStateException("Blocks are not prefetched.");
+    }
+    BlockPrefetcher.Block<T> block = mPrefetcher.next();
+    if (null == block) {
+      return null; // remain on the last block, for progress
+    }
+    mCurrentBlock = block;
+    mNextIndex = 0;
+    return block.getRecords();
+  }
+
+  /**
+   * Gets the number of threads to decode blocks with. If positive, blocks of the
+   * input split are read ahead and decoded on that many threads.
+   *
+   * @param conf The hadoop configuration.
+   * @return The number of threads, or zero to decode records as they are read.
+   * @see AvroJob#setInputPrefetchThreads(org.apache.hadoop.mapreduce.Job, int)
+   */
+  protected int getPrefetchThreads(Configuration conf) {
+    return AvroJob.getInputPrefetchThreads(conf);
+  }
+
   /**
    * Gets the current record read from the Avro container file.
    *
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapreduce;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.avro.file.Codec;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.SeekableInput;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+
+/**
+ * Reads the blocks of an Avro container file that start within a range on a
+ * background thread, and decompresses and decodes them on a pool of threads.
+ * Blocks are returned in file order.
+ *
+ * <p>
+ * Reading ahead stops while the compressed and decompressed bytes of blocks not
+ * yet consumed exceed a limit. The block being read may take it over the limit.
+ * </p>
+ *
+ * @param <T> The type of the records in the file.
+ */
+class BlockPrefetcher<T> {
+  /** The records of a block, and its position in the file. */
+  static final class Block<T> {
+    private final List<T> mRecords;
+    private final long mPosition;
+    private final long mEndPosition;
+    private final long mBytes;
+
+    private Block(List<T> records, long position, long endPosition, long bytes) {
+      mRecords = records;
+      mPosition = position;
+      mEndPosition = endPosition;
+      mBytes = bytes;
+    }
+
+    /** @return The decoded records of this block. */
+    List<T> getRecords() {
+      return mRecords;
+    }
+
+    /** @return The position in the file of the start of this block. */
+    long getPosition() {
+      return mPosition;
+    }
+
+    /** @return The position in the file just after this block. */
+    long getEndPosition() {
+      return mEndPosition;
+    }
+  }
+
+  /** Marks the end of the blocks in range. */
+  private static final Future<?> END = CompletableFuture.completedFuture(null);
+
+  private final SeekableInput mInput;
+  private final long mEndPosition;
+  private final ThreadLocal<Codec> mCodecs;
+  private final ThreadLocal<DatumReader<T>> mDatumReaders;
+  private final long mMemoryLimit;
+  private final ExecutorService mDecoders;
+  private final BlockingQueue<Future<?>> mBlocks = new LinkedBlockingQueue<>();
+  private final Thread mReader;
+
+  /** The bytes of blocks read ahead and not yet consumed. Guarded by this. */
+  private long mBytesInFlight;
+
+  /** The last block returned, whose bytes are released on the next call. */
+  private Block<T> mCurrentBlock;
+
+  private volatile boolean mClosed;
+
+  /**
+   * Starts reading blocks.
+   *
+   * @param input         The container file, which is closed with this.
+   * @param startPosition The position of the first block to read, just after a
+   *                      sync marker.
+   * @param endPosition   Blocks starting at or after the first sync marker past
+   *                      this position are not read.
+   * @param codecs        Creates a codec for each decoding thread.
+   * @param datumReaders  Creates a datum reader for each decoding thread.
+   * @param threads       The number of decoding threads.
+   * @param memoryLimit   The bytes of blocks that may be read ahead.
+   */
+  BlockPrefetcher(SeekableInput input, long startPosition, long endPosition,
+      Supplier<Codec> codecs, Supplier<DatumReader<T>> datumReaders, int threads, long memoryLimit) {
+    mInput = input;
+    mEndPosition = endPosition;
+    mCodecs = ThreadLocal.withInitial(codecs);
+    mDatumReaders = ThreadLocal.withInitial(datumReaders);
+    mMemoryLimit = memoryLimit;
+    final AtomicInteger count = new AtomicInteger();
+    mDecoders = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "avro-block-decoder-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    mReader = new Thread(() -> readBlocks(startPosition), "avro-block-reader");
+    mReader.setDaemon(true);
+    mReader.start();
+  }
+
+  /**
+   * Returns the next block, waiting for it to be decoded.
+   *
+   * @return The next block, or null if none remain.
+   * @throws IOException If the block could not be read or decoded.
+   */
+  @SuppressWarnings("unchecked")
+  Block<T> next() throws IOException, InterruptedException {
+    if (null != mCurrentBlock) {
+      release(mCurrentBlock.mBytes);
+      mCurrentBlock = null;
+    }
+    Future<?> future = mBlocks.take();
+    if (END == future) {
+      mBlocks.add(END); // remain at the end
+      return null;
+    }
+    try {
+      mCurrentBlock = (Block<T>) future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Could not read block", cause);
+    }
+    return mCurrentBlock;
+  }
+
+  /** Stops reading and decoding, and closes the input. */
+  void close() throws IOException {
+    mClosed = true;
+    mReader.interrupt();
+    mDecoders.shutdownNow();
+    try {
+      mReader.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    mInput.close();
+  }
+
+  private void readBlocks(long position) {
+    try {
+      InputStream in = open(position - DataFileConstants.SYNC_SIZE);
+      byte[] sync = new byte[DataFileConstants.SYNC_SIZE];
+      readFully(in, sync);
+      long length = mInput.length();
+      byte[] marker = new byte[DataFileConstants.SYNC_SIZE];
+      while (!mClosed && position < mEndPosition + DataFileConstants.SYNC_SIZE && position < length) {
+        long[] header = new long[2];
+        int headerSize = readLong(in, header, 0) + readLong(in, header, 1);
+        long count = header[0];
+        long size = header[1];
+        if (count < 0 || count > Integer.MAX_VALUE) {
+          throw new IOException("Block count invalid or too large for this implementation: " + count);
+        }
+        if (size < 0 || size > Integer.MAX_VALUE) {
+          throw new IOException("Block size invalid or too large for this implementation: " + size);
+        }
+        reserve(size);
+        byte[] data = new byte[(int) size];
+        readFully(in, data);
+        readFully(in, marker);
+        if (!Arrays.equals(sync, marker)) {
+          throw new IOException("Invalid sync!");
+        }
+        long blockPosition = position;
+        position += headerSize + size + DataFileConstants.SYNC_SIZE;
+        long endPosition = position;
+        mBlocks.add(mDecoders.submit(() -> decode(data, count, blockPosition, endPosition)));
+      }
+      mBlocks.add(END);
+    } catch (InterruptedException e) {
+      mBlocks.add(END); // closed
+    } catch (Exception e) {
+      CompletableFuture<Block<T>> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      mBlocks.add(failed);
+    }
+  }
+
+  private Block<T> decode(byte[] data, long count, long position, long endPosition) throws IOException {
+    ByteBuffer block = mCodecs.get().decompress(ByteBuffer.wrap(data));
+    long bytes = data.length + block.remaining();
+    synchronized (this) {
+      mBytesInFlight += block.remaining();
+    }
+    BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(block.array(), block.arrayOffset() + block.position(),
+        block.remaining(), null);
+    DatumReader<T> datumReader = mDatumReaders.get();
+    List<T> records = new ArrayList<>();
+    for (long i = 0; i < count; i++) {
+      records.add(datumReader.read(null, decoder));
+    }
+    if (!decoder.isEnd()) {
+      throw new IOException("Block read partially, the data may be corrupt");
+    }
+    return new Block<>(records, position, endPosition, bytes);
+  }
+
+  /** Waits until bytes may be read ahead. */
+  private synchronized void reserve(long bytes) throws InterruptedException {
+    while (mBytesInFlight > 0 && mBytesInFlight + bytes > mMemoryLimit) {
+      wait();
+    }
+    mBytesInFlight += bytes;
+  }
+
+  private synchronized void release(long bytes) {
+    mBytesInFlight -= bytes;
+    notifyAll();
+  }
+
+  private InputStream open(long position) throws IOException {
+    mInput.seek(position);
+    return new BufferedInputStream(new InputStream() {
+      @Override
+      public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return mInput.read(b, off, len);
+      }
+    }, 64 * 1024);
+  }
+
+  private static void readFully(InputStream in, byte[] b) throws IOException {
+    int n = 0;
+    while (n < b.length) {
+      int read = in.read(b, n, b.length - n);
+      if (read < 0) {
+        throw new EOFException();
+      }
+      n += read;
+    }
+  }
+
+  /** Reads a zig-zag varint into an array, returning the bytes read. */
+  private static int readLong(InputStream in, long[] values, int index) throws IOException {
+    long n = 0;
+    int shift = 0;
+    int bytes = 0;
+    int b;
+    do {
+      b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      bytes++;
+      n |= (long) (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    values[index] = (n >>> 1) ^ -(n & 1);
+    return bytes;
+  }
+}
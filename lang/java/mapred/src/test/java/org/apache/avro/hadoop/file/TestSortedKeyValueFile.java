@@ -23,7 +23,12 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
@@ -234,6 +239,167 @@ public class TestSortedKeyValueFile {
     }
   }
 
+  @Test
+  public void testBloomFilterAndBlockCache() throws IOException {
+    Configuration conf = new Configuration();
+    Path path = new Path(mTempDir.getRoot().getPath(), "myfile");
+    SortedKeyValueFile.Writer.Options writerOptions = new SortedKeyValueFile.Writer.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path).withCodec(CodecFactory.deflateCodec(1)).withIndexInterval(100)
+        .withBloomFilter(true);
+
+    // Large enough values that each index interval holds more than one block.
+    StringBuilder padding = new StringBuilder();
+    for (int i = 0; i < 1000; i++)
+      padding.append("0123456789abcdef");
+    try (SortedKeyValueFile.Writer<Integer, CharSequence> writer = new SortedKeyValueFile.Writer<>(writerOptions)) {
+      for (int i = 0; i < 300; i++)
+        writer.append(i * 2, i + padding.toString());
+    }
+    assertTrue(new File(path.toString(), SortedKeyValueFile.BLOOM_FILENAME).exists());
+
+    BlockCache cache = new BlockCache(16 << 20);
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path).withBlockCache(cache);
+    for (int pass = 0; pass < 2; pass++) { // a second reader shares the cache
+      try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+        // Lookups through the cache leave the position of the iterator where it was.
+        Iterator<AvroKeyValue<Integer, CharSequence>> records = reader.iterator();
+        assertEquals(0, records.next().getKey().intValue());
+        assertEquals("299" + padding.toString(), reader.get(598).toString());
+        assertEquals(2, records.next().getKey().intValue());
+
+        for (int i = 0; i < 300; i++) {
+          assertEquals(i + padding.toString(), reader.get(i * 2).toString());
+          assertNull(reader.get(i * 2 + 1));
+        }
+        assertNull(reader.get(-1));
+        assertNull(reader.get(1000));
+      }
+    }
+    assertTrue(cache.getHitCount() > cache.getMissCount());
+    assertTrue(cache.getSize() <= cache.getCapacity());
+
+    // Without a cache, lookups scan blocks but the bloom filter still applies.
+    readerOptions.withBlockCache(null);
+    try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      assertEquals("7" + padding.toString(), reader.get(14).toString());
+      assertNull(reader.get(15));
+    }
+  }
+
+  @Test
+  public void testBloomFilterExpectedKeys() throws IOException {
+    Configuration conf = new Configuration();
+    Path path = new Path(mTempDir.getRoot().getPath(), "myfile");
+    SortedKeyValueFile.Writer.Options writerOptions = new SortedKeyValueFile.Writer.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path).withBloomFilter(true).withBloomFilterExpectedKeys(1000);
+    try (SortedKeyValueFile.Writer<Integer, CharSequence> writer = new SortedKeyValueFile.Writer<>(writerOptions)) {
+      for (int i = 0; i < 1000; i++)
+        writer.append(i * 2, "v" + i);
+    }
+    assertTrue(new File(path.toString(), SortedKeyValueFile.BLOOM_FILENAME).exists());
+
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path);
+    try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      for (int i = 0; i < 1000; i++) {
+        assertEquals("v" + i, reader.get(i * 2).toString());
+        assertNull(reader.get(i * 2 + 1));
+      }
+    }
+  }
+
+  @Test
+  public void testGetAllAndScan() throws Exception {
+    Configuration conf = new Configuration();
+    Path path = new Path(mTempDir.getRoot().getPath(), "myfile");
+    SortedKeyValueFile.Writer.Options writerOptions = new SortedKeyValueFile.Writer.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path).withIndexInterval(10).withBloomFilter(true);
+    try (SortedKeyValueFile.Writer<Integer, CharSequence> writer = new SortedKeyValueFile.Writer<>(writerOptions)) {
+      for (int i = 0; i < 1000; i++)
+        writer.append(i * 2, "v" + i * 2);
+    }
+
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path);
+    try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      List<Integer> keys = Arrays.asList(-5, 0, 0, 1, 2, 3, 500, 1002, 1500, 1998, 1999, 5000);
+      List<CharSequence> values = reader.getAll(keys);
+      assertEquals(keys.size(), values.size());
+      for (int i = 0; i < keys.size(); i++) {
+        int key = keys.get(i);
+        if (key >= 0 && key < 2000 && key % 2 == 0)
+          assertEquals("v" + key, values.get(i).toString());
+        else
+          assertNull(values.get(i));
+      }
+
+      try {
+        reader.getAll(Arrays.asList(4, 2));
+        fail("Unsorted keys should be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+
+      int expected = 101;
+      try (SortedKeyValueFile.Reader.Scan<Integer, CharSequence> scan = reader.scan(101, 151)) {
+        while (scan.hasNext()) {
+          expected++;
+          assertEquals(expected, (int) scan.next().getKey());
+          expected++;
+        }
+      }
+      assertEquals(151, expected);
+
+      int count = 0;
+      for (Iterator<AvroKeyValue<Integer, CharSequence>> scan = reader.scan(null, null); scan.hasNext(); scan.next())
+        count++;
+      assertEquals(1000, count);
+
+      // Concurrent lookups share the loaded index.
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final int offset = t;
+        results.add(executor.submit(() -> {
+          int found = 0;
+          for (int i = offset; i < 2000; i += 8)
+            for (CharSequence value : reader.getAll(Arrays.asList(i)))
+              found += value == null ? 0 : 1;
+          return found;
+        }));
+      }
+      int found = 0;
+      for (Future<Integer> result : results)
+        found += result.get();
+      executor.shutdown();
+      assertEquals(1000, found);
+    }
+
+    // Scans still open are closed with the reader.
+    SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions);
+    SortedKeyValueFile.Reader.Scan<Integer, CharSequence> scan = reader.scan(null, null);
+    assertEquals(0, (int) scan.next().getKey());
+    reader.close();
+    int rest = 0;
+    for (; scan.hasNext(); scan.next())
+      rest++;
+    assertTrue(rest <= 1); // only the record read ahead
+    scan.close();
+    try {
+      reader.scan(null, null);
+      fail("A closed reader should not scan");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
   public static class Stringy implements Comparable<Stringy> {
     private String s;
 
@@ -164,4 +164,59 @@ public class TestAvroSerialization {
     assertTrue(roundTrip(schema, "record", null) instanceof String);
     assertTrue(roundTrip(schema, "record", GenericData.class) instanceof Utf8);
   }
+
+  @Test
+  public void testLazyValues() throws IOException {
+    Schema schema = Schema.create(Schema.Type.STRING);
+    Job job = Job.getInstance();
+    AvroJob.setMapOutputValueSchema(job, schema);
+    AvroJob.setDataModelClass(job, GenericData.class);
+    AvroJob.setMapOutputValueLazy(job, true);
+    AvroSerialization serialization = ReflectionUtils.newInstance(AvroSerialization.class, job.getConfiguration());
+    @SuppressWarnings("unchecked")
+    Serializer<AvroWrapper<CharSequence>> serializer = serialization.getSerializer(AvroValue.class);
+    @SuppressWarnings("unchecked")
+    Deserializer<AvroWrapper<CharSequence>> deserializer = serialization.getDeserializer(AvroValue.class);
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    serializer.open(baos);
+    serializer.serialize(new AvroValue<>("first"));
+    serializer.serialize(new AvroValue<>(""));
+    serializer.serialize(new AvroValue<>("third"));
+    serializer.close();
+    byte[] serialized = baos.toByteArray();
+
+    // Values are held encoded until read, and copied unread.
+    deserializer.open(new ByteArrayInputStream(serialized));
+    baos = new ByteArrayOutputStream();
+    serializer.open(baos);
+    AvroWrapper<CharSequence> value = deserializer.deserialize(null);
+    assertTrue(value instanceof LazyAvroValue);
+    LazyAvroValue<CharSequence> lazyValue = (LazyAvroValue<CharSequence>) value;
+    assertTrue(lazyValue.isEncoded());
+    assertEquals(schema, lazyValue.getEncodedSchema());
+    serializer.serialize(value);
+    assertTrue(lazyValue.isEncoded());
+    assertEquals(new Utf8("first"), value.datum());
+    assertFalse(lazyValue.isEncoded());
+    assertNull(lazyValue.getEncoded());
+
+    assertSame(value, deserializer.deserialize(value));
+    assertTrue(lazyValue.isEncoded());
+    serializer.serialize(value);
+    assertSame(value, deserializer.deserialize(value));
+    serializer.serialize(value);
+    assertEquals(new Utf8("third"), value.datum());
+    deserializer.close();
+    serializer.close();
+    assertArrayEquals(serialized, baos.toByteArray());
+
+    // A value replaced by the reader is encoded again.
+    deserializer.open(new ByteArrayInputStream(serialized));
+    value = deserializer.deserialize(null);
+    value.datum("replaced");
+    assertFalse(((LazyAvroValue<CharSequence>) value).isEncoded());
+    assertEquals("replaced", value.datum());
+    deserializer.close();
+  }
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+
+public class TestBinaryComparator {
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Key\", \"fields\": ["
+      + "{\"name\": \"a\", \"type\": \"int\"},"
+      + "{\"name\": \"b\", \"type\": [\"null\", \"string\"], \"order\": \"descending\"},"
+      + "{\"name\": \"c\", \"type\": {\"type\": \"array\", \"items\": \"long\"}},"
+      + "{\"name\": \"d\", \"type\": {\"type\": \"map\", \"values\": \"int\"}, \"order\": \"ignore\"},"
+      + "{\"name\": \"e\", \"type\": \"double\"},"
+      + "{\"name\": \"f\", \"type\": {\"type\": \"enum\", \"name\": \"E\", \"symbols\": [\"X\", \"Y\"]}},"
+      + "{\"name\": \"g\", \"type\": {\"type\": \"fixed\", \"name\": \"F\", \"size\": 2}},"
+      + "{\"name\": \"h\", \"type\": {\"type\": \"record\", \"name\": \"Inner\", \"fields\": ["
+      + "  {\"name\": \"x\", \"type\": \"boolean\"}, {\"name\": \"y\", \"type\": \"float\"}]}, \"order\": \"descending\"},"
+      + "{\"name\": \"i\", \"type\": \"Inner\"}]}");
+
+  @Test
+  public void testMatchesBinaryData() throws IOException {
+    Random random = new Random(42);
+    List<byte[]> keys = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      keys.add(encode(SCHEMA, randomKey(random), random.nextBoolean()));
+    }
+    BinaryComparator comparator = new BinaryComparator(SCHEMA);
+    for (byte[] k1 : keys) {
+      for (byte[] k2 : keys) {
+        int expected = BinaryData.compare(k1, 0, k1.length, k2, 0, k2.length, SCHEMA);
+        int actual = comparator.compare(k1, 0, k1.length, k2, 0, k2.length);
+        assertEquals(Integer.signum(expected), Integer.signum(actual));
+      }
+    }
+  }
+
+  @Test
+  public void testRecursive() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"List\", \"fields\": ["
+        + "{\"name\": \"value\", \"type\": \"int\"}," + "{\"name\": \"next\", \"type\": [\"null\", \"List\"]}]}");
+    byte[] k1 = encode(schema, list(schema, 1, 2, 3), false);
+    byte[] k2 = encode(schema, list(schema, 1, 2, 4), false);
+    byte[] k3 = encode(schema, list(schema, 1, 2), false);
+    BinaryComparator comparator = new BinaryComparator(schema);
+    assertTrue(comparator.compare(k1, 0, k1.length, k2, 0, k2.length) < 0);
+    assertTrue(comparator.compare(k1, 0, k1.length, k3, 0, k3.length) > 0);
+    assertEquals(0, comparator.compare(k1, 0, k1.length, k1, 0, k1.length));
+  }
+
+  @Test
+  public void testHashCode() throws IOException {
+    Random random = new Random(42);
+    BinaryComparator comparator = new BinaryComparator(SCHEMA);
+    int distinct = 0;
+    for (int i = 0; i < 200; i++) {
+      GenericRecord key = randomKey(random);
+      byte[] k1 = encode(SCHEMA, key, false);
+      // Keys differing only in an ignored field or in blocking hash the same.
+      key.put("d", Collections.singletonMap("other", 0));
+      byte[] k2 = encode(SCHEMA, key, true);
+      assertEquals(0, comparator.compare(k1, 0, k1.length, k2, 0, k2.length));
+      assertEquals(comparator.hashCode(k1, 0, k1.length), comparator.hashCode(k2, 0, k2.length));
+      key.put("a", 2 + i);
+      byte[] k3 = encode(SCHEMA, key, false);
+      if (comparator.hashCode(k1, 0, k1.length) != comparator.hashCode(k3, 0, k3.length)) {
+        distinct++;
+      }
+    }
+    assertTrue(distinct > 190);
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testMapsNotCompared() throws IOException {
+    Schema schema = Schema.createMap(Schema.create(Schema.Type.INT));
+    byte[] k = encode(schema, Collections.singletonMap("a", 1), false);
+    new BinaryComparator(schema).compare(k, 0, k.length, k, 0, k.length);
+  }
+
+  private static GenericRecord randomKey(Random random) {
+    GenericRecord key = new GenericData.Record(SCHEMA);
+    key.put("a", random.nextInt(2));
+    key.put("b", random.nextBoolean() ? null : "s" + random.nextInt(3));
+    List<Long> c = new ArrayList<>();
+    for (int i = random.nextInt(4); i > 0; i--) {
+      c.add((long) random.nextInt(3) - 1);
+    }
+    key.put("c", c);
+    key.put("d", Collections.singletonMap("m" + random.nextInt(), random.nextInt()));
+    key.put("e", random.nextInt(3) * 0.5);
+    key.put("f", new GenericData.EnumSymbol(SCHEMA.getField("f").schema(), random.nextBoolean() ? "X" : "Y"));
+    key.put("g", new GenericData.Fixed(SCHEMA.getField("g").schema(), new byte[] { 0, (byte) (random.nextInt(3) - 1) }));
+    key.put("h", inner(random));
+    key.put("i", inner(random));
+    return key;
+  }
+
+  private static GenericRecord inner(Random random) {
+    GenericRecord inner = new GenericData.Record(SCHEMA.getField("h").schema());
+    inner.put("x", random.nextBoolean());
+    inner.put("y", random.nextInt(2) - 0.5f);
+    return inner;
+  }
+
+  private static GenericRecord list(Schema schema, Integer... values) {
+    GenericRecord list = null;
+    List<Integer> reversed = new ArrayList<>(Arrays.asList(values));
+    Collections.reverse(reversed);
+    for (int value : reversed) {
+      GenericRecord node = new GenericData.Record(schema);
+      node.put("value", value);
+      node.put("next", list);
+      list = node;
+    }
+    return list;
+  }
+
+  private static byte[] encode(Schema schema, Object datum, boolean blocking) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder encoder = blocking ? EncoderFactory.get().blockingBinaryEncoder(out, null)
+        : EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema).write(datum, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+}
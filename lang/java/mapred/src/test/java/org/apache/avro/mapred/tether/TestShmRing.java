@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapred.tether;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class TestShmRing {
+
+  private static ShmRing ring(int capacity, int batchSize) {
+    return new ShmRing(ByteBuffer.allocateDirect(ShmRing.HEADER_SIZE + capacity), batchSize, () -> true);
+  }
+
+  private static String string(ByteBuffer buffer) {
+    return StandardCharsets.UTF_8.decode(buffer).toString();
+  }
+
+  @Test
+  public void testMessagesWrapInOrder() throws Exception {
+    ShmRing ring = ring(1024, 64);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    Thread writer = new Thread(() -> {
+      try {
+        for (int i = 0; i < 10000; i++)
+          ring.write(Collections.singletonList(ByteBuffer.wrap(("message" + i).getBytes(StandardCharsets.UTF_8))));
+        ring.close();
+      } catch (Throwable e) {
+        error.set(e);
+      }
+    });
+    writer.start();
+    for (int i = 0; i < 10000; i++)
+      assertEquals("message" + i, string(ring.read()));
+    try {
+      ring.read();
+      fail("expected EOF");
+    } catch (EOFException e) {
+      // expected
+    }
+    writer.join();
+    assertNull(error.get());
+  }
+
+  @Test
+  public void testMessageLargerThanRing() throws Exception {
+    ShmRing ring = ring(256, 1024);
+    byte[] large = new byte[10000];
+    for (int i = 0; i < large.length; i++)
+      large[i] = (byte) i;
+    Thread writer = new Thread(() -> {
+      try {
+        ring.write(Arrays.asList(ByteBuffer.wrap(large, 0, 3000), ByteBuffer.wrap(large, 3000, 7000)));
+        ring.flush();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    writer.start();
+    ByteBuffer message = ring.read();
+    writer.join();
+    assertEquals(ByteBuffer.wrap(large), message);
+  }
+
+  @Test
+  public void testUnflushedMessagesWait() throws Exception {
+    ShmRing ring = ring(1024, 512);
+    ring.write(Collections.singletonList(ByteBuffer.wrap("first".getBytes(StandardCharsets.UTF_8))));
+    ring.flush();
+    ring.write(Collections.singletonList(ByteBuffer.wrap("second".getBytes(StandardCharsets.UTF_8))));
+    assertEquals("first", string(ring.read()));
+    ring.close();
+    assertEquals("second", string(ring.read()));
+  }
+
+  @Test(expected = EOFException.class)
+  public void testDeadWriter() throws Exception {
+    new ShmRing(ByteBuffer.allocateDirect(ShmRing.HEADER_SIZE + 1024), 64, () -> false).read();
+  }
+}
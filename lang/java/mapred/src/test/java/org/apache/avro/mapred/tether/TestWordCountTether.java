@@ -129,4 +129,15 @@ public class TestWordCountTether {
   public void testhtp() throws Exception {
     _runjob("http");
   }
+
+  /**
+   * Test the job using the shared memory protocol
+   *
+   * @throws Exception
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testShm() throws Exception {
+    _runjob("shm");
+  }
 }
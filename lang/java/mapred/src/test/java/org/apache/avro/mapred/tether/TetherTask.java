@@ -116,6 +116,8 @@ public abstract class TetherTask<IN, MID, OUT> {
       proto = TetheredProcess.Protocol.HTTP;
     } else if (protocol.equals("sasl")) {
       proto = TetheredProcess.Protocol.SASL;
+    } else if (protocol.equals("shm")) {
+      proto = TetheredProcess.Protocol.SHM;
     } else {
       throw new RuntimeException("AVROT_TETHER_PROTOCOL=" + protocol + " but this protocol is unsupported");
     }
@@ -130,6 +132,11 @@ public abstract class TetherTask<IN, MID, OUT> {
       this.clientTransceiver = new HttpTransceiver(new URL("http://127.0.0.1:" + clientPort));
       this.outputClient = SpecificRequestor.getClient(OutputProtocol.class, clientTransceiver);
       break;
+
+    case SHM:
+      this.clientTransceiver = ShmTransport.forChild().client(ShmTransport.OUTPUT);
+      this.outputClient = SpecificRequestor.getClient(OutputProtocol.class, clientTransceiver);
+      break;
     }
 
     // send inputPort to parent
@@ -59,6 +59,9 @@ public class TetherTaskRunner implements InputProtocol {
     } else if (protocol.equals("sasl")) {
       LOG.info("Use SASL protocol");
       proto = TetheredProcess.Protocol.SASL;
+    } else if (protocol.equals("shm")) {
+      LOG.info("Use SHM protocol");
+      proto = TetheredProcess.Protocol.SHM;
     } else {
       throw new RuntimeException("AVRO_TETHER_PROTOCOL=" + protocol + " but this protocol is unsupported");
     }
@@ -77,6 +80,12 @@ public class TetherTaskRunner implements InputProtocol {
 
       LOG.info("Started HttpServer on port:" + iaddress.getPort());
       break;
+
+    case SHM:
+      this.inputServer = ShmTransport.forChild().server(ShmTransport.INPUT,
+          new SpecificResponder(InputProtocol.class, this));
+      LOG.info("Opened shared memory file:" + System.getenv(ShmTransport.ENV_FILE));
+      break;
     }
 
     inputServer.start();
@@ -21,19 +21,34 @@ package org.apache.avro.mapreduce;
 import static org.junit.Assert.*;
 import static org.easymock.EasyMock.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TestAvroKeyInputFormat {
+  /** A temporary directory for test data. */
+  @Rule
+  public TemporaryFolder mTempDir = new TemporaryFolder();
+
   /**
    * Verifies that a non-null record reader can be created, and the key/value
    * types are as expected.
@@ -61,4 +76,62 @@ public class TestAvroKeyInputFormat {
     verify(inputSplit);
     verify(context);
   }
+
+  /**
+   * Verifies that splits cut between blocks start at sync markers, are balanced,
+   * and together read every record once.
+   */
+  @Test
+  public void testBlockSplits() throws IOException, InterruptedException {
+    // Write a file of many blocks, with records of varying size.
+    File file = new File(mTempDir.getRoot(), "blocks.avro");
+    Schema schema = Schema.create(Schema.Type.STRING);
+    try (DataFileWriter<CharSequence> fileWriter = new DataFileWriter<>(new GenericDatumWriter<CharSequence>(schema))) {
+      fileWriter.setCodec(CodecFactory.deflateCodec(1));
+      fileWriter.setSyncInterval(100);
+      fileWriter.create(schema, file);
+      for (int i = 0; i < 1000; i++) {
+        fileWriter.append(i % 10 == 0 ? "record-" + i + new String(new char[50]) : "record-" + i);
+      }
+    }
+
+    Job job = Job.getInstance();
+    AvroJob.setInputKeySchema(job, schema);
+    AvroJob.setInputBlockSplits(job, AvroJob.BLOCK_SPLITS_RECORDS);
+    FileInputFormat.setInputPaths(job, new Path(file.getAbsolutePath()));
+    FileInputFormat.setMaxInputSplitSize(job, file.length() / 4);
+    Configuration conf = job.getConfiguration();
+
+    TaskAttemptContext context = createMock(TaskAttemptContext.class);
+    expect(context.getConfiguration()).andReturn(conf).anyTimes();
+    replay(context);
+
+    AvroKeyInputFormat<CharSequence> inputFormat = new AvroKeyInputFormat<>();
+    List<InputSplit> splits = inputFormat.getSplits(job);
+    assertEquals(4, splits.size());
+
+    List<String> records = new ArrayList<>();
+    long position = -1;
+    for (InputSplit split : splits) {
+      FileSplit fileSplit = (FileSplit) split;
+      assertTrue("Splits should be contiguous", position < 0 || position == fileSplit.getStart());
+      position = fileSplit.getStart() + fileSplit.getLength();
+
+      int count = 0;
+      RecordReader<AvroKey<CharSequence>, NullWritable> recordReader = inputFormat.createRecordReader(split, context);
+      recordReader.initialize(split, context);
+      while (recordReader.nextKeyValue()) {
+        records.add(recordReader.getCurrentKey().datum().toString().trim());
+        count++;
+      }
+      recordReader.close();
+      assertEquals("Splits should hold similar numbers of records", 250, count, 25);
+    }
+    assertEquals(file.length(), position);
+    assertEquals(1000, records.size());
+    for (int i = 0; i < records.size(); i++) {
+      assertEquals("record-" + i, records.get(i));
+    }
+    verify(context);
+  }
 }
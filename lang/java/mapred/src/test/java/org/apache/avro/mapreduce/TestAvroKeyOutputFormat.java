@@ -143,7 +143,8 @@ public class TestAvroKeyOutputFormat {
                                                                                                                      // for
                                                                                                                      // comparison
                                                                                                                      // later.
-        anyObject(OutputStream.class), eq(expectedSyncInterval))).andReturn(expectedRecordWriter);
+        anyObject(OutputStream.class), eq(expectedSyncInterval), same(job.getConfiguration())))
+        .andReturn(expectedRecordWriter);
 
     replay(context);
     replay(expectedRecordWriter);
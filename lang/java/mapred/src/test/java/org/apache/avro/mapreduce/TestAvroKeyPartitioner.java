@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.mapreduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.hadoop.io.TotalOrderPartitions;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestAvroKeyPartitioner {
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Key\", \"fields\": ["
+      + "{\"name\": \"id\", \"type\": \"int\"}," + "{\"name\": \"note\", \"type\": \"string\", \"order\": \"ignore\"}]}");
+
+  @Rule
+  public TemporaryFolder mTempDir = new TemporaryFolder();
+
+  @Test
+  public void testHashIgnoresIgnoredFields() throws Exception {
+    Job job = Job.getInstance();
+    AvroJob.setMapOutputKeySchema(job, SCHEMA);
+    AvroKeyPartitioner<GenericData.Record, NullWritable> partitioner = new AvroKeyPartitioner<>();
+    partitioner.setConf(job.getConfiguration());
+
+    int[] counts = new int[4];
+    for (int id = 0; id < 1000; id++) {
+      int partition = partitioner.getPartition(new AvroKey<>(key(id, "a")), NullWritable.get(), counts.length);
+      assertEquals(partition, partitioner.getPartition(new AvroKey<>(key(id, "b")), NullWritable.get(), counts.length));
+      counts[partition]++;
+    }
+    for (int count : counts) {
+      assertTrue(count > 200);
+    }
+  }
+
+  @Test
+  public void testTotalOrder() throws Exception {
+    Job job = Job.getInstance();
+    AvroJob.setMapOutputKeySchema(job, SCHEMA);
+    Configuration conf = job.getConfiguration();
+    Path partitionFile = new Path(mTempDir.getRoot().getPath(), "partitions.avro");
+    List<GenericData.Record> sample = new ArrayList<>();
+    for (int id = 99; id >= 0; id--) {
+      sample.add(key(id, "sample"));
+    }
+    assertEquals(3,
+        TotalOrderPartitions.writePartitionFile(conf, partitionFile, SCHEMA, GenericData.get(), sample, 4));
+    TotalOrderPartitions.setPartitionFile(conf, partitionFile);
+
+    AvroKeyPartitioner<GenericData.Record, NullWritable> partitioner = new AvroKeyPartitioner<>();
+    partitioner.setConf(conf);
+    assertEquals(0, partitioner.getPartition(new AvroKey<>(key(-5, "")), NullWritable.get(), 4));
+    assertEquals(0, partitioner.getPartition(new AvroKey<>(key(24, "")), NullWritable.get(), 4));
+    assertEquals(1, partitioner.getPartition(new AvroKey<>(key(25, "")), NullWritable.get(), 4));
+    assertEquals(2, partitioner.getPartition(new AvroKey<>(key(50, "x")), NullWritable.get(), 4));
+    assertEquals(3, partitioner.getPartition(new AvroKey<>(key(500, "")), NullWritable.get(), 4));
+    int last = 0;
+    for (int id = 0; id < 100; id++) {
+      int partition = partitioner.getPartition(new AvroKey<>(key(id, "")), NullWritable.get(), 4);
+      assertTrue(partition >= last);
+      last = partition;
+    }
+  }
+
+  @Test
+  public void testDuplicateSplitPointsSkipped() throws Exception {
+    Configuration conf = new Configuration();
+    Path partitionFile = new Path(mTempDir.getRoot().getPath(), "partitions.avro");
+    List<GenericData.Record> sample = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      sample.add(key(i % 2, "sample"));
+    }
+    assertEquals(2,
+        TotalOrderPartitions.writePartitionFile(conf, partitionFile, SCHEMA, GenericData.get(), sample, 8));
+    TotalOrderPartitions.setPartitionFile(conf, partitionFile);
+    List<GenericData.Record> splitPoints = TotalOrderPartitions.readSplitPoints(conf, SCHEMA, GenericData.get());
+    assertEquals(2, splitPoints.size());
+    assertEquals(0, splitPoints.get(0).get("id"));
+    assertEquals(1, splitPoints.get(1).get("id"));
+  }
+
+  private static GenericData.Record key(int id, String note) {
+    GenericData.Record key = new GenericData.Record(SCHEMA);
+    key.put("id", id);
+    key.put("note", note);
+    return key;
+  }
+}
@@ -23,10 +23,18 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.file.SeekableFileInput;
 import org.apache.avro.file.SeekableInput;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -126,4 +134,133 @@ public class TestAvroKeyRecordReader {
     verify(inputSplit);
     verify(context);
   }
+
+  /**
+   * Verifies that records read with blocks prefetched on other threads are those
+   * of each split, in order.
+   */
+  @Test
+  public void testReadRecordsPrefetched() throws IOException, InterruptedException {
+    final File file = createBlockedFile();
+    Configuration conf = new Configuration();
+    conf.setInt(AvroJob.CONF_INPUT_PREFETCH_THREADS, 3);
+    conf.setLong(AvroJob.CONF_INPUT_PREFETCH_MEMORY, 1024);
+
+    // Read the file in two splits.
+    List<String> records = new ArrayList<>();
+    long middle = file.length() / 2;
+    for (long[] split : new long[][] { { 0, middle }, { middle, file.length() - middle } }) {
+      RecordReader<AvroKey<CharSequence>, NullWritable> recordReader = new AvroKeyRecordReader<CharSequence>(
+          Schema.create(Schema.Type.STRING)) {
+        @Override
+        protected SeekableInput createSeekableInput(Configuration conf, Path path) throws IOException {
+          return new SeekableFileInput(file);
+        }
+      };
+      initialize(recordReader, conf, split[0], split[1]);
+      while (recordReader.nextKeyValue()) {
+        records.add(recordReader.getCurrentKey().datum().toString());
+      }
+      assertEquals(1.0f, recordReader.getProgress(), 0.0f);
+      recordReader.close();
+    }
+    assertEquals(1000, records.size());
+    for (int i = 0; i < records.size(); i++) {
+      assertEquals("record-" + i, records.get(i));
+    }
+  }
+
+  /** Verifies that whole blocks of records can be read. */
+  @Test
+  public void testReadBlocks() throws IOException, InterruptedException {
+    final File file = createBlockedFile();
+    RecordReader<AvroKey<List<CharSequence>>, NullWritable> recordReader = new AvroKeyBlockRecordReader<CharSequence>(
+        Schema.create(Schema.Type.STRING)) {
+      @Override
+      protected SeekableInput createSeekableInput(Configuration conf, Path path) throws IOException {
+        return new SeekableFileInput(file);
+      }
+    };
+    initialize(recordReader, new Configuration(), 0, file.length());
+
+    int blocks = 0;
+    List<String> records = new ArrayList<>();
+    while (recordReader.nextKeyValue()) {
+      blocks++;
+      for (CharSequence record : recordReader.getCurrentKey().datum()) {
+        records.add(record.toString());
+      }
+    }
+    recordReader.close();
+    assertTrue("Expected several blocks", blocks > 1);
+    assertEquals(1000, records.size());
+    assertEquals("record-999", records.get(999));
+  }
+
+  /** Verifies that a block with an invalid record count is rejected. */
+  @Test
+  public void testReadRecordsPrefetchedInvalidCount() throws IOException, InterruptedException {
+    final File file = AvroFiles.createFile(new File(mTempDir.getRoot(), "invalid.avro"),
+        Schema.create(Schema.Type.STRING), "first", "second");
+    // The header ends with the sync marker, and the first block starts with its
+    // count: replace 2 with -1.
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    byte[] sync = Arrays.copyOfRange(bytes, bytes.length - DataFileConstants.SYNC_SIZE, bytes.length);
+    int blockStart = DataFileConstants.SYNC_SIZE;
+    while (!Arrays.equals(sync, Arrays.copyOfRange(bytes, blockStart - DataFileConstants.SYNC_SIZE, blockStart))) {
+      blockStart++;
+    }
+    assertEquals(4, bytes[blockStart]);
+    bytes[blockStart] = 1;
+    Files.write(file.toPath(), bytes);
+
+    Configuration conf = new Configuration();
+    conf.setInt(AvroJob.CONF_INPUT_PREFETCH_THREADS, 2);
+    RecordReader<AvroKey<CharSequence>, NullWritable> recordReader = new AvroKeyRecordReader<CharSequence>(
+        Schema.create(Schema.Type.STRING)) {
+      @Override
+      protected SeekableInput createSeekableInput(Configuration conf, Path path) throws IOException {
+        return new SeekableFileInput(file);
+      }
+    };
+    initialize(recordReader, conf, 0, file.length());
+    try {
+      recordReader.nextKeyValue();
+      fail("Expected an invalid block count to be rejected");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Block count invalid"));
+    } finally {
+      recordReader.close();
+    }
+  }
+
+  /** Creates a compressed file of many small blocks. */
+  private File createBlockedFile() throws IOException {
+    File file = new File(mTempDir.getRoot(), "blocks.avro");
+    Schema schema = Schema.create(Schema.Type.STRING);
+    try (DataFileWriter<CharSequence> fileWriter = new DataFileWriter<>(new GenericDatumWriter<CharSequence>(schema))) {
+      fileWriter.setCodec(CodecFactory.deflateCodec(1));
+      fileWriter.setSyncInterval(100);
+      fileWriter.create(schema, file);
+      for (int i = 0; i < 1000; i++) {
+        fileWriter.append("record-" + i);
+      }
+    }
+    return file;
+  }
+
+  private static void initialize(RecordReader<?, ?> recordReader, Configuration conf, long start, long length)
+      throws IOException, InterruptedException {
+    FileSplit inputSplit = createMock(FileSplit.class);
+    expect(inputSplit.getPath()).andReturn(new Path("/path/to/an/avro/file")).anyTimes();
+    expect(inputSplit.getStart()).andReturn(start).anyTimes();
+    expect(inputSplit.getLength()).andReturn(length).anyTimes();
+
+    TaskAttemptContext context = createMock(TaskAttemptContext.class);
+    expect(context.getConfiguration()).andReturn(conf).anyTimes();
+
+    replay(inputSplit);
+    replay(context);
+    recordReader.initialize(inputSplit, context);
+  }
 }
@@ -19,6 +19,7 @@
 package org.apache.avro.mapreduce;
 
 import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
@@ -37,14 +38,17 @@ import org.apache.avro.file.CodecFactory;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.DataFileStream;
 import org.apache.avro.generic.GenericData;
+import org.apache.avro.hadoop.file.BlockCounters;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.mapred.AvroKey;
+import org.apache.avro.mapred.AvroOutputFormat;
 import org.apache.avro.mapred.FsInput;
 import org.apache.avro.reflect.ReflectData;
 import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.junit.Test;
 
@@ -83,6 +87,38 @@ public class TestAvroKeyRecordWriter {
     dataFileReader.close();
   }
 
+  @Test
+  public void testBlockCounters() throws IOException {
+    Configuration conf = new Configuration();
+    conf.setLong(AvroOutputFormat.BLOCK_RECORDS_KEY, 1);
+    BlockCounters.setEnabled(conf, true);
+    TaskAttemptContext context = createMock(TaskAttemptContext.class);
+    Counter blocks = createMock(Counter.class);
+    Counter records = createMock(Counter.class);
+    Counter bytesEncoded = createMock(Counter.class);
+    Counter bytesWritten = createMock(Counter.class);
+    expect(context.getCounter(BlockCounters.GROUP, BlockCounters.BLOCKS)).andReturn(blocks);
+    expect(context.getCounter(BlockCounters.GROUP, BlockCounters.RECORDS)).andReturn(records);
+    expect(context.getCounter(BlockCounters.GROUP, BlockCounters.BYTES_ENCODED)).andReturn(bytesEncoded);
+    expect(context.getCounter(BlockCounters.GROUP, BlockCounters.BYTES_WRITTEN)).andReturn(bytesWritten);
+    // One block per record, each an int of one byte.
+    blocks.increment(2);
+    records.increment(2);
+    bytesEncoded.increment(2);
+    bytesWritten.increment(2);
+
+    replay(context, blocks, records, bytesEncoded, bytesWritten);
+
+    AvroKeyRecordWriter<Integer> recordWriter = new AvroKeyRecordWriter<>(Schema.create(Schema.Type.INT),
+        new ReflectData(), CodecFactory.nullCodec(), new ByteArrayOutputStream());
+    recordWriter.configureBlocks(conf);
+    recordWriter.write(new AvroKey<>(1), NullWritable.get());
+    recordWriter.write(new AvroKey<>(2), NullWritable.get());
+    recordWriter.close(context);
+
+    verify(context, blocks, records, bytesEncoded, bytesWritten);
+  }
+
   @Test
   public void testSycnableWrite() throws IOException {
     Schema writerSchema = Schema.create(Schema.Type.INT);
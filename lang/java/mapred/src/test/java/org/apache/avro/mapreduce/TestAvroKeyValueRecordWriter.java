@@ -41,8 +41,11 @@ import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.hadoop.io.AvroDatumConverter;
 import org.apache.avro.hadoop.io.AvroDatumConverterFactory;
 import org.apache.avro.hadoop.io.AvroKeyValue;
+import org.apache.avro.hadoop.io.AvroSerialization;
+import org.apache.avro.hadoop.io.LazyAvroValue;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.mapred.AvroValue;
+import org.apache.avro.mapred.AvroWrapper;
 import org.apache.avro.mapred.FsInput;
 import org.apache.avro.reflect.ReflectData;
 import org.apache.avro.reflect.ReflectDatumReader;
@@ -50,8 +53,11 @@ import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.serializer.Deserializer;
+import org.apache.hadoop.io.serializer.Serializer;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.junit.Test;
 
 public class TestAvroKeyValueRecordWriter {
@@ -111,6 +117,68 @@ public class TestAvroKeyValueRecordWriter {
     avroFileReader.close();
   }
 
+  @Test
+  public void testWriteEncodedValues() throws IOException {
+    Job job = Job.getInstance();
+    AvroJob.setOutputValueSchema(job, TextStats.SCHEMA$);
+    AvroJob.setMapOutputValueSchema(job, TextStats.SCHEMA$);
+    AvroJob.setMapOutputValueLazy(job, true);
+    TaskAttemptContext context = createMock(TaskAttemptContext.class);
+
+    replay(context);
+
+    // Serialize two values as map output and read them back lazily.
+    AvroSerialization<TextStats> serialization = ReflectionUtils.newInstance(AvroSerialization.class,
+        job.getConfiguration());
+    @SuppressWarnings("unchecked")
+    Serializer<AvroWrapper<TextStats>> serializer = serialization.getSerializer((Class) AvroValue.class);
+    ByteArrayOutputStream mapOutput = new ByteArrayOutputStream();
+    serializer.open(mapOutput);
+    for (String name : new String[] { "apple", "banana" }) {
+      TextStats stats = new TextStats();
+      stats.setName(name);
+      serializer.serialize(new AvroValue<>(stats));
+    }
+    serializer.close();
+    @SuppressWarnings("unchecked")
+    Deserializer<AvroWrapper<TextStats>> deserializer = serialization.getDeserializer((Class) AvroValue.class);
+    deserializer.open(new ByteArrayInputStream(mapOutput.toByteArray()));
+
+    AvroDatumConverterFactory factory = new AvroDatumConverterFactory(job.getConfiguration());
+    AvroDatumConverter<Text, ?> keyConverter = factory.create(Text.class);
+    @SuppressWarnings("unchecked")
+    AvroDatumConverter<AvroWrapper<TextStats>, ?> valueConverter = factory
+        .create((Class<AvroWrapper<TextStats>>) (Class) AvroValue.class);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    AvroKeyValueRecordWriter<Text, AvroWrapper<TextStats>> writer = new AvroKeyValueRecordWriter<>(keyConverter,
+        valueConverter, new ReflectData(), CodecFactory.nullCodec(), outputStream);
+
+    // The first value is written encoded, the second after being read.
+    AvroWrapper<TextStats> value = deserializer.deserialize(null);
+    assertTrue(((LazyAvroValue<TextStats>) value).isEncoded());
+    writer.write(new Text("apple"), value);
+    value = deserializer.deserialize(value);
+    assertEquals("banana", value.datum().getName().toString());
+    writer.write(new Text("banana"), value);
+    writer.close(context);
+    deserializer.close();
+
+    verify(context);
+
+    ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+    Schema readerSchema = AvroKeyValue.getSchema(Schema.create(Schema.Type.STRING), TextStats.SCHEMA$);
+    DatumReader<GenericRecord> datumReader = new SpecificDatumReader<>(readerSchema);
+    DataFileStream<GenericRecord> avroFileReader = new DataFileStream<>(inputStream, datumReader);
+    for (String name : new String[] { "apple", "banana" }) {
+      assertTrue(avroFileReader.hasNext());
+      AvroKeyValue<CharSequence, TextStats> record = new AvroKeyValue<>(avroFileReader.next());
+      assertEquals(name, record.getKey().toString());
+      assertEquals(name, record.getValue().getName().toString());
+    }
+    assertFalse(avroFileReader.hasNext());
+    avroFileReader.close();
+  }
+
   public static class R1 {
     String attribute;
   }
@@ -132,6 +132,75 @@ public class TestAvroMultipleOutputs {
     }
   }
 
+  private static class RollingStatsReducer
+      extends Reducer<Text, IntWritable, AvroKey<GenericData.Record>, NullWritable> {
+    private AvroKey<GenericData.Record> mStats;
+    private AvroMultipleOutputs amos;
+
+    @Override
+    protected void setup(Context context) {
+      mStats = new AvroKey<>(null);
+      amos = new AvroMultipleOutputs(context);
+    }
+
+    @Override
+    protected void reduce(Text line, Iterable<IntWritable> counts, Context context)
+        throws IOException, InterruptedException {
+      GenericData.Record record = new GenericData.Record(STATS_SCHEMA);
+      int sum = 0;
+      for (IntWritable count : counts) {
+        sum += count.get();
+      }
+      record.put("name", new Utf8(line.toString()));
+      record.put("count", sum);
+      mStats.datum(record);
+      // With one writer open, each write closes the other path's writer.
+      amos.write("myavro", mStats, NullWritable.get(), "first");
+      amos.write("myavro", mStats, NullWritable.get(), "second");
+      Assert.assertEquals(1, amos.getOpenWriterCount());
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+      Assert.assertEquals(5, amos.getEvictedWriterCount());
+      amos.close();
+    }
+  }
+
+  private static class RollingNamesReducer
+      extends Reducer<Text, IntWritable, AvroKey<GenericData.Record>, NullWritable> {
+    private AvroKey<GenericData.Record> mStats;
+    private AvroMultipleOutputs amos;
+
+    @Override
+    protected void setup(Context context) {
+      mStats = new AvroKey<>(null);
+      amos = new AvroMultipleOutputs(context);
+    }
+
+    @Override
+    protected void reduce(Text line, Iterable<IntWritable> counts, Context context)
+        throws IOException, InterruptedException {
+      GenericData.Record record = new GenericData.Record(STATS_SCHEMA);
+      int sum = 0;
+      for (IntWritable count : counts) {
+        sum += count.get();
+      }
+      record.put("name", new Utf8(line.toString()));
+      record.put("count", sum);
+      mStats.datum(record);
+      // x rolls before the path x-1 is first written
+      amos.write("myavro", mStats, NullWritable.get(), "x");
+      amos.write("myavro", mStats, NullWritable.get(), "y");
+      amos.write("myavro", mStats, NullWritable.get(), "x-1");
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+      amos.close();
+    }
+  }
+
   private static class SpecificStatsReducer extends Reducer<Text, IntWritable, AvroKey<TextStats>, NullWritable> {
     private AvroKey<TextStats> mStats;
     private AvroMultipleOutputs amos;
@@ -276,6 +345,102 @@ public class TestAvroMultipleOutputs {
     Assert.assertEquals(1, counts.get("carrot").intValue());
   }
 
+  @Test
+  public void testMaxOpenWriters() throws Exception {
+    Job job = Job.getInstance();
+
+    FileInputFormat.setInputPaths(job,
+        new Path(getClass().getResource("/org/apache/avro/mapreduce/mapreduce-test-input.txt").toURI().toString()));
+    job.setInputFormatClass(TextInputFormat.class);
+
+    job.setMapperClass(LineCountMapper.class);
+    job.setMapOutputKeyClass(Text.class);
+    job.setMapOutputValueClass(IntWritable.class);
+
+    job.setReducerClass(RollingStatsReducer.class);
+    AvroJob.setOutputKeySchema(job, STATS_SCHEMA);
+    AvroMultipleOutputs.addNamedOutput(job, "myavro", AvroKeyOutputFormat.class, STATS_SCHEMA, null);
+    AvroMultipleOutputs.setMaxOpenWriters(job, 1);
+    AvroMultipleOutputs.setCountersEnabled(job, true);
+    job.setOutputFormatClass(AvroKeyOutputFormat.class);
+
+    Path outputPath = new Path(DIR.getRoot().getPath() + "/testMaxOpenWriters");
+    outputPath.getFileSystem(job.getConfiguration()).delete(outputPath, true);
+    FileOutputFormat.setOutputPath(job, outputPath);
+
+    Assert.assertTrue(job.waitForCompletion(true));
+    Assert.assertEquals(6,
+        job.getCounters().findCounter(AvroMultipleOutputs.WRITER_COUNTERS_GROUP, AvroMultipleOutputs.WRITERS_OPENED)
+            .getValue());
+    Assert.assertEquals(5,
+        job.getCounters().findCounter(AvroMultipleOutputs.WRITER_COUNTERS_GROUP, AvroMultipleOutputs.WRITERS_EVICTED)
+            .getValue());
+
+    // Each path was rolled to a new file each time it was written again.
+    FileSystem fileSystem = FileSystem.get(job.getConfiguration());
+    for (String base : new String[] { "first", "second" }) {
+      FileStatus[] outputFiles = fileSystem.globStatus(outputPath.suffix("/" + base + "*.avro"));
+      Assert.assertEquals(3, outputFiles.length);
+      Map<String, Integer> counts = new HashMap<>();
+      for (FileStatus outputFile : outputFiles) {
+        try (DataFileReader<GenericData.Record> reader = new DataFileReader<>(
+            new FsInput(outputFile.getPath(), job.getConfiguration()), new GenericDatumReader<>(STATS_SCHEMA))) {
+          for (GenericData.Record record : reader) {
+            counts.put(((Utf8) record.get("name")).toString(), (Integer) record.get("count"));
+          }
+        }
+      }
+      Assert.assertEquals(3, counts.get("apple").intValue());
+      Assert.assertEquals(2, counts.get("banana").intValue());
+      Assert.assertEquals(1, counts.get("carrot").intValue());
+    }
+  }
+
+  @Test
+  public void testRolledNamesKeepPaths() throws Exception {
+    Job job = Job.getInstance();
+
+    FileInputFormat.setInputPaths(job,
+        new Path(getClass().getResource("/org/apache/avro/mapreduce/mapreduce-test-input.txt").toURI().toString()));
+    job.setInputFormatClass(TextInputFormat.class);
+
+    job.setMapperClass(LineCountMapper.class);
+    job.setMapOutputKeyClass(Text.class);
+    job.setMapOutputValueClass(IntWritable.class);
+
+    job.setReducerClass(RollingNamesReducer.class);
+    AvroJob.setOutputKeySchema(job, STATS_SCHEMA);
+    AvroMultipleOutputs.addNamedOutput(job, "myavro", AvroKeyOutputFormat.class, STATS_SCHEMA, null);
+    AvroMultipleOutputs.setMaxOpenWriters(job, 1);
+    job.setOutputFormatClass(AvroKeyOutputFormat.class);
+
+    Path outputPath = new Path(DIR.getRoot().getPath() + "/testRolledNamesKeepPaths");
+    outputPath.getFileSystem(job.getConfiguration()).delete(outputPath, true);
+    FileOutputFormat.setOutputPath(job, outputPath);
+
+    Assert.assertTrue(job.waitForCompletion(true));
+
+    // The files of each path, rolled or not, hold all of its records and no others.
+    FileSystem fileSystem = FileSystem.get(job.getConfiguration());
+    for (String base : new String[] { "x", "y", "x-1" }) {
+      FileStatus[] outputFiles = fileSystem.globStatus(outputPath.suffix("/" + base + "-r-00000*.avro"));
+      Assert.assertEquals(3, outputFiles.length);
+      Map<String, Integer> counts = new HashMap<>();
+      for (FileStatus outputFile : outputFiles) {
+        try (DataFileReader<GenericData.Record> reader = new DataFileReader<>(
+            new FsInput(outputFile.getPath(), job.getConfiguration()), new GenericDatumReader<>(STATS_SCHEMA))) {
+          for (GenericData.Record record : reader) {
+            Assert.assertNull(counts.put(((Utf8) record.get("name")).toString(), (Integer) record.get("count")));
+          }
+        }
+      }
+      Assert.assertEquals(3, counts.size());
+      Assert.assertEquals(3, counts.get("apple").intValue());
+      Assert.assertEquals(2, counts.get("banana").intValue());
+      Assert.assertEquals(1, counts.get("carrot").intValue());
+    }
+  }
+
   @Test
   public void testAvroSpecificOutput() throws Exception {
     Job job = Job.getInstance();
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.perf.test.grpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.grpc.AvroRequestMarshaller;
+import org.apache.avro.grpc.AvroResponseMarshaller;
+import org.apache.avro.perf.test.BasicState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+
+/** Serializes and parses gRPC requests and responses through the marshallers. */
+public class MarshallerTest {
+  private static final Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"Bench\", \"namespace\": \"bench\", "
+      + "\"types\": [{\"type\": \"record\", \"name\": \"Item\", \"fields\": ["
+      + "  {\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"name\", \"type\": \"string\"},"
+      + "  {\"name\": \"values\", \"type\": {\"type\": \"array\", \"items\": \"double\"}},"
+      + "  {\"name\": \"data\", \"type\": \"bytes\"}]}], "
+      + "\"messages\": {\"put\": {\"request\": [{\"name\": \"item\", \"type\": \"Item\"}, "
+      + "  {\"name\": \"replicas\", \"type\": \"int\"}], \"response\": \"Item\"}}}");
+
+  @Benchmark
+  public Object[] parseRequest(final TestState state) {
+    return state.requestMarshaller.parse(new KnownLengthInputStream(state.request));
+  }
+
+  @Benchmark
+  public int streamRequest(final TestState state) throws IOException {
+    state.out.reset();
+    return ((Drainable) state.requestMarshaller.stream(state.args)).drainTo(state.out);
+  }
+
+  @Benchmark
+  public Object parseResponse(final TestState state) {
+    return state.responseMarshaller.parse(new KnownLengthInputStream(state.response));
+  }
+
+  @Benchmark
+  public int streamResponse(final TestState state) throws IOException {
+    state.out.reset();
+    return ((Drainable) state.responseMarshaller.stream(state.args[0])).drainTo(state.out);
+  }
+
+  /** Like the streams gRPC passes to marshallers, which know their length. */
+  private static class KnownLengthInputStream extends ByteArrayInputStream implements KnownLength {
+    KnownLengthInputStream(byte[] buf) {
+      super(buf);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TestState extends BasicState {
+    /** Number of array elements and of bytes in each request. */
+    @Param({ "10", "100000" })
+    public int size;
+
+    private AvroRequestMarshaller requestMarshaller;
+    private AvroResponseMarshaller responseMarshaller;
+    private Object[] args;
+    private byte[] request;
+    private byte[] response;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws IOException {
+      Protocol.Message message = PROTOCOL.getMessages().get("put");
+      requestMarshaller = new AvroRequestMarshaller(message);
+      responseMarshaller = new AvroResponseMarshaller(message);
+
+      GenericRecord item = new GenericData.Record(PROTOCOL.getType("bench.Item"));
+      item.put("id", getRandom().nextLong());
+      item.put("name", "item-" + size);
+      GenericData.Array<Double> values = new GenericData.Array<>(size, item.getSchema().getField("values").schema());
+      for (int i = 0; i < size; i++)
+        values.add(getRandom().nextDouble());
+      item.put("values", values);
+      byte[] data = new byte[size];
+      getRandom().nextBytes(data);
+      item.put("data", ByteBuffer.wrap(data));
+      args = new Object[] { item, 3 };
+
+      ((Drainable) requestMarshaller.stream(args)).drainTo(out);
+      request = out.toByteArray();
+      out.reset();
+      ((Drainable) responseMarshaller.stream(item)).drainTo(out);
+      response = out.toByteArray();
+    }
+  }
+}
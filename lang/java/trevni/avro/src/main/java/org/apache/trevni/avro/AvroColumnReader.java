@@ -26,12 +26,18 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.trevni.ColumnMetaData;
 import org.apache.trevni.ColumnFileReader;
+import org.apache.trevni.ColumnPredicate;
 import org.apache.trevni.ColumnValues;
 import org.apache.trevni.Input;
 import org.apache.trevni.InputFile;
+import org.apache.trevni.RowRanges;
 import org.apache.trevni.TrevniRuntimeException;
 
 import org.apache.avro.Schema;
@@ -58,11 +64,26 @@ public class AvroColumnReader<D> implements Iterator<D>, Iterable<D>, Closeable
 
   private Map<String, Map<String, Object>> defaults = new HashMap<>();
 
+  private Executor executor;
+  private int readAhead;
+  private ExecutorService ownExecutor; // shut down on close
+
+  private RowRanges ranges; // rows that might match the filter, or null
+  private int range; // current index in ranges
+  private long row; // next row to read
+  private boolean seekable; // whether all columns can seek to a row
+
   /** Parameters for reading an Avro column file. */
   public static class Params {
     Input input;
     Schema schema;
     GenericData model = GenericData.get();
+    Executor executor;
+    int threads;
+    int readAhead = 2;
+    ColumnPredicate filter;
+    long start;
+    long length = -1;
 
     /** Construct reading from a file. */
     public Params(File file) throws IOException {
@@ -85,6 +106,62 @@ public class AvroColumnReader<D> implements Iterator<D>, Iterable<D>, Closeable
       this.model = model;
       return this;
     }
+
+    /**
+     * Decompress and verify blocks of the columns read on this many threads of a
+     * pool owned by the reader, while rows are still assembled on the calling
+     * thread. Zero, the default, decodes blocks on the calling thread.
+     */
+    public Params setThreads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Decompress and verify blocks of the columns read on an executor, which may
+     * be shared by several readers. Takes precedence over
+     * {@link #setThreads(int)}.
+     */
+    public Params setExecutor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Skip blocks of rows that cannot match a predicate, according to the
+     * statistics stored for the columns it names. Rows that are read may still not
+     * match, and should still be tested. Columns are named as by
+     * {@link AvroColumnator}, e.g. a field of a nested record as
+     * {@code "outer#inner"}.
+     *
+     * @see ColumnMetaData#hasStatistics(boolean)
+     */
+    public Params setFilter(ColumnPredicate filter) {
+      this.filter = filter;
+      return this;
+    }
+
+    /**
+     * Read only the row groups that start within a range of positions in the
+     * file, e.g. those of a task's split of it. A file written without a row
+     * group size is read by the range that includes its start.
+     *
+     * @see org.apache.trevni.ColumnFileWriter#setRowGroupSize(long)
+     */
+    public Params setRange(long start, long length) {
+      this.start = start;
+      this.length = length;
+      return this;
+    }
+
+    /**
+     * Set how many blocks of each column are decoded ahead of the current one
+     * when blocks are decoded on other threads. Defaults to two.
+     */
+    public Params setReadAhead(int readAhead) {
+      this.readAhead = readAhead;
+      return this;
+    }
   }
 
   /** Construct a reader for a file. */
@@ -93,7 +170,21 @@ public class AvroColumnReader<D> implements Iterator<D>, Iterable<D>, Closeable
     this.model = params.model;
     this.fileSchema = new Schema.Parser().parse(reader.getMetaData().getString(AvroColumnWriter.SCHEMA_KEY));
     this.readSchema = params.schema == null ? fileSchema : params.schema;
+    this.executor = params.executor;
+    if (executor == null && params.threads > 0)
+      this.executor = this.ownExecutor = Executors.newFixedThreadPool(params.threads, r -> {
+        Thread thread = new Thread(r, "trevni-reader");
+        thread.setDaemon(true);
+        return thread;
+      });
+    this.readAhead = params.readAhead;
     initialize();
+    if (params.filter != null)
+      this.ranges = reader.getRowRanges(params.filter);
+    if (params.length >= 0) {
+      RowRanges groups = reader.getRowRanges(params.start, params.length);
+      this.ranges = ranges == null ? groups : ranges.and(groups);
+    }
   }
 
   /** Return the schema for data in this file. */
@@ -114,10 +205,17 @@ public class AvroColumnReader<D> implements Iterator<D>, Iterable<D>, Closeable
     ColumnMetaData[] readColumns = readColumnator.getColumns();
     this.values = new ColumnValues[readColumns.length];
     int j = 0;
+    this.seekable = true;
     for (ColumnMetaData c : readColumns) {
+      if (c.getParent() != null)
+        seekable = false; // values per row depend on the parent's
       Integer n = fileColumnNumbers.get(c.getName());
-      if (n != null)
-        values[j++] = reader.getValues(n);
+      if (n != null) {
+        values[j] = reader.getValues(n);
+        if (executor != null)
+          values[j].setReadAhead(executor, readAhead);
+        j++;
+      }
     }
     findDefaults(readSchema, fileSchema);
   }
@@ -179,7 +277,11 @@ public class AvroColumnReader<D> implements Iterator<D>, Iterable<D>, Closeable
 
   @Override
   public boolean hasNext() {
-    return values[0].hasNext();
+    if (ranges == null)
+      return values[0].hasNext();
+    while (range < ranges.size() && row >= ranges.getEnd(range))
+      range++;
+    return range < ranges.size();
   }
 
   /** Return the number of rows in this file. */
@@ -187,19 +289,57 @@ public class AvroColumnReader<D> implements Iterator<D>, Iterable<D>, Closeable
     return reader.getRowCount();
   }
 
+  /**
+   * Return the number of rows that may be read, i.e. those of the file that are
+   * in its range and not skipped by its filter.
+   */
+  public long getReadRowCount() {
+    return ranges == null ? reader.getRowCount() : ranges.getRowCount();
+  }
+
   @Override
   public D next() {
     try {
-      for (ColumnValues value : values)
-        if (value != null)
-          value.startRow();
-      this.column = 0;
-      return (D) read(readSchema);
+      if (ranges != null) {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        if (row < ranges.getStart(range))
+          skipTo(ranges.getStart(range));
+        row++;
+      }
+      return readRow();
     } catch (IOException e) {
       throw new TrevniRuntimeException(e);
     }
   }
 
+  private D readRow() throws IOException {
+    for (ColumnValues value : values)
+      if (value != null)
+        value.startRow();
+    this.column = 0;
+    return (D) read(readSchema);
+  }
+
+  private void skipTo(long target) throws IOException {
+    if (seekable) {
+      seek(target);
+    } else { // only row group starts are block starts in every column
+      long groupStart = reader.getRowGroupFirstRow(reader.findRowGroup(target));
+      if (groupStart > row)
+        seek(groupStart);
+      for (; row < target; row++)
+        readRow();
+    }
+  }
+
+  private void seek(long target) throws IOException {
+    for (ColumnValues value : values)
+      if (value != null)
+        value.seek(target);
+    row = target;
+  }
+
   private Object read(Schema s) throws IOException {
     if (isSimple(s))
       return nextValue(s, column++);
@@ -280,6 +420,8 @@ public class AvroColumnReader<D> implements Iterator<D>, Iterable<D>, Closeable
 
   @Override
   public void close() throws IOException {
+    if (ownExecutor != null)
+      ownExecutor.shutdownNow();
     reader.close();
   }
 
@@ -17,6 +17,7 @@
  */
 package org.apache.trevni.avro;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.File;
 import java.io.OutputStream;
@@ -44,9 +45,11 @@ import static org.apache.trevni.avro.AvroColumnator.isSimple;
  * <p>
  * Output is buffered until {@link #writeTo(OutputStream)} is called. The
  * {@link #sizeEstimate()} indicates both the amount of data buffered and the
- * size of the file that will be written.
+ * size of the file that will be written, unless a maximum buffer size is set
+ * with {@link #setMaxBufferSize(long)}. Then data beyond that size is moved to a
+ * temporary file, which is deleted by {@link #close()}.
  */
-public class AvroColumnWriter<D> {
+public class AvroColumnWriter<D> implements Closeable {
   private Schema schema;
   private GenericData model;
   private ColumnFileWriter writer;
@@ -67,6 +70,33 @@ public class AvroColumnWriter<D> {
     this.model = model;
   }
 
+  /**
+   * Set the most bytes of completed blocks to hold in memory.
+   *
+   * @see ColumnFileWriter#setMaxBufferSize(long)
+   */
+  public void setMaxBufferSize(long maxBufferSize) {
+    writer.setMaxBufferSize(maxBufferSize);
+  }
+
+  /**
+   * Write rows in groups of about this many bytes.
+   *
+   * @see ColumnFileWriter#setRowGroupSize(long)
+   */
+  public void setRowGroupSize(long rowGroupSize) {
+    writer.setRowGroupSize(rowGroupSize);
+  }
+
+  /**
+   * Set the directory for data beyond the maximum buffer size.
+   *
+   * @see ColumnFileWriter#setTempDirectory(File)
+   */
+  public void setTempDirectory(File tempDirectory) {
+    writer.setTempDirectory(tempDirectory);
+  }
+
   /**
    * Return the approximate size of the file that will be written. Tries to
    * slightly over-estimate. Indicates both the size in memory of the buffered
@@ -87,6 +117,12 @@ public class AvroColumnWriter<D> {
     writer.writeTo(file);
   }
 
+  /** Delete the temporary file, if any. */
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+
   /** Add a row to the file. */
   public void write(D value) throws IOException {
     writer.startRow();
@@ -23,8 +23,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.FileInputFormat;
@@ -43,12 +41,24 @@ import org.apache.avro.mapred.AvroWrapper;
  * <p>
  * A subset schema to be read may be specified with
  * {@link AvroJob#setInputSchema(JobConf,Schema)}.
+ *
+ * <p>
+ * Files are split between tasks at row group boundaries, so files written
+ * without a row group size are each read by a single task.
+ *
+ * @see AvroTrevniOutputFormat#setRowGroupSize(JobConf, long)
  */
 public class AvroTrevniInputFormat<T> extends FileInputFormat<AvroWrapper<T>, NullWritable> {
 
-  @Override
-  protected boolean isSplitable(FileSystem fs, Path filename) {
-    return false;
+  /** Job setting for the number of threads each task decodes blocks on. */
+  public static final String READ_THREADS = "trevni.read.threads";
+
+  /**
+   * Decode the blocks of the columns read on this many threads per task, ahead
+   * of the rows being read. Zero, the default, decodes them as rows are read.
+   */
+  public static void setReadThreads(JobConf job, int threads) {
+    job.setInt(READ_THREADS, threads);
   }
 
   @Override
@@ -69,12 +79,14 @@ public class AvroTrevniInputFormat<T> extends FileInputFormat<AvroWrapper<T>, Nu
 
     final AvroColumnReader.Params params = new AvroColumnReader.Params(new HadoopInput(file.getPath(), job));
     params.setModel(ReflectData.get());
+    params.setThreads(job.getInt(READ_THREADS, 0));
+    params.setRange(file.getStart(), file.getLength());
     if (job.get(AvroJob.INPUT_SCHEMA) != null)
       params.setSchema(AvroJob.getInputSchema(job));
 
     return new RecordReader<AvroWrapper<T>, NullWritable>() {
       private AvroColumnReader<T> reader = new AvroColumnReader<>(params);
-      private float rows = reader.getRowCount();
+      private float rows = reader.getReadRowCount();
       private long row;
 
       @Override
@@ -47,7 +47,8 @@ import org.apache.trevni.ColumnFileMetaData;
  * Writes a directory of files per task, each comprising a single filesystem
  * block. To reduce the number of files, increase the default filesystem block
  * size for the job. Each task also requires enough memory to buffer a
- * filesystem block.
+ * filesystem block, unless a maximum buffer size is set with
+ * {@link #setMaxBufferSize(JobConf, long)}.
  */
 public class AvroTrevniOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>, NullWritable> {
 
@@ -56,11 +57,34 @@ public class AvroTrevniOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>,
 
   public static final String META_PREFIX = "trevni.meta.";
 
+  /** Job setting for the most bytes of a file that a task buffers in memory. */
+  public static final String MAX_BUFFER_SIZE = "trevni.max.buffer.size";
+
+  /** Job setting for the bytes of each row group in a file. */
+  public static final String ROW_GROUP_SIZE = "trevni.row.group.size";
+
   /** Add metadata to job output files. */
   public static void setMeta(JobConf job, String key, String value) {
     job.set(META_PREFIX + key, value);
   }
 
+  /**
+   * Set the most bytes of a file that a task buffers in memory. Beyond that,
+   * data is moved to a local temporary file until the file is written. Zero, the
+   * default, buffers whole files in memory.
+   */
+  public static void setMaxBufferSize(JobConf job, long maxBufferSize) {
+    job.setLong(MAX_BUFFER_SIZE, maxBufferSize);
+  }
+
+  /**
+   * Write each file as row groups of about this many bytes, so that it can be
+   * split among tasks. Zero, the default, writes a single group per file.
+   */
+  public static void setRowGroupSize(JobConf job, long rowGroupSize) {
+    job.setLong(ROW_GROUP_SIZE, rowGroupSize);
+  }
+
   @Override
   public RecordWriter<AvroWrapper<T>, NullWritable> getRecordWriter(FileSystem ignore, final JobConf job,
       final String name, Progressable prog) throws IOException {
@@ -75,17 +99,28 @@ public class AvroTrevniOutputFormat<T> extends FileOutputFormat<AvroWrapper<T>,
     if (!fs.mkdirs(dir))
       throw new IOException("Failed to create directory: " + dir);
     final long blockSize = fs.getDefaultBlockSize(dir);
+    final long maxBufferSize = job.getLong(MAX_BUFFER_SIZE, 0);
+    final long rowGroupSize = job.getLong(ROW_GROUP_SIZE, 0);
 
     return new RecordWriter<AvroWrapper<T>, NullWritable>() {
       private int part = 0;
 
-      private AvroColumnWriter<T> writer = new AvroColumnWriter<>(schema, meta, ReflectData.get());
+      private AvroColumnWriter<T> writer = newWriter();
+
+      private AvroColumnWriter<T> newWriter() throws IOException {
+        AvroColumnWriter<T> writer = new AvroColumnWriter<>(schema, meta, ReflectData.get());
+        writer.setMaxBufferSize(maxBufferSize);
+        writer.setRowGroupSize(rowGroupSize);
+        return writer;
+      }
 
       private void flush() throws IOException {
         try (OutputStream out = fs.create(new Path(dir, "part-" + (part++) + EXT))) {
           writer.writeTo(out);
+        } finally {
+          writer.close();
         }
-        writer = new AvroColumnWriter<>(schema, meta, ReflectData.get());
+        writer = newWriter();
       }
 
       @Override
@@ -40,10 +40,13 @@ import org.apache.trevni.avro.HadoopInput;
  */
 public abstract class AvroTrevniRecordReaderBase<K, V, T> extends RecordReader<K, V> {
 
+  /** job config for the number of threads to decode blocks on */
+  public static final String READ_THREADS = "trevni.read.threads";
+
   /** The Trevni file reader */
   private AvroColumnReader<T> reader;
 
-  /** Number of rows in the Trevni file */
+  /** Number of rows of the Trevni file in this split */
   private float rows;
 
   /** The current row number being read in */
@@ -61,13 +64,15 @@ public abstract class AvroTrevniRecordReaderBase<K, V, T> extends RecordReader<K
     final AvroColumnReader.Params params = new AvroColumnReader.Params(
         new HadoopInput(file.getPath(), context.getConfiguration()));
     params.setModel(ReflectData.get());
+    params.setThreads(context.getConfiguration().getInt(READ_THREADS, 0));
+    params.setRange(file.getStart(), file.getLength());
 
     if (AvroJob.getInputKeySchema(context.getConfiguration()) != null) {
       params.setSchema(AvroJob.getInputKeySchema(context.getConfiguration()));
     }
 
     reader = new AvroColumnReader<>(params);
-    rows = reader.getRowCount();
+    rows = reader.getReadRowCount();
   }
 
   /** {@inheritDoc} */
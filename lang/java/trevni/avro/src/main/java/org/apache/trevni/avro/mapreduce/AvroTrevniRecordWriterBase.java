@@ -51,6 +51,12 @@ public abstract class AvroTrevniRecordWriterBase<K, V, T> extends RecordWriter<K
   /** prefix of job configs that we care about */
   public static final String META_PREFIX = "trevni.meta.";
 
+  /** job config for the most bytes of a file to buffer in memory */
+  public static final String MAX_BUFFER_SIZE = "trevni.max.buffer.size";
+
+  /** job config for the bytes of each row group in a file */
+  public static final String ROW_GROUP_SIZE = "trevni.row.group.size";
+
   /**
    * Counter that increments as new trevni files are create because the current
    * file has exceeded the block size
@@ -75,6 +81,12 @@ public abstract class AvroTrevniRecordWriterBase<K, V, T> extends RecordWriter<K
   /** meta data to be stored in the output file. */
   protected ColumnFileMetaData meta;
 
+  /** Most bytes of a file to buffer in memory, or zero for no limit */
+  final long maxBufferSize;
+
+  /** Bytes of each row group in a file, or zero for a single group */
+  final long rowGroupSize;
+
   /**
    * Constructor.
    * 
@@ -85,7 +97,9 @@ public abstract class AvroTrevniRecordWriterBase<K, V, T> extends RecordWriter<K
 
     schema = initSchema(context);
     meta = filterMetadata(context.getConfiguration());
-    writer = new AvroColumnWriter<>(schema, meta, ReflectData.get());
+    maxBufferSize = context.getConfiguration().getLong(MAX_BUFFER_SIZE, 0);
+    rowGroupSize = context.getConfiguration().getLong(ROW_GROUP_SIZE, 0);
+    writer = newWriter();
 
     Path outputPath = FileOutputFormat.getOutputPath(context);
 
@@ -112,8 +126,17 @@ public abstract class AvroTrevniRecordWriterBase<K, V, T> extends RecordWriter<K
   public void flush() throws IOException {
     try (OutputStream out = fs.create(new Path(dirPath, "part-" + (part++) + EXT))) {
       writer.writeTo(out);
+    } finally {
+      writer.close();
     }
-    writer = new AvroColumnWriter<>(schema, meta, ReflectData.get());
+    writer = newWriter();
+  }
+
+  private AvroColumnWriter<T> newWriter() throws IOException {
+    AvroColumnWriter<T> writer = new AvroColumnWriter<>(schema, meta, ReflectData.get());
+    writer.setMaxBufferSize(maxBufferSize);
+    writer.setRowGroupSize(rowGroupSize);
+    return writer;
   }
 
   /** {@inheritDoc} */
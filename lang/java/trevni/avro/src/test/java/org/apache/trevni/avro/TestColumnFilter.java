@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni.avro;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.trevni.ColumnFileMetaData;
+import org.apache.trevni.ColumnPredicate;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestColumnFilter {
+  private static final File FILE = new File("target", "filter.trv");
+  private static final int COUNT = 100000;
+
+  private static final Schema FLAT = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"R\", \"fields\": ["
+      + "{\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"name\", \"type\": [\"null\", \"string\"]}]}");
+
+  private static final Schema NESTED = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"N\", \"fields\": ["
+      + "{\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"tags\", \"type\": {\"type\": \"array\", \"items\":"
+      + " {\"type\": \"record\", \"name\": \"T\", \"fields\": [{\"name\": \"tag\", \"type\": \"int\"}]}}}]}");
+
+  private void write(Schema schema) throws IOException {
+    Schema tag = schema.getField("tags") != null ? schema.getField("tags").schema().getElementType() : null;
+    AvroColumnWriter<GenericRecord> writer = new AvroColumnWriter<>(schema,
+        new ColumnFileMetaData().hasStatistics(true));
+    for (long i = 0; i < COUNT; i++) {
+      GenericRecord record = new GenericData.Record(schema);
+      record.put("id", i);
+      if (tag != null) {
+        GenericRecord t = new GenericData.Record(tag);
+        t.put("tag", (int) i);
+        record.put("tags", i % 2 == 0 ? Collections.emptyList() : Arrays.asList(t, t));
+      } else {
+        record.put("name", i % 3 == 0 ? null : "name" + i);
+      }
+      writer.write(record);
+    }
+    writer.writeTo(FILE);
+  }
+
+  private void check(ColumnPredicate filter, long from, long to) throws IOException {
+    int count = 0;
+    int total = 0;
+    long last = -1;
+    AvroColumnReader.Params params = new AvroColumnReader.Params(FILE).setFilter(filter);
+    try (AvroColumnReader<GenericRecord> reader = new AvroColumnReader<>(params)) {
+      for (GenericRecord record : reader) {
+        long id = (Long) record.get("id");
+        Assert.assertTrue(id > last);
+        if (id > from && id < to)
+          Assert.assertEquals(last + 1, id); // no matching row skipped
+        if (id >= from && id < to)
+          count++;
+        total++;
+        if (record.getSchema().getField("name") != null && id % 3 != 0)
+          Assert.assertEquals("name" + id, record.get("name").toString());
+        last = id;
+      }
+      Assert.assertEquals(to - from, count);
+      Assert.assertTrue(total < COUNT / 2); // most blocks skipped
+    }
+  }
+
+  @Test
+  public void testFlat() throws Exception {
+    write(FLAT);
+    check(ColumnPredicate.ge("id", 90000L), 90000, COUNT);
+    check(ColumnPredicate.and(ColumnPredicate.ge("id", 50000L), ColumnPredicate.lt("id", 50010L)), 50000, 50010);
+  }
+
+  @Test
+  public void testNested() throws Exception {
+    write(NESTED);
+    check(ColumnPredicate.ge("id", 90000L), 90000, COUNT);
+  }
+}
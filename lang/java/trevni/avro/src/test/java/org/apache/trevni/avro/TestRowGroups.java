@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni.avro;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.trevni.ColumnFileMetaData;
+import org.apache.trevni.ColumnFileReader;
+import org.apache.trevni.ColumnPredicate;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRowGroups {
+  private static final File FILE = new File("target", "groups.trv");
+  private static final int COUNT = 100000;
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"N\", \"fields\": ["
+      + "{\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"tags\", \"type\": {\"type\": \"array\", \"items\":"
+      + " {\"type\": \"record\", \"name\": \"T\", \"fields\": [{\"name\": \"tag\", \"type\": \"int\"}]}}}]}");
+
+  private static long mix(long i) {
+    return i * 0x9E3779B97F4A7C15L;
+  }
+
+  /** The tag count of a row: mostly short, with an occasional long array. */
+  private static int tagCount(long id) {
+    return id % 997 == 3 ? 300 : (int) (mix(id) >>> 61);
+  }
+
+  /** A tag value, unrelated to the row's id and to the other tags. */
+  private static int tag(long id, int index) {
+    return (int) (mix(id * 1000 + index) >>> 40);
+  }
+
+  private void write() throws IOException {
+    Schema tag = SCHEMA.getField("tags").schema().getElementType();
+    AvroColumnWriter<GenericRecord> writer = new AvroColumnWriter<>(SCHEMA,
+        new ColumnFileMetaData().hasStatistics(true));
+    writer.setRowGroupSize(64 * 1024);
+    for (long i = 0; i < COUNT; i++) {
+      GenericRecord record = new GenericData.Record(SCHEMA);
+      record.put("id", i);
+      List<GenericRecord> tags = new ArrayList<>();
+      for (int j = 0; j < tagCount(i); j++) {
+        GenericRecord t = new GenericData.Record(tag);
+        t.put("tag", tag(i, j));
+        tags.add(t);
+      }
+      record.put("tags", tags);
+      writer.write(record);
+    }
+    writer.writeTo(FILE);
+  }
+
+  /** Read the file in splits, checking that each row is read once. */
+  private void check(int splits, ColumnPredicate filter, long from) throws IOException {
+    long next = from;
+    long splitSize = FILE.length() / splits + 1;
+    for (long start = 0; start < FILE.length(); start += splitSize) {
+      AvroColumnReader.Params params = new AvroColumnReader.Params(FILE).setRange(start, splitSize)
+          .setFilter(filter);
+      try (AvroColumnReader<GenericRecord> reader = new AvroColumnReader<>(params)) {
+        long read = 0;
+        for (GenericRecord record : reader) {
+          long id = (Long) record.get("id");
+          if (id < from)
+            continue; // in a block that the filter could not skip
+          Assert.assertEquals(next++, id);
+          List<?> tags = (List<?>) record.get("tags");
+          Assert.assertEquals(tagCount(id), tags.size());
+          for (int j = 0; j < tags.size(); j++)
+            Assert.assertEquals(tag(id, j), ((GenericRecord) tags.get(j)).get("tag"));
+          read++;
+        }
+        Assert.assertTrue(read <= reader.getReadRowCount());
+      }
+    }
+    Assert.assertEquals(COUNT, next);
+  }
+
+  @Test
+  public void testSplits() throws Exception {
+    write();
+    try (ColumnFileReader reader = new ColumnFileReader(FILE)) {
+      Assert.assertTrue(reader.getRowGroupCount() > 4);
+      Assert.assertEquals(COUNT, reader.getRowCount());
+    }
+    check(1, null, 0);
+    check(4, null, 0);
+    check(50, null, 0);
+    check(4, ColumnPredicate.ge("id", 90000L), 90000);
+  }
+}
@@ -39,6 +39,8 @@ class ArrayColumnOutputBuffer extends ColumnOutputBuffer {
     assert this.length == 0;
     assert l >= 0;
     this.length = l;
+    if (l == 0)
+      addNullStatistics();
     if (l == runValue) {
       runLength++; // continue a run
       return;
@@ -59,6 +61,7 @@ class ArrayColumnOutputBuffer extends ColumnOutputBuffer {
       flushRun();
       getBuffer().writeValue(value, getMeta().getType());
     }
+    addStatistics(value);
     length -= 1;
   }
 
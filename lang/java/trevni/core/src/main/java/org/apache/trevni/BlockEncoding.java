@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodings of the values in a block of a column that is not an array. Each
+ * block starts with the id of its encoding, chosen as the smallest of:
+ * <ul>
+ * <li>{@link #PLAIN}: values as written by
+ * {@link OutputBuffer#writeValue(Object, ValueType)}.</li>
+ * <li>{@link #DICTIONARY}: for strings and bytes, the distinct values followed
+ * by the bit-packed index of each value.</li>
+ * <li>{@link #RUN_LENGTH}: for integer types, the length and value of each run
+ * of equal values.</li>
+ * <li>{@link #DELTA}: for integer types, the first value followed by the
+ * bit-packed difference of each value from its predecessor, less the smallest
+ * difference.</li>
+ * </ul>
+ * Blocks are decoded back to plain values when read.
+ */
+class BlockEncoding {
+  static final int PLAIN = 0;
+  static final int DICTIONARY = 1;
+  static final int RUN_LENGTH = 2;
+  static final int DELTA = 3;
+
+  private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+  private BlockEncoding() {
+  }
+
+  /** Encode a block of plain values with whichever encoding is smallest. */
+  static ByteBuffer encode(ByteBuffer plain, ValueType type) throws IOException {
+    OutputBuffer best = null;
+    switch (type) {
+    case STRING:
+    case BYTES:
+      best = encodeDictionary(plain, type);
+      break;
+    case INT:
+    case LONG:
+    case FIXED32:
+    case FIXED64:
+      Longs values = readLongs(plain, type);
+      if (values.count > 0)
+        best = smaller(encodeRunLength(values), encodeDelta(values));
+      break;
+    default:
+    }
+    if (best == null || best.size() > plain.remaining()) {
+      best = new OutputBuffer();
+      best.write(PLAIN);
+      best.write(plain.array(), plain.position(), plain.remaining());
+    }
+    return best.asByteBuffer();
+  }
+
+  /**
+   * Decode an encoded block into plain values. Plain blocks are returned as a
+   * view of the same array, positioned after the encoding id.
+   */
+  static ByteBuffer decode(ByteBuffer data, ValueType type) throws IOException {
+    InputBuffer in = new InputBuffer(new InputBytes(data), data.position());
+    int encoding = in.read();
+    if (encoding == PLAIN)
+      return ByteBuffer.wrap(data.array(), data.position() + 1, data.remaining() - 1);
+
+    OutputBuffer out = new OutputBuffer();
+    switch (encoding) {
+    case DICTIONARY:
+      decodeDictionary(in, type, out);
+      break;
+    case RUN_LENGTH:
+      decodeRunLength(in, type, out);
+      break;
+    case DELTA:
+      decodeDelta(in, type, out);
+      break;
+    default:
+      throw new TrevniRuntimeException("Unknown block encoding: " + encoding);
+    }
+    return out.asByteBuffer();
+  }
+
+  private static OutputBuffer smaller(OutputBuffer a, OutputBuffer b) {
+    return a.size() <= b.size() ? a : b;
+  }
+
+  private static OutputBuffer encodeDictionary(ByteBuffer plain, ValueType type) throws IOException {
+    InputBuffer in = new InputBuffer(new InputBytes(plain), plain.position());
+    byte[] buf = in.getBuffer();
+    Map<ByteBuffer, Integer> ids = new HashMap<>();
+    int[] starts = new int[64]; // of each distinct value, with its length
+    int[] ends = new int[64];
+    int[] indexes = new int[1024];
+    int count = 0;
+    while (in.tell() < in.length()) {
+      int start = (int) in.tell();
+      in.skipValue(type);
+      int end = (int) in.tell();
+      Integer id = ids.get(ByteBuffer.wrap(buf, start, end - start));
+      if (id == null) {
+        id = ids.size();
+        if (id == MAX_DICTIONARY_SIZE)
+          return null;
+        ids.put(ByteBuffer.wrap(buf, start, end - start), id);
+        if (id == starts.length) {
+          starts = Arrays.copyOf(starts, id * 2);
+          ends = Arrays.copyOf(ends, id * 2);
+        }
+        starts[id] = start;
+        ends[id] = end;
+      }
+      if (count == indexes.length)
+        indexes = Arrays.copyOf(indexes, count * 2);
+      indexes[count++] = id;
+    }
+    if (count == 0)
+      return null;
+
+    OutputBuffer out = new OutputBuffer();
+    out.write(DICTIONARY);
+    out.writeInt(ids.size());
+    for (int id = 0; id < ids.size(); id++)
+      out.write(buf, starts[id], ends[id] - starts[id]);
+    out.writeInt(count);
+    int width = width(ids.size() - 1);
+    out.writeInt(width);
+    BitWriter bits = new BitWriter(out);
+    for (int i = 0; i < count; i++)
+      bits.write(indexes[i], width);
+    bits.flush();
+    return out;
+  }
+
+  private static void decodeDictionary(InputBuffer in, ValueType type, OutputBuffer out) throws IOException {
+    byte[] buf = in.getBuffer();
+    int size = in.readInt();
+    int[] starts = new int[size];
+    int[] ends = new int[size];
+    for (int id = 0; id < size; id++) {
+      starts[id] = (int) in.tell();
+      in.skipValue(type);
+      ends[id] = (int) in.tell();
+    }
+    int count = in.readInt();
+    int width = in.readInt();
+    BitReader bits = new BitReader(in);
+    for (int i = 0; i < count; i++) {
+      int id = (int) bits.read(width);
+      if (id >= size)
+        throw new TrevniRuntimeException("Invalid dictionary index: " + id);
+      out.write(buf, starts[id], ends[id] - starts[id]);
+    }
+  }
+
+  private static OutputBuffer encodeRunLength(Longs values) throws IOException {
+    OutputBuffer out = new OutputBuffer();
+    out.write(RUN_LENGTH);
+    out.writeInt(values.count);
+    int start = 0;
+    for (int i = 1; i <= values.count; i++) {
+      if (i == values.count || values.values[i] != values.values[start]) {
+        out.writeInt(i - start);
+        out.writeLong(values.values[start]);
+        start = i;
+      }
+    }
+    return out;
+  }
+
+  private static void decodeRunLength(InputBuffer in, ValueType type, OutputBuffer out) throws IOException {
+    int count = in.readInt();
+    while (count > 0) {
+      int length = in.readInt();
+      if (length <= 0 || length > count)
+        throw new TrevniRuntimeException("Invalid run length: " + length);
+      long value = in.readLong();
+      for (int i = 0; i < length; i++)
+        writeLong(value, type, out);
+      count -= length;
+    }
+  }
+
+  private static OutputBuffer encodeDelta(Longs values) throws IOException {
+    long[] v = values.values;
+    long min = Long.MAX_VALUE;
+    for (int i = 1; i < values.count; i++)
+      min = Math.min(min, v[i] - v[i - 1]);
+    long bits = 0;
+    for (int i = 1; i < values.count; i++)
+      bits |= v[i] - v[i - 1] - min;
+    int width = width(bits);
+
+    OutputBuffer out = new OutputBuffer();
+    out.write(DELTA);
+    out.writeInt(values.count);
+    out.writeLong(v[0]);
+    out.writeLong(min);
+    out.writeInt(width);
+    BitWriter writer = new BitWriter(out);
+    for (int i = 1; i < values.count; i++)
+      writer.write(v[i] - v[i - 1] - min, width);
+    writer.flush();
+    return out;
+  }
+
+  private static void decodeDelta(InputBuffer in, ValueType type, OutputBuffer out) throws IOException {
+    int count = in.readInt();
+    long value = in.readLong();
+    long min = in.readLong();
+    int width = in.readInt();
+    BitReader bits = new BitReader(in);
+    writeLong(value, type, out);
+    for (int i = 1; i < count; i++) {
+      value += min + bits.read(width);
+      writeLong(value, type, out);
+    }
+  }
+
+  /** The values of an integer block, as longs. */
+  private static class Longs {
+    long[] values = new long[1024];
+    int count;
+  }
+
+  private static Longs readLongs(ByteBuffer plain, ValueType type) throws IOException {
+    InputBuffer in = new InputBuffer(new InputBytes(plain), plain.position());
+    Longs result = new Longs();
+    while (in.tell() < in.length()) {
+      if (result.count == result.values.length)
+        result.values = Arrays.copyOf(result.values, result.count * 2);
+      switch (type) {
+      case INT:
+        result.values[result.count++] = in.readInt();
+        break;
+      case LONG:
+        result.values[result.count++] = in.readLong();
+        break;
+      case FIXED32:
+        result.values[result.count++] = in.readFixed32();
+        break;
+      default: // FIXED64
+        result.values[result.count++] = in.readFixed64();
+      }
+    }
+    return result;
+  }
+
+  private static void writeLong(long value, ValueType type, OutputBuffer out) throws IOException {
+    switch (type) {
+    case INT:
+      out.writeInt((int) value);
+      break;
+    case LONG:
+      out.writeLong(value);
+      break;
+    case FIXED32:
+      out.writeFixed32((int) value);
+      break;
+    case FIXED64:
+      out.writeFixed64(value);
+      break;
+    default:
+      throw new TrevniRuntimeException("Not an integer type: " + type);
+    }
+  }
+
+  /** The number of bits needed for the set bits of a value. */
+  private static int width(long bits) {
+    return 64 - Long.numberOfLeadingZeros(bits);
+  }
+
+  /** Packs values of a fixed number of bits into bytes, low bits first. */
+  private static class BitWriter {
+    private final OutputBuffer out;
+    private int current; // bits of the next byte
+    private int count; // number of bits in current
+
+    BitWriter(OutputBuffer out) {
+      this.out = out;
+    }
+
+    void write(long value, int width) {
+      while (width > 0) {
+        int n = Math.min(width, 8 - count);
+        current |= (int) (value & ((1L << n) - 1)) << count;
+        value >>>= n;
+        width -= n;
+        count += n;
+        if (count == 8)
+          flush();
+      }
+    }
+
+    void flush() {
+      if (count > 0)
+        out.write(current);
+      current = 0;
+      count = 0;
+    }
+  }
+
+  /** Reads values written by {@link BitWriter}. */
+  private static class BitReader {
+    private final InputBuffer in;
+    private int current; // unread bits of the last byte read
+    private int count; // number of bits in current
+
+    BitReader(InputBuffer in) {
+      this.in = in;
+    }
+
+    long read(int width) throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < width;) {
+        if (count == 0) {
+          current = in.read();
+          count = 8;
+        }
+        int n = Math.min(width - shift, count);
+        value |= (long) (current & ((1 << n) - 1)) << shift;
+        current >>>= n;
+        count -= n;
+        shift += n;
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The statistics of a block of a column: how many of its rows are null, i.e.
+ * are empty arrays, how many values it has, their minimum and maximum, and
+ * optionally a bloom filter of its values.
+ */
+class BlockStatistics {
+  private final ValueType type;
+
+  long nullCount;
+  long valueCount;
+  Comparable min;
+  Comparable max;
+  BloomFilter bloom;
+
+  private OutputBuffer scratch; // to hash values while writing
+  private long[] hashes;
+  private int hashCount;
+
+  BlockStatistics(ValueType type) {
+    this.type = type;
+  }
+
+  /** Construct for writing, keeping hashes for a bloom filter if requested. */
+  BlockStatistics(ValueType type, boolean bloom) {
+    this.type = type;
+    if (bloom && hasBloomFilter(type)) {
+      this.scratch = new OutputBuffer();
+      this.hashes = new long[64];
+    }
+  }
+
+  /** Whether a bloom filter is kept for a type. */
+  static boolean hasBloomFilter(ValueType type) {
+    return type != ValueType.NULL && type != ValueType.BOOLEAN;
+  }
+
+  /** Whether values of a type have a minimum and maximum. */
+  static boolean hasRange(ValueType type) {
+    return type != ValueType.NULL;
+  }
+
+  void addNull() {
+    nullCount++;
+  }
+
+  void addValue(Object value) throws IOException {
+    valueCount++;
+    if (!hasRange(type))
+      return;
+    Comparable v = normalize(value, type);
+    if (min == null || v.compareTo(min) < 0)
+      min = copy(v);
+    if (max == null || v.compareTo(max) > 0)
+      max = copy(v);
+    if (hashes != null) {
+      if (hashCount == hashes.length)
+        hashes = Arrays.copyOf(hashes, hashCount * 2);
+      hashes[hashCount++] = hash(v);
+    }
+  }
+
+  /** Returns the hash of a value as added to a bloom filter. */
+  long hash(Comparable value) throws IOException {
+    if (scratch == null)
+      scratch = new OutputBuffer();
+    scratch.reset();
+    scratch.writeValue(value, type);
+    return BloomFilter.hash(scratch.asByteBuffer());
+  }
+
+  /** Converts a value to the class that values of a type are read as. */
+  static Comparable normalize(Object value, ValueType type) {
+    switch (type) {
+    case INT:
+    case FIXED32:
+      return ((Number) value).intValue();
+    case LONG:
+    case FIXED64:
+      return ((Number) value).longValue();
+    case FLOAT:
+      return ((Number) value).floatValue();
+    case DOUBLE:
+      return ((Number) value).doubleValue();
+    case STRING:
+      return value.toString();
+    case BYTES:
+      return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : (ByteBuffer) value;
+    default:
+      return (Comparable) value;
+    }
+  }
+
+  private static Comparable copy(Comparable value) {
+    if (!(value instanceof ByteBuffer))
+      return value;
+    ByteBuffer b = ((ByteBuffer) value).duplicate();
+    byte[] bytes = new byte[b.remaining()];
+    b.get(bytes);
+    return ByteBuffer.wrap(bytes);
+  }
+
+  void write(OutputBuffer out) throws IOException {
+    out.writeLong(nullCount);
+    out.writeLong(valueCount);
+    if (min != null) {
+      writeValue(min, out);
+      writeValue(max, out);
+    }
+    if (hashes != null) {
+      BloomFilter filter = new BloomFilter(hashCount);
+      for (int i = 0; i < hashCount; i++)
+        filter.add(hashes[i]);
+      filter.write(out);
+    }
+  }
+
+  static BlockStatistics read(InputBuffer in, ValueType type, boolean bloom) throws IOException {
+    BlockStatistics result = new BlockStatistics(type);
+    result.nullCount = in.readLong();
+    result.valueCount = in.readLong();
+    if (result.valueCount > 0 && hasRange(type)) {
+      result.min = readValue(in, type);
+      result.max = readValue(in, type);
+    }
+    if (bloom && hasBloomFilter(type))
+      result.bloom = BloomFilter.read(in);
+    return result;
+  }
+
+  // booleans are written as ints, as bit-packing would not survive the values
+  // that follow them
+  private void writeValue(Comparable value, OutputBuffer out) throws IOException {
+    if (type == ValueType.BOOLEAN)
+      out.writeInt((Boolean) value ? 1 : 0);
+    else
+      out.writeValue(value, type);
+  }
+
+  private static Comparable readValue(InputBuffer in, ValueType type) throws IOException {
+    if (type == ValueType.BOOLEAN)
+      return in.readInt() != 0;
+    return in.readValue(type);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A bloom filter over the 64-bit hashes of values. Uses ten bits and seven
+ * hash functions per value, for about one percent false positives.
+ */
+class BloomFilter {
+  private static final int BITS_PER_VALUE = 10;
+  private static final int HASHES = 7;
+
+  private final long[] bits;
+
+  BloomFilter(int values) {
+    this(new long[Math.max(1, (values * BITS_PER_VALUE + 63) / 64)]);
+  }
+
+  private BloomFilter(long[] bits) {
+    this.bits = bits;
+  }
+
+  void add(long hash) {
+    long size = bits.length * 64L;
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= HASHES; i++) {
+      int h = h1 + i * h2;
+      long bit = (h < 0 ? ~h : h) % size;
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  boolean mightContain(long hash) {
+    long size = bits.length * 64L;
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= HASHES; i++) {
+      int h = h1 + i * h2;
+      long bit = (h < 0 ? ~h : h) % size;
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+        return false;
+    }
+    return true;
+  }
+
+  /** Returns a 64-bit hash of bytes: FNV-1a, then MurmurHash3's finalizer. */
+  static long hash(ByteBuffer bytes) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = bytes.position(); i < bytes.limit(); i++) {
+      h ^= bytes.get(i) & 0xff;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  void write(OutputBuffer out) throws IOException {
+    out.writeInt(bits.length);
+    for (long word : bits)
+      out.writeFixed64(word);
+  }
+
+  static BloomFilter read(InputBuffer in) throws IOException {
+    long[] bits = new long[in.readInt()];
+    for (int i = 0; i < bits.length; i++)
+      bits[i] = in.readFixed64();
+    return new BloomFilter(bits);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The completed blocks of a column in a row group, written as its block count,
+ * block descriptors and block data. Block data is held in memory or in a spill
+ * file.
+ */
+class ColumnChunk {
+  private final boolean hasIndexValues;
+  private final List<BlockDescriptor> blockDescriptors = new ArrayList<>();
+  private final List<byte[]> firstValues = new ArrayList<>();
+  private final List<byte[]> blockData = new ArrayList<>();
+  private final List<long[]> spilled = new ArrayList<>(); // position & length in spill file
+  private long size = 4; // room for block count
+
+  ColumnChunk(boolean hasIndexValues) {
+    this.hasIndexValues = hasIndexValues;
+  }
+
+  /** Add a block, returning the number of bytes it adds to the chunk. */
+  int add(BlockDescriptor descriptor, byte[] firstValue, byte[] data) {
+    blockDescriptors.add(descriptor);
+    if (hasIndexValues)
+      firstValues.add(firstValue);
+    blockData.add(data);
+    int increment = (4 * 3) // descriptor
+        + (hasIndexValues ? firstValue.length : 0) // firstValue
+        + data.length; // data
+    size += increment;
+    return increment;
+  }
+
+  /** Move blocks from memory to the end of a spill file. */
+  void spill(SpillFile file) throws IOException {
+    if (blockData.isEmpty())
+      return;
+    long start = -1;
+    long length = 0;
+    for (byte[] data : blockData) {
+      long position = file.append(data);
+      if (start < 0)
+        start = position;
+      length += data.length;
+    }
+    spilled.add(new long[] { start, length });
+    blockData.clear();
+  }
+
+  long size() {
+    return size;
+  }
+
+  void writeTo(OutputStream out, SpillFile file) throws IOException {
+    OutputBuffer header = new OutputBuffer();
+    header.writeFixed32(blockDescriptors.size());
+    for (int i = 0; i < blockDescriptors.size(); i++) {
+      blockDescriptors.get(i).writeTo(header);
+      if (hasIndexValues)
+        header.write(firstValues.get(i));
+    }
+    header.writeTo(out);
+
+    for (long[] range : spilled) // spilled blocks precede those in memory
+      file.transferTo(range[0], range[1], out);
+    for (byte[] data : blockData)
+      out.write(data);
+  }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A cursor over the values of a column that may be nested in array columns,
+ * reading only that column and its ancestors. Level zero is the column without
+ * a parent, and the last level is the column itself. Within each row, values
+ * are visited in order along with the index of their element at each level, so
+ * that values can be aggregated without assembling the rows that hold them.
+ *
+ * <pre>
+ * ColumnCursor&lt;Long&gt; cursor = reader.getCursor("events[]#latency");
+ * while (cursor.nextRow())
+ *   while (cursor.next())
+ *     total += cursor.getValue();
+ * </pre>
+ *
+ * Elements of empty arrays have no values, so rows may have none.
+ *
+ * @see ColumnFileReader#getCursor(String)
+ */
+public class ColumnCursor<T extends Comparable> {
+  private final ColumnFileReader reader;
+  private final ColumnMetaData[] columns; // from root to leaf
+  private final ColumnValues[] values;
+  private final int leaf;
+
+  private final int[] remaining; // elements left at each level
+  private final int[] lengths; // elements at each level
+  private final int[] indexes; // of current element at each level
+  private int level;
+  private boolean inRow;
+  private boolean first; // no value yet read in row
+  private long row = -1;
+  private int repetitionLevel;
+  private T value;
+
+  ColumnCursor(ColumnFileReader reader, String name) throws IOException {
+    this.reader = reader;
+    List<ColumnMetaData> path = new ArrayList<>();
+    for (ColumnMetaData c = reader.getColumnMetaData(name); c != null; c = c.getParent())
+      path.add(c);
+    Collections.reverse(path);
+    this.columns = path.toArray(new ColumnMetaData[0]);
+    this.leaf = columns.length - 1;
+    this.values = new ColumnValues[columns.length];
+    for (int i = 0; i < columns.length; i++)
+      values[i] = reader.getValues(columns[i].getNumber());
+    this.remaining = new int[columns.length];
+    this.lengths = new int[columns.length];
+    this.indexes = new int[columns.length];
+  }
+
+  /** Return the number of levels, i.e. of the column and its ancestors. */
+  public int getLevelCount() {
+    return columns.length;
+  }
+
+  /** Return the column read at a level. */
+  public ColumnMetaData getColumn(int level) {
+    return columns[level];
+  }
+
+  /** Return the number of the current row, or -1 before the first. */
+  public long getRow() {
+    return row;
+  }
+
+  /**
+   * Move to the next row, skipping any values of the current row that were not
+   * read. Returns false after the last row.
+   */
+  public boolean nextRow() throws IOException {
+    endRow();
+    if (row + 1 >= reader.getRowCount())
+      return false;
+    for (ColumnValues v : values)
+      v.startRow();
+    row++;
+    inRow = true;
+    first = true;
+    level = 0;
+    startLevel(0);
+    return true;
+  }
+
+  /**
+   * Move to the next value in the current row. Returns false after its last
+   * value.
+   */
+  public boolean next() throws IOException {
+    if (!inRow)
+      return false;
+    int advanced = leaf; // shallowest level with a new element
+    int d = level;
+    while (true) {
+      if (remaining[d] > 0) {
+        remaining[d]--;
+        indexes[d]++;
+        advanced = Math.min(advanced, d);
+        Object v = values[d].nextValue();
+        if (d == leaf) {
+          level = d;
+          value = (T) v;
+          repetitionLevel = first ? 0 : advanced + 1;
+          first = false;
+          return true;
+        }
+        startLevel(++d);
+      } else if (d == 0) {
+        inRow = false;
+        return false;
+      } else {
+        d--;
+      }
+    }
+  }
+
+  private void startLevel(int d) throws IOException {
+    lengths[d] = columns[d].isArray() ? values[d].nextLength() : 1;
+    remaining[d] = lengths[d];
+    indexes[d] = -1;
+  }
+
+  private void endRow() throws IOException {
+    while (next()) {
+    }
+  }
+
+  /** Return the current value. */
+  public T getValue() {
+    return value;
+  }
+
+  /** Return the index of the current value's element at a level. */
+  public int getIndex(int level) {
+    return indexes[level];
+  }
+
+  /** Return the number of elements of the array holding the current element. */
+  public int getLength(int level) {
+    return lengths[level];
+  }
+
+  /**
+   * Return zero for the first value of a row, otherwise one more than the
+   * shallowest level at which the current value starts a new element. E.g., for
+   * the leaf of an array of arrays, one means a new outer element and two a new
+   * inner element of the same outer element.
+   */
+  public int getRepetitionLevel() {
+    return repetitionLevel;
+  }
+
+  /**
+   * Move to a row, so that it is the next read by {@link #nextRow()}. Rows are
+   * skipped by reading, but within the row group holding the target.
+   */
+  public void seek(long target) throws IOException {
+    endRow();
+    long groupStart = reader.getRowGroupFirstRow(reader.findRowGroup(target));
+    if (target <= row || groupStart > row + 1) { // seek to a block start
+      for (ColumnValues v : values)
+        v.seek(groupStart);
+      row = groupStart - 1;
+      inRow = false;
+    }
+    while (row + 1 < target && nextRow()) {
+    }
+    endRow();
+  }
+
+}
@@ -19,20 +19,22 @@ package org.apache.trevni;
 
 import java.io.IOException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 class ColumnDescriptor<T extends Comparable> {
   final Input file;
   final ColumnMetaData metaData;
 
-  long start;
-  long dataStart;
+  long[] starts; // of the column's chunk in each row group
 
   BlockDescriptor[] blocks;
 
   long[] blockStarts; // for random access
   long[] firstRows; // for binary searches
   T[] firstValues; // for binary searches
+  BlockStatistics[] statistics; // for skipping blocks, or null
 
   public ColumnDescriptor(Input file, ColumnMetaData metaData) {
     this.file = file;
@@ -63,38 +65,61 @@ class ColumnDescriptor<T extends Comparable> {
     return firstRows[block] + blocks[block].rowCount;
   }
 
+  /** Return the statistics of each block, or null if they were not stored. */
+  public BlockStatistics[] getStatistics() throws IOException {
+    ensureBlocksRead();
+    if (statistics == null) {
+      byte[] bytes = metaData.get(ColumnMetaData.BLOCK_STATISTICS_KEY);
+      if (bytes == null)
+        return null;
+      InputBuffer in = new InputBuffer(new InputBytes(bytes));
+      BlockStatistics[] result = new BlockStatistics[blocks.length];
+      for (int i = 0; i < result.length; i++)
+        result[i] = BlockStatistics.read(in, metaData.getType(), metaData.hasBloomFilter());
+      statistics = result;
+    }
+    return statistics;
+  }
+
   public void ensureBlocksRead() throws IOException {
     if (blocks != null)
       return;
 
-    // read block descriptors
-    InputBuffer in = new InputBuffer(file, start);
-    int blockCount = in.readFixed32();
-    BlockDescriptor[] blocks = new BlockDescriptor[blockCount];
-    if (metaData.hasIndexValues())
-      firstValues = (T[]) new Comparable[blockCount];
-
-    for (int i = 0; i < blockCount; i++) {
-      blocks[i] = BlockDescriptor.read(in);
-      if (metaData.hasIndexValues())
-        firstValues[i] = in.readValue(metaData.getType());
-    }
-    dataStart = in.tell();
-
-    // compute blockStarts and firstRows
     Checksum checksum = Checksum.get(metaData);
-    blockStarts = new long[blocks.length];
-    firstRows = new long[blocks.length];
-    long startPosition = dataStart;
+    List<BlockDescriptor> blocks = new ArrayList<>();
+    List<T> firstValues = new ArrayList<>();
+    List<Long> blockStarts = new ArrayList<>();
     long row = 0;
-    for (int i = 0; i < blockCount; i++) {
-      BlockDescriptor b = blocks[i];
-      blockStarts[i] = startPosition;
-      firstRows[i] = row;
-      startPosition += b.compressedSize + checksum.size();
-      row += b.rowCount;
+    for (long start : starts) {
+      // read block descriptors
+      InputBuffer in = new InputBuffer(file, start);
+      int blockCount = in.readFixed32();
+      int first = blocks.size();
+      for (int i = 0; i < blockCount; i++) {
+        blocks.add(BlockDescriptor.read(in));
+        if (metaData.hasIndexValues())
+          firstValues.add(in.readValue(metaData.getType()));
+      }
+
+      // compute blockStarts
+      long startPosition = in.tell();
+      for (int i = first; i < blocks.size(); i++) {
+        blockStarts.add(startPosition);
+        startPosition += blocks.get(i).compressedSize + checksum.size();
+      }
     }
-    this.blocks = blocks;
+
+    // compute firstRows
+    this.blockStarts = new long[blocks.size()];
+    this.firstRows = new long[blocks.size()];
+    for (int i = 0; i < blocks.size(); i++) {
+      this.blockStarts[i] = blockStarts.get(i);
+      this.firstRows[i] = row;
+      row += blocks.get(i).rowCount;
+    }
+    if (metaData.hasIndexValues())
+      this.firstValues = firstValues.toArray((T[]) new Comparable[firstValues.size()]);
+    this.blocks = blocks.toArray(new BlockDescriptor[blocks.size()]);
   }
 
 }
@@ -22,6 +22,37 @@ import java.io.IOException;
 /** File-level metadata. */
 public class ColumnFileMetaData extends MetaData<ColumnFileMetaData> {
 
+  /**
+   * Set whether all columns store block statistics.
+   *
+   * @see ColumnMetaData#hasStatistics(boolean)
+   */
+  public ColumnFileMetaData hasStatistics(boolean statistics) {
+    if (!statistics)
+      setReservedBoolean(ColumnMetaData.BLOOM_KEY, false);
+    return setReservedBoolean(ColumnMetaData.STATISTICS_KEY, statistics);
+  }
+
+  /**
+   * Set whether all columns store bloom filters of block values.
+   *
+   * @see ColumnMetaData#hasBloomFilter(boolean)
+   */
+  public ColumnFileMetaData hasBloomFilter(boolean bloom) {
+    if (bloom)
+      setReservedBoolean(ColumnMetaData.STATISTICS_KEY, true);
+    return setReservedBoolean(ColumnMetaData.BLOOM_KEY, bloom);
+  }
+
+  /**
+   * Set whether all columns encode blocks.
+   *
+   * @see ColumnMetaData#hasEncodings(boolean)
+   */
+  public ColumnFileMetaData hasEncodings(boolean encodings) {
+    return setReservedBoolean(ColumnMetaData.ENCODINGS_KEY, encodings);
+  }
+
   static ColumnFileMetaData read(InputBuffer in) throws IOException {
     ColumnFileMetaData result = new ColumnFileMetaData();
     MetaData.read(in, result);
@@ -36,6 +36,9 @@ public class ColumnFileReader implements Closeable {
   private ColumnDescriptor[] columns;
   private Map<String, ColumnDescriptor> columnsByName;
 
+  private long[] groupFirstRows; // of each row group
+  private long[] groupPositions; // of each row group's first chunk
+
   /** Construct reading from the named file. */
   public ColumnFileReader(File file) throws IOException {
     this(new InputFile(file));
@@ -89,7 +92,57 @@ public class ColumnFileReader implements Closeable {
     return getColumn(name).metaData;
   }
 
-  private <T extends Comparable> ColumnDescriptor<T> getColumn(String name) {
+  /**
+   * Return the number of row groups in this file. Files written without a row
+   * group size have a single group.
+   *
+   * @see ColumnFileWriter#setRowGroupSize(long)
+   */
+  public int getRowGroupCount() {
+    return groupFirstRows.length;
+  }
+
+  /** Return the first row of a row group. */
+  public long getRowGroupFirstRow(int group) {
+    return groupFirstRows[group];
+  }
+
+  /** Return the number of rows in a row group. */
+  public long getRowGroupRowCount(int group) {
+    return (group + 1 < groupFirstRows.length ? groupFirstRows[group + 1] : rowCount) - groupFirstRows[group];
+  }
+
+  /**
+   * Return the position in this file where a row group starts. A file with a
+   * single group is taken to start at position zero.
+   */
+  public long getRowGroupPosition(int group) {
+    return groupPositions[group];
+  }
+
+  /** Return the row group holding a row. */
+  public int findRowGroup(long row) {
+    int group = Arrays.binarySearch(groupFirstRows, row);
+    if (group < 0)
+      group = -group - 2;
+    while (group + 1 < groupFirstRows.length && groupFirstRows[group + 1] == row) // skip empty groups
+      group++;
+    return group;
+  }
+
+  /**
+   * Return the rows of the row groups that start within a range of positions,
+   * e.g. the rows a task should read for its split of this file.
+   */
+  public RowRanges getRowRanges(long start, long length) {
+    RowRanges result = new RowRanges();
+    for (int group = 0; group < groupPositions.length; group++)
+      if (groupPositions[group] >= start && groupPositions[group] < start + length)
+        result.add(groupFirstRows[group], groupFirstRows[group] + getRowGroupRowCount(group));
+    return result;
+  }
+
+  <T extends Comparable> ColumnDescriptor<T> getColumn(String name) {
     ColumnDescriptor column = columnsByName.get(name);
     if (column == null)
       throw new TrevniRuntimeException("No column named: " + name);
@@ -98,7 +151,10 @@ public class ColumnFileReader implements Closeable {
 
   private void readHeader() throws IOException {
     InputBuffer in = new InputBuffer(file, 0);
-    readMagic(in);
+    if (readMagic(in)) {
+      readFooter();
+      return;
+    }
     this.rowCount = in.readFixed64();
     this.columnCount = in.readFixed32();
     this.metaData = ColumnFileMetaData.read(in);
@@ -107,18 +163,55 @@ public class ColumnFileReader implements Closeable {
     columns = new ColumnDescriptor[columnCount];
     readColumnMetaData(in);
     readColumnStarts(in);
+    this.groupFirstRows = new long[] { 0 };
+    this.groupPositions = new long[] { 0 };
   }
 
-  private void readMagic(InputBuffer in) throws IOException {
+  /** Read a file's metadata from the footer that follows its row groups. */
+  private void readFooter() throws IOException {
+    long length = file.length();
+    int tail = 8 + ColumnFileWriter.MAGIC_GROUPED.length; // footer start & magic
+    if (length < ColumnFileWriter.MAGIC_GROUPED.length + tail)
+      throw new IOException("Not a data file.");
+    InputBuffer in = new InputBuffer(file, length - tail);
+    in = new InputBuffer(file, in.readFixed64());
+
+    this.rowCount = in.readFixed64();
+    this.columnCount = in.readFixed32();
+    this.metaData = ColumnFileMetaData.read(in);
+    this.columnsByName = new HashMap<>(columnCount);
+
+    columns = new ColumnDescriptor[columnCount];
+    readColumnMetaData(in);
+    int groupCount = in.readFixed32();
+    this.groupFirstRows = new long[groupCount];
+    this.groupPositions = new long[groupCount];
+    for (ColumnDescriptor column : columns)
+      column.starts = new long[groupCount];
+    long row = 0;
+    for (int group = 0; group < groupCount; group++) {
+      groupFirstRows[group] = row;
+      row += in.readFixed64();
+      for (int i = 0; i < columnCount; i++)
+        columns[i].starts[group] = in.readFixed64();
+      groupPositions[group] = columnCount > 0 ? columns[0].starts[group] : 0;
+    }
+  }
+
+  /** Check a file's magic, returning true if it has row groups. */
+  private boolean readMagic(InputBuffer in) throws IOException {
     byte[] magic = new byte[ColumnFileWriter.MAGIC.length];
     try {
       in.readFully(magic);
     } catch (IOException e) {
       throw new IOException("Not a data file.");
     }
-    if (!(Arrays.equals(ColumnFileWriter.MAGIC, magic) || !Arrays.equals(ColumnFileWriter.MAGIC_1, magic)
-        || !Arrays.equals(ColumnFileWriter.MAGIC_0, magic)))
+    if (Arrays.equals(ColumnFileWriter.MAGIC_GROUPED, magic))
+      return true;
+    if (!(Arrays.equals(ColumnFileWriter.MAGIC, magic) || Arrays.equals(ColumnFileWriter.MAGIC_1, magic)
+        || Arrays.equals(ColumnFileWriter.MAGIC_0, magic)))
       throw new IOException("Not a data file.");
+    return false;
   }
 
   private void readColumnMetaData(InputBuffer in) throws IOException {
@@ -134,7 +227,7 @@ public class ColumnFileReader implements Closeable {
 
   private void readColumnStarts(InputBuffer in) throws IOException {
     for (int i = 0; i < columnCount; i++)
-      columns[i].start = in.readFixed64();
+      columns[i].starts = new long[] { in.readFixed64() };
   }
 
   /** Return an iterator over values in the named column. */
@@ -147,6 +240,23 @@ public class ColumnFileReader implements Closeable {
     return new ColumnValues<>(columns[column]);
   }
 
+  /**
+   * Return a cursor over the values of the named column, with their positions
+   * in the arrays of its ancestor columns.
+   */
+  public <T extends Comparable> ColumnCursor<T> getCursor(String columnName) throws IOException {
+    return new ColumnCursor<>(this, columnName);
+  }
+
+  /**
+   * Return the ranges of rows that might match a predicate. Rows outside them
+   * are in blocks whose statistics show that they cannot match, and need not be
+   * read. Rows inside them must still be tested.
+   */
+  public RowRanges getRowRanges(ColumnPredicate predicate) throws IOException {
+    return predicate.getRowRanges(this);
+  }
+
   @Override
   public void close() throws IOException {
     file.close();
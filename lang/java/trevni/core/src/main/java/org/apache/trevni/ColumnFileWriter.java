@@ -17,22 +17,40 @@
  */
 package org.apache.trevni;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
 
 /**
  * Writes data to a column file. All data is buffered until
  * {@link #writeTo(File)} is called.
+ *
+ * <p>
+ * By default all data is buffered in memory. When a maximum buffer size is set
+ * with {@link #setMaxBufferSize(long)}, completed blocks are moved to a
+ * temporary file whenever more than that many bytes of them are in memory, and
+ * copied from there by {@link #writeTo(OutputStream)}. Memory use is then
+ * bounded by the maximum plus an uncompressed block per column, whatever the
+ * size of the file. The temporary file is deleted by {@link #close()}.
+ *
+ * <p>
+ * When a row group size is set with {@link #setRowGroupSize(long)}, each
+ * column is written in a chunk per group of rows instead of in one run, and the
+ * file's metadata follows the groups. Reads of a range of rows then stay within
+ * its groups, and a file can be split between tasks at group boundaries.
  */
-public class ColumnFileWriter {
+public class ColumnFileWriter implements Closeable {
 
   static final byte[] MAGIC_0 = new byte[] { 'T', 'r', 'v', 0 };
   static final byte[] MAGIC_1 = new byte[] { 'T', 'r', 'v', 1 };
   static final byte[] MAGIC = new byte[] { 'T', 'r', 'v', 2 };
+  static final byte[] MAGIC_GROUPED = new byte[] { 'T', 'r', 'v', 3 };
 
   private ColumnFileMetaData metaData;
   private ColumnOutputBuffer[] columns;
@@ -41,6 +59,17 @@ public class ColumnFileWriter {
   private int columnCount;
   private long size;
 
+  private long maxBufferSize;
+  private File tempDirectory;
+  private long buffered; // bytes of completed blocks in memory
+  private SpillFile spillFile;
+
+  private long rowGroupSize;
+  private long groupRows; // in the current group
+  private long groupSize; // bytes of completed blocks in the current group
+  private List<ColumnChunk[]> groups = new ArrayList<>(); // completed groups
+  private List<Long> groupRowCounts = new ArrayList<>();
+
   /** Construct given metadata for each column in the file. */
   public ColumnFileWriter(ColumnFileMetaData fileMeta, ColumnMetaData... columnMeta) throws IOException {
     checkColumns(columnMeta);
@@ -72,11 +101,72 @@ public class ColumnFileWriter {
     size += n;
   }
 
+  /**
+   * Set the most bytes of completed blocks to hold in memory before moving them
+   * to a temporary file. Zero, the default, keeps all blocks in memory.
+   */
+  public void setMaxBufferSize(long maxBufferSize) {
+    if (maxBufferSize < 0)
+      throw new TrevniRuntimeException("Negative buffer size: " + maxBufferSize);
+    this.maxBufferSize = maxBufferSize;
+  }
+
+  /**
+   * Set the directory for the temporary file. By default, the directory named by
+   * the system property {@code java.io.tmpdir} is used.
+   */
+  public void setTempDirectory(File tempDirectory) {
+    this.tempDirectory = tempDirectory;
+  }
+
+  /**
+   * Start a new group of rows whenever the blocks of the current group add up to
+   * this many bytes. Zero, the default, writes all rows in a single group, in the
+   * format that all readers support.
+   */
+  public void setRowGroupSize(long rowGroupSize) {
+    if (rowGroupSize < 0)
+      throw new TrevniRuntimeException("Negative row group size: " + rowGroupSize);
+    if (rowCount > 0)
+      throw new TrevniRuntimeException("Rows already written.");
+    this.rowGroupSize = rowGroupSize;
+  }
+
+  void blockBuffered(int n) throws IOException {
+    buffered += n;
+    groupSize += n;
+    if (maxBufferSize > 0 && buffered > maxBufferSize)
+      spill();
+  }
+
+  private void spill() throws IOException {
+    if (spillFile == null)
+      spillFile = new SpillFile(tempDirectory);
+    for (ColumnChunk[] group : groups)
+      for (ColumnChunk chunk : group)
+        chunk.spill(spillFile);
+    for (ColumnOutputBuffer column : columns)
+      column.spill(spillFile);
+    buffered = 0;
+  }
+
+  private void endGroup() throws IOException {
+    if (groupRows == 0)
+      return;
+    ColumnChunk[] group = new ColumnChunk[columnCount];
+    for (int column = 0; column < columnCount; column++)
+      group[column] = columns[column].endChunk();
+    groups.add(group);
+    groupRowCounts.add(groupRows);
+    groupRows = 0;
+    groupSize = 0;
+  }
+
   /**
    * Return the approximate size of the file that will be written. Tries to
-   * slightly over-estimate. Indicates both the size in memory of the buffered
-   * data as well as the size of the file that will be written by
-   * {@link #writeTo(OutputStream)}.
+   * slightly over-estimate. Unless a maximum buffer size is set, indicates both
+   * the size in memory of the buffered data as well as the size of the file that
+   * will be written by {@link #writeTo(OutputStream)}.
    */
   public long sizeEstimate() {
     return size;
@@ -102,6 +192,8 @@ public class ColumnFileWriter {
 
   /** Expert: Called before any values are written to a row. */
   public void startRow() throws IOException {
+    if (rowGroupSize > 0 && groupSize >= rowGroupSize)
+      endGroup();
     for (int column = 0; column < columnCount; column++)
       columns[column].startRow();
   }
@@ -129,6 +221,7 @@ public class ColumnFileWriter {
     for (int column = 0; column < columnCount; column++)
       columns[column].endRow();
     rowCount++;
+    groupRows++;
   }
 
   /** Write all rows added to the named file. */
@@ -140,10 +233,23 @@ public class ColumnFileWriter {
 
   /** Write all rows added to the named output stream. */
   public void writeTo(OutputStream out) throws IOException {
+    if (rowGroupSize > 0) {
+      writeGroups(out);
+      return;
+    }
     writeHeader(out);
 
     for (int column = 0; column < columnCount; column++)
-      columns[column].writeTo(out);
+      columns[column].writeTo(out, spillFile);
+  }
+
+  /** Delete the temporary file, if any. */
+  @Override
+  public void close() throws IOException {
+    if (spillFile != null) {
+      spillFile.close();
+      spillFile = null;
+    }
   }
 
   private void writeHeader(OutputStream out) throws IOException {
@@ -158,7 +264,7 @@ public class ColumnFileWriter {
     metaData.write(header); // file metadata
 
     for (ColumnOutputBuffer column : columns)
-      column.getMeta().write(header); // column metadata
+      column.writeMeta(header); // column metadata
 
     for (long start : computeStarts(header.size()))
       header.writeFixed64(start); // column starts
@@ -167,6 +273,37 @@ public class ColumnFileWriter {
 
   }
 
+  private void writeGroups(OutputStream out) throws IOException {
+    endGroup();
+    out.write(MAGIC_GROUPED);
+    long position = MAGIC_GROUPED.length;
+    long[][] starts = new long[groups.size()][columnCount];
+    for (int group = 0; group < groups.size(); group++) {
+      for (int column = 0; column < columnCount; column++) {
+        ColumnChunk chunk = groups.get(group)[column];
+        starts[group][column] = position;
+        chunk.writeTo(out, spillFile);
+        position += chunk.size();
+      }
+    }
+
+    OutputBuffer footer = new OutputBuffer();
+    footer.writeFixed64(rowCount); // row count
+    footer.writeFixed32(columnCount); // column count
+    metaData.write(footer); // file metadata
+    for (ColumnOutputBuffer column : columns)
+      column.writeMeta(footer); // column metadata
+    footer.writeFixed32(groups.size()); // group count
+    for (int group = 0; group < groups.size(); group++) {
+      footer.writeFixed64(groupRowCounts.get(group)); // group row count
+      for (long start : starts[group])
+        footer.writeFixed64(start); // column starts
+    }
+    footer.writeFixed64(position); // footer start
+    footer.write(MAGIC_GROUPED);
+    footer.writeTo(out);
+  }
+
   private long[] computeStarts(long start) throws IOException {
     long[] result = new long[columnCount];
     start += columnCount * 8; // room for starts
@@ -29,6 +29,10 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
   static final String VALUES_KEY = RESERVED_KEY_PREFIX + "values";
   static final String PARENT_KEY = RESERVED_KEY_PREFIX + "parent";
   static final String ARRAY_KEY = RESERVED_KEY_PREFIX + "array";
+  static final String STATISTICS_KEY = RESERVED_KEY_PREFIX + "statistics";
+  static final String BLOOM_KEY = RESERVED_KEY_PREFIX + "bloom";
+  static final String BLOCK_STATISTICS_KEY = RESERVED_KEY_PREFIX + "blockStatistics";
+  static final String ENCODINGS_KEY = RESERVED_KEY_PREFIX + "encodings";
 
   // cache these values for better performance
   private String name;
@@ -120,6 +124,65 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
     return getBoolean(VALUES_KEY);
   }
 
+  /**
+   * Set whether the minimum value, maximum value and null count of each block
+   * are stored, so that readers can skip blocks that cannot match a
+   * {@link ColumnPredicate}. In array columns, empty arrays count as nulls.
+   */
+  public ColumnMetaData hasStatistics(boolean statistics) {
+    if (!statistics)
+      setReservedBoolean(BLOOM_KEY, false);
+    return setReservedBoolean(STATISTICS_KEY, statistics);
+  }
+
+  /**
+   * Get whether this column stores block statistics, as set for it or for its
+   * file.
+   */
+  public boolean hasStatistics() {
+    return getBooleanOrDefault(STATISTICS_KEY);
+  }
+
+  /**
+   * Set whether a bloom filter of each block's values is stored with its
+   * statistics, so that readers can also skip blocks that do not contain a value
+   * sought with {@link ColumnPredicate#eq(String, Object)}. Implies
+   * {@link #hasStatistics(boolean)}.
+   */
+  public ColumnMetaData hasBloomFilter(boolean bloom) {
+    if (bloom)
+      setReservedBoolean(STATISTICS_KEY, true);
+    return setReservedBoolean(BLOOM_KEY, bloom);
+  }
+
+  /**
+   * Get whether this column stores bloom filters of block values, as set for it
+   * or for its file.
+   */
+  public boolean hasBloomFilter() {
+    return getBooleanOrDefault(BLOOM_KEY);
+  }
+
+  /**
+   * Set whether each block's values are dictionary, run-length or delta encoded
+   * when that is smaller than writing them plainly. Dictionaries are used for
+   * strings and bytes, run-length and delta encodings for ints and longs. Array
+   * columns are always written plainly.
+   */
+  public ColumnMetaData hasEncodings(boolean encodings) {
+    return setReservedBoolean(ENCODINGS_KEY, encodings);
+  }
+
+  /** Get whether this column encodes blocks, as set for it or for its file. */
+  public boolean hasEncodings() {
+    return getBooleanOrDefault(ENCODINGS_KEY);
+  }
+
+  /** Whether each block starts with the id of its {@link BlockEncoding}. */
+  boolean isEncoded() {
+    return !isArray && hasEncodings();
+  }
+
   static ColumnMetaData read(InputBuffer in, ColumnFileReader file) throws IOException {
     ColumnMetaData result = new ColumnMetaData();
     MetaData.read(in, result);
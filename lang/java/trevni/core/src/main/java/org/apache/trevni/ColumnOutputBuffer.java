@@ -20,8 +20,6 @@ package org.apache.trevni;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 class ColumnOutputBuffer {
   private ColumnFileWriter writer;
@@ -29,11 +27,11 @@ class ColumnOutputBuffer {
   private Codec codec;
   private Checksum checksum;
   private OutputBuffer buffer;
-  private List<BlockDescriptor> blockDescriptors;
-  private List<byte[]> blockData;
-  private List<byte[]> firstValues;
+  private ColumnChunk chunk; // completed blocks of the current row group
+  private byte[] firstValue; // of the current block
   private int rowCount;
-  private long size = 4; // room for block count
+  private BlockStatistics statistics; // of the current block
+  private OutputBuffer blockStatistics; // of completed blocks
 
   public ColumnOutputBuffer(ColumnFileWriter writer, ColumnMetaData meta) throws IOException {
     this.writer = writer;
@@ -41,10 +39,11 @@ class ColumnOutputBuffer {
     this.codec = Codec.get(meta);
     this.checksum = Checksum.get(meta);
     this.buffer = new OutputBuffer();
-    this.blockDescriptors = new ArrayList<>();
-    this.blockData = new ArrayList<>();
-    if (meta.hasIndexValues())
-      this.firstValues = new ArrayList<>();
+    this.chunk = new ColumnChunk(meta.hasIndexValues());
+    if (meta.hasStatistics()) {
+      this.statistics = new BlockStatistics(meta.getType(), meta.hasBloomFilter());
+      this.blockStatistics = new OutputBuffer();
+    }
   }
 
   public ColumnMetaData getMeta() {
@@ -66,8 +65,19 @@ class ColumnOutputBuffer {
 
   public void writeValue(Object value) throws IOException {
     buffer.writeValue(value, meta.getType());
+    addStatistics(value);
     if (meta.hasIndexValues() && rowCount == 0)
-      firstValues.add(buffer.toByteArray());
+      firstValue = buffer.toByteArray();
+  }
+
+  void addStatistics(Object value) throws IOException {
+    if (statistics != null)
+      statistics.addValue(value);
+  }
+
+  void addNullStatistics() {
+    if (statistics != null)
+      statistics.addNull();
   }
 
   public void endRow() throws IOException {
@@ -78,45 +88,59 @@ class ColumnOutputBuffer {
     if (rowCount == 0)
       return;
     ByteBuffer raw = buffer.asByteBuffer();
+    if (meta.isEncoded())
+      raw = BlockEncoding.encode(raw, meta.getType());
     ByteBuffer c = codec.compress(raw);
 
-    blockDescriptors.add(new BlockDescriptor(rowCount, raw.remaining(), c.remaining()));
+    BlockDescriptor descriptor = new BlockDescriptor(rowCount, raw.remaining(), c.remaining());
 
     ByteBuffer data = ByteBuffer.allocate(c.remaining() + checksum.size());
     data.put(c);
     data.put(checksum.compute(raw));
-    blockData.add(data.array());
 
-    int sizeIncrement = (4 * 3) // descriptor
-        + (firstValues != null // firstValue
-            ? firstValues.get(firstValues.size() - 1).length
-            : 0)
-        + data.position(); // data
+    writer.incrementSize(chunk.add(descriptor, firstValue, data.array()));
 
-    writer.incrementSize(sizeIncrement);
-    size += sizeIncrement;
+    if (statistics != null) { // written with the metadata, in the file header
+      int start = blockStatistics.size();
+      statistics.write(blockStatistics);
+      writer.incrementSize(blockStatistics.size() - start);
+      statistics = new BlockStatistics(meta.getType(), meta.hasBloomFilter());
+    }
 
     buffer = new OutputBuffer();
     rowCount = 0;
+
+    writer.blockBuffered(data.position());
   }
 
-  public long size() throws IOException {
+  /** Move completed blocks from memory to the end of a spill file. */
+  void spill(SpillFile file) throws IOException {
+    chunk.spill(file);
+  }
+
+  /** Complete the current row group, returning its blocks. */
+  ColumnChunk endChunk() throws IOException {
     flushBuffer();
-    return size;
+    ColumnChunk result = chunk;
+    chunk = new ColumnChunk(meta.hasIndexValues());
+    return result;
   }
 
-  public void writeTo(OutputStream out) throws IOException {
-    OutputBuffer header = new OutputBuffer();
-    header.writeFixed32(blockDescriptors.size());
-    for (int i = 0; i < blockDescriptors.size(); i++) {
-      blockDescriptors.get(i).writeTo(header);
-      if (meta.hasIndexValues())
-        header.write(firstValues.get(i));
-    }
-    header.writeTo(out);
+  /** Write this column's metadata, with the statistics of all its blocks. */
+  public void writeMeta(OutputBuffer out) throws IOException {
+    flushBuffer();
+    if (blockStatistics != null)
+      meta.setReserved(ColumnMetaData.BLOCK_STATISTICS_KEY, blockStatistics.toByteArray());
+    meta.write(out);
+  }
+
+  public long size() throws IOException {
+    flushBuffer();
+    return chunk.size();
+  }
 
-    for (byte[] data : blockData)
-      out.write(data);
+  public void writeTo(OutputStream out, SpillFile file) throws IOException {
+    chunk.writeTo(out, file);
   }
 
 }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+
+/**
+ * A condition on the values of columns, used with
+ * {@link ColumnFileReader#getRowRanges(ColumnPredicate)} to skip blocks whose
+ * statistics show that they cannot match. Columns without statistics match
+ * everywhere. For array columns, a row matches if any of its values does.
+ *
+ * @see ColumnMetaData#hasStatistics(boolean)
+ */
+public abstract class ColumnPredicate {
+
+  ColumnPredicate() {
+  }
+
+  abstract RowRanges getRowRanges(ColumnFileReader reader) throws IOException;
+
+  /** Match values equal to a value. */
+  public static ColumnPredicate eq(String column, Object value) {
+    return new Compare(column, Op.EQ, value);
+  }
+
+  /** Match values less than a value. */
+  public static ColumnPredicate lt(String column, Object value) {
+    return new Compare(column, Op.LT, value);
+  }
+
+  /** Match values less than or equal to a value. */
+  public static ColumnPredicate le(String column, Object value) {
+    return new Compare(column, Op.LE, value);
+  }
+
+  /** Match values greater than a value. */
+  public static ColumnPredicate gt(String column, Object value) {
+    return new Compare(column, Op.GT, value);
+  }
+
+  /** Match values greater than or equal to a value. */
+  public static ColumnPredicate ge(String column, Object value) {
+    return new Compare(column, Op.GE, value);
+  }
+
+  /** Match rows without a value, i.e. empty arrays. */
+  public static ColumnPredicate isNull(String column) {
+    return new Compare(column, Op.IS_NULL, null);
+  }
+
+  /** Match rows with a value. */
+  public static ColumnPredicate notNull(String column) {
+    return new Compare(column, Op.NOT_NULL, null);
+  }
+
+  /** Match rows that all of a set of predicates match. */
+  public static ColumnPredicate and(ColumnPredicate... predicates) {
+    return new Combine(true, predicates);
+  }
+
+  /** Match rows that any of a set of predicates match. */
+  public static ColumnPredicate or(ColumnPredicate... predicates) {
+    return new Combine(false, predicates);
+  }
+
+  private enum Op {
+    EQ, LT, LE, GT, GE, IS_NULL, NOT_NULL
+  }
+
+  private static class Compare extends ColumnPredicate {
+    private final String column;
+    private final Op op;
+    private final Object value;
+
+    Compare(String column, Op op, Object value) {
+      this.column = column;
+      this.op = op;
+      this.value = value;
+    }
+
+    @Override
+    RowRanges getRowRanges(ColumnFileReader reader) throws IOException {
+      ColumnDescriptor<?> c = reader.getColumn(column);
+      BlockStatistics[] statistics = c.getStatistics();
+      if (statistics == null)
+        return RowRanges.all(reader.getRowCount());
+      ValueType type = c.metaData.getType();
+      Comparable v = value == null ? null : BlockStatistics.normalize(value, type);
+      RowRanges result = new RowRanges();
+      for (int block = 0; block < statistics.length; block++)
+        if (mightMatch(statistics[block], type, v))
+          result.add(c.firstRows[block], c.lastRow(block));
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean mightMatch(BlockStatistics s, ValueType type, Comparable v) throws IOException {
+      switch (op) {
+      case IS_NULL:
+        return s.nullCount > 0;
+      case NOT_NULL:
+        return s.valueCount > 0;
+      default:
+        if (s.valueCount == 0)
+          return false;
+        if (!BlockStatistics.hasRange(type))
+          return true;
+      }
+      switch (op) {
+      case EQ:
+        return s.min.compareTo(v) <= 0 && s.max.compareTo(v) >= 0
+            && (s.bloom == null || s.bloom.mightContain(new BlockStatistics(type).hash(v)));
+      case LT:
+        return s.min.compareTo(v) < 0;
+      case LE:
+        return s.min.compareTo(v) <= 0;
+      case GT:
+        return s.max.compareTo(v) > 0;
+      default: // GE
+        return s.max.compareTo(v) >= 0;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return column + " " + op + (value != null ? " " + value : "");
+    }
+  }
+
+  private static class Combine extends ColumnPredicate {
+    private final boolean and;
+    private final ColumnPredicate[] predicates;
+
+    Combine(boolean and, ColumnPredicate[] predicates) {
+      if (predicates.length == 0)
+        throw new TrevniRuntimeException("No predicates to combine");
+      this.and = and;
+      this.predicates = predicates;
+    }
+
+    @Override
+    RowRanges getRowRanges(ColumnFileReader reader) throws IOException {
+      RowRanges result = predicates[0].getRowRanges(reader);
+      for (int i = 1; i < predicates.length; i++) {
+        RowRanges ranges = predicates[i].getRowRanges(reader);
+        result = and ? result.and(ranges) : result.or(ranges);
+      }
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder("(");
+      for (int i = 0; i < predicates.length; i++) {
+        if (i > 0)
+          builder.append(and ? " AND " : " OR ");
+        builder.append(predicates[i]);
+      }
+      return builder.append(')').toString();
+    }
+  }
+}
@@ -17,9 +17,18 @@
  */
 package org.apache.trevni;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /** An iterator over column values. */
 public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable<T> {
@@ -37,6 +46,17 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
 
   private int arrayLength;
 
+  private Executor executor;
+  private int readAhead;
+  private final ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+  private int nextPending; // block decoded by the next task submitted
+  private final Queue<Codec> codecs = new ConcurrentLinkedQueue<>(); // for tasks
+  private final Queue<Checksum> checksums = new ConcurrentLinkedQueue<>();
+
+  private final int maxBlockSize; // of any compressed block with its checksum
+  private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>(); // reused
+  private byte[] blockBuffer; // holding the values of the current block
+
   ColumnValues(ColumnDescriptor column) throws IOException {
     this.column = column;
     this.type = column.metaData.getType();
@@ -45,6 +65,24 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
     this.in = new InputBuffer(column.file);
 
     column.ensureBlocksRead();
+    int max = 0;
+    for (int i = 0; i < column.blockCount(); i++)
+      max = Math.max(max, column.blocks[i].compressedSize);
+    this.maxBlockSize = max + checksum.size();
+  }
+
+  /**
+   * Expert: Decompress and verify up to readAhead blocks following the current
+   * block with tasks run by an executor, so that they are ready when values reach
+   * them. The input must support concurrent positioned reads. Values are still
+   * returned on the calling thread.
+   */
+  public void setReadAhead(Executor executor, int readAhead) {
+    if (readAhead < 1)
+      throw new TrevniRuntimeException("Read ahead must be positive: " + readAhead);
+    cancelPending();
+    this.executor = executor;
+    this.readAhead = readAhead;
   }
 
   /** Return the current row number within this file. */
@@ -57,7 +95,11 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
     if (r < row || r >= column.lastRow(block)) // not in current block
       startBlock(column.findBlock(r)); // seek to block start
     while (r > row && hasNext()) { // skip within block
-      values.skipValue(type);
+      if (column.metaData.isArray())
+        for (int length = values.readLength(); length > 0; length--)
+          values.skipValue(type);
+      else
+        values.skipValue(type);
       row++;
     }
     previous = null;
@@ -89,14 +131,100 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
     this.block = block;
     this.row = column.firstRows[block];
 
-    in.seek(column.blockStarts[block]);
+    if (blockBuffer != null) // no longer read
+      releaseBuffer(blockBuffer);
+    ByteBuffer data;
+    if (executor == null) {
+      in.seek(column.blockStarts[block]);
+      byte[] raw = takeBuffer();
+      in.readFully(raw, 0, column.blocks[block].compressedSize + checksum.size());
+      data = decode(block, raw, codec, checksum);
+    } else {
+      data = readAhead(block);
+    }
+    blockBuffer = data.array();
+    if (values == null)
+      values = new InputBuffer(new InputBytes(data), data.position());
+    else
+      values.reset(new InputBytes(data), data.position());
+  }
+
+  /** Return a buffer big enough for any block of this column. */
+  private byte[] takeBuffer() {
+    byte[] buffer = buffers.poll();
+    return buffer != null ? buffer : new byte[maxBlockSize];
+  }
+
+  /** Keep a buffer for reuse, if it is big enough and few are kept. */
+  private void releaseBuffer(byte[] buffer) {
+    if (buffer.length >= maxBlockSize && buffers.size() <= readAhead + 1)
+      buffers.add(buffer);
+  }
+
+  private ByteBuffer decode(int block, byte[] raw, Codec codec, Checksum checksum) throws IOException {
     int end = column.blocks[block].compressedSize;
-    byte[] raw = new byte[end + checksum.size()];
-    in.readFully(raw);
     ByteBuffer data = codec.decompress(ByteBuffer.wrap(raw, 0, end));
     if (!checksum.compute(data).equals(ByteBuffer.wrap(raw, end, checksum.size())))
       throw new IOException("Checksums mismatch.");
-    values = new InputBuffer(new InputBytes(data));
+    if (column.metaData.isEncoded())
+      data = BlockEncoding.decode(data, type);
+    if (data.array() != raw) // values were copied
+      releaseBuffer(raw);
+    return data;
+  }
+
+  private ByteBuffer readAhead(int block) throws IOException {
+    if (nextPending - pending.size() != block) { // not the next block read ahead
+      cancelPending();
+      nextPending = block;
+    }
+    while (pending.size() <= readAhead && nextPending < column.blockCount()) {
+      final int b = nextPending++;
+      FutureTask<ByteBuffer> task = new FutureTask<>(() -> decode(b));
+      executor.execute(task);
+      pending.add(task);
+    }
+    try {
+      return pending.remove().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted reading column: " + column.metaData.getName());
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException)
+        throw (IOException) e.getCause();
+      throw new TrevniRuntimeException(e.getCause());
+    }
+  }
+
+  /** Read and decode a block on an executor thread. */
+  private ByteBuffer decode(int block) throws IOException {
+    byte[] raw = takeBuffer();
+    int length = column.blocks[block].compressedSize + checksum.size();
+    long position = column.blockStarts[block];
+    for (int offset = 0; offset < length;) {
+      int n = column.file.read(position + offset, raw, offset, length - offset);
+      if (n < 0)
+        throw new EOFException();
+      offset += n;
+    }
+    Codec c = codecs.poll(); // codecs and checksums are not thread-safe
+    if (c == null)
+      c = Codec.get(column.metaData);
+    Checksum s = checksums.poll();
+    if (s == null)
+      s = Checksum.get(column.metaData);
+    try {
+      return decode(block, raw, c, s);
+    } finally {
+      codecs.add(c);
+      checksums.add(s);
+    }
+  }
+
+  private void cancelPending() {
+    for (Future<ByteBuffer> task : pending)
+      task.cancel(false);
+    pending.clear();
   }
 
   @Override
@@ -148,6 +276,78 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
     return previous = values.readValue(type);
   }
 
+  /**
+   * Read up to a number of rows into a vector, without creating an object per
+   * value. Rows are read from a single block, so fewer may be read at a block's
+   * end. Returns the number of rows read, zero at the end of the column. Only
+   * for columns without a parent.
+   */
+  public int nextBatch(ColumnVector vector, int maxRows) throws IOException {
+    if (column.metaData.getParent() != null)
+      throw new TrevniRuntimeException("Column has parent: " + column.metaData.getName());
+    vector.reset();
+    if (row >= column.lastRow(block)) {
+      if (!hasNext())
+        return 0;
+      startBlock(block + 1);
+    }
+    int rows = (int) Math.min(maxRows, column.lastRow(block) - row);
+    if (column.metaData.isArray()) {
+      vector.ensureRows(rows);
+      for (int r = 0; r < rows; r++) {
+        int length = values.readLength();
+        vector.lengths[r] = length;
+        readValues(vector, length);
+      }
+    } else {
+      readValues(vector, rows);
+    }
+    vector.rowCount = rows;
+    row += rows;
+    previous = null;
+    return rows;
+  }
+
+  private void readValues(ColumnVector vector, int count) throws IOException {
+    if (count == 0)
+      return;
+    int start = vector.valueCount;
+    vector.ensureValues(type, start + count);
+    switch (type) {
+    case NULL:
+      break;
+    case BOOLEAN:
+      values.readBooleans(vector.booleans, start, count);
+      break;
+    case INT:
+      values.readInts(vector.ints, start, count);
+      break;
+    case LONG:
+      values.readLongs(vector.longs, start, count);
+      break;
+    case FIXED32:
+      values.readFixed32s(vector.ints, start, count);
+      break;
+    case FIXED64:
+      values.readFixed64s(vector.longs, start, count);
+      break;
+    case FLOAT:
+      values.readFloats(vector.floats, start, count);
+      break;
+    case DOUBLE:
+      values.readDoubles(vector.doubles, start, count);
+      break;
+    case STRING:
+    case BYTES:
+      vector.bytes = values.getBuffer();
+      values.readSlices(vector.starts, vector.ends, start, count);
+      break;
+    default:
+      throw new TrevniRuntimeException("Unknown value type: " + type);
+    }
+    vector.valueCount = start + count;
+  }
+
   @Override
   public void remove() {
     throw new UnsupportedOperationException();
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.util.Arrays;
+
+/**
+ * A batch of values of a column, filled by
+ * {@link ColumnValues#nextBatch(ColumnVector, int)}. Values are held in a
+ * primitive array chosen by the column's type:
+ * <ul>
+ * <li>{@link ValueType#BOOLEAN}: {@link #getBooleans()}</li>
+ * <li>{@link ValueType#INT} and {@link ValueType#FIXED32}:
+ * {@link #getInts()}</li>
+ * <li>{@link ValueType#LONG} and {@link ValueType#FIXED64}:
+ * {@link #getLongs()}</li>
+ * <li>{@link ValueType#FLOAT}: {@link #getFloats()}</li>
+ * <li>{@link ValueType#DOUBLE}: {@link #getDoubles()}</li>
+ * <li>{@link ValueType#STRING} and {@link ValueType#BYTES}: value {@code i} is
+ * the bytes of {@link #getBytes()} from {@link #getStarts()}{@code [i]} to
+ * {@link #getEnds()}{@code [i]}. Strings are UTF-8.</li>
+ * </ul>
+ * For array columns {@link #getLengths()} holds the number of values in each
+ * row, and values of successive rows follow each other. Arrays are reused by
+ * the next batch, so values must be consumed or copied before it is read.
+ */
+public class ColumnVector {
+  private static final int INITIAL_SIZE = 1024;
+
+  int rowCount;
+  int valueCount;
+
+  int[] lengths;
+
+  boolean[] booleans;
+  int[] ints;
+  long[] longs;
+  float[] floats;
+  double[] doubles;
+
+  byte[] bytes;
+  int[] starts;
+  int[] ends;
+
+  /** Return the number of rows in this batch. */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /** Return the number of values in this batch. */
+  public int getValueCount() {
+    return valueCount;
+  }
+
+  /** Return the number of values in each row of an array column. */
+  public int[] getLengths() {
+    return lengths;
+  }
+
+  /** Return the values of a boolean column. */
+  public boolean[] getBooleans() {
+    return booleans;
+  }
+
+  /** Return the values of an int or fixed32 column. */
+  public int[] getInts() {
+    return ints;
+  }
+
+  /** Return the values of a long or fixed64 column. */
+  public long[] getLongs() {
+    return longs;
+  }
+
+  /** Return the values of a float column. */
+  public float[] getFloats() {
+    return floats;
+  }
+
+  /** Return the values of a double column. */
+  public double[] getDoubles() {
+    return doubles;
+  }
+
+  /** Return the buffer that string and bytes values are slices of. */
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  /** Return the start of each string or bytes value in {@link #getBytes()}. */
+  public int[] getStarts() {
+    return starts;
+  }
+
+  /** Return the end of each string or bytes value in {@link #getBytes()}. */
+  public int[] getEnds() {
+    return ends;
+  }
+
+  void reset() {
+    rowCount = 0;
+    valueCount = 0;
+  }
+
+  /** Ensure room for a number of row lengths. */
+  void ensureRows(int count) {
+    if (lengths == null || lengths.length < count)
+      lengths = new int[Math.max(count, INITIAL_SIZE)];
+  }
+
+  /** Ensure room for a number of values of a type, keeping those read so far. */
+  void ensureValues(ValueType type, int count) {
+    switch (type) {
+    case BOOLEAN:
+      if (booleans == null || booleans.length < count)
+        booleans = booleans == null ? new boolean[size(count)] : Arrays.copyOf(booleans, size(count));
+      break;
+    case INT:
+    case FIXED32:
+      if (ints == null || ints.length < count)
+        ints = ints == null ? new int[size(count)] : Arrays.copyOf(ints, size(count));
+      break;
+    case LONG:
+    case FIXED64:
+      if (longs == null || longs.length < count)
+        longs = longs == null ? new long[size(count)] : Arrays.copyOf(longs, size(count));
+      break;
+    case FLOAT:
+      if (floats == null || floats.length < count)
+        floats = floats == null ? new float[size(count)] : Arrays.copyOf(floats, size(count));
+      break;
+    case DOUBLE:
+      if (doubles == null || doubles.length < count)
+        doubles = doubles == null ? new double[size(count)] : Arrays.copyOf(doubles, size(count));
+      break;
+    case STRING:
+    case BYTES:
+      if (starts == null || starts.length < count) {
+        starts = starts == null ? new int[size(count)] : Arrays.copyOf(starts, size(count));
+        ends = ends == null ? new int[size(count)] : Arrays.copyOf(ends, size(count));
+      }
+      break;
+    default: // nulls have no values
+    }
+  }
+
+  private static int size(int count) {
+    return Math.max(Integer.highestOneBit(Math.max(count - 1, 1)) << 1, INITIAL_SIZE);
+  }
+}
@@ -51,15 +51,24 @@ class InputBuffer {
     this.offset = position;
 
     if (in instanceof InputBytes) { // use buffer directly
-      this.buf = ((InputBytes) in).getBuffer();
-      this.limit = (int) in.length();
-      this.offset = limit;
-      this.pos = (int) position;
+      reset((InputBytes) in, position);
     } else { // create new buffer
       this.buf = new byte[8192]; // big enough for primitives
     }
   }
 
+  /** Reuse this to read other bytes, as if newly constructed for them. */
+  void reset(InputBytes in, long position) throws IOException {
+    this.in = in;
+    this.inLength = in.length();
+    this.buf = in.getBuffer();
+    this.limit = (int) inLength;
+    this.offset = limit;
+    this.pos = (int) position;
+    this.bitCount = 0;
+    this.runLength = 0;
+  }
+
   public void seek(long position) throws IOException {
     runLength = 0;
     if (position >= (offset - limit) && position <= offset) {
@@ -340,6 +349,82 @@ class InputBuffer {
     skip(readInt());
   }
 
+  /** Read a number of booleans into an array. */
+  void readBooleans(boolean[] values, int start, int count) throws IOException {
+    for (int i = start, end = start + count; i < end; i++)
+      values[i] = readBoolean();
+  }
+
+  /** Read a number of ints into an array. */
+  void readInts(int[] values, int start, int count) throws IOException {
+    for (int i = start, end = start + count; i < end; i++)
+      values[i] = readInt();
+  }
+
+  /** Read a number of longs into an array. */
+  void readLongs(long[] values, int start, int count) throws IOException {
+    for (int i = start, end = start + count; i < end; i++)
+      values[i] = readLong();
+  }
+
+  /** Read a number of fixed32s into an array. */
+  void readFixed32s(int[] values, int start, int count) throws IOException {
+    if ((limit - pos) < 4L * count) { // maybe not in buffer
+      for (int i = start, end = start + count; i < end; i++)
+        values[i] = readFixed32();
+      return;
+    }
+    for (int i = start, end = start + count; i < end; i++, pos += 4)
+      values[i] = (buf[pos] & 0xff) | ((buf[pos + 1] & 0xff) << 8) | ((buf[pos + 2] & 0xff) << 16)
+          | ((buf[pos + 3] & 0xff) << 24);
+  }
+
+  /** Read a number of fixed64s into an array. */
+  void readFixed64s(long[] values, int start, int count) throws IOException {
+    if ((limit - pos) < 8L * count) { // maybe not in buffer
+      for (int i = start, end = start + count; i < end; i++)
+        values[i] = readFixed64();
+      return;
+    }
+    for (int i = start, end = start + count; i < end; i++, pos += 8)
+      values[i] = (buf[pos] & 0xffL) | ((buf[pos + 1] & 0xffL) << 8) | ((buf[pos + 2] & 0xffL) << 16)
+          | ((buf[pos + 3] & 0xffL) << 24) | ((buf[pos + 4] & 0xffL) << 32) | ((buf[pos + 5] & 0xffL) << 40)
+          | ((buf[pos + 6] & 0xffL) << 48) | ((buf[pos + 7] & 0xffL) << 56);
+  }
+
+  /** Read a number of floats into an array. */
+  void readFloats(float[] values, int start, int count) throws IOException {
+    for (int i = start, end = start + count; i < end; i++)
+      values[i] = readFloat();
+  }
+
+  /** Read a number of doubles into an array. */
+  void readDoubles(double[] values, int start, int count) throws IOException {
+    for (int i = start, end = start + count; i < end; i++)
+      values[i] = readDouble();
+  }
+
+  /**
+   * Skip a number of strings or bytes, storing where each starts and ends in
+   * {@link #getBuffer()}. Only for buffers reading {@link InputBytes}.
+   */
+  void readSlices(int[] starts, int[] ends, int start, int count) throws IOException {
+    assert in instanceof InputBytes;
+    for (int i = start, end = start + count; i < end; i++) {
+      int length = readInt();
+      if (length < 0 || length > limit - pos)
+        throw new EOFException();
+      starts[i] = pos;
+      pos += length;
+      ends[i] = pos;
+    }
+  }
+
+  /** Return the array values are read from. */
+  byte[] getBuffer() {
+    return buf;
+  }
+
   private void skip(long length) throws IOException {
     seek(tell() + length);
   }
@@ -31,7 +31,7 @@ public class InputBytes extends ByteArrayInputStream implements Input {
 
   /** Construct for the given bytes. */
   public InputBytes(ByteBuffer data) {
-    super(data.array(), data.position(), data.limit());
+    super(data.array(), data.position(), data.remaining());
   }
 
   @Override
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@link Input} for files that are memory-mapped, so that reads of files in
+ * the page cache are copies from memory rather than system calls. Reads may be
+ * concurrent. The mapping is released when it is garbage collected, not when
+ * this is closed.
+ */
+public class InputMappedFile implements Input {
+  private static final int MAX_REGION_SIZE = 1 << 30;
+
+  private final long length;
+  private MappedByteBuffer[] regions; // of MAX_REGION_SIZE, but the last
+
+  /** Construct for the given file. */
+  public InputMappedFile(File file) throws IOException {
+    try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+      FileChannel channel = in.getChannel();
+      this.length = channel.size();
+      this.regions = new MappedByteBuffer[(int) ((length + MAX_REGION_SIZE - 1) / MAX_REGION_SIZE)];
+      for (int i = 0; i < regions.length; i++) {
+        long start = (long) i * MAX_REGION_SIZE;
+        regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAX_REGION_SIZE, length - start));
+      }
+    }
+  }
+
+  @Override
+  public long length() throws IOException {
+    return length;
+  }
+
+  @Override
+  public int read(long position, byte[] b, int start, int len) throws IOException {
+    if (regions == null)
+      throw new IOException("Input is closed.");
+    if (position >= length)
+      return -1;
+    len = (int) Math.min(len, length - position);
+    for (int done = 0; done < len;) { // may span regions
+      long p = position + done;
+      ByteBuffer region = regions[(int) (p / MAX_REGION_SIZE)].duplicate(); // for concurrent reads
+      region.position((int) (p % MAX_REGION_SIZE));
+      int n = Math.min(len - done, region.remaining());
+      region.get(b, start + done, n);
+      done += n;
+    }
+    return len;
+  }
+
+  @Override
+  public void close() throws IOException {
+    regions = null;
+  }
+
+}
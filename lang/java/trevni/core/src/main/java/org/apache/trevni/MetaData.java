@@ -78,6 +78,11 @@ public class MetaData<T extends MetaData> extends LinkedHashMap<String, byte[]>
     return get(key) != null;
   }
 
+  /** True iff a key is present here or in the defaults. */
+  boolean getBooleanOrDefault(String key) {
+    return get(key) != null || (defaults != null && defaults.get(key) != null);
+  }
+
   /** Set a metadata property to a binary value. */
   public T set(String key, byte[] value) {
     if (isReserved(key)) {
@@ -102,6 +107,11 @@ public class MetaData<T extends MetaData> extends LinkedHashMap<String, byte[]>
     return (T) this;
   }
 
+  T setReserved(String key, byte[] value) {
+    put(key, value);
+    return (T) this;
+  }
+
   T setReservedBoolean(String key, boolean value) {
     if (value)
       setReserved(key, "");
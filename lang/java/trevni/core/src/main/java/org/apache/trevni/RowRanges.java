@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, disjoint ranges of rows in a file. Each range includes its start row
+ * and excludes its end row.
+ */
+public final class RowRanges {
+  private long[] starts;
+  private long[] ends;
+  private int size;
+
+  RowRanges() {
+    this.starts = new long[8];
+    this.ends = new long[8];
+  }
+
+  /** Return a single range of all rows. */
+  static RowRanges all(long rowCount) {
+    RowRanges result = new RowRanges();
+    result.add(0, rowCount);
+    return result;
+  }
+
+  /**
+   * Add a range that starts at or after the end of the last. Adjacent ranges are
+   * merged.
+   */
+  void add(long start, long end) {
+    if (start >= end)
+      return;
+    if (size > 0 && ends[size - 1] >= start) {
+      ends[size - 1] = Math.max(ends[size - 1], end);
+      return;
+    }
+    if (size == starts.length) {
+      starts = Arrays.copyOf(starts, size * 2);
+      ends = Arrays.copyOf(ends, size * 2);
+    }
+    starts[size] = start;
+    ends[size] = end;
+    size++;
+  }
+
+  /** Return the rows in both these ranges and others. */
+  public RowRanges and(RowRanges other) {
+    RowRanges result = new RowRanges();
+    int i = 0;
+    int j = 0;
+    while (i < size && j < other.size) {
+      result.add(Math.max(starts[i], other.starts[j]), Math.min(ends[i], other.ends[j]));
+      if (ends[i] < other.ends[j])
+        i++;
+      else
+        j++;
+    }
+    return result;
+  }
+
+  /** Return the rows in either these ranges or others. */
+  public RowRanges or(RowRanges other) {
+    RowRanges result = new RowRanges();
+    int i = 0;
+    int j = 0;
+    while (i < size || j < other.size) {
+      if (j == other.size || (i < size && starts[i] <= other.starts[j])) {
+        result.add(starts[i], ends[i]);
+        i++;
+      } else {
+        result.add(other.starts[j], other.ends[j]);
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /** Return the number of ranges. */
+  public int size() {
+    return size;
+  }
+
+  /** Return the first row of a range. */
+  public long getStart(int range) {
+    return starts[range];
+  }
+
+  /** Return the row after the last of a range. */
+  public long getEnd(int range) {
+    return ends[range];
+  }
+
+  /** Return the number of rows in all ranges. */
+  public long getRowCount() {
+    long count = 0;
+    for (int i = 0; i < size; i++)
+      count += ends[i] - starts[i];
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0)
+        builder.append(", ");
+      builder.append(starts[i]).append('-').append(ends[i]);
+    }
+    return builder.append(']').toString();
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A temporary file that holds compressed blocks that a {@link ColumnFileWriter}
+ * no longer keeps in memory. Blocks are appended, and ranges of them are copied
+ * to the final file when it is written. The file is deleted when closed.
+ */
+class SpillFile implements Closeable {
+  private final File file;
+  private final RandomAccessFile raf;
+  private final FileChannel channel;
+  private long length;
+
+  SpillFile(File dir) throws IOException {
+    this.file = File.createTempFile("trevni-", ".spill", dir);
+    file.deleteOnExit();
+    this.raf = new RandomAccessFile(file, "rw");
+    this.channel = raf.getChannel();
+  }
+
+  /** Appends data and returns the position it was written at. */
+  long append(byte[] data) throws IOException {
+    long position = length;
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    while (buffer.hasRemaining())
+      length += channel.write(buffer, length);
+    return position;
+  }
+
+  /** Copies a range of this file to a stream. */
+  void transferTo(long position, long count, OutputStream out) throws IOException {
+    WritableByteChannel target = Channels.newChannel(out);
+    long end = position + count;
+    while (position < end) {
+      long n = channel.transferTo(position, end - position, target);
+      if (n <= 0)
+        throw new EOFException("Spill file truncated: " + file);
+      position += n;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      raf.close();
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -24,6 +24,8 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -174,6 +176,329 @@ public class TestColumnFile {
     Assert.assertEquals(COUNT, count);
   }
 
+  @Test
+  public void testSpill() throws Exception {
+    FILE.delete();
+    File tmp = new File("target", "spill");
+    tmp.mkdirs();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.FIXED32),
+        new ColumnMetaData("b", ValueType.STRING).hasIndexValues(true));
+    out.setMaxBufferSize(OutputBuffer.BLOCK_SIZE);
+    out.setTempDirectory(tmp);
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++)
+      out.writeRow(random.nextInt(), TestUtil.randomString(random));
+    Assert.assertEquals(1, tmp.list().length);
+    out.writeTo(FILE);
+    out.close();
+    Assert.assertEquals(0, tmp.list().length);
+
+    random = TestUtil.createRandom();
+    ColumnFileReader in = new ColumnFileReader(FILE);
+    Assert.assertEquals(COUNT, in.getRowCount());
+    Iterator<Integer> i = in.getValues("a");
+    Iterator<String> j = in.getValues("b");
+    int count = 0;
+    while (i.hasNext() && j.hasNext()) {
+      Assert.assertEquals(random.nextInt(), (int) i.next());
+      Assert.assertEquals(TestUtil.randomString(random), j.next());
+      count++;
+    }
+    Assert.assertEquals(COUNT, count);
+    in.close();
+  }
+
+  @Test
+  public void testReadAhead() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.LONG),
+        new ColumnMetaData("b", ValueType.STRING));
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++)
+      out.writeRow(random.nextLong(), TestUtil.randomString(random));
+    out.writeTo(FILE);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      ColumnValues<Long> a = in.getValues("a");
+      ColumnValues<String> b = in.getValues("b");
+      a.setReadAhead(executor, 3);
+      b.setReadAhead(executor, 3);
+      random = TestUtil.createRandom();
+      int count = 0;
+      while (a.hasNext() && b.hasNext()) {
+        Assert.assertEquals(random.nextLong(), (long) a.next());
+        Assert.assertEquals(TestUtil.randomString(random), b.next());
+        count++;
+      }
+      Assert.assertEquals(COUNT, count);
+
+      ColumnValues<Long> c = in.getValues("a");
+      c.setReadAhead(executor, 2);
+      c.seek(COUNT / 2);
+      random = TestUtil.createRandom();
+      for (int i = 0; i < COUNT / 2; i++) {
+        random.nextLong();
+        TestUtil.randomString(random);
+      }
+      Assert.assertEquals(random.nextLong(), (long) c.next());
+      c.seek(1);
+      random = TestUtil.createRandom();
+      random.nextLong();
+      TestUtil.randomString(random);
+      Assert.assertEquals(random.nextLong(), (long) c.next());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRowGroups() throws Exception {
+    FILE.delete();
+    File tmp = new File("target", "groups");
+    tmp.mkdirs();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.FIXED32),
+        new ColumnMetaData("b", ValueType.STRING).hasIndexValues(true));
+    out.setRowGroupSize(OutputBuffer.BLOCK_SIZE / 4);
+    out.setMaxBufferSize(OutputBuffer.BLOCK_SIZE);
+    out.setTempDirectory(tmp);
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++)
+      out.writeRow(random.nextInt(), String.format("%08d", i));
+    out.writeTo(FILE);
+    out.close();
+
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      Assert.assertEquals(COUNT, in.getRowCount());
+      int groups = in.getRowGroupCount();
+      Assert.assertTrue(groups > 1);
+      long rows = 0;
+      for (int g = 0; g < groups; g++) {
+        Assert.assertEquals(rows, in.getRowGroupFirstRow(g));
+        Assert.assertEquals(g, in.findRowGroup(rows));
+        rows += in.getRowGroupRowCount(g);
+      }
+      Assert.assertEquals(COUNT, rows);
+
+      long split = FILE.length() / 3; // splits cover each group once
+      rows = 0;
+      for (long start = 0; start < FILE.length(); start += split)
+        rows += in.getRowRanges(start, split).getRowCount();
+      Assert.assertEquals(COUNT, rows);
+
+      random = TestUtil.createRandom();
+      ColumnValues<Integer> a = in.getValues("a");
+      ColumnValues<String> b = in.getValues("b");
+      int count = 0;
+      while (a.hasNext() && b.hasNext()) {
+        Assert.assertEquals(random.nextInt(), (int) a.next());
+        Assert.assertEquals(String.format("%08d", count), b.next());
+        count++;
+      }
+      Assert.assertEquals(COUNT, count);
+
+      long last = in.getRowGroupFirstRow(groups - 1);
+      b.seek(last);
+      Assert.assertEquals(String.format("%08d", last), b.next());
+      b.seek(String.format("%08d", COUNT / 3));
+      Assert.assertEquals(String.format("%08d", COUNT / 3), b.next());
+    }
+    Assert.assertEquals(0, tmp.list().length);
+  }
+
+  @Test
+  public void testCursor() throws Exception {
+    FILE.delete();
+    ColumnMetaData a = new ColumnMetaData("a", ValueType.NULL).isArray(true);
+    ColumnMetaData b = new ColumnMetaData("a#b", ValueType.LONG).isArray(true).setParent(a);
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), a, b, new ColumnMetaData("c", ValueType.INT));
+    out.setRowGroupSize(OutputBuffer.BLOCK_SIZE / 4);
+    for (int i = 0; i < COUNT; i++) {
+      out.startRow();
+      out.writeLength(i % 3, 0);
+      for (int j = 0; j < i % 3; j++) {
+        out.writeValue(null, 0);
+        out.writeLength((i + j) % 3, 1);
+        for (int k = 0; k < (i + j) % 3; k++)
+          out.writeValue(i * 100L + j * 10 + k, 1);
+      }
+      out.writeValue(i, 2);
+      out.endRow();
+    }
+    out.writeTo(FILE);
+    out.close();
+
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      ColumnCursor<Long> cursor = in.getCursor("a#b");
+      Assert.assertEquals(2, cursor.getLevelCount());
+      Assert.assertEquals("a", cursor.getColumn(0).getName());
+      int i = 0;
+      while (cursor.nextRow()) {
+        Assert.assertEquals(i, cursor.getRow());
+        int previousJ = -1;
+        boolean first = true;
+        while (cursor.next()) {
+          int j = cursor.getIndex(0);
+          int k = cursor.getIndex(1);
+          Assert.assertEquals(i % 3, cursor.getLength(0));
+          Assert.assertEquals((i + j) % 3, cursor.getLength(1));
+          Assert.assertEquals(i * 100L + j * 10 + k, (long) cursor.getValue());
+          Assert.assertEquals(first ? 0 : j != previousJ ? 1 : 2, cursor.getRepetitionLevel());
+          previousJ = j;
+          first = false;
+        }
+        i++;
+        if (i % 2 == 0 && cursor.nextRow()) // skip a row without reading its values
+          i++;
+      }
+      Assert.assertEquals(COUNT, i);
+
+      long last = in.getRowGroupFirstRow(in.getRowGroupCount() - 1) + 5;
+      for (long target : new long[] { last, 7, COUNT / 2 }) {
+        cursor.seek(target);
+        Assert.assertTrue(cursor.nextRow());
+        Assert.assertEquals(target, cursor.getRow());
+        int count = 0;
+        while (cursor.next())
+          count++;
+        int expected = 0;
+        for (int j = 0; j < target % 3; j++)
+          expected += (target + j) % 3;
+        Assert.assertEquals(expected, count);
+      }
+    }
+  }
+
+  @Test
+  public void testMapped() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.LONG),
+        new ColumnMetaData("b", ValueType.STRING));
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++)
+      out.writeRow(random.nextLong(), TestUtil.randomString(random));
+    out.writeTo(FILE);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (ColumnFileReader in = new ColumnFileReader(new InputMappedFile(FILE))) {
+      Assert.assertEquals(COUNT, in.getRowCount());
+      ColumnValues<Long> a = in.getValues("a");
+      ColumnValues<String> b = in.getValues("b");
+      b.setReadAhead(executor, 2);
+      random = TestUtil.createRandom();
+      int count = 0;
+      while (a.hasNext() && b.hasNext()) {
+        Assert.assertEquals(random.nextLong(), (long) a.next());
+        Assert.assertEquals(TestUtil.randomString(random), b.next());
+        count++;
+      }
+      Assert.assertEquals(COUNT, count);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testEncodings() throws Exception {
+    long plain = writeEncoded(false);
+    long encoded = writeEncoded(true);
+    Assert.assertTrue(encoded + " >= " + plain, encoded < plain);
+
+    String[] names = { "red", "green", "blue" };
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      ColumnValues<String> a = in.getValues("a");
+      ColumnValues<Long> b = in.getValues("b");
+      ColumnValues<Integer> c = in.getValues("c");
+      ColumnValues<Long> d = in.getValues("d");
+      ColumnValues<String> e = in.getValues("e");
+      Random random = TestUtil.createRandom();
+      for (int i = 0; i < COUNT; i++) {
+        Assert.assertEquals(names[i % 3], a.next());
+        Assert.assertEquals(i * 7L, (long) b.next());
+        Assert.assertEquals(i / 100, (int) c.next());
+        Assert.assertEquals(Long.MIN_VALUE + i * (long) Integer.MAX_VALUE, (long) d.next());
+        Assert.assertEquals(TestUtil.randomString(random), e.next());
+      }
+      Assert.assertFalse(a.hasNext());
+
+      c.seek(COUNT / 2); // seeks within decoded blocks
+      Assert.assertEquals(COUNT / 2 / 100, (int) c.next());
+    }
+  }
+
+  private long writeEncoded(boolean encodings) throws Exception {
+    FILE.delete();
+    String[] names = { "red", "green", "blue" };
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta().hasEncodings(encodings),
+        new ColumnMetaData("a", ValueType.STRING), new ColumnMetaData("b", ValueType.LONG),
+        new ColumnMetaData("c", ValueType.INT), new ColumnMetaData("d", ValueType.FIXED64),
+        new ColumnMetaData("e", ValueType.STRING));
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++)
+      out.writeRow(names[i % 3], i * 7L, i / 100, Long.MIN_VALUE + i * (long) Integer.MAX_VALUE,
+          TestUtil.randomString(random));
+    out.writeTo(FILE);
+    return FILE.length();
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.LONG),
+        new ColumnMetaData("b", ValueType.STRING), new ColumnMetaData("c", ValueType.FIXED32),
+        new ColumnMetaData("d", ValueType.BOOLEAN), new ColumnMetaData("e", ValueType.DOUBLE).isArray(true));
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++) {
+      out.startRow();
+      out.writeValue(random.nextLong(), 0);
+      out.writeValue(TestUtil.randomString(random), 1);
+      out.writeValue(random.nextInt(), 2);
+      out.writeValue(random.nextBoolean(), 3);
+      out.writeLength(i % 3, 4);
+      for (int j = 0; j < i % 3; j++)
+        out.writeValue(random.nextDouble(), 4);
+      out.endRow();
+    }
+    out.writeTo(FILE);
+
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      ColumnValues[] values = new ColumnValues[5];
+      ColumnVector[] vectors = new ColumnVector[5];
+      for (int c = 0; c < 5; c++) {
+        values[c] = in.getValues(c);
+        vectors[c] = new ColumnVector();
+      }
+      random = TestUtil.createRandom();
+      int[] positions = new int[5]; // next row of each vector
+      int value = 0; // next value of the array vector
+      int row = 0;
+      while (row < COUNT) {
+        for (int c = 0; c < 5; c++)
+          if (positions[c] == vectors[c].getRowCount()) {
+            Assert.assertTrue(values[c].nextBatch(vectors[c], 1000) > 0);
+            positions[c] = 0;
+            if (c == 4)
+              value = 0;
+          }
+        Assert.assertEquals(random.nextLong(), vectors[0].getLongs()[positions[0]++]);
+        ColumnVector b = vectors[1];
+        int p = positions[1]++;
+        Assert.assertEquals(TestUtil.randomString(random),
+            new String(b.getBytes(), b.getStarts()[p], b.getEnds()[p] - b.getStarts()[p], "UTF-8"));
+        Assert.assertEquals(random.nextInt(), vectors[2].getInts()[positions[2]++]);
+        Assert.assertEquals(random.nextBoolean(), vectors[3].getBooleans()[positions[3]++]);
+        ColumnVector e = vectors[4];
+        int length = e.getLengths()[positions[4]++];
+        Assert.assertEquals(row % 3, length);
+        for (int j = 0; j < length; j++)
+          Assert.assertEquals(random.nextDouble(), e.getDoubles()[value++], 0);
+        row++;
+      }
+      for (int c = 0; c < 5; c++)
+        Assert.assertEquals(0, values[c].nextBatch(vectors[c], 1000));
+    }
+  }
+
   @Test
   public void testSeekLongs() throws Exception {
     FILE.delete();
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import static org.apache.trevni.ColumnPredicate.and;
+import static org.apache.trevni.ColumnPredicate.eq;
+import static org.apache.trevni.ColumnPredicate.ge;
+import static org.apache.trevni.ColumnPredicate.gt;
+import static org.apache.trevni.ColumnPredicate.isNull;
+import static org.apache.trevni.ColumnPredicate.lt;
+import static org.apache.trevni.ColumnPredicate.notNull;
+import static org.apache.trevni.ColumnPredicate.or;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestColumnPredicate {
+
+  private static final File FILE = new File("target", "predicate.trv");
+  private static final int COUNT = 1024 * 64;
+
+  @BeforeClass
+  public static void writeFile() throws Exception {
+    FILE.delete();
+    ColumnMetaData optional = new ColumnMetaData("optional", ValueType.INT).isArray(true).hasStatistics(true);
+    ColumnFileWriter out = new ColumnFileWriter(new ColumnFileMetaData().setCodec("deflate"),
+        new ColumnMetaData("sorted", ValueType.FIXED64).hasStatistics(true),
+        new ColumnMetaData("key", ValueType.STRING).hasBloomFilter(true), optional,
+        new ColumnMetaData("plain", ValueType.INT));
+    for (int i = 0; i < COUNT; i++) {
+      out.startRow();
+      out.writeValue((long) i, 0);
+      out.writeValue("key" + i, 1);
+      if (i < COUNT / 2) { // nulls in the first half only
+        out.writeLength(0, 2);
+      } else {
+        out.writeLength(1, 2);
+        out.writeValue(i, 2);
+      }
+      out.writeValue(i, 3);
+      out.endRow();
+    }
+    out.writeTo(FILE);
+  }
+
+  private static RowRanges ranges(ColumnPredicate predicate) throws Exception {
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      return in.getRowRanges(predicate);
+    }
+  }
+
+  private static void assertCovers(RowRanges ranges, long... rows) {
+    for (long row : rows) {
+      boolean found = false;
+      for (int i = 0; i < ranges.size(); i++)
+        found |= ranges.getStart(i) <= row && row < ranges.getEnd(i);
+      Assert.assertTrue(row + " not in " + ranges, found);
+    }
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    RowRanges ranges = ranges(ge("sorted", 60000L));
+    assertCovers(ranges, 60000, COUNT - 1);
+    Assert.assertTrue(ranges.getRowCount() < COUNT / 4);
+    Assert.assertEquals(COUNT, ranges.getEnd(ranges.size() - 1));
+
+    ranges = ranges(lt("sorted", 10)); // ints are converted to the column type
+    Assert.assertEquals(1, ranges.size());
+    Assert.assertEquals(0, ranges.getStart(0));
+    Assert.assertTrue(ranges.getEnd(0) < COUNT);
+
+    Assert.assertEquals(0, ranges(gt("sorted", (long) COUNT)).size());
+  }
+
+  @Test
+  public void testBloomFilter() throws Exception {
+    RowRanges ranges = ranges(eq("key", "key12345"));
+    assertCovers(ranges, 12345);
+    Assert.assertTrue(ranges.getRowCount() < COUNT / 2);
+    Assert.assertEquals(0, ranges(eq("key", "missing")).size()); // beyond maximum
+    Assert.assertTrue(ranges(eq("key", "key12345x")).getRowCount() < COUNT / 8); // within range
+  }
+
+  @Test
+  public void testNulls() throws Exception {
+    assertCovers(ranges(isNull("optional")), 0, COUNT / 2 - 1);
+    assertCovers(ranges(notNull("optional")), COUNT / 2, COUNT - 1);
+    Assert.assertEquals(0, ranges(isNull("sorted")).size());
+    Assert.assertEquals(COUNT, ranges(notNull("sorted")).getRowCount());
+  }
+
+  @Test
+  public void testWithoutStatistics() throws Exception {
+    RowRanges ranges = ranges(eq("plain", -1));
+    Assert.assertEquals(1, ranges.size());
+    Assert.assertEquals(COUNT, ranges.getRowCount());
+  }
+
+  @Test
+  public void testCombine() throws Exception {
+    RowRanges ranges = ranges(and(ge("sorted", 1000L), lt("sorted", 2000L)));
+    assertCovers(ranges, 1000, 1999);
+    Assert.assertTrue(ranges.getRowCount() < COUNT / 4);
+
+    ranges = ranges(or(lt("sorted", 10L), ge("sorted", COUNT - 10L)));
+    Assert.assertEquals(2, ranges.size());
+    assertCovers(ranges, 0, COUNT - 1);
+
+    ranges = ranges(and(lt("sorted", 10L), ge("sorted", COUNT - 10L)));
+    Assert.assertEquals(0, ranges.size());
+  }
+
+  @Test
+  public void testSeekArray() throws Exception {
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      ColumnValues<Integer> optional = in.getValues("optional");
+      long start = COUNT / 2 - 3; // skips a run of empty arrays
+      optional.seek(start);
+      for (long row = start; row < COUNT; row++) {
+        optional.startRow();
+        int length = optional.nextLength();
+        if (row < COUNT / 2) {
+          Assert.assertEquals(0, length);
+        } else {
+          Assert.assertEquals(1, length);
+          Assert.assertEquals((int) row, (int) optional.nextValue());
+        }
+      }
+    }
+  }
+}